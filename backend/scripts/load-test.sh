@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Prueba de carga de punta a punta en una sola máquina: arranca el backend (jar, perfil prod)
+# contra un PostgreSQL local con Getnet y Facturante apuntando a los stubs del harness
+# (src/loadtest), corre los escenarios de loadtest.properties y deja el reporte en
+# target/loadtest/report.json. Los argumentos clave=valor pisan la configuración del harness.
+#
+#   mvn package -DskipTests
+#   scripts/load-test.sh [clave=valor ...]      # p. ej. scenarios=webhook-billing webhook-billing.rate=200
+#
+# Base: DATABASE_URL / DATABASE_USERNAME / DATABASE_PASSWORD; por defecto getnet_facturante_loadtest,
+# que debe existir (el esquema se crea al arrancar). El harness siembra filas LT-*: usar una base dedicada.
+#
+# Con FACTURANTE_SIMULATOR_URL (p. ej. http://localhost:18082, ver facturante-simulator/) el backend
+# factura contra el simulador externo, con sus perfiles de latencia, cupo y caídas, en lugar del stub.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PORT="${SERVER_PORT:-8080}"
+GETNET_STUB="http://localhost:${GETNET_STUB_PORT:-18081}"
+FACTURANTE_STUB="${FACTURANTE_SIMULATOR_URL:-http://localhost:${FACTURANTE_STUB_PORT:-18082}}"
+HARNESS_ARGS="target.url=http://localhost:${PORT} stub.getnet.port=${GETNET_STUB##*:}"
+if [ -n "${FACTURANTE_SIMULATOR_URL:-}" ]; then
+  HARNESS_ARGS="$HARNESS_ARGS facturante.simulator-url=${FACTURANTE_SIMULATOR_URL}"
+else
+  HARNESS_ARGS="$HARNESS_ARGS stub.facturante.port=${FACTURANTE_STUB##*:}"
+fi
+JAR="${JAR:-$(ls target/connector-backend-*.jar | grep -v original | head -n 1)}"
+mkdir -p target/loadtest
+
+export SPRING_PROFILES_ACTIVE="${SPRING_PROFILES_ACTIVE:-prod}"
+export SPRING_JPA_HIBERNATE_DDL_AUTO="${SPRING_JPA_HIBERNATE_DDL_AUTO:-update}"
+export SERVER_PORT="$PORT"
+export DATABASE_URL="${DATABASE_URL:-jdbc:postgresql://localhost:5432/getnet_facturante_loadtest?timezone=UTC&stringtype=unspecified}"
+export DATABASE_USERNAME="${DATABASE_USERNAME:-gf_user}"
+export DATABASE_PASSWORD="${DATABASE_PASSWORD:-}"
+export LOG_FILE="target/loadtest/backend-file.log"
+# Los limitadores por IP del backend se alimentan del X-Forwarded-For que varía el harness
+export SERVER_FORWARD_HEADERS_STRATEGY=native
+# Valores de relleno para los secretos obligatorios del perfil prod
+export JWT_ACCESS_SECRET="${JWT_ACCESS_SECRET:-dGhpc19pc19hX3Rlc3RfYWNjZXNzX3NlY3JldF9iYXNlNjQ=}"
+export JWT_REFRESH_SECRET="${JWT_REFRESH_SECRET:-dGhpc19pc19hX3Rlc3RfcmVmcmVzaF9zZWNyZXRfYmFzZTY0}"
+export GETNET_API_KEY=loadtest GETNET_API_SECRET=loadtest GETNET_SELLER_ID=loadtest
+export MAIL_USERNAME=loadtest MAIL_PASSWORD=loadtest NOTIFICATION_EMAIL_ENABLED=false
+# Getnet: OAuth y Merchant Reporting (GetnetAuthenticationService) y checkout digital (GetnetClient)
+export GETNET_ENVIRONMENT=production
+export GETNET_OAUTH_PRODUCTION="$GETNET_STUB/auth/oauth/v2/token" GETNET_API_PRODUCTION="$GETNET_STUB"
+export GETNET_AUTH_URL="$GETNET_STUB/authentication/oauth2/access_token" GETNET_BASE_URL="$GETNET_STUB/digital-checkout/v1"
+# Facturante: cliente de producción contra el stub SOAP o el simulador
+export FACTURANTE_PRODUCTION=true FACTURANTE_SERVICE_URL="$FACTURANTE_STUB/api/Comprobantes.svc"
+export FACTURANTE_EMPRESA=loadtest FACTURANTE_USUARIO=loadtest FACTURANTE_PASSWORD=loadtest
+
+mvn -B -q -Ploadtest test-compile
+
+java ${JAVA_OPTS:-} -jar "$JAR" > target/loadtest/backend.log 2>&1 &
+pid=$!
+trap 'kill "$pid" 2> /dev/null || true' EXIT
+
+# El harness levanta los stubs, espera la readiness del backend y corre los escenarios
+mvn -B -q -Ploadtest exec:exec -Dloadtest.args="$HARNESS_ARGS $*"
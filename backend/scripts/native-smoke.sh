@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Smoke test del backend contra un PostgreSQL local: arranca el binario native (o el jar, para
+# comparar), espera readiness, envía un webhook y reporta tiempo hasta listo, tiempo hasta el
+# primer webhook procesado y RSS del proceso.
+#
+#   mvn -Pnative native:compile -DskipTests && scripts/native-smoke.sh native
+#   mvn package -DskipTests && scripts/native-smoke.sh jvm
+#
+# Base: DATABASE_URL / DATABASE_USERNAME / DATABASE_PASSWORD (por defecto la del docker-compose).
+# El esquema se crea/actualiza al arrancar (ddl-auto=update), así que sirve una base vacía.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+MODE="${1:-native}"
+PORT="${SERVER_PORT:-8080}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+BASE_URL="http://localhost:${PORT}"
+
+export SPRING_PROFILES_ACTIVE="${SPRING_PROFILES_ACTIVE:-prod}"
+export SPRING_JPA_HIBERNATE_DDL_AUTO="${SPRING_JPA_HIBERNATE_DDL_AUTO:-update}"
+export SERVER_PORT="$PORT"
+export DATABASE_URL="${DATABASE_URL:-jdbc:postgresql://localhost:5432/getnet_facturante?timezone=UTC&stringtype=unspecified}"
+export DATABASE_USERNAME="${DATABASE_USERNAME:-gf_user}"
+export DATABASE_PASSWORD="${DATABASE_PASSWORD:-}"
+# El webhook sin X-Tenant-Secret se procesa para el tenant por defecto (modo prueba)
+export GETNET_WEBHOOK_ALLOW_UNSIGNED=true
+# Valores de relleno para los secretos obligatorios del perfil prod
+export JWT_ACCESS_SECRET="${JWT_ACCESS_SECRET:-dGhpc19pc19hX3Rlc3RfYWNjZXNzX3NlY3JldF9iYXNlNjQ=}"
+export JWT_REFRESH_SECRET="${JWT_REFRESH_SECRET:-dGhpc19pc19hX3Rlc3RfcmVmcmVzaF9zZWNyZXRfYmFzZTY0}"
+export GETNET_API_KEY="${GETNET_API_KEY:-smoke}" GETNET_API_SECRET="${GETNET_API_SECRET:-smoke}" GETNET_SELLER_ID="${GETNET_SELLER_ID:-smoke}"
+export FACTURANTE_SERVICE_URL="${FACTURANTE_SERVICE_URL:-http://localhost:9}" FACTURANTE_EMPRESA="${FACTURANTE_EMPRESA:-smoke}"
+export FACTURANTE_USUARIO="${FACTURANTE_USUARIO:-smoke}" FACTURANTE_PASSWORD="${FACTURANTE_PASSWORD:-smoke}"
+export MAIL_USERNAME="${MAIL_USERNAME:-smoke}" MAIL_PASSWORD="${MAIL_PASSWORD:-smoke}"
+
+case "$MODE" in
+  native)
+    CMD=(target/connector-backend)
+    ;;
+  jvm)
+    CMD=(java -jar "$(ls target/connector-backend-*.jar | grep -v original | head -n 1)")
+    ;;
+  *)
+    echo "Uso: $0 [native|jvm]"; exit 1
+    ;;
+esac
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+start=$(now_ms)
+"${CMD[@]}" > "target/smoke-$MODE.log" 2>&1 &
+pid=$!
+trap 'kill "$pid" 2> /dev/null || true' EXIT
+
+until curl -sf "$BASE_URL/actuator/health/readiness" > /dev/null 2>&1; do
+  if ! kill -0 "$pid" 2> /dev/null; then
+    echo "La aplicación terminó antes de estar lista, ver target/smoke-$MODE.log"; exit 1
+  fi
+  if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+    echo "Timeout esperando readiness"; exit 1
+  fi
+  sleep 0.05
+done
+ready=$(( $(now_ms) - start ))
+
+# Webhook no facturable: mide el camino completo (parseo, upsert, evento) sin depender de Facturante
+response=$(curl -s -w '\n%{http_code}' -X POST "$BASE_URL/api/webhooks/getnet" \
+  -H 'Content-Type: application/json' \
+  -d "{\"id\":\"SMOKE-$(date +%s%N)\",\"status\":\"AUTHORIZED\",\"amount\":10}")
+first_webhook=$(( $(now_ms) - start ))
+status=$(echo "$response" | tail -n 1)
+body=$(echo "$response" | head -n -1)
+if [[ "$status" != "200" || "$body" != *'"processed":true'* ]]; then
+  echo "Webhook falló ($status): $body"; exit 1
+fi
+
+rss_kb=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+echo "$MODE: listo en ${ready} ms, primer webhook en ${first_webhook} ms, RSS $(( rss_kb / 1024 )) MB"
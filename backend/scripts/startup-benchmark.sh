@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta "listo" (readiness UP) del backend en modo JVM estándar y en modo
+# de arranque rápido (AOT + CDS + perfil fast). Cada modo se arranca RUNS veces y se
+# reporta mediana, mínimo y máximo. Necesita una base PostgreSQL accesible con el esquema
+# creado (las variables de entorno del perfil prod: DATABASE_URL, DATABASE_PASSWORD, JWT_*...).
+#
+#   mvn -Pfast-startup package -DskipTests
+#   scripts/startup-benchmark.sh [runs] [modos]     # p. ej. scripts/startup-benchmark.sh 5 "jvm fast"
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+MODES="${2:-jvm fast}"
+PORT="${SERVER_PORT:-8080}"
+PROFILES="${SPRING_PROFILES_ACTIVE:-prod}"
+JAR="${JAR:-$(ls target/connector-backend-*.jar | grep -v original | head -n 1)}"
+FAST_DIR="target/fast-startup"
+READY_URL="http://localhost:${PORT}/actuator/health/readiness"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-180}"
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Jar extraído + archivo CDS (misma corrida de entrenamiento que el Dockerfile)
+prepare_fast() {
+  if [[ -f "$FAST_DIR/application.jsa" && "$FAST_DIR/app.jar" -nt "$JAR" ]]; then
+    return
+  fi
+  rm -rf "$FAST_DIR"
+  java -Djarmode=tools -jar "$JAR" extract --destination "$FAST_DIR"
+  (cd "$FAST_DIR" && java -XX:ArchiveClassesAtExit=application.jsa \
+      -Dspring.aot.enabled=true \
+      -Dspring.profiles.active="$PROFILES,fast" \
+      -Dspring.context.exit=onRefresh \
+      -Dspring.jpa.hibernate.ddl-auto=none \
+      -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+      -jar app.jar > training.log 2>&1) || { echo "Falló la corrida de entrenamiento CDS, ver $FAST_DIR/training.log"; exit 1; }
+}
+
+start_app() {
+  case "$1" in
+    jvm)
+      SPRING_PROFILES_ACTIVE="$PROFILES" java -jar "$JAR" > "target/startup-$1.log" 2>&1 &
+      ;;
+    fast)
+      (cd "$FAST_DIR" && SPRING_PROFILES_ACTIVE="$PROFILES,fast" exec java -XX:SharedArchiveFile=application.jsa \
+          -Dspring.aot.enabled=true -jar app.jar) > "target/startup-$1.log" 2>&1 &
+      ;;
+    *)
+      echo "Modo desconocido: $1 (jvm | fast)"; exit 1
+      ;;
+  esac
+  echo $!
+}
+
+measure() {
+  local mode="$1" start pid elapsed
+  start=$(now_ms)
+  pid=$(start_app "$mode")
+  until curl -sf "$READY_URL" > /dev/null 2>&1; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "La aplicación terminó antes de estar lista, ver target/startup-$mode.log" >&2; exit 1
+    fi
+    if (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+      kill "$pid"; echo "Timeout esperando readiness ($mode)" >&2; exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$elapsed"
+}
+
+for mode in $MODES; do
+  [[ "$mode" == "fast" ]] && prepare_fast
+  times=()
+  for run in $(seq 1 "$RUNS"); do
+    ms=$(measure "$mode")
+    echo "$mode #$run: ${ms} ms"
+    times+=("$ms")
+  done
+  sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+  echo "== $mode: mediana ${sorted[$(( RUNS / 2 ))]} ms, min ${sorted[0]} ms, max ${sorted[$(( RUNS - 1 ))]} ms"
+done
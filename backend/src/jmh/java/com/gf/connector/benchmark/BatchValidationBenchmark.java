@@ -0,0 +1,85 @@
+package com.gf.connector.benchmark;
+
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.service.BillingValidationService;
+import com.gf.connector.service.BillingValidationService.ValidationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación en lote de 100k transacciones, como en la reconciliación o la confirmación masiva:
+ * {@code validateAll} en modo fail-fast y collect-all, y la validación una por una. Uno de cada
+ * diez registros es inválido (sin moneda, monto cero o sin estado).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchValidationBenchmark {
+
+    private static final int BATCH = 100_000;
+    private static final String[] DOCUMENTS = {"20123456786", "20-12345678-6", "30111222", null, "123"};
+
+    private final BillingValidationService validationService = new BillingValidationService();
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.quietLogging();
+        Random random = new Random(42);
+        transactions = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            Transaction transaction = Transaction.builder()
+                    .externalId("TXN-" + i)
+                    .amount(BigDecimal.valueOf(100 + random.nextInt(5_000_000), 2))
+                    .currency(random.nextInt(4) == 0 ? "BRL" : "ARS")
+                    .customerDoc(DOCUMENTS[random.nextInt(DOCUMENTS.length)])
+                    .status(TransactionStatus.PAID)
+                    .tenantId(BenchmarkFixtures.TENANT_ID)
+                    .build();
+            if (i % 10 == 0) {
+                switch (random.nextInt(3)) {
+                    case 0 -> transaction.setCurrency(null);
+                    case 1 -> transaction.setAmount(BigDecimal.ZERO);
+                    default -> transaction.setStatus(null);
+                }
+            }
+            transactions.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public List<BillingValidationService.ValidationResult> validateAllFailFast() {
+        return validationService.validateAll(transactions);
+    }
+
+    @Benchmark
+    public List<BillingValidationService.ValidationResult> validateAllCollectAll() {
+        return validationService.validateAll(transactions, ValidationMode.COLLECT_ALL);
+    }
+
+    @Benchmark
+    public void validateOneByOne(Blackhole blackhole) {
+        for (Transaction transaction : transactions) {
+            blackhole.consume(validationService.validateTransaction(transaction));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.gf.connector.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.domain.BillingSettings;
+import com.gf.connector.facturante.config.FacturanteConfig;
+import com.gf.connector.repo.BillingSettingsRepository;
+import com.gf.connector.service.BillingSettingsService;
+import com.gf.connector.service.GetnetToFacturanteTransformationService;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Payloads reales (src/jmh/resources/fixtures) y servicios armados sin contexto de Spring
+ * para los benchmarks. La configuración de facturación se sirve desde memoria: el costo de
+ * la consulta a la base no es parte de lo que se mide.
+ */
+final class BenchmarkFixtures {
+
+    static final UUID TENANT_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * El logging a INFO de los servicios domina el tiempo medido (appender de consola); se
+     * sube a WARN como en producción para medir solo el CPU del código
+     */
+    static void quietLogging() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("com.gf.connector")).setLevel(Level.WARN);
+    }
+
+    static byte[] webhook(String name) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/webhook-" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Fixture inexistente: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Map<String, Object> parse(byte[] body) {
+        try {
+            return OBJECT_MAPPER.readValue(body, MAP_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static GetnetToFacturanteTransformationService transformationService() {
+        FacturanteConfig facturanteConfig = new FacturanteConfig();
+        facturanteConfig.setEmpresa("bench-empresa");
+        facturanteConfig.setUsuario("bench-usuario");
+        facturanteConfig.setPassword("bench-password");
+        return new GetnetToFacturanteTransformationService(facturanteConfig, OBJECT_MAPPER,
+                new BillingSettingsService(settingsRepository(billingSettings())));
+    }
+
+    static BillingSettings billingSettings() {
+        return BillingSettings.builder()
+                .tenantId(TENANT_ID)
+                .cuitEmpresa("30712345671")
+                .razonSocialEmpresa("Bodega Benchmark S.A.")
+                .puntoVenta("0001")
+                .tipoComprobante("FB")
+                .ivaPorDefecto(new BigDecimal("21.00"))
+                .consumidorFinalPorDefecto(false)
+                .enviarComprobante(true)
+                .build();
+    }
+
+    /**
+     * Repositorio en memoria: solo responde la consulta de configuración activa
+     */
+    private static BillingSettingsRepository settingsRepository(BillingSettings settings) {
+        Optional<BillingSettings> active = Optional.of(settings);
+        return (BillingSettingsRepository) Proxy.newProxyInstance(BillingSettingsRepository.class.getClassLoader(),
+                new Class<?>[] {BillingSettingsRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByActivoTrueAndTenantId")) {
+                        return active;
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.getName().equals("hashCode") ? System.identityHashCode(proxy)
+                                : method.getName().equals("equals") ? proxy == args[0] : "BillingSettingsRepository(bench)";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
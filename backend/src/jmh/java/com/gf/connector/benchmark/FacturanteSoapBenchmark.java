@@ -0,0 +1,80 @@
+package com.gf.connector.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.client.FacturanteSoapCodec;
+import com.gf.connector.facturante.model.CrearComprobanteRequest;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.service.GetnetToFacturanteTransformationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de CPU del cliente SOAP de Facturante por comprobante, sin red: serialización del
+ * request y parseo de la respuesta con {@link FacturanteSoapCodec}. El objetivo es que el cliente
+ * sume menos de 1 ms por comprobante además del tiempo de red.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FacturanteSoapBenchmark {
+
+    private static final String RESPONSE = "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>"
+            + "<CrearComprobanteResponse xmlns=\"http://www.facturante.com.API\">"
+            + "<CrearComprobanteResult xmlns:a=\"http://schemas.datacontract.org/2004/07/FacturanteMVC.API.DTOs\""
+            + " xmlns:i=\"http://www.w3.org/2001/XMLSchema-instance\">"
+            + "<a:Cae>71234567890123</a:Cae><a:Estado>Aprobado</a:Estado><a:Exitoso>true</a:Exitoso>"
+            + "<a:FechaVencimientoCae>2026-10-29</a:FechaVencimientoCae>"
+            + "<a:Mensajes xmlns:b=\"http://schemas.microsoft.com/2003/10/Serialization/Arrays\">"
+            + "<b:string>Comprobante creado exitosamente</b:string></a:Mensajes>"
+            + "<a:NumeroComprobante>00001-00000042</a:NumeroComprobante>"
+            + "<a:PdfUrl>https://www.facturante.com/pdf/00001-00000042.pdf</a:PdfUrl>"
+            + "</CrearComprobanteResult></CrearComprobanteResponse></s:Body></s:Envelope>";
+
+    private final FacturanteSoapCodec codec = new FacturanteSoapCodec();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(8 * 1024);
+    private CrearComprobanteRequest request;
+    private byte[] response;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        GetnetToFacturanteTransformationService transformationService = BenchmarkFixtures.transformationService();
+        byte[] body = BenchmarkFixtures.webhook("caso-real");
+        Transaction transaction = transformationService.transformWebhookToTransaction(
+                new String(body, StandardCharsets.UTF_8), BenchmarkFixtures.parse(body));
+        transaction.setTenantId(BenchmarkFixtures.TENANT_ID);
+        JsonNode payloadNode = BenchmarkFixtures.OBJECT_MAPPER.readTree(body);
+        request = transformationService.transformTransactionToFacturanteRequest(transaction, payloadNode);
+        response = RESPONSE.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int writeRequest() throws Exception {
+        buffer.reset();
+        codec.writeCrearComprobante(request, buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public CrearComprobanteResponse readResponse() throws Exception {
+        return codec.readCrearComprobanteResponse(new ByteArrayInputStream(response));
+    }
+}
@@ -0,0 +1,61 @@
+package com.gf.connector.benchmark;
+
+import com.gf.connector.security.JwtTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo y verificación del access token que hace el filtro JWT en cada request autenticado
+ * (hoy {@code validateAccessTokenAndGetSubject} y {@code getTenantIdClaim} parsean cada uno el token).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParsingBenchmark {
+
+    private static final String ACCESS_SECRET = "dGhpc19pc19hX2JlbmNobWFya19hY2Nlc3Nfc2VjcmV0X2Jhc2U2NA==";
+    private static final String REFRESH_SECRET = "dGhpc19pc19hX2JlbmNobWFya19yZWZyZXNoX3NlY3JldF9iYXNlNjQ=";
+
+    private JwtTokenService jwtTokenService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtTokenService = new JwtTokenService(ACCESS_SECRET, REFRESH_SECRET, 900, 604800,
+                "gf-connector", "getnet-facturante");
+        // Mismos claims que emite AuthController (authorities serializadas + tenantId)
+        token = jwtTokenService.generateAccessToken("admin", Map.of(
+                "roles", List.of(Map.of("authority", "ROLE_ADMIN"), Map.of("authority", "ROLE_USER")),
+                "tenantId", BenchmarkFixtures.TENANT_ID.toString()));
+    }
+
+    @Benchmark
+    public String validateAccessToken() {
+        return jwtTokenService.validateAccessTokenAndGetSubject(token);
+    }
+
+    @Benchmark
+    public String tenantIdClaim() {
+        return jwtTokenService.getTenantIdClaim(token);
+    }
+
+    @Benchmark
+    public Map<String, Object> tokenClaims() {
+        return jwtTokenService.getTokenClaims(token);
+    }
+}
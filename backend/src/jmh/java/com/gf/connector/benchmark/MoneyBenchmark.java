@@ -0,0 +1,103 @@
+package com.gf.connector.benchmark;
+
+import com.gf.connector.domain.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuentas de importes sobre un lote de montos: neto sin IVA al 21% y totales de reportes,
+ * con {@code BigDecimal} (el camino anterior), {@code double} (lo que hacían los reportes) y
+ * centavos en {@code long} con {@link Money}. Cada método procesa el lote entero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final BigDecimal IVA_RATE = new BigDecimal("0.2100");
+    private static final long IVA_RATE_UNSCALED = 2_100;
+
+    private BigDecimal[] amounts;
+    private long[] centavos;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[BATCH];
+        centavos = new long[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            centavos[i] = 100 + random.nextInt(5_000_000);
+            amounts[i] = BigDecimal.valueOf(centavos[i], 2);
+        }
+    }
+
+    @Benchmark
+    public void netoBigDecimal(Blackhole blackhole) {
+        for (BigDecimal total : amounts) {
+            blackhole.consume(total.subtract(total.multiply(IVA_RATE).setScale(2, RoundingMode.HALF_UP)));
+        }
+    }
+
+    @Benchmark
+    public void netoMoney(Blackhole blackhole) {
+        for (long total : centavos) {
+            blackhole.consume(total - Money.applyRate(total, IVA_RATE_UNSCALED, 4, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Neto con la conversión de entrada y salida a {@code BigDecimal}, como en el plan de transformación
+     */
+    @Benchmark
+    public void netoMoneyDesdeBigDecimal(Blackhole blackhole) {
+        for (BigDecimal total : amounts) {
+            long minor = Money.toMinorUnits(total, 2, RoundingMode.UNNECESSARY);
+            blackhole.consume(BigDecimal.valueOf(minor - Money.applyRate(minor, IVA_RATE_UNSCALED, 4, RoundingMode.HALF_UP), 2));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal totalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double totalDouble() {
+        double total = 0;
+        for (BigDecimal amount : amounts) {
+            total += amount.doubleValue();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long totalCentavos() {
+        long total = 0;
+        for (BigDecimal amount : amounts) {
+            total = Math.addExact(total, Money.toMinorUnits(amount, 2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gf.connector.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.model.CrearComprobanteRequest;
+import com.gf.connector.service.GetnetToFacturanteTransformationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transformación webhook → Transaction → request de Facturante, por formato de payload. El request
+ * se arma con el plan ya compilado para el tenant (la primera llamada, en el setup, lo compila).
+ * El payload llega ya parseado, como en el pipeline real (WebhookIntake parsea una sola vez).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformationBenchmark {
+
+    @Param({"caso-real", "bonvino", "simple"})
+    public String format;
+
+    private GetnetToFacturanteTransformationService transformationService;
+    private String rawJson;
+    private Map<String, Object> payload;
+    private JsonNode payloadNode;
+    private Transaction transaction;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        transformationService = BenchmarkFixtures.transformationService();
+        byte[] body = BenchmarkFixtures.webhook(format);
+        rawJson = new String(body, StandardCharsets.UTF_8);
+        payload = BenchmarkFixtures.parse(body);
+        payloadNode = BenchmarkFixtures.OBJECT_MAPPER.readTree(body);
+        transaction = transformationService.transformWebhookToTransaction(rawJson, payload);
+        transaction.setTenantId(BenchmarkFixtures.TENANT_ID);
+        transformationService.transformTransactionToFacturanteRequest(transaction, payloadNode);
+    }
+
+    @Benchmark
+    public Transaction webhookToTransaction() {
+        return transformationService.transformWebhookToTransaction(rawJson, payload);
+    }
+
+    @Benchmark
+    public CrearComprobanteRequest transactionToFacturanteRequest() {
+        return transformationService.transformTransactionToFacturanteRequest(transaction, payloadNode);
+    }
+}
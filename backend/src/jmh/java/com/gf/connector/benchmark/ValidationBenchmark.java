@@ -0,0 +1,67 @@
+package com.gf.connector.benchmark;
+
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.model.CrearComprobanteRequest;
+import com.gf.connector.service.BillingValidationService;
+import com.gf.connector.service.GetnetToFacturanteTransformationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validaciones previas a la emisión sobre la transacción y el request ya transformados
+ * a partir de los payloads de fixtures (camino válido, el caso habitual en producción).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"caso-real", "bonvino"})
+    public String format;
+
+    private final BillingValidationService validationService = new BillingValidationService();
+    private Transaction transaction;
+    private CrearComprobanteRequest request;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        GetnetToFacturanteTransformationService transformationService = BenchmarkFixtures.transformationService();
+        byte[] body = BenchmarkFixtures.webhook(format);
+        transaction = transformationService.transformWebhookToTransaction(
+                new String(body, StandardCharsets.UTF_8), BenchmarkFixtures.parse(body));
+        transaction.setTenantId(BenchmarkFixtures.TENANT_ID);
+        request = transformationService.transformTransactionToFacturanteRequest(
+                transaction, BenchmarkFixtures.OBJECT_MAPPER.readTree(body));
+        if (!validationService.validateTransaction(transaction).isValid()
+                || !validationService.validateFacturanteRequest(request).isValid()) {
+            throw new IllegalStateException("El fixture " + format + " debe pasar la validación");
+        }
+    }
+
+    @Benchmark
+    public BillingValidationService.ValidationResult validateTransaction() {
+        return validationService.validateTransaction(transaction);
+    }
+
+    @Benchmark
+    public BillingValidationService.ValidationResult validateFacturanteRequest() {
+        return validationService.validateFacturanteRequest(request);
+    }
+}
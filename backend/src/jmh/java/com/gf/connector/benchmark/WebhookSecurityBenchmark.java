@@ -0,0 +1,72 @@
+package com.gf.connector.benchmark;
+
+import com.gf.connector.security.GetnetSignatureService;
+import com.gf.connector.service.WebhookIntake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación HMAC de la firma del webhook y hash SHA-256 de idempotencia, sobre el body crudo.
+ * El hash de texto reproduce {@code WebhookService.sha256Hex(String)} (codificar + digerir).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebhookSecurityBenchmark {
+
+    private static final String SECRET = "whsec_3f9c1b7e2a4d8f60b5c9e1a7d3f2b8c4";
+
+    @Param({"caso-real", "simple"})
+    public String format;
+
+    private final GetnetSignatureService signatureService = new GetnetSignatureService();
+    private byte[] body;
+    private String rawJson;
+    private String signature;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkFixtures.quietLogging();
+        body = BenchmarkFixtures.webhook(format);
+        rawJson = new String(body, StandardCharsets.UTF_8);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = HexFormat.of().formatHex(mac.doFinal(body));
+        if (!signatureService.verifyWithSecret(SECRET, body, signature)) {
+            throw new IllegalStateException("La firma del fixture debe verificar (¿GETNET_WEBHOOK_ALLOW_UNSIGNED activo?)");
+        }
+    }
+
+    @Benchmark
+    public boolean verifyWithSecret() {
+        return signatureService.verifyWithSecret(SECRET, body, signature);
+    }
+
+    @Benchmark
+    public String sha256HexBytes() {
+        return WebhookIntake.sha256Hex(body);
+    }
+
+    @Benchmark
+    public String sha256HexText() {
+        return WebhookIntake.sha256Hex(rawJson.getBytes(StandardCharsets.UTF_8));
+    }
+}
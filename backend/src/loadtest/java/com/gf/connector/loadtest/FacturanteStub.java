@@ -0,0 +1,103 @@
+package com.gf.connector.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Facturante: operación SOAP {@code CrearComprobante} del servicio de comprobantes.
+ *
+ * Numera en forma correlativa por tipo de comprobante y punto de venta (prefijo) y devuelve un
+ * CAE sintético. Además de los errores de transporte del {@link FaultProfile} (HTTP 5xx, como
+ * una caída de AFIP), {@code stub.facturante.reject-rate} simula rechazos funcionales:
+ * respuesta 200 con {@code Exitoso=false}.
+ */
+class FacturanteStub extends StubServer {
+
+    static final String SERVICE_NS = "http://www.facturante.com.API";
+    static final String TYPES_NS = "http://schemas.datacontract.org/2004/07/FacturanteMVC.API.DTOs";
+
+    private static final Pattern TIPO = Pattern.compile("<(?:\\w+:)?TipoComprobante>([^<]*)<");
+    private static final Pattern PREFIJO = Pattern.compile("<(?:\\w+:)?Prefijo>([^<]*)<");
+
+    private final double rejectRate;
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    FacturanteStub(int port, FaultProfile faults, double rejectRate) throws IOException {
+        super("facturante", port, faults);
+        this.rejectRate = rejectRate;
+    }
+
+    String serviceUrl() {
+        return baseUrl() + "/api/Comprobantes.svc";
+    }
+
+    @Override
+    protected String handle(HttpExchange exchange, byte[] body) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/Comprobantes.svc")) {
+            return null;
+        }
+        String xml = new String(body, StandardCharsets.UTF_8);
+        if (!xml.contains("CrearComprobante")) {
+            respond(exchange, 500, "text/xml; charset=utf-8", fault("s:Client", "Operación no soportada por el stub"));
+            return "unsupported";
+        }
+        if (rejectRate > 0 && ThreadLocalRandom.current().nextDouble() < rejectRate) {
+            respond(exchange, 200, "text/xml; charset=utf-8", response(false, "Rechazado",
+                    "Comprobante rechazado por AFIP (simulado)", null, null));
+            return "crear_comprobante_rechazado";
+        }
+        String tipo = extract(TIPO, xml, "FB");
+        String prefijo = extract(PREFIJO, xml, "00001");
+        long numero = sequences.computeIfAbsent(tipo + "-" + prefijo, k -> new AtomicLong()).incrementAndGet();
+        String numeroComprobante = prefijo + "-" + String.format(Locale.ROOT, "%08d", numero);
+        String cae = String.format(Locale.ROOT, "7%013d", ThreadLocalRandom.current().nextLong(10_000_000_000_000L));
+        respond(exchange, 200, "text/xml; charset=utf-8", response(true, "Aprobado",
+                "Comprobante creado exitosamente", numeroComprobante, cae));
+        return "crear_comprobante";
+    }
+
+    @Override
+    protected void injectedError(HttpExchange exchange, int status) throws IOException {
+        respond(exchange, status, "text/xml; charset=utf-8", fault("s:Server", "Servicio no disponible (simulado)"));
+    }
+
+    private static String extract(Pattern pattern, String xml, String defaultValue) {
+        Matcher matcher = pattern.matcher(xml);
+        return matcher.find() && !matcher.group(1).isBlank() ? matcher.group(1).trim() : defaultValue;
+    }
+
+    private static String response(boolean exitoso, String estado, String mensaje, String numero, String cae) {
+        StringBuilder xml = new StringBuilder(768)
+                .append("<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>")
+                .append("<CrearComprobanteResponse xmlns=\"").append(SERVICE_NS).append("\">")
+                .append("<CrearComprobanteResult xmlns:a=\"").append(TYPES_NS)
+                .append("\" xmlns:i=\"http://www.w3.org/2001/XMLSchema-instance\">")
+                .append("<a:Estado>").append(estado).append("</a:Estado>")
+                .append("<a:Exitoso>").append(exitoso).append("</a:Exitoso>")
+                .append("<a:Mensajes xmlns:b=\"http://schemas.microsoft.com/2003/10/Serialization/Arrays\"><b:string>")
+                .append(mensaje).append("</b:string></a:Mensajes>");
+        if (exitoso) {
+            xml.append("<a:Cae>").append(cae).append("</a:Cae>")
+                    .append("<a:NumeroComprobante>").append(numero).append("</a:NumeroComprobante>")
+                    .append("<a:FechaVencimientoCae>").append(LocalDate.now().plusDays(10)).append("</a:FechaVencimientoCae>")
+                    .append("<a:PdfUrl>http://localhost/pdf/").append(numero).append(".pdf</a:PdfUrl>");
+        }
+        return xml.append("</CrearComprobanteResult></CrearComprobanteResponse></s:Body></s:Envelope>").toString();
+    }
+
+    private static String fault(String code, String message) {
+        return "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body><s:Fault>"
+                + "<faultcode>" + code + "</faultcode><faultstring>" + message + "</faultstring>"
+                + "</s:Fault></s:Body></s:Envelope>";
+    }
+}
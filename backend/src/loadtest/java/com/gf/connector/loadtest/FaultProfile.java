@@ -0,0 +1,41 @@
+package com.gf.connector.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latencia y errores inyectados por un stub. La latencia es la base más un componente
+ * exponencial de media {@code jitterMs}, que da la cola larga típica de un servicio remoto;
+ * {@code errorRate} es la fracción de requests respondidos con {@code errorStatus}.
+ */
+record FaultProfile(long latencyMs, long jitterMs, double errorRate, int errorStatus) {
+
+    static FaultProfile from(LoadTestConfig config, String prefix) {
+        return new FaultProfile(
+                config.getInt(prefix + ".latency-ms", 0),
+                config.getInt(prefix + ".jitter-ms", 0),
+                config.getDouble(prefix + ".error-rate", 0),
+                config.getInt(prefix + ".error-status", 503));
+    }
+
+    /**
+     * Duerme la latencia sorteada para este request
+     */
+    void delay() throws InterruptedException {
+        long millis = latencyMs;
+        if (jitterMs > 0) {
+            millis += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * jitterMs);
+        }
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    boolean failNow() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    @Override
+    public String toString() {
+        return latencyMs + "ms + exp(" + jitterMs + "ms), errores " + (errorRate * 100) + "% (" + errorStatus + ")";
+    }
+}
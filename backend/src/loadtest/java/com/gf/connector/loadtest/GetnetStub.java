@@ -0,0 +1,97 @@
+package com.gf.connector.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Getnet: OAuth (los dos endpoints que usa el backend), Merchant Reporting y pagos.
+ *
+ * El reporte de transacciones es sintético y estable: {@code stub.getnet.report-size} pagos
+ * PAID con ids {@code RPT-000001...}, paginado por {@code page}/{@code size} como la API real.
+ */
+class GetnetStub extends StubServer {
+
+    private static final String JSON = "application/json";
+
+    private final int reportSize;
+
+    GetnetStub(int port, FaultProfile faults, int reportSize) throws IOException {
+        super("getnet", port, faults);
+        // Con un reporte vacío GetnetAuthenticationService vuelve a pedir la primera página sin fin
+        this.reportSize = Math.max(1, reportSize);
+    }
+
+    /**
+     * Base de {@code getnet.api.*} y de las URLs de OAuth de GetnetAuthenticationService
+     */
+    String oauthUrl() {
+        return baseUrl() + "/auth/oauth/v2/token";
+    }
+
+    /**
+     * {@code getnet.auth-url} y {@code getnet.base-url} de GetnetClient (checkout digital)
+     */
+    String checkoutAuthUrl() {
+        return baseUrl() + "/authentication/oauth2/access_token";
+    }
+
+    String checkoutBaseUrl() {
+        return baseUrl() + "/digital-checkout/v1";
+    }
+
+    @Override
+    protected String handle(HttpExchange exchange, byte[] body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        if ("POST".equals(method) && (path.equals("/auth/oauth/v2/token") || path.equals("/authentication/oauth2/access_token"))) {
+            respond(exchange, 200, JSON, "{\"access_token\":\"lt-" + UUID.randomUUID()
+                    + "\",\"token_type\":\"Bearer\",\"expires_in\":3600,\"scope\":\"oob\"}");
+            return "oauth";
+        }
+        if ("GET".equals(method) && path.equals("/v1/reports/transactions")) {
+            respond(exchange, 200, JSON, report(Integer.parseInt(query(exchange, "page", "1")),
+                    Integer.parseInt(query(exchange, "size", "100"))));
+            return "merchant_report";
+        }
+        if ("POST".equals(method) && path.equals("/digital-checkout/v1/payment-intent")) {
+            respond(exchange, 201, JSON, "{\"payment_intent_id\":\"PI-" + UUID.randomUUID() + "\"}");
+            return "payment_intent";
+        }
+        if ("POST".equals(method) && path.startsWith("/digital-checkout/v1/payments/")) {
+            String paymentId = path.split("/")[4];
+            if (path.endsWith("/cancellation")) {
+                respond(exchange, 201, JSON, "");
+                return "cancellation";
+            }
+            if (path.endsWith("/refund")) {
+                respond(exchange, 201, JSON, "{\"payment_id\":\"" + paymentId + "\",\"authorization_code\":\"LT"
+                        + (System.nanoTime() % 1_000_000) + "\",\"status\":\"Refunded\",\"transaction_datetime\":\""
+                        + OffsetDateTime.now(ZoneOffset.UTC) + "\"}");
+                return "refund";
+            }
+        }
+        return null;
+    }
+
+    private String report(int page, int size) {
+        int from = Math.max(0, (page - 1) * size);
+        int to = Math.min(reportSize, from + size);
+        StringBuilder json = new StringBuilder(64 + Math.max(0, to - from) * 110).append("{\"transactions\":[");
+        OffsetDateTime day = OffsetDateTime.now(ZoneOffset.UTC).withHour(12).withMinute(0).withSecond(0).withNano(0);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"RPT-").append(String.format(Locale.ROOT, "%06d", i + 1))
+                    .append("\",\"status\":\"PAID\",\"amount\":").append(1000 + (i % 97) * 137.5)
+                    .append(",\"timestamp\":\"").append(day.minusMinutes(i)).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.gf.connector.loadtest;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Preparación de datos directo sobre PostgreSQL, fuera de la medición: secreto de webhook del
+ * tenant, transacciones pendientes a las que apuntan los webhooks firmados (GetnetService exige
+ * que el payment intent exista) y volumen para el escenario de listado.
+ *
+ * Las filas sembradas llevan external_id {@code LT-<corrida>-...}; usar una base dedicada.
+ */
+final class HarnessDatabase implements AutoCloseable {
+
+    private static final int BATCH = 1_000;
+
+    private final Connection connection;
+
+    HarnessDatabase(String url, String username, String password) throws SQLException {
+        this.connection = DriverManager.getConnection(url, username, password);
+    }
+
+    UUID tenantOf(String username) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT tenant_id FROM users WHERE username = ?")) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("No existe el usuario " + username + " (¿arrancó el backend?)");
+                }
+                return rs.getObject(1, UUID.class);
+            }
+        }
+    }
+
+    /**
+     * Asigna el secreto a la configuración activa más antigua del tenant
+     */
+    void configureWebhookSecret(UUID tenantId, String secret) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE billing_settings SET webhook_secret = ? WHERE id = (SELECT id FROM billing_settings " +
+                "WHERE tenant_id = ? AND activo = true ORDER BY created_at LIMIT 1)")) {
+            ps.setString(1, secret);
+            ps.setObject(2, tenantId);
+            if (ps.executeUpdate() != 1) {
+                throw new IllegalStateException("El tenant " + tenantId + " no tiene configuración de facturación activa");
+            }
+        }
+    }
+
+    /**
+     * Inserta transacciones pendientes para los índices {@code from .. from + count - 1}, con
+     * el external_id que da {@code externalId}, y devuelve sus ids en el mismo orden
+     */
+    List<UUID> seedPending(UUID tenantId, IntFunction<String> externalId, int from, int count) throws SQLException {
+        List<UUID> ids = new ArrayList<>(count);
+        Timestamp now = Timestamp.from(Instant.now());
+        insert(count, (ps, i) -> {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            bind(ps, id, externalId.apply(from + i), WebhookFactory.amount(from + i), "pending", "pending", tenantId, now);
+        });
+        return ids;
+    }
+
+    /**
+     * Completa hasta {@code minRows} transacciones facturadas del tenant, repartidas en los últimos 90 días
+     */
+    int ensureVolume(UUID tenantId, String prefix, int minRows) throws SQLException {
+        int existing;
+        try (PreparedStatement ps = connection.prepareStatement("SELECT count(*) FROM transactions WHERE tenant_id = ?")) {
+            ps.setObject(1, tenantId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                existing = rs.getInt(1);
+            }
+        }
+        int missing = Math.max(0, minRows - existing);
+        Instant now = Instant.now();
+        insert(missing, (ps, i) -> {
+            Instant createdAt = now.minus(ThreadLocalRandom.current().nextLong(90 * 24 * 60), ChronoUnit.MINUTES);
+            bind(ps, UUID.randomUUID(), prefix + i, WebhookFactory.amount(i), "paid", "billed", tenantId,
+                    Timestamp.from(createdAt));
+        });
+        return existing + missing;
+    }
+
+    private void insert(int count, RowBinder binder) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO transactions (id, external_id, amount, currency, status, customer_doc, tenant_id, " +
+                "billing_status, reconciled, created_at, updated_at) VALUES (?, ?, ?, 'ARS', ?, ?, ?, ?, false, ?, ?)")) {
+            for (int i = 0; i < count; i++) {
+                binder.bind(ps, i);
+                ps.addBatch();
+                if ((i + 1) % BATCH == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, UUID id, String externalId, BigDecimal amount, String status,
+                             String billingStatus, UUID tenantId, Timestamp createdAt) throws SQLException {
+        ps.setObject(1, id);
+        ps.setString(2, externalId);
+        ps.setBigDecimal(3, amount);
+        ps.setString(4, status);
+        ps.setString(5, WebhookFactory.CUSTOMER_DOC);
+        ps.setObject(6, tenantId);
+        ps.setString(7, billingStatus);
+        ps.setTimestamp(8, createdAt);
+        ps.setTimestamp(9, createdAt);
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement ps, int index) throws SQLException;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+}
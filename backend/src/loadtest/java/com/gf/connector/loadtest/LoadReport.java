@@ -0,0 +1,59 @@
+package com.gf.connector.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reporte de la corrida: tabla por consola y JSON con el detalle (errores por tipo y llamadas
+ * a los stubs de cada escenario) para comparar corridas.
+ */
+final class LoadReport {
+
+    private final Map<String, Object> environment = new LinkedHashMap<>();
+    private final List<ScenarioResult> results = new ArrayList<>();
+
+    void environment(String key, Object value) {
+        environment.put(key, value);
+    }
+
+    void add(ScenarioResult result) {
+        results.add(result);
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.printf(Locale.ROOT, "%-20s %8s %8s %8s %9s %8s %9s %9s %9s %9s%n",
+                "escenario", "objetivo", "enviados", "ok", "rps", "error%", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (ScenarioResult r : results) {
+            out.printf(Locale.ROOT, "%-20s %8.1f %8d %8d %9.1f %8.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    r.scenario(), r.targetRate(), r.sent(), r.ok(), r.throughput(), r.errorRate() * 100,
+                    r.p50Ms(), r.p90Ms(), r.p99Ms(), r.maxMs());
+        }
+        for (ScenarioResult r : results) {
+            if (!r.errorsByType().isEmpty() || r.dropped() > 0) {
+                out.printf("  %s: errores %s, descartados por cupo %d%n", r.scenario(), r.errorsByType(), r.dropped());
+            }
+        }
+        out.println();
+    }
+
+    void write(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("generatedAt", OffsetDateTime.now().toString());
+        json.put("environment", environment);
+        json.put("scenarios", results);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), json);
+    }
+}
@@ -0,0 +1,85 @@
+package com.gf.connector.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Configuración del harness: {@code loadtest.properties} del classpath, pisada por los
+ * argumentos {@code clave=valor} de la línea de comandos (p. ej. {@code webhook-billing.rate=200}).
+ */
+final class LoadTestConfig {
+
+    private final Properties properties;
+
+    private LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    static LoadTestConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Argumento inválido (se espera clave=valor): " + arg);
+            }
+            properties.setProperty(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        return new LoadTestConfig(properties);
+    }
+
+    String get(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    /**
+     * Valor de la propiedad o, si no está, de la variable de entorno (la misma que usa el backend)
+     */
+    String getOrEnv(String key, String env, String defaultValue) {
+        String value = get(key, null);
+        if (value != null) {
+            return value;
+        }
+        String fromEnv = System.getenv(env);
+        return fromEnv != null && !fromEnv.isBlank() ? fromEnv : defaultValue;
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    Duration getDuration(String key, Duration defaultValue) {
+        String value = get(key, null);
+        return value != null ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    List<String> getList(String key) {
+        String value = get(key, "");
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+}
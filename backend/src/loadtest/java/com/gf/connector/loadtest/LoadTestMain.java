@@ -0,0 +1,289 @@
+package com.gf.connector.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Harness de carga de punta a punta contra un backend corriendo en la misma máquina.
+ *
+ * Levanta los stubs de Getnet y Facturante, espera la readiness del backend, siembra los datos
+ * en PostgreSQL y corre los escenarios de {@code scenarios} en orden, cada uno con tráfico de
+ * modelo abierto. Al final imprime la tabla de resultados y escribe el JSON en {@code report}.
+ * Con {@code stubs-only=true} solo deja los stubs levantados, para pruebas manuales. Con
+ * {@code facturante.simulator-url} no levanta el stub de Facturante: el backend apunta al
+ * simulador externo (módulo facturante-simulator) y el reporte incluye sus contadores.
+ *
+ * Escenarios:
+ * <ul>
+ *   <li>{@code webhook-billing}: webhooks firmados nuevos, cada uno factura contra Facturante</li>
+ *   <li>{@code webhook-duplicates}: reenvío de los webhooks de webhook-billing (idempotencia)</li>
+ *   <li>{@code payment-intent}: alta de payment intents (OAuth + pagos de Getnet)</li>
+ *   <li>{@code transactions-list}: listado paginado sobre al menos {@code min-rows} transacciones</li>
+ *   <li>{@code reconciliation}: conciliación contra Merchant Reporting</li>
+ * </ul>
+ *
+ * Ver scripts/load-test.sh para la corrida completa.
+ */
+public final class LoadTestMain {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LoadTestConfig config;
+    private final HttpClient client;
+    private final String target;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final String webhookSecret = "lt-" + HexFormat.of().formatHex(randomBytes());
+    private final Duration requestTimeout;
+    private final String simulatorUrl;
+
+    private HarnessDatabase database;
+    private UUID tenantId;
+    private WebhookFactory webhooks;
+    private int webhooksSent;
+
+    private LoadTestMain(LoadTestConfig config) {
+        this.config = config;
+        this.target = config.get("target.url", "http://localhost:8080");
+        this.requestTimeout = config.getDuration("request-timeout", Duration.ofSeconds(30));
+        this.simulatorUrl = config.get("facturante.simulator-url", null);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+        List<StubServer> stubs = new ArrayList<>();
+        try {
+            GetnetStub getnet = new GetnetStub(config.getInt("stub.getnet.port", 18081),
+                    FaultProfile.from(config, "stub.getnet"), config.getInt("stub.getnet.report-size", 250));
+            stubs.add(getnet);
+            getnet.start();
+            System.out.println("Stub Getnet:     " + getnet.baseUrl() + " (" + getnet.faults() + ")");
+            String simulator = config.get("facturante.simulator-url", null);
+            if (simulator == null) {
+                FacturanteStub facturante = new FacturanteStub(config.getInt("stub.facturante.port", 18082),
+                        FaultProfile.from(config, "stub.facturante"), config.getDouble("stub.facturante.reject-rate", 0));
+                stubs.add(facturante);
+                facturante.start();
+                System.out.println("Stub Facturante: " + facturante.serviceUrl() + " (" + facturante.faults() + ")");
+            } else {
+                System.out.println("Facturante:      simulador externo en " + simulator);
+            }
+
+            if (config.getBoolean("stubs-only", false)) {
+                System.out.println("Solo stubs: Ctrl+C para terminar");
+                Thread.currentThread().join();
+            }
+            new LoadTestMain(config).run(stubs);
+        } finally {
+            stubs.forEach(StubServer::close);
+        }
+    }
+
+    private void run(List<StubServer> stubs) throws Exception {
+        awaitReady();
+        LoadReport report = new LoadReport();
+        report.environment("target", target);
+        report.environment("run", runId);
+        report.environment("arrivals", config.get("arrivals", "poisson"));
+        stubs.forEach(stub -> report.environment("stub." + stub.name(), stub.faults().toString()));
+        if (simulatorUrl != null) {
+            report.environment("facturante", simulatorUrl);
+        }
+
+        String username = config.get("target.username", "admin");
+        try (HarnessDatabase db = new HarnessDatabase(
+                config.getOrEnv("db.url", "DATABASE_URL", "jdbc:postgresql://localhost:5432/getnet_facturante_loadtest"),
+                config.getOrEnv("db.username", "DATABASE_USERNAME", "gf_user"),
+                config.getOrEnv("db.password", "DATABASE_PASSWORD", ""))) {
+            this.database = db;
+            this.tenantId = db.tenantOf(username);
+            db.configureWebhookSecret(tenantId, webhookSecret);
+            this.webhooks = new WebhookFactory(webhookSecret, "LT-" + runId + "-B");
+
+            OpenModelDriver driver = new OpenModelDriver(client, !"constant".equals(config.get("arrivals", "poisson")),
+                    config.getInt("max-in-flight", 2_000), requestTimeout);
+            for (String name : config.getList("scenarios")) {
+                Scenario scenario = scenario(name);
+                System.out.printf("%s: %.1f req/s durante %ss (warmup %ss)...%n", name, scenario.rate(),
+                        scenario.duration().toSeconds(), scenario.warmup().toSeconds());
+                Map<String, Map<String, Long>> before = counters(stubs);
+                ScenarioResult result = driver.run(scenario);
+                if ("webhook-billing".equals(name)) {
+                    webhooksSent += result.arrivals();
+                }
+                report.add(result.withStubCalls(delta(before, counters(stubs))));
+            }
+        }
+        report.print(System.out);
+        Path file = Path.of(config.get("report", "target/loadtest/report.json"));
+        report.write(file);
+        System.out.println("Reporte: " + file.toAbsolutePath());
+    }
+
+    private Scenario scenario(String name) throws Exception {
+        double rate = config.getDouble(name + ".rate", 10);
+        Duration duration = config.getDuration(name + ".duration", Duration.ofSeconds(30));
+        Duration warmup = config.getDuration(name + ".warmup", config.getDuration("warmup", Duration.ofSeconds(5)));
+        int arrivals = Scenario.expectedArrivals(rate, duration);
+
+        switch (name) {
+            case "webhook-billing" -> {
+                // Los índices siguen a los de una corrida anterior del escenario: cada webhook es nuevo
+                int first = webhooksSent;
+                database.seedPending(tenantId, webhooks::externalId, first, arrivals);
+                return new Scenario(name, rate, duration, warmup, i -> webhook(first + (i % arrivals)));
+            }
+            case "webhook-duplicates" -> {
+                if (webhooksSent == 0) {
+                    throw new IllegalArgumentException("webhook-duplicates reenvía lo enviado por webhook-billing: correrlo antes");
+                }
+                int sent = webhooksSent;
+                return new Scenario(name, rate, duration, warmup, i -> webhook(i % sent));
+            }
+            case "payment-intent" -> {
+                List<UUID> ids = database.seedPending(tenantId, i -> "LT-" + runId + "-P" + i, 0, arrivals);
+                String token = login();
+                return new Scenario(name, rate, duration, warmup, i -> authorized(token, "/api/getnet/payment-intent")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"transactionId\":\"" + ids.get(i % ids.size())
+                                + "\",\"customerEmail\":\"carga" + i + "@example.com\",\"customerName\":\"Cliente Carga "
+                                + i + "\",\"customerDoc\":\"" + WebhookFactory.CUSTOMER_DOC + "\"}"))
+                        .build());
+            }
+            case "transactions-list" -> {
+                int rows = database.ensureVolume(tenantId, "LT-" + runId + "-L", config.getInt(name + ".min-rows", 10_000));
+                int size = config.getInt(name + ".page-size", 50);
+                int pages = Math.max(1, Math.min(rows / size, config.getInt(name + ".pages", 20)));
+                System.out.printf("  %d transacciones en el tenant, %d páginas de %d%n", rows, pages, size);
+                String token = login();
+                return new Scenario(name, rate, duration, warmup, i -> authorized(token,
+                        "/api/transactions?page=" + (i % pages) + "&size=" + size).GET().build());
+            }
+            case "reconciliation" -> {
+                String token = login();
+                return new Scenario(name, rate, duration, warmup, i -> authorized(token, "/api/reconciliation/run")
+                        .POST(HttpRequest.BodyPublishers.noBody()).build());
+            }
+            default -> throw new IllegalArgumentException("Escenario desconocido: " + name);
+        }
+    }
+
+    private HttpRequest webhook(int index) {
+        byte[] body = webhooks.body(index);
+        return request("/api/webhooks/getnet", index)
+                .header("Content-Type", "application/json")
+                .header("X-Tenant-Secret", webhookSecret)
+                .header(config.get("webhook.signature-header", "X-Getnet-Signature"), webhooks.sign(body))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return request(path, ThreadLocalRandom.current().nextInt(1 << 16)).header("Authorization", "Bearer " + token);
+    }
+
+    /**
+     * El backend limita por IP (1 webhook/s en WebhookController, N/min en RateLimitFilter): cada
+     * request sale con una IP distinta de 198.18.0.0/15 (rango de benchmarking, RFC 2544) en
+     * X-Forwarded-For, como si fueran muchos clientes detrás de un proxy
+     */
+    private HttpRequest.Builder request(String path, int index) {
+        int client = Math.floorMod(index, 250 * 250);
+        return HttpRequest.newBuilder(URI.create(target + path))
+                .timeout(requestTimeout)
+                .header("X-Forwarded-For", "198.18." + (client / 250) + "." + (client % 250 + 1));
+    }
+
+    private String login() throws IOException, InterruptedException {
+        String body = MAPPER.writeValueAsString(Map.of(
+                "username", config.get("target.username", "admin"),
+                "password", config.get("target.password", "admin")));
+        HttpResponse<String> response = client.send(request("/api/auth/login", 0)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido (" + response.statusCode() + "): " + response.body());
+        }
+        return MAPPER.readTree(response.body()).path("accessToken").asText();
+    }
+
+    private void awaitReady() throws InterruptedException {
+        URI readiness = URI.create(target + "/actuator/health/readiness");
+        long deadline = System.nanoTime() + config.getDuration("target.ready-timeout", Duration.ofSeconds(120)).toNanos();
+        while (true) {
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(readiness).timeout(Duration.ofSeconds(2)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // todavía no escucha
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("El backend no quedó listo en " + readiness);
+            }
+            Thread.sleep(250);
+        }
+    }
+
+    private Map<String, Map<String, Long>> counters(List<StubServer> stubs) throws IOException, InterruptedException {
+        Map<String, Map<String, Long>> counters = new LinkedHashMap<>();
+        stubs.forEach(stub -> counters.put(stub.name(), stub.counters()));
+        if (simulatorUrl != null) {
+            counters.put("facturante-simulator", simulatorCounters());
+        }
+        return counters;
+    }
+
+    /**
+     * Requests por resultado que lleva el simulador de Facturante ({@code GET /__admin/stats})
+     */
+    private Map<String, Long> simulatorCounters() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(simulatorUrl + "/__admin/stats"))
+                .timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.ofString());
+        Map<String, Long> counters = new LinkedHashMap<>();
+        MAPPER.readTree(response.body()).path("requests").fields()
+                .forEachRemaining(field -> counters.put(field.getKey(), field.getValue().asLong()));
+        return counters;
+    }
+
+    private static Map<String, Map<String, Long>> delta(Map<String, Map<String, Long>> before, Map<String, Map<String, Long>> after) {
+        Map<String, Map<String, Long>> delta = new LinkedHashMap<>();
+        after.forEach((stub, calls) -> {
+            Map<String, Long> diff = new LinkedHashMap<>();
+            calls.forEach((key, value) -> {
+                long change = value - before.getOrDefault(stub, Map.of()).getOrDefault(key, 0L);
+                if (change > 0) {
+                    diff.put(key, change);
+                }
+            });
+            delta.put(stub, diff);
+        });
+        return delta;
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
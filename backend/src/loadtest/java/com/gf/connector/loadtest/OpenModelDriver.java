@@ -0,0 +1,118 @@
+package com.gf.connector.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga de modelo abierto: los arribos siguen un reloj propio (constante o de
+ * Poisson) y no esperan a que terminen los requests anteriores, como el tráfico real de
+ * webhooks. La latencia se mide desde el instante en que el request debía salir, no desde que
+ * salió, para no esconder la espera cuando el generador se atrasa (coordinated omission).
+ *
+ * {@code maxInFlight} acota la memoria del generador: un arribo que encuentra el cupo lleno se
+ * descarta y se informa como {@code dropped}, señal de que el backend no sostiene la tasa.
+ */
+final class OpenModelDriver {
+
+    private final HttpClient client;
+    private final boolean poisson;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+
+    OpenModelDriver(HttpClient client, boolean poisson, int maxInFlight, Duration requestTimeout) {
+        this.client = client;
+        this.poisson = poisson;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    ScenarioResult run(Scenario scenario) throws InterruptedException {
+        Recorder latency = new Recorder(3);
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long dropped = 0;
+        long sent = 0;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        long start = System.nanoTime();
+        long measureFrom = start + scenario.warmup().toNanos();
+        long end = start + scenario.duration().toNanos();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / scenario.rate();
+        double nextArrival = 0;
+        int arrivals = 0;
+
+        for (int i = 0; ; i++) {
+            nextArrival += poisson
+                    ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+            long intended = start + (long) nextArrival;
+            if (intended >= end) {
+                arrivals = i;
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    dropped++;
+                }
+                continue;
+            }
+            if (measured) {
+                sent++;
+            }
+            client.sendAsync(scenario.request().apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        try {
+                            if (!measured) {
+                                return;
+                            }
+                            latency.recordValue(Math.max(1, (System.nanoTime() - intended) / 1_000));
+                            if (error == null && response.statusCode() >= 200 && response.statusCode() < 300) {
+                                ok.increment();
+                            } else {
+                                failed.increment();
+                                String key = error == null ? "http_" + response.statusCode() : errorKey(error);
+                                errors.computeIfAbsent(key, k -> new LongAdder()).increment();
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+        long dispatchEnd = System.nanoTime();
+
+        // Los requests pendientes terminan por respuesta o por timeout del cliente
+        if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() + 5_000, TimeUnit.MILLISECONDS)) {
+            errors.computeIfAbsent("unfinished", k -> new LongAdder()).add(maxInFlight - inFlight.availablePermits());
+        }
+
+        Histogram histogram = latency.getIntervalHistogram();
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((key, value) -> errorCounts.put(key, value.sum()));
+        double measuredSeconds = Math.max(1, dispatchEnd - measureFrom) / 1e9;
+        return ScenarioResult.of(scenario, measuredSeconds, arrivals, sent, ok.sum(), failed.sum(), dropped, histogram, errorCounts);
+    }
+
+    private static String errorKey(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
+    }
+}
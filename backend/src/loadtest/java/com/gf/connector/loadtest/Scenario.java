@@ -0,0 +1,21 @@
+package com.gf.connector.loadtest;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.function.IntFunction;
+
+/**
+ * Un escenario de carga: {@code rate} requests por segundo durante {@code duration}, de los que
+ * los enviados durante {@code warmup} no se miden. {@code request} arma el request número i;
+ * solo las respuestas 2xx cuentan como éxito.
+ */
+record Scenario(String name, double rate, Duration duration, Duration warmup, IntFunction<HttpRequest> request) {
+
+    /**
+     * Cota de arribos del escenario (media más cuatro desvíos de la variación de Poisson)
+     */
+    static int expectedArrivals(double rate, Duration duration) {
+        double expected = rate * duration.toMillis() / 1000.0;
+        return (int) Math.ceil(expected + 4 * Math.sqrt(expected) + 10);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gf.connector.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Resultado medido de un escenario (sin el warmup). Latencias en milisegundos; {@code arrivals}
+ * es el total de arribos generados, warmup incluido
+ */
+record ScenarioResult(String scenario, double targetRate, double seconds, int arrivals, long sent, long ok, long errors,
+                      long dropped, double throughput, double errorRate,
+                      double p50Ms, double p90Ms, double p99Ms, double maxMs,
+                      Map<String, Long> errorsByType, Map<String, Map<String, Long>> stubCalls) {
+
+    static ScenarioResult of(Scenario scenario, double seconds, int arrivals, long sent, long ok, long errors, long dropped,
+                             Histogram latency, Map<String, Long> errorsByType) {
+        long attempted = sent + dropped;
+        return new ScenarioResult(scenario.name(), scenario.rate(), round(seconds), arrivals, sent, ok, errors, dropped,
+                round(ok / seconds),
+                attempted == 0 ? 0 : round((double) (errors + dropped) / attempted),
+                millis(latency, 50), millis(latency, 90), millis(latency, 99),
+                latency.getTotalCount() == 0 ? 0 : latency.getMaxValue() / 1000.0,
+                errorsByType, Map.of());
+    }
+
+    ScenarioResult withStubCalls(Map<String, Map<String, Long>> calls) {
+        return new ScenarioResult(scenario, targetRate, seconds, arrivals, sent, ok, errors, dropped, throughput, errorRate,
+                p50Ms, p90Ms, p99Ms, maxMs, errorsByType, calls);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
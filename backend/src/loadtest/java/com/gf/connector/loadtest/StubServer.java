@@ -0,0 +1,151 @@
+package com.gf.connector.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor HTTP embebido (JDK {@code HttpServer}) que imita un servicio externo. Cada request
+ * pasa por el {@link FaultProfile}: primero la latencia y después, con la probabilidad
+ * configurada, un error HTTP en lugar de la respuesta. Los hilos son ilimitados a propósito:
+ * el stub no debe ser el cuello de botella ni encolar requests que el backend cree en vuelo.
+ */
+abstract class StubServer implements AutoCloseable {
+
+    static {
+        // Sin TCP_NODELAY el HttpServer escribe headers y cuerpo en segmentos separados y, con el
+        // ACK demorado del cliente, cada respuesta en una conexión keep-alive tarda ~40 ms de más.
+        // Se lee una sola vez, al cargar la configuración del servidor
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final String name;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FaultProfile faults;
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    protected StubServer(String name, int port, FaultProfile faults) throws IOException {
+        this.name = name;
+        this.faults = faults;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, name + "-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String name() {
+        return name;
+    }
+
+    FaultProfile faults() {
+        return faults;
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Requests atendidos por operación, más los errores inyectados
+     */
+    Map<String, Long> counters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, value) -> snapshot.put(key, value.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Atiende el request; devuelve la operación (para los contadores) o null si la ruta no existe
+     */
+    protected abstract String handle(HttpExchange exchange, byte[] body) throws IOException;
+
+    /**
+     * Respuesta de un error inyectado; los stubs la adaptan al formato del servicio real
+     */
+    protected void injectedError(HttpExchange exchange, int status) throws IOException {
+        respond(exchange, status, "application/json", "{\"error\":\"injected\"}");
+    }
+
+    protected void count(String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    protected static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    protected static String query(HttpExchange exchange, String key, String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(key)) {
+                    return java.net.URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            faults.delay();
+            if (faults.failNow()) {
+                count("injected_error");
+                injectedError(exchange, faults.errorStatus());
+                return;
+            }
+            String operation = handle(exchange, body);
+            if (operation == null) {
+                count("not_found");
+                respond(exchange, 404, "application/json", "{\"error\":\"not_found\"}");
+            } else {
+                count(operation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            count("stub_error");
+            respond(exchange, 500, "application/json", "{\"error\":\"" + e.getClass().getSimpleName() + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
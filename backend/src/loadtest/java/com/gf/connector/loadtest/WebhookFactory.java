@@ -0,0 +1,70 @@
+package com.gf.connector.loadtest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Webhooks de Getnet firmados con HMAC-SHA256 (hex) del secreto del tenant, como los valida
+ * GetnetSignatureService.
+ *
+ * El body de cada índice es determinístico (mismo texto, mismo hash de evento), así que
+ * reenviarlo ejercita la idempotencia. Lleva los dos bloques que lee el backend: el tipado
+ * ({@code payment.result.status = AUTHORIZED}, aplicado por GetnetService sobre el payment
+ * intent sembrado) y el plano ({@code status = PAID}, que WebhookService mapea y factura), así
+ * cada webhook recorre el pipeline completo hasta Facturante.
+ */
+final class WebhookFactory {
+
+    static final String CUSTOMER_DOC = "20123456786";
+
+    private final String secret;
+    private final String prefix;
+    private final String datetime = OffsetDateTime.now(ZoneOffset.UTC).withNano(0).toString();
+
+    WebhookFactory(String secret, String prefix) {
+        this.secret = secret;
+        this.prefix = prefix;
+    }
+
+    static BigDecimal amount(int index) {
+        return BigDecimal.valueOf(1_500 + (index % 500) * 173L, 0).add(BigDecimal.valueOf(index % 100, 2))
+                .setScale(2, RoundingMode.UNNECESSARY);
+    }
+
+    String externalId(int index) {
+        return prefix + index;
+    }
+
+    byte[] body(int index) {
+        String id = externalId(index);
+        BigDecimal amount = amount(index);
+        long cents = amount.movePointRight(2).longValueExact();
+        return ("{\"id\":\"" + id + "\",\"status\":\"PAID\",\"amount\":" + amount.toPlainString()
+                + ",\"currency\":\"ARS\",\"customer\":{\"name\":\"Cliente Carga " + index
+                + "\",\"email\":\"carga" + index + "@example.com\",\"document\":\"" + CUSTOMER_DOC
+                + "\",\"document_type\":\"CUIT\",\"document_number\":\"" + CUSTOMER_DOC + "\"},"
+                + "\"payment_intent_id\":\"" + id + "\",\"order_id\":\"ORD-" + id + "\","
+                + "\"payment\":{\"method\":\"credit\",\"amount\":" + cents + ",\"currency\":\"ARS\","
+                + "\"result\":{\"payment_id\":\"PAY-" + id + "\",\"status\":\"AUTHORIZED\",\"authorization_code\":\""
+                + String.format(Locale.ROOT, "%06d", index % 1_000_000) + "\",\"transaction_datetime\":\"" + datetime
+                + "\",\"return_code\":\"00\",\"return_message\":\"Aprobada\"}}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+}
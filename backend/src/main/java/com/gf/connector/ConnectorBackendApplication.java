@@ -1,5 +1,6 @@
 package com.gf.connector;
 
+import com.gf.connector.config.NativeRuntimeHints;
 import com.gf.connector.service.BillingSettingsService;
 import com.gf.connector.service.UserService;
 import io.github.cdimascio.dotenv.Dotenv;
@@ -8,9 +9,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class ConnectorBackendApplication {
   public static void main(String[] args) {
     // Cargar variables de entorno desde .env
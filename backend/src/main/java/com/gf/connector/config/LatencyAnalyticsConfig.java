@@ -0,0 +1,57 @@
+package com.gf.connector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de la analítica de latencia en proceso: tamaño de las porciones de tiempo,
+ * ventanas consultables y umbrales SLO por defecto y por endpoint
+ * (clave "MÉTODO /patrón", p. ej. "POST /api/webhooks/getnet").
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "analytics.latency")
+public class LatencyAnalyticsConfig {
+
+    /** Duración en ms de cada porción de histograma; las ventanas se arman sumando porciones */
+    private long sliceMs = 60_000;
+
+    /** Ventanas expuestas por la API; la mayor define cuánta historia se retiene */
+    private List<Duration> windows = List.of(Duration.ofMinutes(1), Duration.ofMinutes(5),
+            Duration.ofMinutes(15), Duration.ofHours(1));
+
+    /** Tope de series por dimensión (patrones de endpoint, tenants); el excedente se agrupa en "other" */
+    private int maxSeries = 1000;
+
+    /** Dígitos significativos de los histogramas (2 = error relativo de 1%) */
+    private int significantDigits = 2;
+
+    /** Ventana sobre la que se evalúan los umbrales */
+    private Duration sloWindow = Duration.ofMinutes(5);
+
+    private Slo slo = new Slo();
+
+    private Map<String, Slo> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Slo {
+        /** p95 por encima de este valor cuenta como advertencia */
+        private long p95Ms = 500;
+        /** p99 por encima de este valor cuenta como alerta */
+        private long p99Ms = 1500;
+    }
+
+    public Slo sloFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, slo);
+    }
+
+    public Duration maxWindow() {
+        return windows.stream().max(Duration::compareTo).orElse(Duration.ofMillis(sliceMs));
+    }
+}
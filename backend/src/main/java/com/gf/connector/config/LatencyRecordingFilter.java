@@ -0,0 +1,51 @@
+package com.gf.connector.config;
+
+import com.gf.connector.service.LatencyAnalyticsService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Mide cada request de punta a punta (seguridad incluida) y lo registra en
+ * {@link LatencyAnalyticsService} por endpoint (método + patrón de ruta) y tenant.
+ * Las respuestas asíncronas (SSE) no se registran: su duración es la de la conexión.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class LatencyRecordingFilter extends OncePerRequestFilter {
+
+    private final LatencyAnalyticsService latencyAnalyticsService;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                // El patrón (no la URI) mantiene acotada la cantidad de series: /api/transactions/{id}
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                latencyAnalyticsService.record(request.getMethod(), pattern instanceof String p ? p : null,
+                        tenantId(request), System.nanoTime() - started);
+            }
+        }
+    }
+
+    private static UUID tenantId(HttpServletRequest request) {
+        return request.getAttribute("tenantId") instanceof UUID tenantId ? tenantId : null;
+    }
+}
@@ -0,0 +1,97 @@
+package com.gf.connector.config;
+
+import com.gf.connector.domain.BillingSettings;
+import com.gf.connector.domain.CreditNote;
+import com.gf.connector.domain.Invoice;
+import com.gf.connector.domain.NotificationOutbox;
+import com.gf.connector.domain.ReconciliationLog;
+import com.gf.connector.domain.RefreshToken;
+import com.gf.connector.domain.Role;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.domain.TransactionStatusConverter;
+import com.gf.connector.domain.User;
+import com.gf.connector.domain.WebhookEvent;
+import com.gf.connector.dto.BillingSettingsDto;
+import com.gf.connector.dto.CreditNoteDto;
+import com.gf.connector.dto.TransactionDto;
+import com.gf.connector.facturante.model.Autenticacion;
+import com.gf.connector.facturante.model.Cliente;
+import com.gf.connector.facturante.model.ComprobanteEncabezado;
+import com.gf.connector.facturante.model.ComprobanteItem;
+import com.gf.connector.facturante.model.CrearComprobanteRequest;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.facturante.model.GetnetPaymentIntent;
+import com.gf.connector.facturante.model.GetnetPaymentIntentResponse;
+import com.gf.connector.facturante.model.GetnetRefundRequest;
+import com.gf.connector.facturante.model.GetnetRefundResponse;
+import com.gf.connector.facturante.model.GetnetWebhookPayload;
+import com.gf.connector.service.BillingConfirmationJobService;
+import com.gf.connector.service.LiveMetricsService;
+import com.gf.connector.service.ReconciliationService;
+import com.gf.connector.service.TransactionBulkService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Hints para la imagen nativa (perfil Maven native) que el procesamiento AOT no infiere solo:
+ * entidades JPA, modelos que Jackson (de)serializa fuera de las firmas de los controllers
+ * (payloads de Getnet/Facturante, eventos SSE, resultados dentro de Map) y las clases que
+ * JJWT carga por nombre o vía ServiceLoader.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> ENTITIES = List.of(
+            Transaction.class, Invoice.class, CreditNote.class, WebhookEvent.class, BillingSettings.class,
+            User.class, Role.class, RefreshToken.class, ReconciliationLog.class, NotificationOutbox.class,
+            TransactionStatusConverter.class);
+
+    private static final List<Class<?>> JSON_MODELS = List.of(
+            GetnetWebhookPayload.class, GetnetPaymentIntent.class, GetnetPaymentIntentResponse.class,
+            GetnetRefundRequest.class, GetnetRefundResponse.class,
+            CrearComprobanteRequest.class, CrearComprobanteResponse.class, Autenticacion.class, Cliente.class,
+            ComprobanteEncabezado.class, ComprobanteItem.class,
+            TransactionDto.class, CreditNoteDto.class, BillingSettingsDto.class, TransactionStatus.class,
+            LiveMetricsService.LiveSnapshot.class, LiveMetricsService.LiveDelta.class,
+            BillingConfirmationJobService.JobSnapshot.class, BillingConfirmationJobService.ItemOutcome.class,
+            TransactionBulkService.BulkResult.class, TransactionBulkService.BulkProgress.class,
+            ReconciliationService.ReconciliationResult.class, ReconciliationLog.class);
+
+    // JJWT 0.11 instancia sus implementaciones por nombre (io.jsonwebtoken.lang.Classes)
+    private static final List<String> JJWT_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+        binding.registerReflectionHints(hints.reflection(), JSON_MODELS.toArray(Class<?>[]::new));
+
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+    }
+}
@@ -0,0 +1,70 @@
+package com.gf.connector.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Marca como lazy los beans no críticos para el arranque (springdoc, controllers de testing).
+ *
+ * Los prefijos de clase se configuran en {@code startup.lazy-beans} (perfil "fast"); sin la
+ * propiedad no hace nada. A diferencia de {@code spring.main.lazy-initialization}, schedulers,
+ * workers y el pool JDBC se siguen creando al arrancar, así que los errores de configuración
+ * aparecen en el deploy y no en el primer request. Los controllers lazy conservan sus mappings:
+ * se instancian en su primer request.
+ */
+@Slf4j
+@Component
+public class StartupLazyInitPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private List<String> prefixes = List.of();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        prefixes = Binder.get(environment).bind("startup.lazy-beans", Bindable.listOf(String.class)).orElse(List.of());
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        if (prefixes.isEmpty()) {
+            return;
+        }
+        int marked = 0;
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.getRole() != BeanDefinition.ROLE_INFRASTRUCTURE && !definition.isLazyInit() && matches(definition)) {
+                definition.setLazyInit(true);
+                marked++;
+            }
+        }
+        log.info("Arranque rápido: {} beans no críticos marcados como lazy", marked);
+    }
+
+    private boolean matches(BeanDefinition definition) {
+        if (matches(definition.getBeanClassName())) {
+            return true;
+        }
+        // Beans de métodos @Bean (p. ej. autoconfiguración de springdoc): se mira el tipo y la clase que los declara
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            return factoryMethod != null
+                    && (matches(factoryMethod.getReturnTypeName()) || matches(factoryMethod.getDeclaringClassName()));
+        }
+        return false;
+    }
+
+    private boolean matches(String className) {
+        return className != null && prefixes.stream().anyMatch(className::startsWith);
+    }
+}
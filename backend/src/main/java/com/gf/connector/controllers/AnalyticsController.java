@@ -1,17 +1,27 @@
 package com.gf.connector.controllers;
 
+import com.gf.connector.config.LatencyAnalyticsConfig;
+import com.gf.connector.service.LatencyAnalyticsService;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -20,14 +30,19 @@ import java.util.concurrent.TimeUnit;
 public class AnalyticsController {
 
     private final MeterRegistry meterRegistry;
+    private final LatencyAnalyticsService latencyAnalyticsService;
+    private final LatencyAnalyticsConfig latencyConfig;
 
     @GetMapping("/overview")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     public ResponseEntity<?> overview() {
-        double httpCount = meterRegistry.counter("http_server_requests_total").count();
-        Double jvmMemUsed = meterRegistry.find("jvm.memory.used").gauge() != null
-                ? meterRegistry.find("jvm.memory.used").gauge().value()
-                : 0d;
+        long httpCount = meterRegistry.find("http.server.requests").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+        // jvm.memory.used tiene una serie por área (heap/nonheap) y pool
+        double jvmMemUsed = meterRegistry.find("jvm.memory.used").gauges().stream()
+                .mapToDouble(Gauge::value)
+                .sum();
         return ResponseEntity.ok(Map.of(
                 "requests", httpCount,
                 "jvmMemoryUsed", jvmMemUsed
@@ -43,36 +58,106 @@ public class AnalyticsController {
         return ResponseEntity.ok(Map.of("liveUsers", liveUsers));
     }
 
+    /**
+     * Percentiles de latencia de todos los requests en la ventana (por defecto la ventana SLO)
+     */
     @GetMapping("/sla")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
-    public ResponseEntity<?> sla() {
-        Timer timer = meterRegistry.find("http.server.requests").timer();
-        if (timer == null) {
-            return ResponseEntity.ok(Map.of(
-                    "p95_ms", 0,
-                    "count", 0
-            ));
+    public ResponseEntity<?> sla(@RequestParam(required = false) String window) {
+        Duration duration = parseWindow(window);
+        if (duration == null) {
+            return invalidWindow(window);
         }
-        Double p95 = timer.takeSnapshot().percentileValues().length > 0
-                ? timer.takeSnapshot().percentileValues()[Math.min( (int)Math.floor(0.95 * (timer.takeSnapshot().percentileValues().length - 1)), timer.takeSnapshot().percentileValues().length - 1)].value(TimeUnit.MILLISECONDS)
-                : 0d;
-        long count = timer.count();
-        return ResponseEntity.ok(Map.of(
-                "p95_ms", p95.longValue(),
-                "count", count
-        ));
+        return ResponseEntity.ok(toMap(latencyAnalyticsService.overall(duration)));
+    }
+
+    /**
+     * p50/p95/p99/max en cada ventana configurada, del total y del tenant del usuario
+     */
+    @GetMapping("/latency")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<?> latency(@RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        List<Map<String, Object>> windows = new ArrayList<>();
+        for (Duration window : latencyConfig.getWindows()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("window", format(window));
+            entry.put("overall", toMap(latencyAnalyticsService.overall(window)));
+            if (tenantId != null) {
+                entry.put("tenant", toMap(latencyAnalyticsService.tenant(tenantId, window)));
+            }
+            windows.add(entry);
+        }
+        return ResponseEntity.ok(Map.of("windows", windows));
+    }
+
+    /**
+     * Percentiles por endpoint (todos los tenants), ordenados por p99 descendente
+     */
+    @GetMapping("/latency/endpoints")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> endpointLatency(@RequestParam(required = false) String window) {
+        Duration duration = parseWindow(window);
+        if (duration == null) {
+            return invalidWindow(window);
+        }
+        List<Map<String, Object>> endpoints = latencyAnalyticsService.endpoints(duration).stream()
+                .map(this::toMap)
+                .toList();
+        return ResponseEntity.ok(Map.of("window", format(duration), "endpoints", endpoints));
     }
 
+    /**
+     * Endpoints que superan sus umbrales SLO: p95 sobre el umbral es advertencia, p99 es alerta
+     */
     @GetMapping("/thresholds")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     public ResponseEntity<?> thresholds() {
-        // Placeholder para thresholds configurables
+        List<LatencyAnalyticsService.SloBreach> breaches = latencyAnalyticsService.evaluateSlos();
+        long alerts = breaches.stream().filter(b -> b.severity() == LatencyAnalyticsService.Severity.ALERT).count();
         return ResponseEntity.ok(Map.of(
-                "warnings", 0,
-                "alerts", 0,
-                "latency_threshold_ms", 500
+                "warnings", breaches.size() - alerts,
+                "alerts", alerts,
+                "latency_threshold_ms", latencyConfig.getSlo().getP95Ms(),
+                "window", format(latencyConfig.getSloWindow()),
+                "breaches", breaches
         ));
     }
-}
 
+    private Duration parseWindow(String window) {
+        if (window == null || window.isBlank()) {
+            return latencyConfig.getSloWindow();
+        }
+        try {
+            Duration duration = DurationStyle.detectAndParse(window.trim());
+            return duration.isNegative() || duration.isZero() || duration.compareTo(latencyConfig.maxWindow()) > 0
+                    ? null : duration;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
+    private ResponseEntity<?> invalidWindow(String window) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "error", "Ventana inválida: " + window + ". Máximo " + format(latencyConfig.maxWindow())
+        ));
+    }
+
+    private Map<String, Object> toMap(LatencyAnalyticsService.WindowStats stats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("key", stats.key());
+        map.put("window", format(Duration.ofSeconds(stats.windowSeconds())));
+        map.put("count", stats.count());
+        map.put("p50_ms", stats.p50Ms());
+        map.put("p95_ms", stats.p95Ms());
+        map.put("p99_ms", stats.p99Ms());
+        map.put("max_ms", stats.maxMs());
+        return map;
+    }
+
+    private static String format(Duration window) {
+        return window.toSecondsPart() == 0 && window.toMinutes() > 0
+                ? (window.toMinutesPart() == 0 ? window.toHours() + "h" : window.toMinutes() + "m")
+                : window.toSeconds() + "s";
+    }
+}
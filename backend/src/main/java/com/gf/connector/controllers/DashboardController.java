@@ -1,14 +1,20 @@
 package com.gf.connector.controllers;
 
+import com.gf.connector.domain.Money;
 import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.repo.*;
+import com.gf.connector.service.LiveMetricsService;
 import lombok.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -28,6 +34,7 @@ public class DashboardController {
     private final InvoiceRepository invoiceRepository;
     private final WebhookEventRepository webhookEventRepository;
     private final CreditNoteRepository creditNoteRepository;
+    private final LiveMetricsService liveMetricsService;
 
     /**
      * Obtiene estadísticas generales del dashboard
@@ -77,11 +84,11 @@ public class DashboardController {
                 .filter(t -> t.getStatus() == TransactionStatus.FAILED)
                 .count();
 
-            // Calcular monto total
-            double totalAmount = transactions.stream()
+            // Calcular monto total (en centavos, exacto)
+            long totalCentavos = transactions.stream()
                 .filter(t -> t.getAmount() != null)
-                .mapToDouble(t -> t.getAmount().doubleValue())
-                .sum();
+                .mapToLong(t -> centavos(t.getAmount()))
+                .reduce(0L, Math::addExact);
 
             // Contar facturas emitidas
             long totalInvoices = invoiceRepository.countByTenantIdAndCreatedAtBetween(tenantId, start, end);
@@ -103,7 +110,7 @@ public class DashboardController {
             DashboardStatsDto stats = DashboardStatsDto.builder()
                 .totalTransactions(totalTransactions)
                 .totalInvoices(totalInvoices)
-                .totalAmount(totalAmount)
+                .totalAmount(Money.ofMinor(totalCentavos, Money.ARS).toBigDecimal())
                 .errorCount(errorCount)
                 .pendingTransactions(pendingTransactions)
                 .successRate(successRate)
@@ -124,6 +131,34 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Snapshot de métricas en vivo del tenant (totales históricos mantenidos en memoria)
+     * Endpoint: GET /api/dashboard/live/snapshot
+     */
+    @GetMapping("/live/snapshot")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<LiveMetricsService.LiveSnapshot> getLiveSnapshot(
+            @RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        if (tenantId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(liveMetricsService.snapshot(tenantId));
+    }
+
+    /**
+     * Stream SSE de métricas en vivo: un evento 'snapshot' y luego eventos 'delta' versionados
+     * Endpoint: GET /api/dashboard/live
+     */
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    public ResponseEntity<SseEmitter> streamLiveMetrics(
+            @RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        if (tenantId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(liveMetricsService.subscribe(tenantId));
+    }
+
     /**
      * Obtiene estadísticas de transacciones agrupadas por día
      * Útil para gráficos de volumen
@@ -146,27 +181,23 @@ public class DashboardController {
             List<com.gf.connector.domain.Transaction> transactions = 
                 transactionRepository.findByTenantIdAndCreatedAtBetween(tenantId, start, end);
 
-            // Agrupar por día
-            Map<LocalDate, DailyStatsDto> dailyStatsMap = new LinkedHashMap<>();
+            // Agrupar por día: {cantidad, monto en centavos}
+            Map<LocalDate, long[]> dailyTotals = new LinkedHashMap<>();
 
             for (com.gf.connector.domain.Transaction transaction : transactions) {
-                LocalDate date = transaction.getCreatedAt().toLocalDate();
-                
-                DailyStatsDto dailyStats = dailyStatsMap.computeIfAbsent(date, d -> 
-                    DailyStatsDto.builder()
-                        .date(d.toString())
-                        .count(0L)
-                        .amount(0.0)
-                        .build()
-                );
-
-                dailyStats.setCount(dailyStats.getCount() + 1);
+                long[] totals = dailyTotals.computeIfAbsent(transaction.getCreatedAt().toLocalDate(), d -> new long[2]);
+                totals[0]++;
                 if (transaction.getAmount() != null) {
-                    dailyStats.setAmount(dailyStats.getAmount() + transaction.getAmount().doubleValue());
+                    totals[1] = Math.addExact(totals[1], centavos(transaction.getAmount()));
                 }
             }
 
-            List<DailyStatsDto> result = new ArrayList<>(dailyStatsMap.values());
+            List<DailyStatsDto> result = new ArrayList<>(dailyTotals.size());
+            dailyTotals.forEach((date, totals) -> result.add(DailyStatsDto.builder()
+                .date(date.toString())
+                .count(totals[0])
+                .amount(Money.ofMinor(totals[1], Money.ARS).toBigDecimal())
+                .build()));
             result.sort(Comparator.comparing(DailyStatsDto::getDate));
 
             return ResponseEntity.ok(result);
@@ -310,6 +341,10 @@ public class DashboardController {
         return defaultDate.atStartOfDay().atOffset(ZoneOffset.UTC);
     }
 
+    private static long centavos(BigDecimal amount) {
+        return Money.toMinorUnits(amount, Money.ARS.getDefaultFractionDigits(), RoundingMode.HALF_UP);
+    }
+
     // ===== DTOs =====
 
     @Data
@@ -319,7 +354,7 @@ public class DashboardController {
     public static class DashboardStatsDto {
         private Long totalTransactions;
         private Long totalInvoices;
-        private Double totalAmount;
+        private BigDecimal totalAmount;
         private Long errorCount;
         private Long pendingTransactions;
         private Double successRate;
@@ -336,7 +371,7 @@ public class DashboardController {
     public static class DailyStatsDto {
         private String date;
         private Long count;
-        private Double amount;
+        private BigDecimal amount;
     }
 
     @Data
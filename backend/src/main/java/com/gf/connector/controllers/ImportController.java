@@ -0,0 +1,65 @@
+package com.gf.connector.controllers;
+
+import com.gf.connector.service.BulkImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+@Tag(name = "Imports", description = "Importación masiva de archivos al tenant")
+public class ImportController {
+
+    private final BulkImportService bulkImportService;
+
+    @PostMapping
+    @Operation(summary = "Importar archivo", description = "Carga un archivo NDJSON, CSV o una exportación histórica de Getnet del directorio de importación y devuelve un job consultable por polling")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Importación iniciada"),
+        @ApiResponse(responseCode = "400", description = "Pedido inválido o archivo inexistente"),
+        @ApiResponse(responseCode = "429", description = "Ya hay una importación en curso")
+    })
+    public ResponseEntity<?> startImport(
+            @RequestBody BulkImportService.Request request,
+            @RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        try {
+            return ResponseEntity.accepted().body(bulkImportService.start(tenantId, request).snapshot());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "Progreso de importación", description = "Bytes leídos, filas cargadas y mergeadas, filas por segundo y estado del job")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getJob(
+            @PathVariable UUID jobId,
+            @RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        return bulkImportService.find(jobId, tenantId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
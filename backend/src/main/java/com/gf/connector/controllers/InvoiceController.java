@@ -64,8 +64,8 @@ public class InvoiceController {
                         .body("La transacción debe estar en estado 'paid' o 'authorized' para ser facturada");
             }
             
-            // Crear la factura
-            Invoice invoice = invoiceService.createFacturaInFacturante(transaction);
+            // Crear la factura en la lane de la transacción (ordenada respecto de reembolsos)
+            Invoice invoice = invoiceService.createFacturaOrdered(transaction);
             
             return ResponseEntity.ok(invoice);
             
@@ -3,6 +3,7 @@ package com.gf.connector.controllers;
 import com.gf.connector.domain.ReconciliationLog;
 import com.gf.connector.repo.ReconciliationLogRepository;
 import com.gf.connector.service.ReconciliationService;
+import com.gf.connector.service.SseBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -18,11 +19,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.UUID;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 @Slf4j
 @RestController
@@ -32,8 +31,9 @@ public class ReconciliationController {
 
     private final ReconciliationService reconciliationService;
     private final ReconciliationLogRepository reconciliationLogRepository;
+    private final SseBroadcaster sseBroadcaster;
 
-    private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private static final String RECONCILIATION_TOPIC = "reconciliation";
 
     /**
      * Endpoint manual para forzar la reconciliación de un rango de fechas (yyyy-MM-dd)
@@ -71,8 +71,8 @@ public class ReconciliationController {
                     .build();
             reconciliationLogRepository.save(logEntry);
 
-            // Notificar a subscriptores SSE
-            notifySse("reconciliation", logEntry);
+            // Notificar a los subscriptores SSE del tenant (no bloquea: lo envían los despachadores)
+            sseBroadcaster.publish(tenantId, RECONCILIATION_TOPIC, "reconciliation", logEntry);
 
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -99,26 +99,12 @@ public class ReconciliationController {
      */
     @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
-    public SseEmitter subscribeToEvents() {
-        SseEmitter emitter = new SseEmitter(0L);
-        emitters.add(emitter);
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        try {
-            emitter.send(SseEmitter.event().name("connected").data("ok"));
-        } catch (IOException ignored) {}
-        return emitter;
-    }
-
-    private void notifySse(String eventName, Object data) {
-        for (SseEmitter emitter : emitters) {
-            try {
-                emitter.send(SseEmitter.event().name(eventName).data(data));
-            } catch (IOException e) {
-                emitter.complete();
-                emitters.remove(emitter);
-            }
+    public ResponseEntity<SseEmitter> subscribeToEvents(
+            @RequestAttribute(name = "tenantId", required = false) UUID tenantId) {
+        if (tenantId == null) {
+            return ResponseEntity.status(401).build();
         }
+        return ResponseEntity.ok(sseBroadcaster.subscribe(tenantId, RECONCILIATION_TOPIC));
     }
 }
 
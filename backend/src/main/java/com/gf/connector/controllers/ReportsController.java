@@ -3,6 +3,7 @@ package com.gf.connector.controllers;
 import com.gf.connector.domain.Transaction;
 import com.gf.connector.domain.Invoice;
 import com.gf.connector.domain.CreditNote;
+import com.gf.connector.domain.Money;
 import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.repo.*;
 import lombok.*;
@@ -16,6 +17,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -292,33 +295,32 @@ public class ReportsController {
                     Collectors.counting()
                 ));
 
-            // Calcular montos
-            double totalAmount = transactions.stream()
-                .filter(t -> t.getAmount() != null)
-                .mapToDouble(t -> t.getAmount().doubleValue())
-                .sum();
-
-            double paidAmount = transactions.stream()
-                .filter(t -> t.getStatus() == TransactionStatus.PAID)
-                .filter(t -> t.getAmount() != null)
-                .mapToDouble(t -> t.getAmount().doubleValue())
-                .sum();
-
-            double refundedAmount = transactions.stream()
-                .filter(t -> t.getStatus() == TransactionStatus.REFUNDED)
-                .filter(t -> t.getAmount() != null)
-                .mapToDouble(t -> t.getAmount().doubleValue())
-                .sum();
+            // Calcular montos en centavos (exactos; se convierten a decimal al armar el reporte)
+            long totalCentavos = 0;
+            long paidCentavos = 0;
+            long refundedCentavos = 0;
+            for (Transaction t : transactions) {
+                if (t.getAmount() == null) {
+                    continue;
+                }
+                long centavos = centavos(t.getAmount());
+                totalCentavos = Math.addExact(totalCentavos, centavos);
+                if (t.getStatus() == TransactionStatus.PAID) {
+                    paidCentavos = Math.addExact(paidCentavos, centavos);
+                } else if (t.getStatus() == TransactionStatus.REFUNDED) {
+                    refundedCentavos = Math.addExact(refundedCentavos, centavos);
+                }
+            }
 
             ConsolidatedReportDto report = ConsolidatedReportDto.builder()
                 .periodStart(start.toLocalDate().toString())
                 .periodEnd(end.toLocalDate().toString())
                 .totalTransactions(Long.valueOf(transactions.size()))
                 .totalInvoices(invoiceCount)
-                .totalAmount(totalAmount)
-                .paidAmount(paidAmount)
-                .refundedAmount(refundedAmount)
-                .netAmount(paidAmount - refundedAmount)
+                .totalAmount(Money.ofMinor(totalCentavos, Money.ARS).toBigDecimal())
+                .paidAmount(Money.ofMinor(paidCentavos, Money.ARS).toBigDecimal())
+                .refundedAmount(Money.ofMinor(refundedCentavos, Money.ARS).toBigDecimal())
+                .netAmount(Money.ofMinor(Math.subtractExact(paidCentavos, refundedCentavos), Money.ARS).toBigDecimal())
                 .transactionsByStatus(transactionsByStatus)
                 .webhookErrors(webhookErrors)
                 .generatedAt(OffsetDateTime.now().format(DATE_FORMATTER))
@@ -443,13 +445,17 @@ public class ReportsController {
         return TransactionSummaryDto.builder()
             .id(t.getId().toString())
             .externalId(t.getExternalId())
-            .amount(t.getAmount() != null ? t.getAmount().doubleValue() : 0.0)
+            .amount(t.getAmount() != null ? t.getAmount() : BigDecimal.ZERO)
             .status(t.getStatus().name())
             .billingStatus(t.getBillingStatus())
             .createdAt(t.getCreatedAt().format(DATE_FORMATTER))
             .build();
     }
 
+    private static long centavos(BigDecimal amount) {
+        return Money.toMinorUnits(amount, Money.ARS.getDefaultFractionDigits(), RoundingMode.HALF_UP);
+    }
+
     // ===== DTOs =====
 
     @Data
@@ -474,7 +480,7 @@ public class ReportsController {
     public static class TransactionSummaryDto {
         private String id;
         private String externalId;
-        private Double amount;
+        private BigDecimal amount;
         private String status;
         private String billingStatus;
         private String createdAt;
@@ -489,10 +495,10 @@ public class ReportsController {
         private String periodEnd;
         private Long totalTransactions;
         private Long totalInvoices;
-        private Double totalAmount;
-        private Double paidAmount;
-        private Double refundedAmount;
-        private Double netAmount;
+        private BigDecimal totalAmount;
+        private BigDecimal paidAmount;
+        private BigDecimal refundedAmount;
+        private BigDecimal netAmount;
         private Map<String, Long> transactionsByStatus;
         private Long webhookErrors;
         private String generatedAt;
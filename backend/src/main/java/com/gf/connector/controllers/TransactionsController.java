@@ -5,7 +5,10 @@ import com.gf.connector.domain.Transaction;
 import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.dto.TransactionDto;
 import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.BillingConfirmationJobService;
 import com.gf.connector.service.InvoiceService;
+import com.gf.connector.service.LiveMetricsService;
+import com.gf.connector.service.TransactionBulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,9 +23,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
@@ -30,6 +36,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -39,6 +46,9 @@ public class TransactionsController {
 
     private final TransactionRepository transactionRepository;
     private final InvoiceService invoiceService;
+    private final TransactionBulkService transactionBulkService;
+    private final BillingConfirmationJobService billingConfirmationJobService;
+    private final LiveMetricsService liveMetricsService;
 
     // Fecha segura para PostgreSQL (evita OffsetDateTime.MIN que está fuera de rango)
     private static final OffsetDateTime SAFE_EPOCH = OffsetDateTime.parse("1970-01-01T00:00:00Z");
@@ -668,36 +678,12 @@ public class TransactionsController {
         @ApiResponse(responseCode = "200", description = "Estados reseteados exitosamente"),
         @ApiResponse(responseCode = "500", description = "Error al resetear estados")
     })
-    public ResponseEntity<?> resetErrorToPending() {
-        try {
-            // Obtener todas las transacciones con billingStatus = 'error' que están pagadas y sin factura
-            List<Transaction> transactionsToUpdate = transactionRepository.findAll().stream()
-                .filter(t -> "error".equals(t.getBillingStatus()) && 
-                           (t.getStatus() == TransactionStatus.PAID || t.getStatus() == TransactionStatus.AUTHORIZED) &&
-                           (t.getInvoiceNumber() == null || t.getInvoiceNumber().isEmpty()))
-                .collect(java.util.stream.Collectors.toList());
-            
-            int updatedCount = 0;
-            
-            for (Transaction transaction : transactionsToUpdate) {
-                transaction.setBillingStatus("pending");
-                transactionRepository.save(transaction);
-                updatedCount++;
-            }
-            
-            return ResponseEntity.ok(Map.of(
-                    "status", "success",
-                    "message", "Estados de facturación reseteados exitosamente",
-                    "updated_count", updatedCount
-            ));
-            
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of(
-                    "status", "error",
-                    "message", "Error al resetear estados: " + e.getMessage(),
-                    "error_type", e.getClass().getSimpleName()
-            ));
-        }
+    public ResponseEntity<?> resetErrorToPending(
+            @Parameter(description = "Solo contar las filas afectadas, sin modificarlas") @RequestParam(defaultValue = "false") boolean dryRun,
+            @Parameter(description = "Ejecutar en segundo plano y devolver un job consultable en /bulk-jobs/{jobId}") @RequestParam(defaultValue = "false") boolean async,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        return runBulkOperation(TransactionBulkService.RESET_ERROR_TO_PENDING, tenantId, dryRun, async,
+                "Estados de facturación reseteados exitosamente", "Error al resetear estados: ");
     }
 
     @PostMapping("/initialize-billing-status")
@@ -707,44 +693,59 @@ public class TransactionsController {
         @ApiResponse(responseCode = "200", description = "Estados inicializados exitosamente"),
         @ApiResponse(responseCode = "500", description = "Error al inicializar estados")
     })
-    public ResponseEntity<?> initializeBillingStatus() {
+    public ResponseEntity<?> initializeBillingStatus(
+            @Parameter(description = "Solo contar las filas afectadas, sin modificarlas") @RequestParam(defaultValue = "false") boolean dryRun,
+            @Parameter(description = "Ejecutar en segundo plano y devolver un job consultable en /bulk-jobs/{jobId}") @RequestParam(defaultValue = "false") boolean async,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        return runBulkOperation(TransactionBulkService.INITIALIZE_BILLING_STATUS, tenantId, dryRun, async,
+                "Estados de facturación inicializados", "Error al inicializar estados: ");
+    }
+
+    @GetMapping("/bulk-jobs/{jobId}")
+    @Operation(summary = "Progreso de operación masiva", description = "Filas a actualizar, filas actualizadas, chunks y porcentaje de una operación masiva lanzada con async=true")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getBulkJob(
+            @PathVariable UUID jobId,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        return transactionBulkService.find(jobId, tenantId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Ejecuta (o cuenta, en dry-run) una operación masiva set-based sobre las transacciones del tenant
+     */
+    private ResponseEntity<?> runBulkOperation(TransactionBulkService.BulkUpdate operation, java.util.UUID tenantId,
+                                               boolean dryRun, boolean async, String successMessage, String errorPrefix) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
         try {
-            // Obtener todas las transacciones que no tienen billingStatus o tienen null
-            List<Transaction> transactionsToUpdate = transactionRepository.findAll().stream()
-                .filter(t -> t.getBillingStatus() == null || t.getBillingStatus().isEmpty())
-                .collect(java.util.stream.Collectors.toList());
-            
-            int updatedCount = 0;
-            
-            for (Transaction transaction : transactionsToUpdate) {
-                // Establecer billingStatus basado en el estado actual
-                if (transaction.getStatus() == TransactionStatus.PAID || transaction.getStatus() == TransactionStatus.AUTHORIZED) {
-                    // Si ya tiene factura, marcar como facturado
-                    if (transaction.getInvoiceNumber() != null && !transaction.getInvoiceNumber().isEmpty()) {
-                        transaction.setBillingStatus("billed");
-                    } else {
-                        // Si no tiene factura, marcar como pendiente de confirmación
-                        transaction.setBillingStatus("pending");
-                    }
-                } else {
-                    // Para otros estados, marcar como no aplicable
-                    transaction.setBillingStatus("not_applicable");
-                }
-                
-                transactionRepository.save(transaction);
-                updatedCount++;
+            if (dryRun) {
+                return ResponseEntity.ok(Map.of(
+                        "status", "success",
+                        "message", "Dry-run: no se modificaron filas",
+                        "dry_run", true,
+                        "matched_count", transactionBulkService.count(operation, tenantId)
+                ));
             }
-            
+            if (async) {
+                return ResponseEntity.accepted().body(transactionBulkService.start(operation, tenantId).snapshot());
+            }
+            TransactionBulkService.BulkResult result = transactionBulkService.execute(operation, tenantId);
             return ResponseEntity.ok(Map.of(
-                "status", "success",
-                "message", "Estados de facturación inicializados",
-                "updated_count", updatedCount
+                    "status", "success",
+                    "message", successMessage,
+                    "updated_count", result.updated(),
+                    "chunks", result.chunks(),
+                    "elapsed_ms", result.elapsedMs()
             ));
-            
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            return ResponseEntity.status(429).body(Map.of("status", "error", "message", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of(
-                "status", "error",
-                "message", "Error al inicializar estados: " + e.getMessage()
+                    "status", "error",
+                    "message", errorPrefix + e.getMessage(),
+                    "error_type", e.getClass().getSimpleName()
             ));
         }
     }
@@ -866,10 +867,13 @@ public class TransactionsController {
             }
             
             // Crear la factura
+            String previousBillingStatus = transaction.getBillingStatus();
             try {
-                Invoice invoice = invoiceService.createFacturaInFacturante(transaction);
-                transaction.setBillingStatus("billed");
-                transactionRepository.save(transaction);
+                // En la lane de la transacción: ordenada respecto de reembolsos asíncronos
+                Invoice invoice = invoiceService.createFacturaOrdered(transaction);
+                liveMetricsService.recordBillingTransition(transaction.getTenantId(), previousBillingStatus, "billed");
+                // Solo el estado: la copia leída acá no tiene el CAE que la lane acaba de guardar
+                transactionRepository.updateBillingOutcome(transaction.getId(), "billed", null, null, OffsetDateTime.now());
                 
                 return ResponseEntity.ok(Map.of(
                         "status", "success",
@@ -877,11 +881,11 @@ public class TransactionsController {
                         "transaction_id", transaction.getId(),
                         "invoice_id", invoice.getId(),
                         "invoice_status", invoice.getStatus(),
-                        "cae", transaction.getCae()
+                        "cae", invoice.getTransaction().getCae()
                 ));
             } catch (Exception e) {
-                transaction.setBillingStatus("error");
-                transactionRepository.save(transaction);
+                liveMetricsService.recordBillingTransition(transaction.getTenantId(), previousBillingStatus, "error");
+                transactionRepository.updateBillingOutcome(transaction.getId(), "error", null, null, OffsetDateTime.now());
                 throw e;
             }
             
@@ -895,6 +899,132 @@ public class TransactionsController {
     }
     
     
+    @PostMapping("/confirm-billing/bulk")
+    @Operation(summary = "Confirmar facturación masiva", description = "Encola la facturación de una lista de transacciones (o de todas las pendientes del filtro) y devuelve un job consultable por polling o SSE")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Job de confirmación creado"),
+        @ApiResponse(responseCode = "400", description = "Pedido inválido"),
+        @ApiResponse(responseCode = "429", description = "Demasiadas confirmaciones masivas en curso")
+    })
+    public ResponseEntity<?> confirmBillingBulk(
+            @RequestBody(required = false) BillingConfirmationJobService.Criteria criteria,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        try {
+            BillingConfirmationJobService.Job job = billingConfirmationJobService.start(tenantId, criteria);
+            return ResponseEntity.accepted().body(job.snapshot(0, 0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", e.getMessage()));
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            return ResponseEntity.status(429).body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/confirm-billing/jobs/{jobId}")
+    @Operation(summary = "Estado de confirmación masiva", description = "Devuelve el progreso del job y los resultados por transacción a partir del cursor indicado")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getBillingConfirmationJob(
+            @PathVariable UUID jobId,
+            @Parameter(description = "Cursor devuelto por la consulta anterior") @RequestParam(defaultValue = "0") int since,
+            @Parameter(description = "Máximo de resultados a devolver") @RequestParam(defaultValue = "500") int limit,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        return billingConfirmationJobService.find(jobId, tenantId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.ok(job.snapshot(since, Math.min(limit, 5000))))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/confirm-billing/jobs/{jobId}")
+    @Operation(summary = "Cancelar confirmación masiva", description = "Las transacciones aún no emitidas se marcan como canceladas; las que están en curso terminan")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> cancelBillingConfirmationJob(
+            @PathVariable UUID jobId,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        return billingConfirmationJobService.find(jobId, tenantId)
+                .<ResponseEntity<?>>map(job -> {
+                    job.cancel();
+                    return ResponseEntity.accepted().body(job.snapshot(0, 0));
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(path = "/confirm-billing/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream de confirmación masiva", description = "Server-Sent Events con un evento 'item' por transacción procesada y un evento 'completed' al finalizar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SseEmitter> streamBillingConfirmationJob(
+            @PathVariable UUID jobId,
+            @Parameter(description = "Cursor desde el cual reenviar resultados") @RequestParam(defaultValue = "0") int since,
+            @RequestAttribute(name = "tenantId", required = false) java.util.UUID tenantId) {
+        if (tenantId == null) return ResponseEntity.status(401).build();
+        return billingConfirmationJobService.find(jobId, tenantId)
+                .map(job -> ResponseEntity.ok(subscribe(job, since)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private SseEmitter subscribe(BillingConfirmationJobService.Job job, int since) {
+        SseEmitter emitter = new SseEmitter(0L);
+        JobEventStream stream = new JobEventStream(job, emitter, since);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        job.addListener(stream);
+        stream.run();
+        return emitter;
+    }
+
+    /**
+     * Reenvía los resultados del job desde el cursor y luego los nuevos a medida que llegan.
+     * Cada notificación drena lo pendiente, así que no se pierden ni duplican eventos.
+     * El lock es un ReentrantLock porque se retiene durante la escritura al socket (con hilos
+     * virtuales, un synchronized fijaría el carrier mientras dura el I/O).
+     */
+    private static final class JobEventStream implements Runnable {
+        private final BillingConfirmationJobService.Job job;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int cursor;
+        private boolean closed;
+
+        private JobEventStream(BillingConfirmationJobService.Job job, SseEmitter emitter, int since) {
+            this.job = job;
+            this.emitter = emitter;
+            this.cursor = Math.max(since, 0);
+        }
+
+        @Override
+        public void run() {
+            lock.lock();
+            try {
+                if (closed) return;
+                boolean finished = job.isFinished();
+                for (BillingConfirmationJobService.ItemOutcome outcome : job.outcomesSince(cursor, Integer.MAX_VALUE)) {
+                    cursor++;
+                    emitter.send(SseEmitter.event().name("item").id(String.valueOf(cursor)).data(outcome));
+                }
+                if (finished && cursor >= job.processed()) {
+                    emitter.send(SseEmitter.event().name("completed").data(job.snapshot(cursor, 0)));
+                    close();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                job.removeListener(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
     @GetMapping("/pending-billing-confirmation")
     @Operation(summary = "Listar transacciones pendientes de confirmación", description = "Obtiene las transacciones que están esperando confirmación para facturar")
     @ApiResponses(value = {
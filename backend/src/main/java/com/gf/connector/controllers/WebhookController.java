@@ -1,17 +1,22 @@
 package com.gf.connector.controllers;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gf.connector.facturante.model.GetnetWebhookPayload;
 import com.gf.connector.facturante.service.GetnetService;
 import com.gf.connector.security.GetnetSignatureService;
+import com.gf.connector.service.PipelineMetrics;
+import com.gf.connector.service.PipelineMetrics.Stage;
+import com.gf.connector.service.WebhookIntake;
 import com.gf.connector.service.WebhookService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/webhooks")
@@ -23,9 +28,11 @@ public class WebhookController {
     private final ObjectMapper objectMapper;
     private final GetnetSignatureService signatureService;
     private final com.gf.connector.repo.BillingSettingsRepository billingSettingsRepository;
+    private final PipelineMetrics pipelineMetrics;
 
     @PostMapping("/getnet")
-    public ResponseEntity<?> handleGetnet(@RequestBody String rawBody, HttpServletRequest request) throws Exception {
+    public ResponseEntity<?> handleGetnet(@RequestBody byte[] rawBody, HttpServletRequest request) throws Exception {
+        Instant receivedAt = Instant.now();
         // Rate limit simple por IP (best-effort, para producción usar bucket4j/redis)
         String clientIp = request.getRemoteAddr();
         String rlKey = "RL:" + clientIp;
@@ -62,9 +69,8 @@ public class WebhookController {
                 var tenantId = java.util.UUID.fromString("00000000-0000-0000-0000-000000000001");
                 // Validación de firma se omite en modo unsigned
                 try {
-                    GetnetWebhookPayload webhookPayload = objectMapper.readValue(rawBody, GetnetWebhookPayload.class);
-                    Map<String, Object> payload = objectMapper.readValue(rawBody, new TypeReference<>(){});
-                    WebhookService.WebhookProcessingResult result = webhookService.processGetnetPayload(rawBody, payload, tenantId);
+                    WebhookIntake intake = parse(rawBody, tenantId, receivedAt);
+                    WebhookService.WebhookProcessingResult result = webhookService.processGetnetPayload(intake, tenantId);
                     return ResponseEntity.ok(Map.of("status", "ok", "processed", result.isSuccess()));
                 } catch (Exception e) {
                     return ResponseEntity.internalServerError().body(Map.of("status", "error", "error", e.getMessage()));
@@ -78,7 +84,11 @@ public class WebhookController {
         var settings = settingsOpt.get();
         
         // Validar firma HMAC con secreto del tenant
-        if (!signatureService.verifyWithSecret(settings.getWebhookSecret(), rawBody, signature)) {
+        long started = pipelineMetrics.start();
+        boolean validSignature = signatureService.verifyWithSecret(settings.getWebhookSecret(), rawBody, signature);
+        pipelineMetrics.record(Stage.SIGNATURE, settings.getTenantId(),
+                validSignature ? PipelineMetrics.SUCCESS : PipelineMetrics.REJECTED, started);
+        if (!validSignature) {
             return ResponseEntity.status(401).body(Map.of(
                     "status", "error",
                     "received", false,
@@ -89,17 +99,17 @@ public class WebhookController {
         }
 
         try {
-            // Parse JSON payload como GetnetWebhookPayload
-            GetnetWebhookPayload webhookPayload = objectMapper.readValue(rawBody, GetnetWebhookPayload.class);
+            // Parse único del body: el mismo modelo se comparte con GetnetService y WebhookService
             // Resolver tenantId a partir de billing settings
             java.util.UUID tenantId = settings.getTenantId();
+            WebhookIntake intake = parse(rawBody, tenantId, receivedAt);
+            GetnetWebhookPayload webhookPayload = intake.getTypedPayload();
             
             // Procesar webhook usando el servicio de GetNet
             getnetService.processWebhook(webhookPayload);
             
             // También procesar con el servicio de webhook existente para compatibilidad
-            Map<String, Object> payload = objectMapper.readValue(rawBody, new TypeReference<>(){});
-            WebhookService.WebhookProcessingResult result = webhookService.processGetnetPayload(rawBody, payload, tenantId);
+            WebhookService.WebhookProcessingResult result = webhookService.processGetnetPayload(intake, tenantId);
 
             if (result.isSuccess()) {
                 // Respuesta exitosa con información detallada para debug
@@ -114,6 +124,7 @@ public class WebhookController {
                 debugInfo.put("invoice_generated", result.getInvoice() != null);
                 debugInfo.put("invoice_id", result.getInvoice() != null ? result.getInvoice().getId().toString() : null);
                 debugInfo.put("invoice_status", result.getInvoice() != null ? result.getInvoice().getStatus() : null);
+                debugInfo.put("billing_status", result.getTransaction() != null ? result.getTransaction().getBillingStatus() : null);
                 debugInfo.put("cae", result.getTransaction() != null ? result.getTransaction().getCae() : null);
                 debugInfo.put("invoice_number", result.getTransaction() != null ? result.getTransaction().getInvoiceNumber() : null);
                 
@@ -146,4 +157,16 @@ public class WebhookController {
             ));
         }
     }
+
+    private WebhookIntake parse(byte[] rawBody, UUID tenantId, Instant receivedAt) throws IOException {
+        long started = pipelineMetrics.start();
+        try {
+            WebhookIntake intake = WebhookIntake.parse(rawBody, objectMapper, receivedAt);
+            pipelineMetrics.record(Stage.PARSE, tenantId, true, started);
+            return intake;
+        } catch (IOException | RuntimeException e) {
+            pipelineMetrics.record(Stage.PARSE, tenantId, false, started);
+            throw e;
+        }
+    }
 }
@@ -6,7 +6,9 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "credit_notes")
+@Table(name = "credit_notes", indexes = {
+    @Index(name = "idx_credit_notes_updated_at", columnList = "updated_at")
+})
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
 public class CreditNote {
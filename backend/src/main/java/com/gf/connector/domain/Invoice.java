@@ -7,7 +7,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "invoices", indexes = {
-    @Index(name = "idx_invoices_tenant", columnList = "tenant_id")
+    @Index(name = "idx_invoices_tenant", columnList = "tenant_id"),
+    @Index(name = "idx_invoices_updated_at", columnList = "updated_at")
 })
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
@@ -0,0 +1,182 @@
+package com.gf.connector.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Importe en punto fijo: unidades menores de la moneda (centavos para ARS y BRL) en un {@code long},
+ * con moneda explícita y redondeo explícito en cada operación que lo necesita.
+ *
+ * Las operaciones son exactas (desbordar lanza {@link ArithmeticException}, como
+ * {@code Math.*Exact}) y, además de los métodos de instancia, existen variantes estáticas sobre
+ * unidades menores ({@link #toMinorUnits}, {@link #applyRate}, {@link #divide}) para los loops
+ * calientes que no quieren crear objetos. El dominio sigue guardando {@code BigDecimal}: la
+ * conversión se hace en el borde con {@link #of} / {@link #toBigDecimal()}.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Currency ARS = Currency.getInstance("ARS");
+    public static final Currency BRL = Currency.getInstance("BRL");
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L,
+            100_000_000_000_000L, 1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L,
+            1_000_000_000_000_000_000L
+    };
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = Objects.requireNonNull(currency, "currency");
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Convierte un importe decimal redondeando a la escala de la moneda con el modo indicado
+     * ({@link RoundingMode#UNNECESSARY} exige que ya sea representable)
+     */
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode rounding) {
+        return new Money(toMinorUnits(amount, scale(currency), rounding), currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return new Money(0L, currency);
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Currency currency() {
+        return currency;
+    }
+
+    public int scale() {
+        return scale(currency);
+    }
+
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long factor) {
+        return new Money(Math.multiplyExact(minorUnits, factor), currency);
+    }
+
+    /**
+     * Multiplica por una tasa expresada en punto fijo ({@code rate} × 10<sup>-rateScale</sup>);
+     * p. ej. IVA 21% es {@code multiply(21, 2, HALF_UP)}
+     */
+    public Money multiply(long rate, int rateScale, RoundingMode rounding) {
+        return new Money(applyRate(minorUnits, rate, rateScale, rounding), currency);
+    }
+
+    public Money divide(long divisor, RoundingMode rounding) {
+        return new Money(divide(minorUnits, divisor, rounding), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0L;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, scale());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && minorUnits == other.minorUnits && currency.equals(other.currency));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + " " + toBigDecimal().toPlainString();
+    }
+
+    // ===== Variantes sobre unidades menores =====
+
+    /**
+     * Unidades menores de {@code amount} en la escala dada, redondeando con {@code rounding}
+     */
+    public static long toMinorUnits(BigDecimal amount, int scale, RoundingMode rounding) {
+        BigDecimal scaled = amount.scale() > scale ? amount.setScale(scale, rounding) : amount;
+        return scaled.movePointRight(scale).longValueExact();
+    }
+
+    /**
+     * {@code minorUnits × rate × 10^-rateScale}, redondeado a unidades menores
+     */
+    public static long applyRate(long minorUnits, long rate, int rateScale, RoundingMode rounding) {
+        return divide(Math.multiplyExact(minorUnits, rate), POWERS_OF_TEN[rateScale], rounding);
+    }
+
+    /**
+     * División entera con el redondeo de {@link BigDecimal} (HALF_UP redondea alejándose de cero)
+     */
+    public static long divide(long dividend, long divisor, RoundingMode rounding) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        long absRemainder = Math.abs(remainder);
+        long absDivisor = Math.abs(divisor);
+        // Compara el resto con la mitad del divisor sin riesgo de desborde
+        int half = Long.compare(absRemainder, absDivisor - absRemainder);
+        boolean awayFromZero = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> sign > 0;
+            case FLOOR -> sign < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Se requiere redondeo: " + dividend + "/" + divisor);
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    private static int scale(Currency currency) {
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Monedas distintas: " + currency + " y " + other.currency);
+        }
+    }
+}
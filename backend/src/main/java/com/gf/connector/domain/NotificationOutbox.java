@@ -0,0 +1,73 @@
+package com.gf.connector.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Notificación pendiente de envío. Las filas con la misma {@code coalesceKey}
+ * (tenant + categoría + destinatario) se envían juntas en un único digest.
+ */
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notif_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_notif_key_status", columnList = "coalesce_key, status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "tenant_id")
+    private UUID tenantId; // null para alertas globales (p. ej. backups)
+
+    @Column(nullable = false, length = 50)
+    private String category;
+
+    @Column(name = "coalesce_key", nullable = false, length = 200)
+    private String coalesceKey;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false, length = 20)
+    private String status; // pending | sending | sent | failed
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Primer envío posible (fin de la ventana de agrupación), próximo reintento o fin del lease de envío
+    @Column(name = "next_attempt_at", nullable = false)
+    private OffsetDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private OffsetDateTime sentAt;
+}
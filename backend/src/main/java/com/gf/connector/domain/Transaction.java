@@ -2,16 +2,24 @@ package com.gf.connector.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "transactions", indexes = {
-    @Index(name = "idx_transactions_tenant", columnList = "tenant_id")
+    @Index(name = "idx_transactions_tenant", columnList = "tenant_id"),
+    // Límites de chunk de las operaciones masivas: keyset sobre id dentro del tenant
+    @Index(name = "idx_transactions_tenant_id_pk", columnList = "tenant_id, id"),
+    @Index(name = "idx_transactions_billing_retry", columnList = "billing_status, next_billing_attempt_at"),
+    @Index(name = "idx_transactions_updated_at", columnList = "updated_at")
 })
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
+// Solo las columnas modificadas: un flush de datos de facturación no reescribe el estado
+// que otro proceso haya cambiado por compare-and-set
+@DynamicUpdate
 public class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -57,7 +65,17 @@ public class Transaction {
     // Estado de facturación
     @Column(name = "billing_status")
     @Builder.Default
-    private String billingStatus = "pending"; // pending|billed
+    private String billingStatus = "pending"; // pending|billed|error|retrying|not_applicable
+
+    // Motor de reintentos de facturación (backoff exponencial con jitter por fila)
+    @Column(name = "billing_attempts")
+    private Integer billingAttempts;
+
+    @Column(name = "next_billing_attempt_at")
+    private OffsetDateTime nextBillingAttemptAt;
+
+    @Column(name = "last_billing_error", length = 1000)
+    private String lastBillingError;
     
     // URLs de PDF
     @Column(name = "invoice_pdf_url")
@@ -1,5 +1,11 @@
 package com.gf.connector.domain;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum TransactionStatus {
     PENDING("pending", "Pendiente"),
     AUTHORIZED("authorized", "Autorizada"),
@@ -9,6 +15,23 @@ public enum TransactionStatus {
     REFUNDED("refunded", "Reembolsada"),
     FAILED("failed", "Fallida");
 
+    /**
+     * Transiciones legales de la máquina de estados. Getnet puede entregar callbacks
+     * fuera de orden: una transición no listada (p. ej. PAID -> AUTHORIZED) se ignora.
+     * Repetir el estado actual siempre es legal (reentrega idempotente).
+     */
+    private static final Map<TransactionStatus, Set<TransactionStatus>> TRANSITIONS = new EnumMap<>(TransactionStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(AUTHORIZED, PAID, PENDING_BILLING_CONFIRMATION, NO_BILLING_REQUIRED, REFUNDED, FAILED));
+        TRANSITIONS.put(AUTHORIZED, EnumSet.of(PAID, PENDING_BILLING_CONFIRMATION, NO_BILLING_REQUIRED, REFUNDED, FAILED));
+        TRANSITIONS.put(PAID, EnumSet.of(PENDING_BILLING_CONFIRMATION, NO_BILLING_REQUIRED, REFUNDED));
+        TRANSITIONS.put(PENDING_BILLING_CONFIRMATION, EnumSet.of(PAID, NO_BILLING_REQUIRED, REFUNDED));
+        TRANSITIONS.put(NO_BILLING_REQUIRED, EnumSet.of(PAID, PENDING_BILLING_CONFIRMATION, REFUNDED));
+        TRANSITIONS.put(REFUNDED, EnumSet.noneOf(TransactionStatus.class));
+        TRANSITIONS.put(FAILED, EnumSet.of(AUTHORIZED, PAID));
+    }
+
     private final String code;
     private final String description;
 
@@ -25,6 +48,27 @@ public enum TransactionStatus {
         return description;
     }
 
+    public Set<TransactionStatus> allowedTransitions() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
+
+    public boolean canTransitionTo(TransactionStatus target) {
+        return target == this || TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * Estados desde los que se puede llegar a este (incluido él mismo)
+     */
+    public Set<TransactionStatus> allowedPredecessors() {
+        Set<TransactionStatus> predecessors = EnumSet.noneOf(TransactionStatus.class);
+        for (TransactionStatus status : values()) {
+            if (status.canTransitionTo(this)) {
+                predecessors.add(status);
+            }
+        }
+        return predecessors;
+    }
+
     public static TransactionStatus fromCode(String code) {
         for (TransactionStatus status : values()) {
             if (status.code.equals(code)) {
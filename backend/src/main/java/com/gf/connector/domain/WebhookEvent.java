@@ -6,7 +6,10 @@ import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "webhook_events")
+@Table(name = "webhook_events", indexes = {
+    @Index(name = "idx_webhook_events_created_at", columnList = "created_at"),
+    @Index(name = "idx_webhook_events_updated_at", columnList = "updated_at")
+})
 @Getter @Setter @Builder
 @NoArgsConstructor @AllArgsConstructor
 public class WebhookEvent {
@@ -28,8 +31,17 @@ public class WebhookEvent {
     @Column(nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 
+    // Un evento fallido se reutiliza y pasa a procesado: los backups incrementales usan esta marca
+    private OffsetDateTime updatedAt;
+
     @PrePersist
     public void prePersist() {
         createdAt = OffsetDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = OffsetDateTime.now();
     }
 }
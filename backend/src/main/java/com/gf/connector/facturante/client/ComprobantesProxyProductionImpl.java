@@ -2,60 +2,106 @@ package com.gf.connector.facturante.client;
 
 import com.gf.connector.facturante.config.FacturanteConfig;
 import com.gf.connector.facturante.model.*;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.http.*;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Base64;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 
+/**
+ * Cliente SOAP de producción de Facturante.
+ *
+ * El request se serializa con {@link FacturanteSoapCodec} sobre un buffer por hilo que se
+ * reutiliza entre comprobantes y se envía por el {@link HttpClient} compartido, que mantiene las
+ * conexiones keep-alive abiertas entre llamadas. La respuesta se parsea en streaming desde el
+ * body. Cualquier error (transporte, HTTP sin XML, respuesta inválida) vuelve como respuesta no
+ * exitosa con estado "Error", igual que la implementación simulada.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(name = "facturante.production", havingValue = "true", matchIfMissing = false)
 public class ComprobantesProxyProductionImpl implements IComprobantesProxy {
-    
+
+    /**
+     * Buffers más grandes que esto (comprobantes con muchos ítems) no se retienen en el hilo
+     */
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<RequestBuffer> BUFFERS = ThreadLocal.withInitial(RequestBuffer::new);
+
     private final FacturanteConfig facturanteConfig;
-    private final RestTemplate restTemplate;
-    
+    private final HttpClient httpClient;
+    private final FacturanteSoapCodec codec = new FacturanteSoapCodec();
+    private final URI serviceUri;
+    private final Duration timeout;
+
+    public ComprobantesProxyProductionImpl(FacturanteConfig facturanteConfig, HttpClient facturanteHttpClient) {
+        this.facturanteConfig = facturanteConfig;
+        this.httpClient = facturanteHttpClient;
+        this.serviceUri = URI.create(facturanteConfig.getServiceUrl());
+        this.timeout = Duration.ofSeconds(facturanteConfig.getTimeoutSeconds());
+    }
+
     @Override
     public CrearComprobanteResponse crearComprobante(CrearComprobanteRequest request) throws Exception {
         try {
-            log.info("Enviando request a Facturante (PRODUCCIÓN): {}", facturanteConfig.getServiceUrl());
-            log.debug("Datos del comprobante - Empresa: {}, Usuario: {}, Tipo: {}", 
-                request.getAutenticacion().getEmpresa(),
-                request.getAutenticacion().getUsuario(),
-                request.getEncabezado().getTipoComprobante());
-            
-            // TEMPORAL: Usar implementación simulada hasta implementar SOAP XML real
-            log.warn("Usando implementación simulada temporal - SOAP XML real pendiente de implementación");
-            
-            // Simular latencia de red
-            Thread.sleep(500);
-            
-            // Crear respuesta simulada pero realista
-            CrearComprobanteResponse response = new CrearComprobanteResponse();
-            response.setExitoso(true);
-            response.setEstado("Aprobado");
-            response.setCae("12345678901234");
-            response.setNumeroComprobante("00001-00000001");
-            response.setFechaVencimientoCae("2026-09-19");
-            response.setPdfUrl("https://testing.facturante.com/pdf/00001-00000001.pdf");
-            response.setMensajes(new String[]{"Comprobante creado exitosamente (simulado)"});
-            
-            log.info("Comprobante creado exitosamente en Facturante (SIMULADO): {} - CAE: {}", 
-                response.getNumeroComprobante(), response.getCae());
-            
+            log.debug("Enviando comprobante a Facturante (PRODUCCIÓN): {} - Empresa: {}, Tipo: {}",
+                serviceUri,
+                request.getAutenticacion() != null ? request.getAutenticacion().getEmpresa() : null,
+                request.getEncabezado() != null ? request.getEncabezado().getTipoComprobante() : null);
+
+            RequestBuffer buffer = BUFFERS.get();
+            buffer.reset();
+            codec.writeCrearComprobante(request, buffer);
+
+            // send es sincrónico: el buffer no se reutiliza hasta que vuelve
+            HttpRequest httpRequest = HttpRequest.newBuilder(serviceUri)
+                .timeout(timeout)
+                .header("Content-Type", "text/xml; charset=utf-8")
+                .header("SOAPAction", "\"" + FacturanteSoapCodec.SOAP_ACTION + "\"")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(buffer.array(), 0, buffer.size()))
+                .build();
+            HttpResponse<InputStream> httpResponse;
+            try {
+                httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            } finally {
+                buffer.release();
+            }
+
+            CrearComprobanteResponse response;
+            try (InputStream body = httpResponse.body()) {
+                String contentType = httpResponse.headers().firstValue("Content-Type").orElse("");
+                if (!contentType.contains("xml")) {
+                    return createErrorResponse("Facturante respondió HTTP " + httpResponse.statusCode() + " sin SOAP");
+                }
+                // Los SOAP Fault llegan con HTTP 500: se parsean igual para conservar el faultstring
+                response = codec.readCrearComprobanteResponse(body);
+            }
+
+            if (response.getExitoso()) {
+                log.info("Comprobante creado en Facturante: {} - CAE: {}",
+                    response.getNumeroComprobante(), response.getCae());
+            } else {
+                log.warn("Facturante no aprobó el comprobante (HTTP {}, estado {}): {}",
+                    httpResponse.statusCode(), response.getEstado(), String.join(", ", response.getMensajes()));
+            }
             return response;
-            
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return createErrorResponse("Envío a Facturante interrumpido");
         } catch (Exception e) {
             log.error("Error al comunicarse con Facturante (PRODUCCIÓN)", e);
             return createErrorResponse("Error de comunicación con Facturante: " + e.getMessage());
         }
     }
-    
+
     private CrearComprobanteResponse createErrorResponse(String message) {
         CrearComprobanteResponse errorResponse = new CrearComprobanteResponse();
         errorResponse.setExitoso(false);
@@ -63,5 +109,25 @@ public class ComprobantesProxyProductionImpl implements IComprobantesProxy {
         errorResponse.setMensajes(new String[]{message});
         return errorResponse;
     }
-    
+
+    /**
+     * Buffer de salida que expone su arreglo para publicarlo sin copiarlo
+     */
+    private static final class RequestBuffer extends ByteArrayOutputStream {
+
+        RequestBuffer() {
+            super(8 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void release() {
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[8 * 1024];
+            }
+            reset();
+        }
+    }
 }
@@ -0,0 +1,202 @@
+package com.gf.connector.facturante.client;
+
+import com.gf.connector.facturante.model.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+/**
+ * (De)serialización SOAP de la operación {@code CrearComprobante} del servicio de comprobantes de
+ * Facturante, con StAX en streaming: el request se escribe directo sobre el stream de salida y la
+ * respuesta se lee evento a evento, sin armar DOM ni pasar por String.
+ *
+ * Las factories se crean una sola vez (son thread-safe una vez configuradas); la instancia se
+ * comparte entre hilos. Los elementos de los DTOs van en orden alfabético, como los serializa WCF
+ * (DataContract); los valores nulos se omiten.
+ */
+public final class FacturanteSoapCodec {
+
+    public static final String SOAP_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+    public static final String SERVICE_NS = "http://www.facturante.com.API";
+    public static final String TYPES_NS = "http://schemas.datacontract.org/2004/07/FacturanteMVC.API.DTOs";
+    public static final String SOAP_ACTION = SERVICE_NS + "/IComprobantesService/CrearComprobante";
+
+    private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final XMLOutputFactory outputFactory;
+    private final XMLInputFactory inputFactory;
+
+    public FacturanteSoapCodec() {
+        this.outputFactory = XMLOutputFactory.newDefaultFactory();
+        this.inputFactory = XMLInputFactory.newDefaultFactory();
+        // La respuesta viene de un tercero: sin DTD ni entidades externas
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    /**
+     * Escribe el envelope SOAP de {@code CrearComprobante} en UTF-8 sobre {@code out} (no lo cierra)
+     */
+    public void writeCrearComprobante(CrearComprobanteRequest request, OutputStream out) throws XMLStreamException {
+        XMLStreamWriter w = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        try {
+            w.writeStartDocument("UTF-8", "1.0");
+            w.writeStartElement("s", "Envelope", SOAP_NS);
+            w.writeNamespace("s", SOAP_NS);
+            w.writeNamespace("a", TYPES_NS);
+            w.writeStartElement("s", "Body", SOAP_NS);
+            w.writeStartElement("", "CrearComprobante", SERVICE_NS);
+            w.writeDefaultNamespace(SERVICE_NS);
+            w.writeStartElement("", "request", SERVICE_NS);
+
+            Autenticacion auth = request.getAutenticacion();
+            if (auth != null) {
+                start(w, "Autenticacion");
+                text(w, "Empresa", auth.getEmpresa());
+                text(w, "Hash", auth.getHash());
+                text(w, "Usuario", auth.getUsuario());
+                w.writeEndElement();
+            }
+
+            Cliente cliente = request.getCliente();
+            if (cliente != null) {
+                start(w, "Cliente");
+                text(w, "EnviarComprobante", cliente.getEnviarComprobante());
+                text(w, "MailFacturacion", cliente.getMailFacturacion());
+                text(w, "NroDocumento", cliente.getNroDocumento());
+                text(w, "RazonSocial", cliente.getRazonSocial());
+                text(w, "TipoDocumento", cliente.getTipoDocumento());
+                w.writeEndElement();
+            }
+
+            ComprobanteEncabezado encabezado = request.getEncabezado();
+            if (encabezado != null) {
+                start(w, "Encabezado");
+                text(w, "Bienes", encabezado.getBienes());
+                text(w, "CondicionVenta", encabezado.getCondicionVenta());
+                if (encabezado.getFechaHora() instanceof GregorianCalendar fechaHora) {
+                    text(w, "FechaHora", FECHA_HORA.format(fechaHora.toZonedDateTime().toLocalDateTime().truncatedTo(ChronoUnit.SECONDS)));
+                }
+                text(w, "Percepciones", encabezado.getPercepciones());
+                text(w, "Prefijo", encabezado.getPrefijo());
+                text(w, "SubTotal", encabezado.getSubTotal());
+                text(w, "TipoComprobante", encabezado.getTipoComprobante());
+                text(w, "Total", encabezado.getTotal());
+                text(w, "TotalNeto", encabezado.getTotalNeto());
+                w.writeEndElement();
+            }
+
+            if (request.getItems() != null) {
+                start(w, "Items");
+                for (ComprobanteItem item : request.getItems()) {
+                    start(w, "ComprobanteItem");
+                    text(w, "Cantidad", item.getCantidad());
+                    text(w, "Codigo", item.getCodigo());
+                    text(w, "Detalle", item.getDetalle());
+                    text(w, "Gravado", item.getGravado());
+                    text(w, "IVA", item.getIva());
+                    text(w, "PrecioUnitario", item.getPrecioUnitario());
+                    text(w, "Total", item.getTotal());
+                    w.writeEndElement();
+                }
+                w.writeEndElement();
+            }
+
+            w.writeEndDocument();
+            w.flush();
+        } finally {
+            w.close();
+        }
+    }
+
+    /**
+     * Lee la respuesta de {@code CrearComprobante}. Un SOAP Fault se devuelve como respuesta no
+     * exitosa con estado "Error" y el faultstring como mensaje; los elementos se reconocen por
+     * nombre local, sin depender de los prefijos que use el servidor.
+     */
+    public CrearComprobanteResponse readCrearComprobanteResponse(InputStream in) throws XMLStreamException {
+        XMLStreamReader r = inputFactory.createXMLStreamReader(in);
+        try {
+            CrearComprobanteResponse response = new CrearComprobanteResponse();
+            List<String> mensajes = new ArrayList<>(2);
+            boolean result = false;
+            boolean fault = false;
+            String faultString = null;
+
+            while (r.hasNext()) {
+                if (r.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (r.getLocalName()) {
+                    case "CrearComprobanteResult" -> result = true;
+                    case "Fault" -> fault = true;
+                    case "faultstring" -> faultString = r.getElementText();
+                    case "Estado" -> response.setEstado(value(r));
+                    case "Exitoso" -> response.setExitoso(Boolean.parseBoolean(r.getElementText().trim()));
+                    case "string" -> {
+                        String mensaje = value(r);
+                        if (mensaje != null) {
+                            mensajes.add(mensaje);
+                        }
+                    }
+                    case "Cae" -> response.setCae(value(r));
+                    case "NumeroComprobante" -> response.setNumeroComprobante(value(r));
+                    case "FechaVencimientoCae" -> response.setFechaVencimientoCae(value(r));
+                    case "PdfUrl" -> response.setPdfUrl(value(r));
+                    default -> {
+                        // elementos que no mapeamos
+                    }
+                }
+            }
+
+            if (fault) {
+                response.setExitoso(false);
+                response.setEstado("Error");
+                mensajes.add(0, "SOAP Fault: " + (faultString != null ? faultString.trim() : "sin detalle"));
+            } else if (!result) {
+                throw new XMLStreamException("La respuesta de Facturante no contiene CrearComprobanteResult");
+            }
+            if (response.getExitoso() == null) {
+                response.setExitoso(false);
+            }
+            response.setMensajes(mensajes.toArray(String[]::new));
+            return response;
+        } finally {
+            r.close();
+        }
+    }
+
+    private static void start(XMLStreamWriter w, String name) throws XMLStreamException {
+        w.writeStartElement("a", name, TYPES_NS);
+    }
+
+    private static void text(XMLStreamWriter w, String name, Object value) throws XMLStreamException {
+        if (value == null) {
+            return;
+        }
+        start(w, name);
+        w.writeCharacters(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+        w.writeEndElement();
+    }
+
+    /**
+     * Texto del elemento, o null si viene vacío o con {@code i:nil="true"}
+     */
+    private static String value(XMLStreamReader r) throws XMLStreamException {
+        String text = r.getElementText().trim();
+        return text.isEmpty() ? null : text;
+    }
+}
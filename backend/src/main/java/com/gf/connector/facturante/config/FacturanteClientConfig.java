@@ -3,14 +3,24 @@ package com.gf.connector.facturante.config;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 @Configuration
 public class FacturanteClientConfig {
-    
+
+    /**
+     * Cliente HTTP del proxy SOAP de producción. Se comparte entre hilos y mantiene un pool de
+     * conexiones keep-alive por host, así cada comprobante no paga handshake TCP/TLS
+     */
     @Bean
     @ConditionalOnProperty(name = "facturante.production", havingValue = "true", matchIfMissing = false)
-    public RestTemplate facturanteRestTemplate() {
-        return new RestTemplate();
+    public HttpClient facturanteHttpClient(FacturanteConfig facturanteConfig) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(facturanteConfig.getConnectTimeoutSeconds()))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
     }
 }
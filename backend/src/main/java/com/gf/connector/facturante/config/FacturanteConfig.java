@@ -14,4 +14,6 @@ public class FacturanteConfig {
     private String password;
     private String prefijo = "0001";
     private String tipoComprobante = "FB"; // Factura B por defecto
+    private int timeoutSeconds = 30; // por comprobante, incluye la espera del CAE
+    private int connectTimeoutSeconds = 10;
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.facturante.client.GetnetClient;
 import com.gf.connector.facturante.model.*;
 import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.TransactionStateService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ public class GetnetService {
     
     private final GetnetClient getnetClient;
     private final TransactionRepository transactionRepository;
+    private final TransactionStateService transactionStateService;
     
     /**
      * Crea un Payment Intent en GetNet y lo asocia con una transacción local
@@ -59,19 +61,22 @@ public class GetnetService {
             log.info("Procesando webhook de GetNet para Payment Intent: {}", 
                     webhookPayload.getPaymentIntentId());
             
-            // Buscar la transacción por el Payment Intent ID
-            Transaction transaction = transactionRepository.findByExternalId(webhookPayload.getPaymentIntentId())
-                    .orElseThrow(() -> new RuntimeException("Transacción no encontrada para Payment Intent: " + 
-                            webhookPayload.getPaymentIntentId()));
+            // Mapear el estado de GetNet al enum local
+            GetnetWebhookPayload.GetnetPaymentResult result = webhookPayload.getPayment().getResult();
+            TransactionStatus newStatus = mapGetnetStatusToLocalStatus(result.getStatus());
+            // Si está autorizado, registrar el momento de captura
+            OffsetDateTime capturedAt = newStatus == TransactionStatus.AUTHORIZED ? result.getTransactionDatetime() : null;
             
-            // Actualizar el estado de la transacción según el webhook
-            updateTransactionFromWebhook(transaction, webhookPayload);
+            // Compare-and-set sobre el estado: callbacks concurrentes o fuera de orden no se pisan
+            TransactionStateService.TransitionResult transition =
+                    transactionStateService.transition(webhookPayload.getPaymentIntentId(), newStatus, capturedAt);
+            if (transition.getOutcome() == TransactionStateService.Outcome.NOT_FOUND) {
+                throw new RuntimeException("Transacción no encontrada para Payment Intent: " + 
+                        webhookPayload.getPaymentIntentId());
+            }
             
-            // Guardar la transacción actualizada
-            transactionRepository.save(transaction);
-            
-            log.info("Transacción {} actualizada exitosamente desde webhook de GetNet. Nuevo estado: {}", 
-                    transaction.getId(), transaction.getStatus());
+            log.info("Webhook de GetNet aplicado a {}: {} -> {} ({})", 
+                    webhookPayload.getPaymentIntentId(), transition.getPrevious(), newStatus, transition.getOutcome());
             
         } catch (Exception e) {
             log.error("Error al procesar webhook de GetNet", e);
@@ -184,28 +189,6 @@ public class GetnetService {
                 .build();
     }
     
-    /**
-     * Actualiza una transacción local basándose en el webhook de GetNet
-     */
-    private void updateTransactionFromWebhook(Transaction transaction, GetnetWebhookPayload webhookPayload) {
-        GetnetWebhookPayload.GetnetPaymentResult result = webhookPayload.getPayment().getResult();
-        
-        // Mapear el estado de GetNet a tu enum local
-        TransactionStatus newStatus = mapGetnetStatusToLocalStatus(result.getStatus());
-        transaction.setStatus(newStatus);
-        
-        // Si está autorizado, marcar como capturado
-        if (newStatus == TransactionStatus.AUTHORIZED) {
-            transaction.setCapturedAt(result.getTransactionDatetime());
-        }
-        
-        // Actualizar timestamp
-        transaction.setUpdatedAt(OffsetDateTime.now());
-        
-        log.info("Transacción {} actualizada: estado {} -> {}", 
-                transaction.getId(), transaction.getStatus(), newStatus);
-    }
-    
     /**
      * Mapea los estados de GetNet a los estados locales
      */
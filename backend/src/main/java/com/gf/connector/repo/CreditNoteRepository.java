@@ -44,4 +44,10 @@ public interface CreditNoteRepository extends JpaRepository<CreditNote, UUID> {
      */
     @Query("SELECT COUNT(cn) FROM CreditNote cn WHERE cn.strategy = :strategy")
     long countByStrategy(@Param("strategy") String strategy);
+
+    /**
+     * Contar notas de crédito del tenant (a través de la transacción)
+     */
+    @Query("SELECT COUNT(cn) FROM CreditNote cn WHERE cn.transaction.tenantId = :tenantId")
+    long countByTransactionTenantId(@Param("tenantId") java.util.UUID tenantId);
 }
@@ -19,4 +19,5 @@ public interface InvoiceRepository extends JpaRepository<Invoice, UUID> {
      */
     long countByTenantIdAndCreatedAtBetween(UUID tenantId, OffsetDateTime start, OffsetDateTime end);
     long countByCreatedAtBetween(OffsetDateTime start, OffsetDateTime end);
+    long countByTenantId(UUID tenantId);
 }
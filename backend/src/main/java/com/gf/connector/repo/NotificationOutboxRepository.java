@@ -0,0 +1,60 @@
+package com.gf.connector.repo;
+
+import com.gf.connector.domain.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    /**
+     * Grupos con al menos una notificación cuya ventana de agrupación (o backoff) ya venció,
+     * o con un envío en curso cuyo lease expiró (el nodo cayó a mitad del envío)
+     */
+    @Query("SELECT DISTINCT n.coalesceKey FROM NotificationOutbox n " +
+           "WHERE n.status IN ('pending', 'sending') AND n.nextAttemptAt <= :now")
+    List<String> findDueCoalesceKeys(@Param("now") OffsetDateTime now);
+
+    /**
+     * Reclama las filas del grupo para enviarlas. FOR UPDATE SKIP LOCKED: si otra réplica está
+     * reclamando el mismo grupo, esta no ve sus filas; una vez confirmado el reclamo quedan en
+     * 'sending' con lease y tampoco son elegibles hasta que venza.
+     */
+    @Query(value = "SELECT * FROM notification_outbox n WHERE n.coalesce_key = :key " +
+           "AND (n.status = 'pending' OR (n.status = 'sending' AND n.next_attempt_at <= :now)) " +
+           "ORDER BY n.created_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimGroup(@Param("key") String coalesceKey,
+                                        @Param("now") OffsetDateTime now,
+                                        @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox n SET n.status = 'sent', n.sentAt = :now, n.lastError = NULL WHERE n.id IN :ids")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("now") OffsetDateTime now);
+
+    /**
+     * Registra un intento fallido; las filas que agotaron los intentos pasan a 'failed'
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationOutbox n SET n.attempts = n.attempts + 1, n.nextAttemptAt = :nextAttemptAt, " +
+           "n.lastError = :lastError, " +
+           "n.status = CASE WHEN n.attempts + 1 >= :maxAttempts THEN 'failed' ELSE 'pending' END " +
+           "WHERE n.id IN :ids")
+    int markAttemptFailed(@Param("ids") Collection<UUID> ids,
+                          @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+                          @Param("lastError") String lastError,
+                          @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM NotificationOutbox n WHERE n.status = 'sent' AND n.sentAt < :before")
+    int deleteSentBefore(@Param("before") OffsetDateTime before);
+}
@@ -5,17 +5,168 @@ import com.gf.connector.domain.TransactionStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
     Optional<Transaction> findByExternalId(String externalId);
+
+    /**
+     * Alta o actualización de la transacción de un webhook en un único statement.
+     * Devuelve la fila resultante (nueva o existente) ya gestionada por el contexto
+     * de persistencia, de modo que los cambios posteriores se escriben en el flush final.
+     *
+     * La actualización es un compare-and-set: solo se aplica si el estado actual es un
+     * predecesor legal del nuevo. Si la transición es ilegal (evento fuera de orden) no se
+     * modifica la fila y el método devuelve null. En ambos casos la fila queda bloqueada
+     * hasta el commit, serializando los webhooks de un mismo external_id sin afectar a otros.
+     */
+    @Query(value = "INSERT INTO transactions (id, external_id, amount, currency, status, customer_doc, " +
+           "tenant_id, billing_status, reconciled, created_at, updated_at) " +
+           "VALUES (:id, :externalId, :amount, :currency, :status, :customerDoc, " +
+           ":tenantId, 'pending', false, :now, :now) " +
+           "ON CONFLICT (external_id) DO UPDATE SET " +
+           "amount = EXCLUDED.amount, currency = EXCLUDED.currency, status = EXCLUDED.status, " +
+           "customer_doc = EXCLUDED.customer_doc, tenant_id = EXCLUDED.tenant_id, updated_at = EXCLUDED.updated_at " +
+           "WHERE transactions.status IS NULL OR transactions.status IN (:allowedFrom) " +
+           "RETURNING *", nativeQuery = true)
+    Transaction upsertByExternalId(@Param("id") UUID id,
+                                   @Param("externalId") String externalId,
+                                   @Param("amount") BigDecimal amount,
+                                   @Param("currency") String currency,
+                                   @Param("status") String status,
+                                   @Param("customerDoc") String customerDoc,
+                                   @Param("tenantId") UUID tenantId,
+                                   @Param("now") OffsetDateTime now,
+                                   @Param("allowedFrom") Collection<String> allowedFrom);
+
+    default Transaction upsertByExternalId(Transaction transaction) {
+        TransactionStatus target = transaction.getStatus();
+        Set<TransactionStatus> allowedFrom = target != null
+                ? target.allowedPredecessors()
+                : EnumSet.allOf(TransactionStatus.class);
+        return upsertByExternalId(
+                transaction.getId() != null ? transaction.getId() : UUID.randomUUID(),
+                transaction.getExternalId(),
+                transaction.getAmount(),
+                transaction.getCurrency(),
+                transaction.getStatus() != null ? transaction.getStatus().getCode() : null,
+                transaction.getCustomerDoc(),
+                transaction.getTenantId(),
+                OffsetDateTime.now(),
+                allowedFrom.stream().map(TransactionStatus::getCode).toList());
+    }
+
+    /**
+     * Reclama un lote de transacciones a refacturar. FOR UPDATE SKIP LOCKED permite que varias
+     * réplicas reclamen lotes disjuntos en paralelo sin esperarse ni facturar dos veces.
+     * Elegibles: errores con reintentos disponibles y backoff vencido, pendientes de tenants
+     * sin confirmación manual, y reclamos ('retrying') cuyo lease expiró por caída del nodo.
+     * Estos últimos se reclaman aunque hayan agotado los intentos, para pasarlos a 'error'.
+     */
+    @Query(value = "SELECT * FROM transactions t " +
+           "WHERE t.invoice_number IS NULL AND (" +
+           "  (t.billing_status = 'error' AND COALESCE(t.billing_attempts, 0) < :maxAttempts " +
+           "     AND t.status IN ('paid', 'authorized') " +
+           "     AND (t.next_billing_attempt_at IS NULL OR t.next_billing_attempt_at <= :now)) " +
+           "  OR (t.billing_status = 'pending' AND t.status = 'paid' AND NOT EXISTS (" +
+           "     SELECT 1 FROM billing_settings bs WHERE bs.tenant_id = t.tenant_id " +
+           "     AND bs.activo = true AND bs.require_billing_confirmation = true)) " +
+           "  OR (t.billing_status = 'retrying' AND t.next_billing_attempt_at <= :now)" +
+           ") ORDER BY t.next_billing_attempt_at NULLS FIRST, t.created_at " +
+           "LIMIT :limit FOR UPDATE OF t SKIP LOCKED", nativeQuery = true)
+    List<Transaction> claimBillingRetryBatch(@Param("now") OffsetDateTime now,
+                                             @Param("maxAttempts") int maxAttempts,
+                                             @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.billingStatus = :billingStatus, t.nextBillingAttemptAt = :nextAttemptAt, " +
+           "t.lastBillingError = :lastError, t.updatedAt = :now WHERE t.id = :id")
+    int updateBillingOutcome(@Param("id") UUID id,
+                             @Param("billingStatus") String billingStatus,
+                             @Param("nextAttemptAt") OffsetDateTime nextAttemptAt,
+                             @Param("lastError") String lastError,
+                             @Param("now") OffsetDateTime now);
+
+    /**
+     * Reclamo condicional para la confirmación de facturación: solo una confirmación (o un
+     * reintento) puede pasar la fila de pending/error a 'retrying'. El lease permite que el
+     * motor de reintentos la recupere si el nodo cae a mitad de la emisión.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.billingStatus = 'retrying', t.nextBillingAttemptAt = :leaseUntil, " +
+           "t.updatedAt = :now WHERE t.id = :id AND t.tenantId = :tenantId " +
+           "AND t.billingStatus IN ('pending', 'error') AND t.invoiceNumber IS NULL")
+    int claimForBillingConfirmation(@Param("id") UUID id,
+                                    @Param("tenantId") UUID tenantId,
+                                    @Param("leaseUntil") OffsetDateTime leaseUntil,
+                                    @Param("now") OffsetDateTime now);
+
+    /**
+     * IDs candidatos a confirmación masiva, en orden de llegada
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.tenantId = :tenantId AND t.billingStatus IN :billingStatuses " +
+           "AND t.createdAt >= :from AND t.createdAt < :to ORDER BY t.createdAt")
+    List<UUID> findIdsForBillingConfirmation(@Param("tenantId") UUID tenantId,
+                                             @Param("billingStatuses") Collection<String> billingStatuses,
+                                             @Param("from") OffsetDateTime from,
+                                             @Param("to") OffsetDateTime to,
+                                             Pageable pageable);
+
+    /**
+     * Agregado por estado y estado de facturación para sembrar las métricas en vivo del tenant
+     */
+    @Query("SELECT t.status, t.billingStatus, COUNT(t), COALESCE(SUM(t.amount), 0) FROM Transaction t " +
+           "WHERE t.tenantId = :tenantId GROUP BY t.status, t.billingStatus")
+    List<Object[]> aggregateForLiveMetrics(@Param("tenantId") UUID tenantId);
+
+    /**
+     * Estado previo de la transacción para calcular el delta de métricas en vivo
+     */
+    Optional<MetricsView> findMetricsViewByExternalId(String externalId);
+
+    interface MetricsView {
+        TransactionStatus getStatus();
+        String getBillingStatus();
+        BigDecimal getAmount();
+    }
+
+    /**
+     * Lectura escalar del estado (no pasa por el contexto de persistencia, siempre fresca)
+     */
+    @Query("SELECT t.status FROM Transaction t WHERE t.externalId = :externalId")
+    Optional<TransactionStatus> findStatusByExternalId(@Param("externalId") String externalId);
+
+    boolean existsByExternalId(String externalId);
+
+    /**
+     * Compare-and-set del estado: solo actualiza si el estado sigue siendo el leído.
+     * Devuelve 0 si otro proceso lo cambió entre la lectura y la escritura.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Transaction t SET t.status = :target, t.updatedAt = :now, " +
+           "t.capturedAt = COALESCE(:capturedAt, t.capturedAt) " +
+           "WHERE t.externalId = :externalId " +
+           "AND (t.status = :expected OR (:expected IS NULL AND t.status IS NULL))")
+    int compareAndSetStatus(@Param("externalId") String externalId,
+                            @Param("expected") TransactionStatus expected,
+                            @Param("target") TransactionStatus target,
+                            @Param("capturedAt") OffsetDateTime capturedAt,
+                            @Param("now") OffsetDateTime now);
     
     // Filtros básicos
     Page<Transaction> findByStatusAndTenantId(TransactionStatus status, java.util.UUID tenantId, Pageable pageable);
@@ -112,10 +263,10 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
     long countByCreatedAtBetween(OffsetDateTime start, OffsetDateTime end);
     
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.tenantId = :tenantId AND t.createdAt BETWEEN :start AND :end")
-    Optional<Double> sumAmountByTenantIdAndCreatedAtBetween(@Param("tenantId") UUID tenantId, @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+    Optional<BigDecimal> sumAmountByTenantIdAndCreatedAtBetween(@Param("tenantId") UUID tenantId, @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
     
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.createdAt BETWEEN :start AND :end")
-    Optional<Double> sumAmountByCreatedAtBetween(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+    Optional<BigDecimal> sumAmountByCreatedAtBetween(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
     
     long countByTenantIdAndCreatedAtBetweenAndBillingStatusIsNull(UUID tenantId, OffsetDateTime start, OffsetDateTime end);
     long countByCreatedAtBetweenAndBillingStatusIsNull(OffsetDateTime start, OffsetDateTime end);
@@ -4,9 +4,15 @@ import com.gf.connector.domain.WebhookEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.OffsetDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface WebhookEventRepository extends JpaRepository<WebhookEvent, UUID> {
+
+    /**
+     * Búsqueda de idempotencia sobre el índice único de event_hash
+     */
+    Optional<WebhookEvent> findByEventHash(String eventHash);
     
     /**
      * Métodos para Dashboard y Reportes - contar eventos no procesados
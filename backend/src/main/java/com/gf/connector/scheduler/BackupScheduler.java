@@ -1,15 +1,20 @@
 package com.gf.connector.scheduler;
 
 import com.gf.connector.service.BackupService;
+import com.gf.connector.service.WorkerThreads;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.function.Supplier;
+
 /**
- * Scheduler para backup automático de configuración
- * Ejecuta backups regulares para proteger datos críticos
+ * Scheduler para backup automático de la base
+ * Ejecuta backups regulares para proteger datos críticos. El backup corre en un hilo propio:
+ * el hilo del scheduler (compartido con reintentos de facturación y reconciliación) queda libre.
+ * Todos los días se hace un backup incremental y los domingos uno completo que inicia una cadena nueva.
  */
 @Slf4j
 @Component
@@ -17,12 +22,13 @@ import org.springframework.stereotype.Component;
 public class BackupScheduler {
 
     private final BackupService backupService;
+    private final WorkerThreads workerThreads;
     
     @Value("${backup.enabled:true}")
     private boolean backupEnabled;
 
     /**
-     * Backup diario - se ejecuta todos los días a las 1:00 AM
+     * Backup diario (incremental) - se ejecuta todos los días a las 1:00 AM
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void dailyBackup() {
@@ -31,24 +37,11 @@ public class BackupScheduler {
             return;
         }
         
-        log.info("Iniciando backup diario automático");
-        
-        try {
-            BackupService.BackupResult result = backupService.performBackup();
-            
-            if (result.isSuccess()) {
-                log.info("Backup diario completado exitosamente: {}", result.getMessage());
-            } else {
-                log.error("Backup diario falló: {}", result.getMessage());
-            }
-            
-        } catch (Exception e) {
-            log.error("Error crítico en backup diario: {}", e.getMessage(), e);
-        }
+        launch("diario", backupService::performIncrementalBackup);
     }
     
     /**
-     * Backup semanal - se ejecuta los domingos a las 0:30 AM
+     * Backup semanal (completo) - se ejecuta los domingos a las 0:30 AM
      */
     @Scheduled(cron = "0 30 0 * * SUN")
     public void weeklyBackup() {
@@ -56,19 +49,27 @@ public class BackupScheduler {
             return;
         }
         
-        log.info("Iniciando backup semanal automático");
-        
-        try {
-            BackupService.BackupResult result = backupService.performBackup();
-            
-            if (result.isSuccess()) {
-                log.info("Backup semanal completado exitosamente: {}", result.getMessage());
-            } else {
-                log.error("Backup semanal falló: {}", result.getMessage());
+        launch("semanal", backupService::performBackup);
+    }
+    
+    /**
+     * Si el anterior sigue en curso, {@link BackupService} omite este (no se superponen)
+     */
+    private void launch(String kind, Supplier<BackupService.BackupResult> backup) {
+        log.info("Iniciando backup {} automático", kind);
+        workerThreads.newThread("backup-" + kind, () -> {
+            try {
+                BackupService.BackupResult result = backup.get();
+                
+                if (result.isSuccess()) {
+                    log.info("Backup {} completado exitosamente: {}", kind, result.getMessage());
+                } else {
+                    log.error("Backup {} falló: {}", kind, result.getMessage());
+                }
+                
+            } catch (Exception e) {
+                log.error("Error crítico en backup {}: {}", kind, e.getMessage(), e);
             }
-            
-        } catch (Exception e) {
-            log.error("Error crítico en backup semanal: {}", e.getMessage(), e);
-        }
+        }).start();
     }
 }
@@ -0,0 +1,36 @@
+package com.gf.connector.scheduler;
+
+import com.gf.connector.service.BillingRetryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dispara periódicamente el motor de reintentos de facturación.
+ * Es seguro ejecutarlo en todas las réplicas: los lotes se reclaman con SKIP LOCKED.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BillingRetryScheduler {
+
+    private final BillingRetryService billingRetryService;
+
+    @Value("${billing.retry.enabled:true}")
+    private boolean retryEnabled;
+
+    @Scheduled(fixedDelayString = "${billing.retry.poll-interval-ms:30000}",
+               initialDelayString = "${billing.retry.initial-delay-ms:60000}")
+    public void retryFailedBillings() {
+        if (!retryEnabled) {
+            return;
+        }
+        try {
+            billingRetryService.drain();
+        } catch (Exception e) {
+            log.error("Error en ciclo de reintentos de facturación", e);
+        }
+    }
+}
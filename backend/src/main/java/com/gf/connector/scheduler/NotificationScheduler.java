@@ -0,0 +1,43 @@
+package com.gf.connector.scheduler;
+
+import com.gf.connector.service.NotificationDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Envía periódicamente los digests de notificaciones cuya ventana de agrupación venció
+ * y limpia el outbox de notificaciones ya enviadas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.mail.host")
+public class NotificationScheduler {
+
+    private final NotificationDispatcher notificationDispatcher;
+
+    @Scheduled(fixedDelayString = "${notification.flush-interval-ms:10000}",
+               initialDelayString = "${notification.initial-delay-ms:30000}")
+    public void flushNotifications() {
+        try {
+            notificationDispatcher.flush();
+        } catch (Exception e) {
+            log.error("Error enviando notificaciones pendientes", e);
+        }
+    }
+
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void purgeSentNotifications() {
+        try {
+            int deleted = notificationDispatcher.purgeSent();
+            if (deleted > 0) {
+                log.info("Limpieza de notificaciones: {} filas enviadas eliminadas", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error limpiando notificaciones enviadas", e);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.Base64;
+import java.util.HexFormat;
 
 @Service
 public class GetnetSignatureService {
@@ -33,17 +34,25 @@ public class GetnetSignatureService {
     }
 
     public boolean verify(String rawBody, String headerValue) {
-        return verifyWithSecretInternal(this.secret, rawBody, headerValue);
+        return verifyWithSecretInternal(this.secret, toBytes(rawBody), headerValue);
     }
 
     /**
      * Verifica usando un secreto provisto dinámicamente (por tenant)
      */
     public boolean verifyWithSecret(String secret, String rawBody, String headerValue) {
-        return verifyWithSecretInternal(secret, rawBody, headerValue);
+        return verifyWithSecretInternal(secret, toBytes(rawBody), headerValue);
     }
 
-    private boolean verifyWithSecretInternal(String effectiveSecret, String rawBody, String headerValue) {
+    /**
+     * Igual que {@link #verifyWithSecret(String, String, String)} pero sobre los bytes crudos
+     * del body, evitando decodificar y re-codificar el payload
+     */
+    public boolean verifyWithSecret(String secret, byte[] rawBody, String headerValue) {
+        return verifyWithSecretInternal(secret, rawBody != null ? rawBody : new byte[0], headerValue);
+    }
+
+    private boolean verifyWithSecretInternal(String effectiveSecret, byte[] rawBody, String headerValue) {
         boolean allow = allowUnsigned
                 || Boolean.parseBoolean(System.getProperty("getnet.webhook.allow-unsigned", "false"))
                 || Boolean.parseBoolean(System.getenv().getOrDefault("GETNET_WEBHOOK_ALLOW_UNSIGNED", "false"));
@@ -52,7 +61,7 @@ public class GetnetSignatureService {
             return true;
         }
         // Logging seguro: no exponer secretos ni payload completo
-        log.debug("[SIG] Header present: {} | bodyLength: {}", headerValue != null, (rawBody != null ? rawBody.length() : -1));
+        log.debug("[SIG] Header present: {} | bodyLength: {}", headerValue != null, rawBody.length);
 
         if (effectiveSecret == null || effectiveSecret.isBlank()) {
             // Si no hay secreto configurado, por seguridad rechazamos
@@ -88,22 +97,22 @@ public class GetnetSignatureService {
         return false;
     }
 
-    private static byte[] hmacSha256(String key, String data) {
+    private static byte[] hmacSha256(String key, byte[] data) {
         try {
             Mac mac = Mac.getInstance("HmacSHA256");
             mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            return mac.doFinal(data);
         } catch (Exception e) {
             throw new RuntimeException("Error computing HMAC", e);
         }
     }
 
+    private static byte[] toBytes(String rawBody) {
+        return rawBody != null ? rawBody.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
     private static String toHexLower(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        return HexFormat.of().formatHex(bytes);
     }
 
     private static boolean constantTimeEquals(String a, String b) {
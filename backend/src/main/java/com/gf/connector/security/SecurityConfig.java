@@ -70,6 +70,9 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.GET, "/api/reports/credit-notes/export").hasRole("ADMIN")
                 .requestMatchers(HttpMethod.GET, "/api/reports/**").hasAnyRole("USER", "ADMIN")
 
+                // Importaciones masivas y restauración de backups (ADMIN only)
+                .requestMatchers("/api/imports/**").hasRole("ADMIN")
+
                 // Reconciliation (manual run USER/ADMIN)
                 .requestMatchers(HttpMethod.POST, "/api/reconciliation/run").hasAnyRole("USER", "ADMIN")
 
@@ -0,0 +1,94 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Backups terminados (los directorios con manifiesto) y sus cadenas: un completo seguido de los
+ * incrementales que cuelgan de él.
+ */
+@Slf4j
+final class BackupCatalog {
+
+    private static final Pattern BACKUP_ID = Pattern.compile("^(" + BackupService.FULL_PREFIX + "|"
+            + BackupService.INCREMENTAL_PREFIX + ")\\d{8}_\\d{6}$");
+
+    private final Path root;
+    private final ObjectMapper objectMapper;
+
+    BackupCatalog(Path root, ObjectMapper objectMapper) {
+        this.root = root;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Backups terminados, del más viejo al más nuevo
+     */
+    List<BackupManifest> list() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        List<BackupManifest> manifests = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path manifest = path.resolve(BackupManifest.FILE_NAME);
+                if (BACKUP_ID.matcher(path.getFileName().toString()).matches() && Files.exists(manifest)) {
+                    try {
+                        manifests.add(objectMapper.readValue(manifest.toFile(), BackupManifest.class));
+                    } catch (IOException e) {
+                        log.warn("Manifiesto ilegible en {}: {}", path.getFileName(), e.getMessage());
+                    }
+                }
+            }
+        }
+        manifests.sort(Comparator.comparing(BackupManifest::snapshotAt));
+        return manifests;
+    }
+
+    Optional<BackupManifest> latest() throws IOException {
+        List<BackupManifest> manifests = list();
+        return manifests.isEmpty() ? Optional.empty() : Optional.of(manifests.get(manifests.size() - 1));
+    }
+
+    BackupManifest read(String id) throws IOException {
+        if (id == null || !BACKUP_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Identificador de backup inválido: " + id);
+        }
+        Path manifest = directory(id).resolve(BackupManifest.FILE_NAME);
+        if (!Files.exists(manifest)) {
+            throw new IllegalArgumentException("Backup no encontrado o incompleto: " + id);
+        }
+        return objectMapper.readValue(manifest.toFile(), BackupManifest.class);
+    }
+
+    /**
+     * Cadena que termina en {@code id}: el completo primero y después cada incremental en orden
+     */
+    List<BackupManifest> chain(String id) throws IOException {
+        List<BackupManifest> chain = new ArrayList<>();
+        BackupManifest current = read(id);
+        chain.add(current);
+        while (!current.isFull()) {
+            if (current.parentId() == null) {
+                throw new IllegalStateException("El backup incremental " + current.id() + " no tiene anterior");
+            }
+            current = read(current.parentId());
+            chain.add(0, current);
+        }
+        return chain;
+    }
+
+    Path directory(String id) {
+        return root.resolve(id);
+    }
+}
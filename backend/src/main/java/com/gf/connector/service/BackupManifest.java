@@ -0,0 +1,53 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Manifiesto de un backup ({@code manifest.json}): se escribe al final, así que un directorio
+ * con manifiesto es un backup terminado. {@code snapshotAt} es el instante del snapshot de lectura
+ * (todas las tablas reflejan la base en ese momento) y cada archivo lleva su SHA-256.
+ *
+ * Un backup incremental apunta a su anterior ({@code parentId}) y al completo que inicia la cadena
+ * ({@code baseId}); para los completos ambos son null.
+ */
+public record BackupManifest(int formatVersion, String id, String type, String parentId, String baseId,
+                             OffsetDateTime startedAt, OffsetDateTime finishedAt, OffsetDateTime snapshotAt,
+                             String compression, List<TableEntry> tables) {
+
+    public static final String FILE_NAME = "manifest.json";
+    public static final int FORMAT_VERSION = 2;
+    public static final String TYPE_FULL = "full";
+    public static final String TYPE_INCREMENTAL = "incremental";
+    public static final String COMPRESSION_GZIP = "gzip";
+
+    @JsonIgnore
+    public boolean isFull() {
+        return TYPE_FULL.equals(type);
+    }
+
+    /**
+     * Completo que inicia la cadena de este backup (él mismo si es completo)
+     */
+    public String chainId() {
+        return isFull() ? id : baseId;
+    }
+
+    public long totalRows() {
+        return tables.stream().mapToLong(TableEntry::rows).sum();
+    }
+
+    public Optional<TableEntry> table(String name) {
+        return tables.stream().filter(entry -> entry.table().equals(name)).findFirst();
+    }
+
+    /**
+     * Archivo NDJSON (una fila por línea) de una tabla. {@code since} es el límite inferior
+     * (exclusivo) de la columna de watermark, o null si la tabla se copió entera.
+     */
+    public record TableEntry(String table, String file, OffsetDateTime since, long rows, long bytes,
+                             String sha256, List<String> redactedColumns) { }
+}
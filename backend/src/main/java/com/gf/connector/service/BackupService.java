@@ -1,38 +1,108 @@
 package com.gf.connector.service;
 
-import com.gf.connector.domain.BillingSettings;
-import com.gf.connector.repo.BillingSettingsRepository;
-import com.gf.connector.repo.TransactionRepository;
-import com.gf.connector.repo.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.FileWriter;
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 /**
- * Servicio para backup automático de configuración crítica
- * Respalda datos importantes como CUIT, Punto de Venta, claves de API, etc.
+ * Backup de la base: cada tabla se vuelca a NDJSON con gzip y al final se escribe un manifiesto
+ * con filas y SHA-256 por archivo.
+ *
+ * Todas las tablas se leen del mismo snapshot: una transacción coordinadora REPEATABLE READ de
+ * solo lectura exporta su snapshot ({@code pg_export_snapshot}) y cada worker lo importa, así
+ * que el backup es consistente aunque las tablas se lean en paralelo y la base siga recibiendo
+ * webhooks (en PostgreSQL la lectura no bloquea escrituras). Usa a lo sumo
+ * {@code backup.parallelism} + 1 conexiones del pool. El backup se arma en un directorio
+ * {@code .partial} que se renombra al terminar.
+ *
+ * Los backups incrementales solo copian las filas de las tablas grandes cuya columna de watermark
+ * ({@code updated_at} o {@code created_at}) es posterior al snapshot del backup anterior, y forman
+ * una cadena con el último completo. {@link #restoreFromBackup} recorre la cadena en orden.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BackupService {
 
-    private final BillingSettingsRepository billingSettingsRepository;
-    private final TransactionRepository transactionRepository;
-    private final UserRepository userRepository;
+    static final String FULL_PREFIX = "full_";
+    static final String INCREMENTAL_PREFIX = "incr_";
+    static final String PARTIAL_SUFFIX = ".partial";
+
+    /**
+     * Tablas respaldadas, las más grandes primero para repartir mejor el trabajo en paralelo.
+     * Los refresh tokens no se respaldan (se regeneran al iniciar sesión). Las tablas sin columna
+     * de watermark se copian enteras también en los incrementales: son chicas o, como el outbox,
+     * cambian de estado sin marca de modificación.
+     */
+    static final List<BackupTable> TABLES = List.of(
+            BackupTable.of("transactions").incrementalBy("updated_at"),
+            BackupTable.of("webhook_events").incrementalBy("updated_at"),
+            BackupTable.of("invoices").incrementalBy("updated_at"),
+            BackupTable.of("credit_notes").incrementalBy("updated_at"),
+            BackupTable.of("notification_outbox"),
+            BackupTable.of("reconciliation_logs").incrementalBy("created_at"),
+            BackupTable.of("billing_settings").masking("webhook_secret"),
+            BackupTable.of("users").excluding("password"),
+            BackupTable.of("roles"));
+
+    /**
+     * Orden de restauración (padres antes que hijos). Usuarios y configuración de facturación no se
+     * restauran: su backup no tiene el password y tiene el secreto del webhook enmascarado.
+     */
+    static final List<String> RESTORE_ORDER = List.of(
+            "roles",
+            "transactions",
+            "invoices",
+            "credit_notes",
+            "webhook_events",
+            "notification_outbox",
+            "reconciliation_logs");
+
+    private static final int RESTORE_BATCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final WorkerThreads workerThreads;
+    private final AtomicBoolean running = new AtomicBoolean();
     
     // NotificationService es opcional - solo existe si está configurado el email
     @Autowired(required = false)
@@ -47,49 +117,72 @@ public class BackupService {
     @Value("${backup.retention-days:30}")
     private int retentionDays;
 
+    @Value("${backup.parallelism:2}")
+    private int parallelism = 2;
+
+    @Value("${backup.fetch-size:5000}")
+    private int fetchSize = 5000;
+
+    @Value("${backup.compression-level:1}")
+    private int compressionLevel = 1;
+
+    /**
+     * Margen hacia atrás desde el snapshot anterior: {@code updated_at} lo pone la aplicación al
+     * guardar, antes del commit, así que una fila puede aparecer con un valor algo anterior al
+     * snapshot en que se hizo visible. Las filas repetidas no molestan (la restauración las pisa).
+     */
+    @Value("${backup.incremental-overlap-minutes:10}")
+    private int incrementalOverlapMinutes = 10;
+
     /**
-     * Ejecuta backup completo de la configuración
+     * Backups por cadena (el completo más sus incrementales); al llegar se hace uno completo
+     */
+    @Value("${backup.max-chain-length:14}")
+    private int maxChainLength = 14;
+
+    /**
+     * Ejecuta backup completo de la base
      */
-    @Transactional(readOnly = true)
     public BackupResult performBackup() {
+        return execute("completo", this::performFullBackup);
+    }
+
+    /**
+     * Ejecuta backup incremental sobre el último backup (completo si no hay ninguno o la cadena
+     * ya es larga)
+     */
+    public BackupResult performIncrementalBackup() {
+        return execute("incremental", this::performNextBackup);
+    }
+
+    private BackupResult execute(String kind, Callable<BackupManifest> backup) {
         if (!backupEnabled) {
             log.info("Backup automático deshabilitado");
             return new BackupResult(false, "Backup deshabilitado");
         }
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Backup {} omitido: ya hay uno en curso", kind);
+            return new BackupResult(false, "Ya hay un backup en curso");
+        }
         
-        log.info("Iniciando backup automático de configuración");
+        log.info("Iniciando backup {}", kind);
         
         try {
-            // Crear directorio de backup si no existe
-            Path backupPath = Paths.get(backupDirectory);
-            if (!Files.exists(backupPath)) {
-                Files.createDirectories(backupPath);
-            }
-            
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String backupFileName = String.format("backup_%s.json", timestamp);
-            Path backupFile = backupPath.resolve(backupFileName);
-            
-            // Generar contenido del backup
-            String backupContent = generateBackupContent();
-            
-            // Escribir archivo de backup
-            try (FileWriter writer = new FileWriter(backupFile.toFile())) {
-                writer.write(backupContent);
-            }
+            BackupManifest manifest = backup.call();
             
             // Limpiar backups antiguos
             cleanupOldBackups();
             
-            log.info("Backup completado exitosamente: {}", backupFile);
+            log.info("Backup completado exitosamente: {} ({} filas en {} tablas)",
+                    manifest.id(), manifest.totalRows(), manifest.tables().size());
             
             // Enviar notificación de éxito
             if (notificationService != null) {
                 notificationService.sendBackupCompletedNotification(null, true, 
-                    "Backup completado: " + backupFile.getFileName());
+                    "Backup completado: " + manifest.id());
             }
             
-            return new BackupResult(true, "Backup exitoso: " + backupFile.getFileName());
+            return new BackupResult(true, "Backup exitoso: " + manifest.id() + " (" + manifest.totalRows() + " filas)");
             
         } catch (Exception e) {
             log.error("Error durante backup: {}", e.getMessage(), e);
@@ -101,93 +194,187 @@ public class BackupService {
             }
             
             return new BackupResult(false, "Error: " + e.getMessage());
+        } finally {
+            running.set(false);
         }
     }
     
+    BackupManifest performFullBackup() throws Exception {
+        return writeBackup(null);
+    }
+
     /**
-     * Genera el contenido del backup en formato JSON
+     * Incremental sobre el último backup terminado, o completo si no hay cadena utilizable
      */
-    private String generateBackupContent() {
-        StringBuilder content = new StringBuilder();
-        content.append("{\n");
-        content.append("  \"backupInfo\": {\n");
-        content.append("    \"timestamp\": \"").append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("\",\n");
-        content.append("    \"version\": \"1.0\",\n");
-        content.append("    \"type\": \"configuration_backup\"\n");
-        content.append("  },\n");
-        
-        // Backup de configuraciones de billing
-        content.append("  \"billingSettings\": [\n");
-        List<BillingSettings> settings = billingSettingsRepository.findAll();
-        for (int i = 0; i < settings.size(); i++) {
-            BillingSettings setting = settings.get(i);
-            content.append("    {\n");
-            content.append("      \"id\": \"").append(setting.getId()).append("\",\n");
-            content.append("      \"tenantId\": \"").append(setting.getTenantId()).append("\",\n");
-            content.append("      \"cuitEmpresa\": \"").append(setting.getCuitEmpresa()).append("\",\n");
-            content.append("      \"puntoVenta\": \"").append(setting.getPuntoVenta()).append("\",\n");
-            content.append("      \"razonSocialEmpresa\": \"").append(setting.getRazonSocialEmpresa()).append("\",\n");
-            content.append("      \"tipoComprobante\": \"").append(setting.getTipoComprobante()).append("\",\n");
-            content.append("      \"webhookSecret\": \"").append(maskSensitiveData(setting.getWebhookSecret())).append("\",\n");
-            content.append("      \"activo\": ").append(setting.getActivo()).append(",\n");
-            content.append("      \"createdAt\": \"").append(setting.getCreatedAt()).append("\"\n");
-            content.append("    }");
-            if (i < settings.size() - 1) {
-                content.append(",");
-            }
-            content.append("\n");
+    BackupManifest performNextBackup() throws Exception {
+        BackupCatalog catalog = catalog();
+        Optional<BackupManifest> latest = catalog.latest();
+        if (latest.isEmpty()) {
+            log.info("No hay backups anteriores: se hace uno completo");
+            return writeBackup(null);
         }
-        content.append("  ],\n");
+        int chainLength;
+        try {
+            chainLength = catalog.chain(latest.get().id()).size();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.warn("Cadena de {} incompleta ({}): se hace un backup completo", latest.get().id(), e.getMessage());
+            return writeBackup(null);
+        }
+        if (chainLength >= maxChainLength) {
+            log.info("La cadena de {} tiene {} backups: se hace uno completo", latest.get().chainId(), chainLength);
+            return writeBackup(null);
+        }
+        return writeBackup(latest.get());
+    }
+    
+    /**
+     * Vuelca todas las tablas desde un único snapshot y escribe el manifiesto. Sin {@code parent} es
+     * un backup completo; si no, incremental desde el snapshot de {@code parent}.
+     */
+    private BackupManifest writeBackup(BackupManifest parent) throws Exception {
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        boolean full = parent == null;
+        String id = (full ? FULL_PREFIX : INCREMENTAL_PREFIX)
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        OffsetDateTime since = full ? null : parent.snapshotAt().minusMinutes(incrementalOverlapMinutes);
+        Path root = Paths.get(backupDirectory);
+        Path partial = root.resolve(id + PARTIAL_SUFFIX);
+        Files.createDirectories(partial);
         
-        // Backup de usuarios (solo información básica, sin passwords)
-        content.append("  \"users\": [\n");
-        var users = userRepository.findAll();
-        for (int i = 0; i < users.size(); i++) {
-            var user = users.get(i);
-            content.append("    {\n");
-            content.append("      \"id\": \"").append(user.getId()).append("\",\n");
-            content.append("      \"username\": \"").append(user.getUsername()).append("\",\n");
-            content.append("      \"email\": \"").append(user.getEmail()).append("\",\n");
-            content.append("      \"firstName\": \"").append(user.getFirstName()).append("\",\n");
-            content.append("      \"lastName\": \"").append(user.getLastName()).append("\",\n");
-            content.append("      \"tenantId\": \"").append(user.getTenantId()).append("\",\n");
-            content.append("      \"role\": \"").append(user.getRole()).append("\",\n");
-            content.append("      \"createdAt\": \"").append(user.getCreatedAt()).append("\"\n");
-            content.append("    }");
-            if (i < users.size() - 1) {
-                content.append(",");
+        BackupManifest manifest;
+        try (Connection coordinator = dataSource.getConnection()) {
+            beginSnapshot(coordinator);
+            OffsetDateTime snapshotAt = snapshotTime(coordinator);
+            String snapshotId = exportSnapshot(coordinator);
+            TableExporter exporter = new TableExporter(fetchSize, compressionLevel);
+            List<BackupManifest.TableEntry> tables = snapshotId != null && parallelism > 1
+                    ? exportInParallel(exporter, snapshotId, since, partial)
+                    : exportSequentially(exporter, coordinator, since, partial);
+            coordinator.rollback();
+            
+            manifest = new BackupManifest(BackupManifest.FORMAT_VERSION, id,
+                    full ? BackupManifest.TYPE_FULL : BackupManifest.TYPE_INCREMENTAL,
+                    full ? null : parent.id(), full ? null : parent.chainId(), startedAt,
+                    OffsetDateTime.now(), snapshotAt, BackupManifest.COMPRESSION_GZIP, tables);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(partial.resolve(BackupManifest.FILE_NAME).toFile(), manifest);
+        } catch (Exception e) {
+            deleteRecursively(partial);
+            throw e;
+        }
+        Files.move(partial, root.resolve(id), StandardCopyOption.ATOMIC_MOVE);
+        return manifest;
+    }
+    
+    private List<BackupManifest.TableEntry> exportSequentially(TableExporter exporter, Connection connection,
+            OffsetDateTime since, Path directory) throws SQLException, IOException {
+        List<BackupManifest.TableEntry> entries = new ArrayList<>(TABLES.size());
+        for (BackupTable table : TABLES) {
+            entries.add(exportTable(exporter, connection, table, since, directory));
+        }
+        return entries;
+    }
+    
+    /**
+     * Un worker por tabla (hasta {@code parallelism}); cada uno importa el snapshot del coordinador
+     */
+    private List<BackupManifest.TableEntry> exportInParallel(TableExporter exporter, String snapshotId,
+            OffsetDateTime since, Path directory) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, TABLES.size()),
+                workerThreads.named("backup-export"));
+        try {
+            List<Future<BackupManifest.TableEntry>> futures = new ArrayList<>(TABLES.size());
+            for (BackupTable table : TABLES) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        beginSnapshot(connection);
+                        try (Statement statement = connection.createStatement()) {
+                            statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+                        }
+                        BackupManifest.TableEntry entry = exportTable(exporter, connection, table, since, directory);
+                        connection.rollback();
+                        return entry;
+                    }
+                }));
+            }
+            List<BackupManifest.TableEntry> entries = new ArrayList<>(futures.size());
+            for (Future<BackupManifest.TableEntry> future : futures) {
+                try {
+                    entries.add(future.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
             }
-            content.append("\n");
+            return entries;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * {@code since} solo se aplica a las tablas con columna de watermark; las demás van enteras
+     */
+    private BackupManifest.TableEntry exportTable(TableExporter exporter, Connection connection, BackupTable table,
+            OffsetDateTime since, Path directory) throws SQLException, IOException {
+        long started = System.nanoTime();
+        BackupManifest.TableEntry entry = exporter.export(connection, table,
+                table.watermarkColumn() != null ? since : null, directory);
+        log.info("Backup de {}: {} filas, {} bytes en {} ms", table.name(), entry.rows(), entry.bytes(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return entry;
+    }
+    
+    /**
+     * Transacción de solo lectura REPEATABLE READ: todas las consultas ven el mismo snapshot.
+     * El pool restablece autocommit, aislamiento y solo lectura al devolver la conexión.
+     */
+    private static void beginSnapshot(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.setReadOnly(true);
+    }
+    
+    private static OffsetDateTime snapshotTime(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            resultSet.next();
+            return resultSet.getObject(1, OffsetDateTime.class);
         }
-        content.append("  ],\n");
-        
-        // Estadísticas de transacciones
-        content.append("  \"statistics\": {\n");
-        content.append("    \"totalTransactions\": ").append(transactionRepository.count()).append(",\n");
-        content.append("    \"totalBillingSettings\": ").append(billingSettingsRepository.count()).append(",\n");
-        content.append("    \"totalUsers\": ").append(userRepository.count()).append("\n");
-        content.append("  }\n");
-        
-        content.append("}\n");
-        
-        return content.toString();
     }
     
     /**
-     * Enmascara datos sensibles para el backup
+     * Identificador del snapshot para compartirlo con los workers; null si la base no es PostgreSQL
+     * (en ese caso las tablas se leen en secuencia dentro de la transacción coordinadora)
      */
-    private String maskSensitiveData(String data) {
-        if (data == null || data.isEmpty()) {
-            return "";
+    private static String exportSnapshot(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return null;
         }
-        if (data.length() <= 4) {
-            return "****";
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            resultSet.next();
+            return resultSet.getString(1);
         }
-        return data.substring(0, 2) + "****" + data.substring(data.length() - 2);
+    }
+    
+    private static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar {}: {}", directory, e.getMessage());
+        }
+    }
+    
+    private BackupCatalog catalog() {
+        return new BackupCatalog(Paths.get(backupDirectory), objectMapper);
     }
     
     /**
-     * Limpia backups antiguos según la política de retención
+     * Limpia backups antiguos según la política de retención. Las cadenas se borran enteras (un
+     * incremental no sirve sin su completo) cuando su último backup venció, y la más nueva nunca.
+     * También borra restos de backups interrumpidos y archivos .json del formato anterior.
      */
     private void cleanupOldBackups() {
         try {
@@ -196,28 +383,39 @@ public class BackupService {
                 return;
             }
             
-            LocalDateTime cutoffDate = LocalDateTime.now().minusDays(retentionDays);
+            Instant cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
             
-            Files.list(backupPath)
-                .filter(path -> path.toString().endsWith(".json"))
-                .filter(path -> {
-                    try {
-                        return Files.getLastModifiedTime(path).toInstant()
-                            .atZone(java.time.ZoneId.systemDefault())
-                            .toLocalDateTime()
-                            .isBefore(cutoffDate);
-                    } catch (IOException e) {
-                        return false;
+            Map<String, List<BackupManifest>> chains = new LinkedHashMap<>();
+            for (BackupManifest manifest : catalog().list()) {
+                chains.computeIfAbsent(manifest.chainId(), chainId -> new ArrayList<>()).add(manifest);
+            }
+            List<List<BackupManifest>> ordered = new ArrayList<>(chains.values());
+            for (List<BackupManifest> chain : ordered.subList(0, Math.max(ordered.size() - 1, 0))) {
+                if (chain.get(chain.size() - 1).finishedAt().toInstant().isBefore(cutoff)) {
+                    for (BackupManifest manifest : chain) {
+                        deleteRecursively(backupPath.resolve(manifest.id()));
                     }
-                })
-                .forEach(path -> {
-                    try {
-                        Files.delete(path);
+                    log.info("Cadena de backups antigua eliminada: {} ({} backups)", chain.get(0).chainId(), chain.size());
+                }
+            }
+            
+            try (Stream<Path> paths = Files.list(backupPath)) {
+                paths.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(".json") || name.endsWith(PARTIAL_SUFFIX);
+                    })
+                    .filter(path -> {
+                        try {
+                            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+                        } catch (IOException e) {
+                            return false;
+                        }
+                    })
+                    .forEach(path -> {
+                        deleteRecursively(path);
                         log.info("Backup antiguo eliminado: {}", path.getFileName());
-                    } catch (IOException e) {
-                        log.warn("No se pudo eliminar backup antiguo: {}", path.getFileName());
-                    }
-                });
+                    });
+            }
                 
         } catch (Exception e) {
             log.error("Error limpiando backups antiguos: {}", e.getMessage(), e);
@@ -225,30 +423,115 @@ public class BackupService {
     }
     
     /**
-     * Restaura configuración desde un archivo de backup
+     * Restaura la base desde un backup: verifica los SHA-256 de toda la cadena y la carga en orden
+     * (el completo y después cada incremental) en una sola transacción. Las filas existentes con el
+     * mismo id se actualizan; las borradas después del backup no se eliminan.
      */
-    public boolean restoreFromBackup(String backupFileName) {
+    public boolean restoreFromBackup(String backupId) {
         try {
-            Path backupFile = Paths.get(backupDirectory, backupFileName);
-            if (!Files.exists(backupFile)) {
-                log.error("Archivo de backup no encontrado: {}", backupFileName);
-                return false;
-            }
-            
-            String backupContent = Files.readString(backupFile);
-            log.info("Iniciando restauración desde: {}", backupFileName);
-            
-            // Aquí se implementaría la lógica de restauración
-            // Por ahora solo logueamos
-            log.info("Restauración completada desde: {}", backupFileName);
+            restoreChain(backupId, new BulkImportService.Job(UUID.randomUUID(), null, "backup " + backupId, 0));
             return true;
-            
         } catch (Exception e) {
-            log.error("Error restaurando desde backup {}: {}", backupFileName, e.getMessage(), e);
+            log.error("Error restaurando desde backup {}: {}", backupId, e.getMessage(), e);
             return false;
         }
     }
     
+    /**
+     * En PostgreSQL cada tabla se carga con COPY a una tabla temporal y se mergea una sola vez
+     * ({@link StagedTable}); en otras bases se inserta por lotes ({@link TableRestorer})
+     *
+     * @return filas restauradas
+     */
+    long restoreChain(String backupId, BulkImportService.Job job) throws Exception {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Hay un backup o una restauración en curso");
+        }
+        try {
+            BackupCatalog catalog = catalog();
+            List<BackupManifest> chain = catalog.chain(backupId);
+            log.info("Iniciando restauración desde: {} (cadena de {} backups desde {})",
+                    backupId, chain.size(), chain.get(0).id());
+            for (BackupManifest manifest : chain) {
+                verifyChecksums(catalog.directory(manifest.id()), manifest);
+                for (String table : RESTORE_ORDER) {
+                    manifest.table(table).ifPresent(entry -> job.addTotalBytes(entry.bytes()));
+                }
+            }
+            
+            long totalRows = 0;
+            try (Connection connection = dataSource.getConnection()) {
+                boolean copy = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+                connection.setAutoCommit(false);
+                try {
+                    for (String table : RESTORE_ORDER) {
+                        long started = System.nanoTime();
+                        job.stage(table);
+                        long rows = copy
+                                ? restoreWithCopy(connection, table, chain, catalog, job)
+                                : restoreWithInserts(connection, table, chain, catalog, job);
+                        log.info("Restauración de {}: {} filas en {} ms", table, rows,
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                        totalRows += rows;
+                    }
+                    connection.commit();
+                } catch (Exception e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+            
+            log.info("Restauración completada desde: {} ({} filas)", backupId, totalRows);
+            return totalRows;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private long restoreWithCopy(Connection connection, String table, List<BackupManifest> chain, BackupCatalog catalog,
+            BulkImportService.Job job) throws SQLException, IOException {
+        try (StagedTable stage = StagedTable.create(connection, table)) {
+            for (BackupManifest manifest : chain) {
+                Optional<BackupManifest.TableEntry> entry = manifest.table(table);
+                if (entry.isPresent()) {
+                    try (InputStream in = BulkImportService.open(catalog.directory(manifest.id()).resolve(entry.get().file()), job)) {
+                        stage.copyNdjson(objectMapper, in, job::addStaged);
+                    }
+                }
+            }
+            job.merging();
+            long rows = stage.merge("id", BulkImportService.ConflictPolicy.OVERWRITE, null);
+            job.addMerged(rows);
+            return rows;
+        }
+    }
+    
+    private long restoreWithInserts(Connection connection, String table, List<BackupManifest> chain, BackupCatalog catalog,
+            BulkImportService.Job job) throws SQLException, IOException {
+        TableRestorer restorer = new TableRestorer(RESTORE_BATCH_SIZE);
+        long rows = 0;
+        for (BackupManifest manifest : chain) {
+            Optional<BackupManifest.TableEntry> entry = manifest.table(table);
+            if (entry.isPresent()) {
+                rows += restorer.restore(connection, table, catalog.directory(manifest.id()).resolve(entry.get().file()));
+            }
+        }
+        job.addMerged(rows);
+        return rows;
+    }
+    
+    private static void verifyChecksums(Path directory, BackupManifest manifest) throws IOException {
+        for (BackupManifest.TableEntry entry : manifest.tables()) {
+            MessageDigest digest = TableExporter.sha256();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(directory.resolve(entry.file())), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            if (!HexFormat.of().formatHex(digest.digest()).equals(entry.sha256())) {
+                throw new IllegalStateException("SHA-256 inválido en " + manifest.id() + "/" + entry.file());
+            }
+        }
+    }
+    
     /**
      * Resultado del backup
      */
@@ -0,0 +1,34 @@
+package com.gf.connector.service;
+
+import java.util.Set;
+
+/**
+ * Tabla incluida en el backup. Las columnas excluidas no se escriben (p. ej. hashes de password)
+ * y las enmascaradas se escriben con {@link TableExporter#mask}. En los backups incrementales
+ * solo se exportan las filas con {@code watermarkColumn} posterior al backup anterior; las tablas
+ * sin esa columna se copian enteras (son chicas).
+ */
+record BackupTable(String name, Set<String> excludedColumns, Set<String> maskedColumns, String watermarkColumn) {
+
+    static final String FILE_SUFFIX = ".ndjson.gz";
+
+    static BackupTable of(String name) {
+        return new BackupTable(name, Set.of(), Set.of(), null);
+    }
+
+    BackupTable excluding(String... columns) {
+        return new BackupTable(name, Set.of(columns), maskedColumns, watermarkColumn);
+    }
+
+    BackupTable masking(String... columns) {
+        return new BackupTable(name, excludedColumns, Set.of(columns), watermarkColumn);
+    }
+
+    BackupTable incrementalBy(String column) {
+        return new BackupTable(name, excludedColumns, maskedColumns, column);
+    }
+
+    String fileName() {
+        return name + FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,356 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.Invoice;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.repo.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Confirmación masiva de facturación para tenants con confirmación manual.
+ *
+ * Cada job resuelve la lista de transacciones (IDs explícitos o filtro), y un hilo
+ * coordinador las emite en las lanes de facturación con a lo sumo
+ * {@code billing.bulk-confirm.parallelism} emisiones en vuelo. Cada item se reclama con un
+ * UPDATE condicional (pending/error -> retrying con lease), así que dos jobs, un click
+ * manual o el motor de reintentos nunca facturan la misma transacción dos veces. Los
+ * resultados por item quedan en el job para consultarlos por polling o por SSE.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BillingConfirmationJobService {
+
+    private static final OffsetDateTime SAFE_EPOCH = OffsetDateTime.parse("1970-01-01T00:00:00Z");
+
+    private final TransactionRepository transactionRepository;
+    private final InvoiceService invoiceService;
+    private final LiveMetricsService liveMetricsService;
+    private final WorkerThreads workerThreads;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService eventDispatcher = Executors.newSingleThreadExecutor(this::newEventThread);
+
+    @Value("${billing.bulk-confirm.parallelism:8}")
+    private int parallelism = 8;
+
+    @Value("${billing.bulk-confirm.max-items:5000}")
+    private int maxItems = 5000;
+
+    @Value("${billing.bulk-confirm.max-active-jobs:4}")
+    private int maxActiveJobs = 4;
+
+    @Value("${billing.bulk-confirm.lease-seconds:600}")
+    private long leaseSeconds = 600;
+
+    @Value("${billing.bulk-confirm.retention-minutes:60}")
+    private long retentionMinutes = 60;
+
+    /**
+     * Crea y lanza un job de confirmación masiva
+     *
+     * @throws IllegalArgumentException si el pedido supera {@code max-items}
+     * @throws RejectedExecutionException si ya hay {@code max-active-jobs} jobs en curso
+     */
+    public Job start(UUID tenantId, Criteria criteria) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("tenantId es obligatorio para la confirmación masiva");
+        }
+        evictExpired();
+        long active = jobs.values().stream().filter(job -> !job.isFinished()).count();
+        if (active >= maxActiveJobs) {
+            throw new RejectedExecutionException("Hay " + active + " confirmaciones masivas en curso; reintente en unos minutos");
+        }
+
+        List<UUID> transactionIds = resolveTransactionIds(tenantId, criteria);
+        Job job = new Job(UUID.randomUUID(), tenantId, transactionIds);
+        jobs.put(job.getId(), job);
+
+        workerThreads.newThread("billing-confirm-" + job.getId().toString().substring(0, 8), () -> run(job)).start();
+        log.info("Confirmación masiva {} iniciada para tenant {}: {} transacciones, paralelismo {}",
+                job.getId(), tenantId, transactionIds.size(), parallelism);
+        return job;
+    }
+
+    /**
+     * Job del tenant (los jobs de otros tenants no son visibles)
+     */
+    public Optional<Job> find(UUID jobId, UUID tenantId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.getTenantId().equals(tenantId) ? Optional.of(job) : Optional.empty();
+    }
+
+    private List<UUID> resolveTransactionIds(UUID tenantId, Criteria criteria) {
+        Criteria effective = criteria != null ? criteria : new Criteria(null, false, null, null);
+        if (effective.transactionIds() != null && !effective.transactionIds().isEmpty()) {
+            List<UUID> ids = new ArrayList<>(new LinkedHashSet<>(effective.transactionIds()));
+            if (ids.size() > maxItems) {
+                throw new IllegalArgumentException("Se pueden confirmar hasta " + maxItems + " transacciones por job");
+            }
+            return ids;
+        }
+        List<String> billingStatuses = effective.includeErrors() ? List.of("pending", "error") : List.of("pending");
+        return transactionRepository.findIdsForBillingConfirmation(tenantId, billingStatuses,
+                effective.from() != null ? effective.from() : SAFE_EPOCH,
+                effective.to() != null ? effective.to() : OffsetDateTime.now(),
+                PageRequest.of(0, maxItems));
+    }
+
+    private void run(Job job) {
+        job.state = JobState.RUNNING;
+        Semaphore inFlight = new Semaphore(parallelism);
+        try {
+            for (UUID transactionId : job.transactionIds) {
+                if (job.cancelRequested) {
+                    record(job, ItemOutcome.of(transactionId, null, ItemStatus.CANCELLED, "Job cancelado antes de emitir"));
+                    continue;
+                }
+                inFlight.acquire();
+                CompletableFuture<ItemOutcome> outcome;
+                try {
+                    outcome = emit(job, transactionId);
+                } catch (RuntimeException e) {
+                    outcome = CompletableFuture.completedFuture(
+                            ItemOutcome.of(transactionId, null, ItemStatus.FAILED, e.getMessage()));
+                }
+                outcome.whenComplete((result, error) -> {
+                    try {
+                        record(job, result != null ? result
+                                : ItemOutcome.of(transactionId, null, ItemStatus.FAILED, String.valueOf(error)));
+                    } finally {
+                        // Se libera después de registrar: al tomar todos los permisos no queda nada por agregar
+                        inFlight.release();
+                    }
+                });
+            }
+            // Esperar a que terminen las emisiones en vuelo
+            inFlight.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Confirmación masiva {} interrumpida", job.getId());
+        } finally {
+            job.finish(job.cancelRequested ? JobState.CANCELLED : JobState.COMPLETED);
+            notifyListeners(job);
+            log.info("Confirmación masiva {} finalizada ({}): {} facturadas, {} fallidas, {} omitidas",
+                    job.getId(), job.state, job.billed, job.failed, job.skipped);
+        }
+    }
+
+    private CompletableFuture<ItemOutcome> emit(Job job, UUID transactionId) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .filter(tx -> job.getTenantId().equals(tx.getTenantId()))
+                .orElse(null);
+        if (transaction == null) {
+            return CompletableFuture.completedFuture(
+                    ItemOutcome.of(transactionId, null, ItemStatus.SKIPPED, "Transacción no encontrada"));
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        OffsetDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+        // El reclamo condicional decide; lo leído antes solo sirve para el mensaje y las métricas
+        if (transactionRepository.claimForBillingConfirmation(transactionId, job.getTenantId(), leaseUntil, now) == 0) {
+            return CompletableFuture.completedFuture(ItemOutcome.of(transactionId, transaction.getExternalId(), ItemStatus.SKIPPED,
+                    "Estado de facturación actual: " + transaction.getBillingStatus() + ". Solo se confirman 'pending' o 'error'"));
+        }
+        liveMetricsService.recordBillingTransition(job.getTenantId(), transaction.getBillingStatus(), "retrying");
+        transaction.setBillingStatus("retrying");
+        transaction.setNextBillingAttemptAt(leaseUntil);
+
+        CompletableFuture<Invoice> invoice;
+        try {
+            invoice = invoiceService.submitFactura(transaction);
+        } catch (RejectedExecutionException e) {
+            invoice = CompletableFuture.failedFuture(e);
+        }
+        return invoice.handle((result, error) -> recordBillingOutcome(transaction, result, error));
+    }
+
+    private ItemOutcome recordBillingOutcome(Transaction transaction, Invoice invoice, Throwable error) {
+        OffsetDateTime now = OffsetDateTime.now();
+        if (error == null && invoice != null && "sent".equals(invoice.getStatus())) {
+            transactionRepository.updateBillingOutcome(transaction.getId(), "billed", null, null, now);
+            liveMetricsService.recordBillingTransition(transaction.getTenantId(), "retrying", "billed");
+            // La factura se emitió sobre la transacción releída en la lane
+            Transaction billed = invoice.getTransaction() != null ? invoice.getTransaction() : transaction;
+            return new ItemOutcome(transaction.getId(), transaction.getExternalId(), ItemStatus.BILLED,
+                    invoice.getId(), billed.getCae(), billed.getInvoiceNumber(), null);
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String message = cause != null ? cause.getMessage() : "Facturante rechazó el comprobante";
+        if (message != null && message.length() > 1000) {
+            message = message.substring(0, 1000);
+        }
+        transactionRepository.updateBillingOutcome(transaction.getId(), "error", null, message, now);
+        liveMetricsService.recordBillingTransition(transaction.getTenantId(), "retrying", "error");
+        return new ItemOutcome(transaction.getId(), transaction.getExternalId(), ItemStatus.FAILED,
+                invoice != null ? invoice.getId() : null, null, null, message);
+    }
+
+    private void record(Job job, ItemOutcome outcome) {
+        job.append(outcome);
+        notifyListeners(job);
+    }
+
+    /**
+     * Los suscriptores (SSE) se notifican fuera de las lanes: un cliente lento no frena la emisión
+     */
+    private void notifyListeners(Job job) {
+        for (Runnable listener : job.listeners) {
+            try {
+                eventDispatcher.execute(listener);
+            } catch (RejectedExecutionException e) {
+                log.debug("Notificación de job {} descartada: dispatcher detenido", job.getId());
+            }
+        }
+    }
+
+    private void evictExpired() {
+        OffsetDateTime threshold = OffsetDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt.isBefore(threshold));
+    }
+
+    private Thread newEventThread(Runnable task) {
+        return workerThreads.newThread("billing-confirm-events", task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(Job::cancel);
+        eventDispatcher.shutdownNow();
+    }
+
+    /**
+     * Pedido de confirmación: IDs explícitos o, si no hay, filtro por estado y fecha de creación
+     */
+    public record Criteria(List<UUID> transactionIds, boolean includeErrors, OffsetDateTime from, OffsetDateTime to) { }
+
+    public enum JobState { QUEUED, RUNNING, COMPLETED, CANCELLED }
+
+    public enum ItemStatus { BILLED, FAILED, SKIPPED, CANCELLED }
+
+    public record ItemOutcome(UUID transactionId, String externalId, ItemStatus status,
+                              UUID invoiceId, String cae, String invoiceNumber, String message) {
+        static ItemOutcome of(UUID transactionId, String externalId, ItemStatus status, String message) {
+            return new ItemOutcome(transactionId, externalId, status, null, null, null, message);
+        }
+    }
+
+    public record JobSnapshot(UUID jobId, JobState state, int total, int processed, int billed, int failed,
+                              int skipped, int cancelled, OffsetDateTime createdAt, OffsetDateTime finishedAt,
+                              int cursor, List<ItemOutcome> items) { }
+
+    /**
+     * Estado de un job en memoria. Los resultados se agregan en orden de finalización y se
+     * leen por cursor (índice del primer resultado no visto).
+     */
+    public static final class Job {
+        private final UUID id;
+        private final UUID tenantId;
+        private final List<UUID> transactionIds;
+        private final OffsetDateTime createdAt = OffsetDateTime.now();
+        private final List<ItemOutcome> outcomes = new ArrayList<>();
+        private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile JobState state = JobState.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile OffsetDateTime finishedAt;
+        private int billed;
+        private int failed;
+        private int skipped;
+        private int cancelled;
+
+        Job(UUID id, UUID tenantId, List<UUID> transactionIds) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.transactionIds = List.copyOf(transactionIds);
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public UUID getTenantId() {
+            return tenantId;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public boolean isFinished() {
+            return state == JobState.COMPLETED || state == JobState.CANCELLED;
+        }
+
+        /**
+         * Los items aún no emitidos se marcan CANCELLED; los que están en vuelo terminan
+         */
+        public void cancel() {
+            cancelRequested = true;
+        }
+
+        public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        public void addListener(Runnable listener) {
+            listeners.add(listener);
+        }
+
+        public void removeListener(Runnable listener) {
+            listeners.remove(listener);
+        }
+
+        public synchronized int processed() {
+            return outcomes.size();
+        }
+
+        public synchronized List<ItemOutcome> outcomesSince(int cursor, int limit) {
+            int from = Math.min(Math.max(cursor, 0), outcomes.size());
+            int to = (int) Math.min((long) from + Math.max(limit, 0), outcomes.size());
+            return List.copyOf(outcomes.subList(from, to));
+        }
+
+        public synchronized JobSnapshot snapshot(int cursor, int limit) {
+            List<ItemOutcome> items = outcomesSince(cursor, limit);
+            return new JobSnapshot(id, state, transactionIds.size(), outcomes.size(), billed, failed, skipped,
+                    cancelled, createdAt, finishedAt, Math.min(Math.max(cursor, 0), outcomes.size()) + items.size(), items);
+        }
+
+        private synchronized void append(ItemOutcome outcome) {
+            outcomes.add(outcome);
+            switch (outcome.status()) {
+                case BILLED -> billed++;
+                case FAILED -> failed++;
+                case SKIPPED -> skipped++;
+                case CANCELLED -> cancelled++;
+            }
+        }
+
+        private void finish(JobState finalState) {
+            finishedAt = OffsetDateTime.now();
+            state = finalState;
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.Invoice;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.repo.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Motor de reintentos de facturación para transacciones en error o pendientes.
+ *
+ * Cada ciclo reclama lotes con {@code FOR UPDATE SKIP LOCKED} en una transacción corta:
+ * las filas reclamadas pasan a {@code retrying} con un lease, y el intento se ejecuta fuera
+ * del lock en las lanes de facturación (ordenado respecto de notas de crédito). Varias
+ * réplicas drenan el backlog en paralelo sobre lotes disjuntos. Si un intento falla, el
+ * próximo se agenda con backoff exponencial y jitter guardado en la propia fila; si el
+ * nodo cae, la fila vuelve a ser elegible cuando vence el lease.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BillingRetryService {
+
+    private final TransactionRepository transactionRepository;
+    private final InvoiceService invoiceService;
+    private final TransactionTemplate transactionTemplate;
+    private final LiveMetricsService liveMetricsService;
+
+    @Value("${billing.retry.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${billing.retry.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${billing.retry.base-delay-seconds:30}")
+    private long baseDelaySeconds = 30;
+
+    @Value("${billing.retry.max-delay-seconds:21600}")
+    private long maxDelaySeconds = 21600;
+
+    @Value("${billing.retry.lease-seconds:600}")
+    private long leaseSeconds = 600;
+
+    @Value("${billing.retry.max-batches-per-run:20}")
+    private int maxBatchesPerRun = 20;
+
+    /**
+     * Ejecuta un ciclo de reintentos: reclama lotes hasta vaciar el backlog elegible (o el
+     * máximo por ciclo) y espera a que terminen los intentos reclamados.
+     *
+     * @return cantidad de transacciones intentadas
+     */
+    public int drain() {
+        int attempted = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Transaction> claimed = claimBatch();
+            if (claimed.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Void>> pending = new ArrayList<>(claimed.size());
+            for (Transaction transaction : claimed) {
+                pending.add(submitAttempt(transaction));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+            attempted += claimed.size();
+            if (claimed.size() < batchSize) {
+                break;
+            }
+        }
+        if (attempted > 0) {
+            log.info("Ciclo de reintentos de facturación: {} transacciones intentadas", attempted);
+        }
+        return attempted;
+    }
+
+    /**
+     * Reclama un lote en una transacción corta; las filas quedan en 'retrying' con lease
+     */
+    List<Transaction> claimBatch() {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<Transaction> claimed = transactionTemplate.execute(status -> {
+            List<Transaction> batch = new ArrayList<>(transactionRepository.claimBillingRetryBatch(now, maxAttempts, batchSize));
+            for (Iterator<Transaction> it = batch.iterator(); it.hasNext(); ) {
+                Transaction transaction = it.next();
+                if ("retrying".equals(transaction.getBillingStatus()) && transaction.getBillingAttempts() != null
+                        && transaction.getBillingAttempts() >= maxAttempts) {
+                    // El nodo cayó durante el último intento: queda en error, visible para el reseteo manual
+                    transaction.setBillingStatus("error");
+                    transaction.setNextBillingAttemptAt(null);
+                    transaction.setLastBillingError("Lease vencido durante el último intento de facturación");
+                    liveMetricsService.recordBillingTransition(transaction.getTenantId(), "retrying", "error");
+                    log.warn("Reintentos agotados para {}: el lease del intento {} venció sin resultado",
+                            transaction.getExternalId(), transaction.getBillingAttempts());
+                    it.remove();
+                    continue;
+                }
+                // Un 'pending' (p. ej. reseteado por un admin) empieza un ciclo de reintentos nuevo
+                int attempts = "pending".equals(transaction.getBillingStatus()) || transaction.getBillingAttempts() == null
+                        ? 0 : transaction.getBillingAttempts();
+                transaction.setBillingAttempts(attempts + 1);
+                liveMetricsService.recordBillingTransition(transaction.getTenantId(), transaction.getBillingStatus(), "retrying");
+                transaction.setBillingStatus("retrying");
+                transaction.setNextBillingAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return batch;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private CompletableFuture<Void> submitAttempt(Transaction transaction) {
+        try {
+            return invoiceService.submitFactura(transaction)
+                    .handle((invoice, error) -> {
+                        recordOutcome(transaction, invoice, error);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // Lane saturada: se libera el reclamo con backoff en lugar de bloquear el ciclo
+            recordOutcome(transaction, null, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    void recordOutcome(Transaction transaction, Invoice invoice, Throwable error) {
+        OffsetDateTime now = OffsetDateTime.now();
+        if (error == null && invoice != null && "sent".equals(invoice.getStatus())) {
+            transactionRepository.updateBillingOutcome(transaction.getId(), "billed", null, null, now);
+            liveMetricsService.recordBillingTransition(transaction.getTenantId(), "retrying", "billed");
+            log.info("Reintento de facturación exitoso para {} (intento {})",
+                    transaction.getExternalId(), transaction.getBillingAttempts());
+            return;
+        }
+        int attempts = transaction.getBillingAttempts() != null ? transaction.getBillingAttempts() : 1;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String message = cause != null ? cause.getMessage() : "Facturante rechazó el comprobante";
+        OffsetDateTime next = attempts < maxAttempts ? now.plus(backoff(attempts)) : null;
+        transactionRepository.updateBillingOutcome(transaction.getId(), "error", next, truncate(message), now);
+        liveMetricsService.recordBillingTransition(transaction.getTenantId(), "retrying", "error");
+        log.warn("Reintento {} de facturación fallido para {}: {}. Próximo intento: {}",
+                attempts, transaction.getExternalId(), message, next != null ? next : "agotado");
+    }
+
+    /**
+     * Backoff exponencial con jitter: entre la mitad y el total de base * 2^(intento-1), acotado
+     */
+    Duration backoff(int attempt) {
+        long exponential = baseDelaySeconds << Math.min(Math.max(attempt - 1, 0), 20);
+        long capped = Math.min(exponential, maxDelaySeconds);
+        long jittered = capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+        return Duration.ofSeconds(jittered);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -7,11 +7,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -20,6 +24,9 @@ public class BillingSettingsService {
     
     private final BillingSettingsRepository billingSettingsRepository;
     private static final java.util.UUID DEFAULT_TEST_TENANT = java.util.UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    // Versión en memoria de la configuración de cada tenant; la usan los planes de transformación
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
     
     /**
      * Obtiene la configuración activa de facturación
@@ -32,6 +39,15 @@ public class BillingSettingsService {
     public Optional<BillingSettings> getActiveSettings() {
         return getActiveSettings(DEFAULT_TEST_TENANT);
     }
+
+    /**
+     * Versión de la configuración del tenant en esta instancia: cambia con cada alta, modificación,
+     * activación o baja confirmada. Permite cachear lo que se deriva de la configuración activa
+     * sin consultarla en cada uso.
+     */
+    public long settingsVersion(UUID tenantId) {
+        return tenantId != null ? versions.getOrDefault(tenantId, 0L) : 0L;
+    }
     
     /**
      * Obtiene la configuración activa como DTO
@@ -102,6 +118,7 @@ public class BillingSettingsService {
         
         settings = billingSettingsRepository.save(settings);
         
+        bumpVersion(tenantId);
         log.info("Configuración creada con ID: {}", settings.getId());
         return BillingSettingsDto.fromEntity(settings);
     }
@@ -163,6 +180,7 @@ public class BillingSettingsService {
         
         existingSettings = billingSettingsRepository.save(existingSettings);
         
+        bumpVersion(tenantId);
         log.info("Configuración actualizada: {}", existingSettings.getId());
         return BillingSettingsDto.fromEntity(existingSettings);
     }
@@ -193,6 +211,7 @@ public class BillingSettingsService {
         settings.setActivo(true);
         settings = billingSettingsRepository.save(settings);
         
+        bumpVersion(tenantId);
         log.info("Configuración activada: {}", settings.getId());
         return BillingSettingsDto.fromEntity(settings);
     }
@@ -222,6 +241,7 @@ public class BillingSettingsService {
         }
         
         billingSettingsRepository.delete(settings);
+        bumpVersion(tenantId);
         log.info("Configuración eliminada: {}", id);
     }
 
@@ -257,6 +277,7 @@ public class BillingSettingsService {
             defaultSettings.setTenantId(tenantId);
             
             billingSettingsRepository.save(defaultSettings);
+            bumpVersion(tenantId);
             log.info("Configuración por defecto creada");
         }
     }
@@ -266,4 +287,24 @@ public class BillingSettingsService {
     public void createDefaultSettingsIfNotExists() {
         createDefaultSettingsIfNotExists(DEFAULT_TEST_TENANT);
     }
+
+    /**
+     * Incrementa la versión del tenant al confirmarse la transacción en curso (o en el acto si no
+     * hay una), para que nadie recompile con la configuración previa al commit y la cachee como nueva
+     */
+    private void bumpVersion(UUID tenantId) {
+        if (tenantId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.merge(tenantId, 1L, Long::sum);
+                }
+            });
+        } else {
+            versions.merge(tenantId, 1L, Long::sum);
+        }
+    }
 }
@@ -1,6 +1,11 @@
 package com.gf.connector.service;
 
+import com.gf.connector.domain.Money;
 import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.model.Autenticacion;
+import com.gf.connector.facturante.model.Cliente;
+import com.gf.connector.facturante.model.ComprobanteEncabezado;
+import com.gf.connector.facturante.model.ComprobanteItem;
 import com.gf.connector.facturante.model.CrearComprobanteRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -8,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -32,232 +38,183 @@ public class BillingValidationService {
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     
     // Límites de facturación
-    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
-    private static final BigDecimal MAX_AMOUNT = new BigDecimal("999999999.99");
+    private static final Money MIN_AMOUNT = Money.ofMinor(1L, Money.ARS);
+    private static final Money MAX_AMOUNT = Money.ofMinor(99_999_999_999L, Money.ARS);
+    private static final BigDecimal ITEM_TOTAL_TOLERANCE = new BigDecimal("0.01");
+    
+    // Reglas compiladas una sola vez; el orden de declaración es el orden de los mensajes
+    private static final ValidationRuleChain<Transaction> TRANSACTION_RULES = ValidationRuleChain.<Transaction>builder()
+            .error(t -> isBlank(t.getExternalId()), "ID externo de transacción es obligatorio")
+            .error(t -> t.getAmount() == null, "Monto de transacción es obligatorio")
+            .error(t -> t.getAmount() != null && compareCentavos(t.getAmount(), MIN_AMOUNT, RoundingMode.FLOOR) < 0,
+                    "Monto debe ser mayor a " + MIN_AMOUNT.toBigDecimal())
+            .error(t -> t.getAmount() != null && compareCentavos(t.getAmount(), MAX_AMOUNT, RoundingMode.CEILING) > 0,
+                    "Monto excede el límite máximo de " + MAX_AMOUNT.toBigDecimal())
+            .error(t -> isBlank(t.getCurrency()), "Moneda es obligatoria")
+            .warning(t -> !isBlank(t.getCurrency()) && !"ARS".equals(t.getCurrency()) && !"BRL".equals(t.getCurrency()),
+                    t -> "Moneda no estándar: " + t.getCurrency() + ". Se esperaba ARS o BRL")
+            // Si el documento falta se usa consumidor final; si no es válido, también
+            .warning(t -> !isBlank(t.getCustomerDoc()) && !isValidCUIT(digits(t.getCustomerDoc())) && !isValidDNI(digits(t.getCustomerDoc())),
+                    "Documento del cliente no es válido, se usará consumidor final")
+            .error(t -> t.getStatus() == null, "Estado de transacción es obligatorio")
+            .build();
+    
+    private static final ValidationRuleChain<Autenticacion> AUTENTICACION_RULES = ValidationRuleChain.<Autenticacion>builder()
+            .error(a -> isBlank(a.getEmpresa()), "Empresa en autenticación es obligatoria")
+            .error(a -> isBlank(a.getUsuario()), "Usuario en autenticación es obligatorio")
+            .error(a -> isBlank(a.getHash()), "Hash en autenticación es obligatorio")
+            .build();
+    
+    private static final ValidationRuleChain<Cliente> CLIENTE_RULES = ValidationRuleChain.<Cliente>builder()
+            .error(c -> isBlank(c.getRazonSocial()), "Razón social del cliente es obligatoria")
+            .error(c -> !isBlank(c.getRazonSocial()) && c.getRazonSocial().length() > 100,
+                    "Razón social del cliente no puede exceder 100 caracteres")
+            .error(c -> c.getTipoDocumento() == null, "Tipo de documento del cliente es obligatorio")
+            .warning(c -> c.getTipoDocumento() != null && c.getTipoDocumento() != 80 && c.getTipoDocumento() != 96 && c.getTipoDocumento() != 99,
+                    c -> "Tipo de documento no estándar: " + c.getTipoDocumento())
+            .error(c -> isBlank(c.getNroDocumento()), "Número de documento del cliente es obligatorio")
+            .error(c -> !isBlank(c.getNroDocumento()) && c.getTipoDocumento() == 80 && !isValidCUIT(digits(c.getNroDocumento())),
+                    "CUIT del cliente no es válido")
+            .error(c -> !isBlank(c.getNroDocumento()) && c.getTipoDocumento() == 96 && !isValidDNI(digits(c.getNroDocumento())),
+                    "DNI del cliente no es válido")
+            .error(c -> !isBlank(c.getMailFacturacion()) && !EMAIL_PATTERN.matcher(c.getMailFacturacion()).matches(),
+                    "Email de facturación no es válido")
+            .build();
+    
+    private static final ValidationRuleChain<ComprobanteEncabezado> ENCABEZADO_RULES = ValidationRuleChain.<ComprobanteEncabezado>builder()
+            .error(e -> isBlank(e.getTipoComprobante()), "Tipo de comprobante es obligatorio")
+            .error(e -> isBlank(e.getPrefijo()), "Prefijo del comprobante es obligatorio")
+            .error(e -> e.getCondicionVenta() == null || e.getCondicionVenta() == 0, "Condición de venta es obligatoria")
+            .error(e -> !isPositive(e.getSubTotal()), "Subtotal debe ser mayor a cero")
+            .error(e -> !isPositive(e.getTotal()), "Total debe ser mayor a cero")
+            .error(e -> e.getSubTotal() != null && e.getTotal() != null && e.getTotal().compareTo(e.getSubTotal()) < 0,
+                    "Total no puede ser menor al subtotal")
+            .build();
+    
+    private static final ValidationRuleChain<ComprobanteItem> ITEM_RULES = ValidationRuleChain.<ComprobanteItem>builder()
+            .error(i -> isBlank(i.getDetalle()), "Detalle es obligatorio")
+            .error(i -> !isBlank(i.getDetalle()) && i.getDetalle().length() > 200, "Detalle no puede exceder 200 caracteres")
+            .error(i -> !isPositive(i.getCantidad()), "Cantidad debe ser mayor a cero")
+            .error(i -> !isPositive(i.getPrecioUnitario()), "Precio unitario debe ser mayor a cero")
+            .error(i -> !isPositive(i.getTotal()), "Total debe ser mayor a cero")
+            .warning(i -> i.getCantidad() != null && i.getPrecioUnitario() != null && i.getTotal() != null
+                            && i.getTotal().subtract(i.getCantidad().multiply(i.getPrecioUnitario())).abs().compareTo(ITEM_TOTAL_TOLERANCE) > 0,
+                    i -> "Total calculado (" + i.getCantidad().multiply(i.getPrecioUnitario()) + ") difiere del total declarado (" + i.getTotal() + ")")
+            .build();
+    
+    private static final ValidationRuleChain<CrearComprobanteRequest> REQUEST_RULES = ValidationRuleChain.<CrearComprobanteRequest>builder()
+            .nested(CrearComprobanteRequest::getAutenticacion, "Datos de autenticación son obligatorios", AUTENTICACION_RULES)
+            .nested(CrearComprobanteRequest::getCliente, "Datos del cliente son obligatorios", CLIENTE_RULES)
+            .nested(CrearComprobanteRequest::getEncabezado, "Encabezado del comprobante es obligatorio", ENCABEZADO_RULES)
+            .each(CrearComprobanteRequest::getItems, "Al menos un item es obligatorio", "Item", ITEM_RULES)
+            .build();
+    
+    /**
+     * Cómo se evalúan las reglas: todas (para mostrar el detalle completo) o hasta el primer error
+     */
+    public enum ValidationMode { COLLECT_ALL, FAIL_FAST }
     
     /**
      * Valida una transacción antes de generar la factura
      */
     public ValidationResult validateTransaction(Transaction transaction) {
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-        
+        return validateTransaction(transaction, ValidationMode.COLLECT_ALL);
+    }
+    
+    public ValidationResult validateTransaction(Transaction transaction, ValidationMode mode) {
         log.debug("Validando transacción: {}", transaction.getExternalId());
-        
-        // Validaciones obligatorias
-        if (transaction.getExternalId() == null || transaction.getExternalId().trim().isEmpty()) {
-            errors.add("ID externo de transacción es obligatorio");
-        }
-        
-        if (transaction.getAmount() == null) {
-            errors.add("Monto de transacción es obligatorio");
-        } else {
-            if (transaction.getAmount().compareTo(MIN_AMOUNT) < 0) {
-                errors.add("Monto debe ser mayor a " + MIN_AMOUNT);
-            }
-            if (transaction.getAmount().compareTo(MAX_AMOUNT) > 0) {
-                errors.add("Monto excede el límite máximo de " + MAX_AMOUNT);
-            }
-        }
-        
-        if (transaction.getCurrency() == null || transaction.getCurrency().trim().isEmpty()) {
-            errors.add("Moneda es obligatoria");
-        } else if (!"ARS".equals(transaction.getCurrency()) && !"BRL".equals(transaction.getCurrency())) {
-            warnings.add("Moneda no estándar: " + transaction.getCurrency() + ". Se esperaba ARS o BRL");
-        }
-        
-        // Validar documento del cliente
-        String customerDoc = transaction.getCustomerDoc();
-        if (customerDoc != null && !customerDoc.trim().isEmpty()) {
-            String doc = customerDoc.replaceAll("[^0-9]", "");
-            if (!isValidCUIT(doc) && !isValidDNI(doc)) {
-                // Si el documento no es válido, permitir usar consumidor final
-                warnings.add("Documento del cliente no es válido, se usará consumidor final");
+        ValidationResult result = evaluate(TRANSACTION_RULES, transaction, mode);
+        log.debug("Validación de transacción completada. Errores: {}, Warnings: {}", result.errors.size(), result.warnings.size());
+        return result;
+    }
+    
+    /**
+     * Valida un lote de transacciones (reconciliación, confirmación masiva) en modo fail-fast:
+     * de las inválidas alcanza con el primer motivo. El resultado i corresponde a la transacción i.
+     */
+    public List<ValidationResult> validateAll(List<Transaction> transactions) {
+        return validateAll(transactions, ValidationMode.FAIL_FAST);
+    }
+    
+    public List<ValidationResult> validateAll(List<Transaction> transactions, ValidationMode mode) {
+        List<ValidationResult> results = new ArrayList<>(transactions.size());
+        int invalid = 0;
+        for (Transaction transaction : transactions) {
+            ValidationResult result = evaluate(TRANSACTION_RULES, transaction, mode);
+            if (!result.valid) {
+                invalid++;
             }
+            results.add(result);
         }
-        // Nota: Si customerDoc es null o vacío, se usará automáticamente consumidor final
-        
-        // Validar estado de transacción
-        if (transaction.getStatus() == null) {
-            errors.add("Estado de transacción es obligatorio");
-        }
-        
-        log.debug("Validación de transacción completada. Errores: {}, Warnings: {}", errors.size(), warnings.size());
-        
-        return ValidationResult.builder()
-                .valid(errors.isEmpty())
-                .errors(errors)
-                .warnings(warnings)
-                .build();
+        log.debug("Validación en lote completada. Transacciones: {}, inválidas: {}", transactions.size(), invalid);
+        return results;
     }
     
     /**
      * Valida un request de Facturante antes de enviarlo
      */
     public ValidationResult validateFacturanteRequest(CrearComprobanteRequest request) {
-        List<String> errors = new ArrayList<>();
-        List<String> warnings = new ArrayList<>();
-        
+        return validateFacturanteRequest(request, ValidationMode.COLLECT_ALL);
+    }
+    
+    public ValidationResult validateFacturanteRequest(CrearComprobanteRequest request, ValidationMode mode) {
         log.debug("Validando request de Facturante");
-        
-        // Validar autenticación
-        if (request.getAutenticacion() == null) {
-            errors.add("Datos de autenticación son obligatorios");
-        } else {
-            if (request.getAutenticacion().getEmpresa() == null || request.getAutenticacion().getEmpresa().trim().isEmpty()) {
-                errors.add("Empresa en autenticación es obligatoria");
-            }
-            if (request.getAutenticacion().getUsuario() == null || request.getAutenticacion().getUsuario().trim().isEmpty()) {
-                errors.add("Usuario en autenticación es obligatorio");
-            }
-            if (request.getAutenticacion().getHash() == null || request.getAutenticacion().getHash().trim().isEmpty()) {
-                errors.add("Hash en autenticación es obligatorio");
-            }
-        }
-        
-        // Validar cliente
-        if (request.getCliente() == null) {
-            errors.add("Datos del cliente son obligatorios");
-        } else {
-            validateClienteData(request.getCliente(), errors, warnings);
-        }
-        
-        // Validar encabezado
-        if (request.getEncabezado() == null) {
-            errors.add("Encabezado del comprobante es obligatorio");
-        } else {
-            validateEncabezadoData(request.getEncabezado(), errors, warnings);
-        }
-        
-        // Validar items
-        if (request.getItems() == null || request.getItems().length == 0) {
-            errors.add("Al menos un item es obligatorio");
-        } else {
-            validateItemsData(request.getItems(), errors, warnings);
-        }
-        
-        log.debug("Validación de request Facturante completada. Errores: {}, Warnings: {}", errors.size(), warnings.size());
-        
-        return ValidationResult.builder()
-                .valid(errors.isEmpty())
-                .errors(errors)
-                .warnings(warnings)
-                .build();
+        ValidationResult result = evaluate(REQUEST_RULES, request, mode);
+        log.debug("Validación de request Facturante completada. Errores: {}, Warnings: {}", result.errors.size(), result.warnings.size());
+        return result;
     }
     
-    /**
-     * Valida datos del cliente
-     */
-    private void validateClienteData(com.gf.connector.facturante.model.Cliente cliente, List<String> errors, List<String> warnings) {
-        if (cliente.getRazonSocial() == null || cliente.getRazonSocial().trim().isEmpty()) {
-            errors.add("Razón social del cliente es obligatoria");
-        } else if (cliente.getRazonSocial().length() > 100) {
-            errors.add("Razón social del cliente no puede exceder 100 caracteres");
-        }
-        
-        if (cliente.getTipoDocumento() == null) {
-            errors.add("Tipo de documento del cliente es obligatorio");
-        } else if (cliente.getTipoDocumento() != 80 && cliente.getTipoDocumento() != 96 && cliente.getTipoDocumento() != 99) {
-            warnings.add("Tipo de documento no estándar: " + cliente.getTipoDocumento());
-        }
-        
-        if (cliente.getNroDocumento() == null || cliente.getNroDocumento().trim().isEmpty()) {
-            errors.add("Número de documento del cliente es obligatorio");
-        } else {
-            String doc = cliente.getNroDocumento().replaceAll("[^0-9]", "");
-            if (cliente.getTipoDocumento() == 80 && !isValidCUIT(doc)) {
-                errors.add("CUIT del cliente no es válido");
-            } else if (cliente.getTipoDocumento() == 96 && !isValidDNI(doc)) {
-                errors.add("DNI del cliente no es válido");
-            }
-        }
-        
-        if (cliente.getMailFacturacion() != null && !cliente.getMailFacturacion().trim().isEmpty()) {
-            if (!EMAIL_PATTERN.matcher(cliente.getMailFacturacion()).matches()) {
-                errors.add("Email de facturación no es válido");
-            }
+    private static <T> ValidationResult evaluate(ValidationRuleChain<T> rules, T target, ValidationMode mode) {
+        ValidationRuleChain.Findings findings = new ValidationRuleChain.Findings(mode == ValidationMode.FAIL_FAST);
+        rules.evaluate(target, findings);
+        if (!findings.hasErrors() && !findings.hasWarnings()) {
+            return ValidationResult.VALID;
         }
+        return new ValidationResult(!findings.hasErrors(), findings.errors(), findings.warnings());
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    private static boolean isPositive(BigDecimal value) {
+        return value != null && value.signum() > 0;
     }
     
     /**
-     * Valida datos del encabezado
+     * Solo los dígitos del documento (sin guiones ni puntos)
      */
-    private void validateEncabezadoData(com.gf.connector.facturante.model.ComprobanteEncabezado encabezado, List<String> errors, List<String> warnings) {
-        if (encabezado.getTipoComprobante() == null || encabezado.getTipoComprobante().trim().isEmpty()) {
-            errors.add("Tipo de comprobante es obligatorio");
-        }
-        
-        if (encabezado.getPrefijo() == null || encabezado.getPrefijo().trim().isEmpty()) {
-            errors.add("Prefijo del comprobante es obligatorio");
-        }
-        
-        if (encabezado.getCondicionVenta() == null || encabezado.getCondicionVenta() == 0) {
-            errors.add("Condición de venta es obligatoria");
-        }
-        
-        // Validar montos
-        if (encabezado.getSubTotal() == null || encabezado.getSubTotal().compareTo(BigDecimal.ZERO) <= 0) {
-            errors.add("Subtotal debe ser mayor a cero");
-        }
-        
-        if (encabezado.getTotal() == null || encabezado.getTotal().compareTo(BigDecimal.ZERO) <= 0) {
-            errors.add("Total debe ser mayor a cero");
-        }
-        
-        // Validar coherencia de montos
-        if (encabezado.getSubTotal() != null && encabezado.getTotal() != null) {
-            if (encabezado.getTotal().compareTo(encabezado.getSubTotal()) < 0) {
-                errors.add("Total no puede ser menor al subtotal");
+    private static String digits(String document) {
+        StringBuilder digits = null;
+        for (int i = 0; i < document.length(); i++) {
+            char c = document.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+            if (!digit && digits == null) {
+                digits = new StringBuilder(document.length()).append(document, 0, i);
+            } else if (digit && digits != null) {
+                digits.append(c);
             }
         }
+        return digits != null ? digits.toString() : document;
     }
     
     /**
-     * Valida datos de los items
+     * Compara un monto con un límite en centavos. Como el límite es un número exacto de centavos,
+     * redondear hacia abajo (para el mínimo) o hacia arriba (para el máximo) no cambia el resultado.
      */
-    private void validateItemsData(com.gf.connector.facturante.model.ComprobanteItem[] items, List<String> errors, List<String> warnings) {
-        BigDecimal totalCalculado = BigDecimal.ZERO;
-        
-        for (int i = 0; i < items.length; i++) {
-            com.gf.connector.facturante.model.ComprobanteItem item = items[i];
-            String prefix = "Item " + (i + 1) + ": ";
-            
-            if (item.getDetalle() == null || item.getDetalle().trim().isEmpty()) {
-                errors.add(prefix + "Detalle es obligatorio");
-            } else if (item.getDetalle().length() > 200) {
-                errors.add(prefix + "Detalle no puede exceder 200 caracteres");
-            }
-            
-            if (item.getCantidad() == null || item.getCantidad().compareTo(BigDecimal.ZERO) <= 0) {
-                errors.add(prefix + "Cantidad debe ser mayor a cero");
-            }
-            
-            if (item.getPrecioUnitario() == null || item.getPrecioUnitario().compareTo(BigDecimal.ZERO) <= 0) {
-                errors.add(prefix + "Precio unitario debe ser mayor a cero");
-            }
-            
-            if (item.getTotal() == null || item.getTotal().compareTo(BigDecimal.ZERO) <= 0) {
-                errors.add(prefix + "Total debe ser mayor a cero");
-            }
-            
-            // Validar coherencia de cálculos
-            if (item.getCantidad() != null && item.getPrecioUnitario() != null && item.getTotal() != null) {
-                BigDecimal totalEsperado = item.getCantidad().multiply(item.getPrecioUnitario());
-                if (item.getTotal().subtract(totalEsperado).abs().compareTo(new BigDecimal("0.01")) > 0) {
-                    warnings.add(prefix + "Total calculado (" + totalEsperado + ") difiere del total declarado (" + item.getTotal() + ")");
-                }
-            }
-            
-            if (item.getTotal() != null) {
-                totalCalculado = totalCalculado.add(item.getTotal());
-            }
+    private static int compareCentavos(BigDecimal amount, Money limit, RoundingMode rounding) {
+        try {
+            return Long.compare(Money.toMinorUnits(amount, limit.scale(), rounding), limit.minorUnits());
+        } catch (ArithmeticException e) {
+            // Fuera del rango de un long: mayor que cualquier límite si es positivo, menor si es negativo
+            return amount.signum();
         }
     }
     
     /**
      * Valida si un CUIT es válido
      */
-    private boolean isValidCUIT(String cuit) {
+    private static boolean isValidCUIT(String cuit) {
         if (cuit == null || !CUIT_PATTERN.matcher(cuit).matches()) {
             return false;
         }
@@ -279,22 +236,24 @@ public class BillingValidationService {
     /**
      * Valida si un DNI es válido
      */
-    private boolean isValidDNI(String dni) {
+    private static boolean isValidDNI(String dni) {
         return dni != null && DNI_PATTERN.matcher(dni).matches();
     }
     
     /**
-     * Resultado de validación
+     * Resultado de validación (inmutable: las listas se pueden compartir sin copiar)
      */
     public static class ValidationResult {
+        private static final ValidationResult VALID = new ValidationResult(true, List.of(), List.of());
+        
         private final boolean valid;
         private final List<String> errors;
         private final List<String> warnings;
         
         private ValidationResult(boolean valid, List<String> errors, List<String> warnings) {
             this.valid = valid;
-            this.errors = errors != null ? new ArrayList<>(errors) : new ArrayList<>();
-            this.warnings = warnings != null ? new ArrayList<>(warnings) : new ArrayList<>();
+            this.errors = errors != null ? List.copyOf(errors) : List.of();
+            this.warnings = warnings != null ? List.copyOf(warnings) : List.of();
         }
         
         public static ValidationResultBuilder builder() {
@@ -303,8 +262,8 @@ public class BillingValidationService {
         
         // Getters
         public boolean isValid() { return valid; }
-        public List<String> getErrors() { return new ArrayList<>(errors); }
-        public List<String> getWarnings() { return new ArrayList<>(warnings); }
+        public List<String> getErrors() { return errors; }
+        public List<String> getWarnings() { return warnings; }
         
         public boolean hasErrors() { return !errors.isEmpty(); }
         public boolean hasWarnings() { return !warnings.isEmpty(); }
@@ -0,0 +1,79 @@
+package com.gf.connector.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación o restauración desde la línea de comandos: corre al iniciar, informa el progreso en
+ * el log y termina la aplicación (código 0 si salió bien). La restauración de backups abarca todos
+ * los tenants y solo se puede lanzar por acá. Por ejemplo:
+ *
+ * <pre>
+ * java -jar connector-backend.jar --spring.main.web-application-type=none \
+ *     --import.file=/data/getnet-2023.ndjson.gz --import.format=GETNET --import.tenant-id=...
+ * java -jar connector-backend.jar --spring.main.web-application-type=none --import.backup-id=full_20240501_010000
+ * </pre>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression("'${import.file:}' != '' or '${import.backup-id:}' != ''")
+public class BulkImportRunner implements ApplicationRunner {
+
+    private final BulkImportService bulkImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${import.file:}")
+    private String file;
+
+    @Value("${import.backup-id:}")
+    private String backupId;
+
+    @Value("${import.format:}")
+    private String format;
+
+    @Value("${import.table:}")
+    private String table;
+
+    @Value("${import.tenant-id:}")
+    private String tenantId;
+
+    @Value("${import.on-conflict:SKIP}")
+    private String onConflict;
+
+    @Value("${import.conflict-column:}")
+    private String conflictColumn;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        BulkImportService.Job job;
+        if (!backupId.isBlank()) {
+            job = bulkImportService.startRestore(backupId);
+        } else {
+            BulkImportService.Request request = new BulkImportService.Request(file,
+                    format.isBlank() ? null : BulkImportService.Format.valueOf(format.toUpperCase()),
+                    table.isBlank() ? null : table,
+                    BulkImportService.ConflictPolicy.valueOf(onConflict.toUpperCase()),
+                    conflictColumn.isBlank() ? null : conflictColumn);
+            job = bulkImportService.start(tenantId.isBlank() ? null : UUID.fromString(tenantId), request, Paths.get(file));
+        }
+        while (!job.awaitCompletion(5, TimeUnit.SECONDS)) {
+            log.info("Importación en curso: {}", job.snapshot());
+        }
+        BulkImportService.JobSnapshot result = job.snapshot();
+        log.info("Importación finalizada: {}", result);
+        int exitCode = result.state() == BulkImportService.JobState.COMPLETED ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -0,0 +1,506 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Importación masiva a {@code transactions}, {@code invoices} y {@code webhook_events} con
+ * {@code COPY} de PostgreSQL (ver {@link StagedTable}): archivos NDJSON (como los del backup),
+ * CSV con encabezado o exportaciones históricas de Getnet (un payload de webhook por línea).
+ *
+ * Cada import corre en un hilo propio y en una sola transacción: si falla no queda nada a medias.
+ * El progreso (bytes leídos, filas cargadas y mergeadas) se consulta por polling. Los archivos
+ * tienen que estar en {@code import.directory}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+
+    static final Set<String> TABLES = Set.of("transactions", "invoices", "webhook_events");
+
+    /**
+     * Tablas sin tenant_id: no hay forma de acotar un OVERWRITE al tenant que importa
+     */
+    static final Set<String> UNSCOPED_TABLES = Set.of("webhook_events");
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() { };
+
+    /**
+     * Columnas que se cargan por cada transacción de una exportación de Getnet
+     */
+    private static final List<String> GETNET_TRANSACTION_COLUMNS = List.of("external_id", "amount", "currency", "status",
+            "customer_doc", "reconciled", "billing_status", "tenant_id", "created_at", "updated_at");
+    /**
+     * Con OVERWRITE una exportación de Getnet solo pisa lo que trae el webhook (como el upsert en
+     * vivo): facturación, conciliación y fecha de alta de la fila existente se conservan
+     */
+    private static final Set<String> GETNET_OVERWRITE_COLUMNS = Set.of("amount", "currency", "status", "customer_doc", "updated_at");
+    private static final String GETNET_STATUS_GUARD = statusTransitionGuard("transactions");
+    private static final List<String> GETNET_EVENT_COLUMNS = List.of("provider", "processed", "payload", "event_hash",
+            "created_at", "updated_at");
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final BackupService backupService;
+    private final GetnetToFacturanteTransformationService transformationService;
+    private final WorkerThreads workerThreads;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${import.directory:./imports}")
+    private String importDirectory = "./imports";
+
+    @Value("${import.retention-minutes:1440}")
+    private long retentionMinutes = 1440;
+
+    /**
+     * Lanza la importación de un archivo de {@code import.directory}
+     *
+     * @throws IllegalArgumentException si el pedido es inválido o el archivo no existe
+     * @throws RejectedExecutionException si ya hay un import o una restauración en curso
+     */
+    public Job start(UUID tenantId, Request request) {
+        Path base = Paths.get(importDirectory).toAbsolutePath().normalize();
+        Path file = base.resolve(request.file() != null ? request.file() : "").normalize();
+        if (!file.startsWith(base) || file.equals(base)) {
+            throw new IllegalArgumentException("El archivo tiene que estar dentro de " + importDirectory);
+        }
+        return start(tenantId, request, file);
+    }
+
+    /**
+     * Lanza la importación de un archivo en cualquier lugar (línea de comandos)
+     */
+    public Job start(UUID tenantId, Request request, Path file) {
+        Job job = prepare(tenantId, request, file.toAbsolutePath().normalize());
+        workerThreads.newThread("bulk-import-" + job.getId().toString().substring(0, 8), () -> execute(job)).start();
+        return job;
+    }
+
+    /**
+     * Lanza la restauración de un backup (con su cadena de incrementales). Reemplaza las filas de
+     * todos los tenants, así que solo se expone por línea de comandos ({@link BulkImportRunner})
+     */
+    public Job startRestore(String backupId) {
+        Job job = register(new Job(UUID.randomUUID(), null, "backup " + backupId, 0));
+        workerThreads.newThread("backup-restore-" + job.getId().toString().substring(0, 8), () -> {
+            job.begin();
+            try {
+                backupService.restoreChain(backupId, job);
+                job.finish(JobState.COMPLETED, null);
+            } catch (Exception e) {
+                log.error("Restauración {} desde {} falló: {}", job.getId(), backupId, e.getMessage(), e);
+                job.finish(JobState.FAILED, e.getMessage());
+            }
+        }).start();
+        return job;
+    }
+
+    /**
+     * Job del tenant (los jobs de otros tenants no son visibles)
+     */
+    public Optional<Job> find(UUID jobId, UUID tenantId) {
+        Job job = jobs.get(jobId);
+        return job != null && Objects.equals(job.getTenantId(), tenantId) ? Optional.of(job) : Optional.empty();
+    }
+
+    private Job prepare(UUID tenantId, Request request, Path file) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("tenantId es obligatorio para importar");
+        }
+        Format format = request.format() != null ? request.format() : Format.of(file);
+        if (format != Format.GETNET && (request.table() == null || !TABLES.contains(request.table()))) {
+            throw new IllegalArgumentException("Tabla inválida: " + request.table() + ". Se admiten " + TABLES);
+        }
+        if (request.onConflict() == ConflictPolicy.OVERWRITE && UNSCOPED_TABLES.contains(request.table())) {
+            throw new IllegalArgumentException("La tabla " + request.table() + " no es por tenant: solo admite onConflict SKIP");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Archivo no encontrado: " + file.getFileName());
+        }
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se puede leer " + file.getFileName() + ": " + e.getMessage());
+        }
+        // Las exportaciones de Getnet se leen dos veces: transacciones y eventos
+        Job job = new Job(UUID.randomUUID(), tenantId, format + " " + file.getFileName()
+                + (format != Format.GETNET ? " -> " + request.table() : ""), format == Format.GETNET ? 2 * size : size);
+        job.request = request;
+        job.format = format;
+        job.file = file;
+        return register(job);
+    }
+
+    private synchronized Job register(Job job) {
+        evictExpired();
+        if (jobs.values().stream().anyMatch(other -> !other.isFinished())) {
+            throw new RejectedExecutionException("Ya hay una importación en curso; reintente cuando termine");
+        }
+        jobs.put(job.getId(), job);
+        log.info("Importación {} encolada: {}", job.getId(), job.source);
+        return job;
+    }
+
+    private void execute(Job job) {
+        job.begin();
+        ConflictPolicy policy = job.request.onConflict() != null ? job.request.onConflict() : ConflictPolicy.SKIP;
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                throw new IllegalStateException("La importación masiva requiere PostgreSQL");
+            }
+            connection.setAutoCommit(false);
+            try {
+                if (job.format == Format.GETNET) {
+                    importGetnetExport(connection, job, policy);
+                } else {
+                    importFile(connection, job, policy);
+                }
+                connection.commit();
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (Exception rollbackError) {
+                    // Con el COPY roto el rollback también puede fallar: el job informa el error original
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+            job.finish(JobState.COMPLETED, null);
+            log.info("Importación {} completada: {} filas cargadas, {} insertadas/actualizadas, {} rechazadas en {} ms ({} filas/s)",
+                    job.getId(), job.rowsStaged, job.rowsMerged, job.rowsRejected, job.elapsed().toMillis(), job.rowsPerSecond());
+        } catch (Exception e) {
+            log.error("Importación {} falló: {}", job.getId(), e.getMessage(), e);
+            job.finish(JobState.FAILED, e.getMessage());
+        }
+    }
+
+    private void importFile(Connection connection, Job job, ConflictPolicy policy) throws Exception {
+        String table = job.request.table();
+        try (StagedTable stage = StagedTable.create(connection, table);
+             InputStream in = open(job.file, job)) {
+            job.stage(table);
+            if (job.format == Format.CSV) {
+                job.addStaged(stage.copyCsv(in));
+            } else {
+                stage.copyNdjson(objectMapper, in, job::addStaged);
+            }
+            job.merging();
+            String conflictColumn = job.request.conflictColumn() != null ? job.request.conflictColumn() : "id";
+            job.addMerged(stage.merge(conflictColumn, policy, job.getTenantId()));
+        }
+    }
+
+    /**
+     * Cada línea es el JSON de un webhook de Getnet. Se mapea a transacción como el webhook en
+     * vivo pero sin facturar (billing_status not_applicable: son operaciones históricas), se
+     * mergea por external_id y el payload queda en webhook_events con el hash de idempotencia,
+     * así que un reenvío posterior del mismo webhook se reconoce como duplicado.
+     */
+    private void importGetnetExport(Connection connection, Job job, ConflictPolicy policy) throws Exception {
+        String now = OffsetDateTime.now().toString();
+        String tenant = job.getTenantId().toString();
+        BitSet rejected = new BitSet();
+
+        try (StagedTable transactions = StagedTable.create(connection, "transactions")) {
+            job.stage("transactions");
+            StagedTable.RowWriter writer = transactions.writer(GETNET_TRANSACTION_COLUMNS);
+            try (BufferedReader reader = reader(job)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    lineNumber++;
+                    Transaction transaction;
+                    try {
+                        transaction = transformationService.transformWebhookToTransaction(line, objectMapper.readValue(line, PAYLOAD_TYPE));
+                    } catch (Exception e) {
+                        rejected.set(lineNumber);
+                        job.reject(lineNumber, e.getMessage());
+                        continue;
+                    }
+                    writer.write(transaction.getExternalId(),
+                            transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null,
+                            transaction.getCurrency(),
+                            transaction.getStatus() != null ? transaction.getStatus().getCode() : null,
+                            transaction.getCustomerDoc(),
+                            "false", "not_applicable", tenant, now, now);
+                    if (writer.rows() % 10_000 == 0) {
+                        job.addStaged(10_000);
+                    }
+                }
+            } catch (Exception e) {
+                writer.abort();
+                throw e;
+            }
+            long rows = writer.finish();
+            job.addStaged(rows % 10_000);
+            job.merging();
+            job.addMerged(transactions.merge("external_id", policy, job.getTenantId(),
+                    GETNET_OVERWRITE_COLUMNS, GETNET_STATUS_GUARD));
+        }
+
+        try (StagedTable events = StagedTable.create(connection, "webhook_events")) {
+            job.stage("webhook_events");
+            StagedTable.RowWriter writer = events.writer(GETNET_EVENT_COLUMNS);
+            try (BufferedReader reader = reader(job)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    lineNumber++;
+                    writer.write("getnet", String.valueOf(!rejected.get(lineNumber)), line, WebhookService.sha256Hex(line), now, now);
+                }
+            } catch (Exception e) {
+                writer.abort();
+                throw e;
+            }
+            job.addStaged(writer.finish());
+            job.merging();
+            job.addMerged(events.merge("event_hash", ConflictPolicy.SKIP, null));
+        }
+    }
+
+    /**
+     * Condición del ON CONFLICT que solo deja pasar transiciones de estado legales
+     * ({@link TransactionStatus#allowedPredecessors}), el mismo compare-and-set del webhook
+     */
+    static String statusTransitionGuard(String table) {
+        List<String> pairs = new ArrayList<>();
+        for (TransactionStatus target : TransactionStatus.values()) {
+            for (TransactionStatus from : target.allowedPredecessors()) {
+                pairs.add("('" + from.getCode() + "', '" + target.getCode() + "')");
+            }
+        }
+        return "(" + table + ".status IS NULL OR (" + table + ".status, EXCLUDED.status) IN (" + String.join(", ", pairs) + "))";
+    }
+
+    private BufferedReader reader(Job job) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(job.file, job), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Abre el archivo (descomprimiendo si termina en .gz) y cuenta los bytes leídos en el job
+     */
+    static InputStream open(Path file, Job job) throws IOException {
+        InputStream in = new BufferedInputStream(new CountingInputStream(Files.newInputStream(file), job), 64 * 1024);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            in = new BufferedInputStream(new GZIPInputStream(in, 64 * 1024), 64 * 1024);
+        }
+        return in;
+    }
+
+    private void evictExpired() {
+        OffsetDateTime threshold = OffsetDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt.isBefore(threshold));
+    }
+
+    /**
+     * Pedido de importación. Sin formato se deduce de la extensión; sin política de conflicto las
+     * filas que ya existen se dejan como están. {@code conflictColumn} (por defecto id) tiene que
+     * tener un índice único; en las exportaciones de Getnet es siempre external_id.
+     */
+    public record Request(String file, Format format, String table, ConflictPolicy onConflict, String conflictColumn) { }
+
+    public enum Format {
+        NDJSON, CSV, GETNET;
+
+        static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv") || name.endsWith(".csv.gz")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".ndjson.gz") || name.endsWith(".jsonl") || name.endsWith(".jsonl.gz")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("No se puede deducir el formato de " + file.getFileName() + "; indique format");
+        }
+    }
+
+    /**
+     * Qué hacer con las filas cuya clave ya existe: dejarlas (SKIP) o pisarlas con lo importado (OVERWRITE)
+     */
+    public enum ConflictPolicy { SKIP, OVERWRITE }
+
+    public enum JobState { QUEUED, STAGING, MERGING, COMPLETED, FAILED }
+
+    public record JobSnapshot(UUID jobId, JobState state, String source, long bytesRead, long totalBytes, Integer percent,
+                              long rowsStaged, long rowsMerged, long rowsRejected, long rowsPerSecond, String firstRejection,
+                              OffsetDateTime createdAt, OffsetDateTime startedAt, OffsetDateTime finishedAt, String error) { }
+
+    /**
+     * Estado de un import en memoria. Lo actualiza solo el hilo que importa; los contadores son
+     * volatile para leerlos desde las consultas de progreso.
+     */
+    public static final class Job {
+        private final UUID id;
+        private final UUID tenantId;
+        private final String source;
+        private final OffsetDateTime createdAt = OffsetDateTime.now();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Request request;
+        private Format format;
+        private Path file;
+        private volatile long totalBytes;
+        private volatile long bytesRead;
+        private volatile long rowsStaged;
+        private volatile long rowsMerged;
+        private volatile long rowsRejected;
+        private volatile String firstRejection;
+        private volatile JobState state = JobState.QUEUED;
+        private volatile OffsetDateTime startedAt;
+        private volatile OffsetDateTime finishedAt;
+        private volatile String error;
+
+        Job(UUID id, UUID tenantId, String source, long totalBytes) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.source = source;
+            this.totalBytes = totalBytes;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public UUID getTenantId() {
+            return tenantId;
+        }
+
+        public JobState getState() {
+            return state;
+        }
+
+        public boolean isFinished() {
+            return state == JobState.COMPLETED || state == JobState.FAILED;
+        }
+
+        public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        public long rowsPerSecond() {
+            long millis = elapsed().toMillis();
+            return millis > 0 ? (rowsStaged + rowsMerged) * 1000 / millis : 0;
+        }
+
+        public JobSnapshot snapshot() {
+            Integer percent = totalBytes > 0 ? (int) Math.min(100, bytesRead * 100 / totalBytes) : null;
+            return new JobSnapshot(id, state, source, bytesRead, totalBytes, percent, rowsStaged, rowsMerged, rowsRejected,
+                    rowsPerSecond(), firstRejection, createdAt, startedAt, finishedAt, error);
+        }
+
+        void begin() {
+            startedAt = OffsetDateTime.now();
+            state = JobState.STAGING;
+        }
+
+        void stage(String table) {
+            state = JobState.STAGING;
+            log.info("Importación {}: cargando {}", id, table);
+        }
+
+        void merging() {
+            state = JobState.MERGING;
+        }
+
+        void addTotalBytes(long bytes) {
+            totalBytes += bytes;
+        }
+
+        void addStaged(long rows) {
+            rowsStaged += rows;
+        }
+
+        void addMerged(long rows) {
+            rowsMerged += rows;
+        }
+
+        void reject(int lineNumber, String message) {
+            if (rowsRejected++ == 0) {
+                firstRejection = "Línea " + lineNumber + ": " + message;
+            }
+        }
+
+        Duration elapsed() {
+            if (startedAt == null) {
+                return Duration.ZERO;
+            }
+            return Duration.between(startedAt, finishedAt != null ? finishedAt : OffsetDateTime.now());
+        }
+
+        private void finish(JobState finalState, String message) {
+            error = message;
+            finishedAt = OffsetDateTime.now();
+            state = finalState;
+            done.countDown();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Job job;
+
+        private CountingInputStream(InputStream in, Job job) {
+            super(in);
+            this.job = job;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                job.bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                job.bytesRead += n;
+            }
+            return n;
+        }
+    }
+}
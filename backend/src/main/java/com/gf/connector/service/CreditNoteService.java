@@ -13,10 +13,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -28,6 +30,30 @@ public class CreditNoteService {
     private final FacturanteService facturanteService;
     private final ObjectMapper objectMapper;
     private final BillingSettingsService billingSettingsService;
+    private final OrderedLaneExecutor billingLanes;
+    private final TransactionTemplate transactionTemplate;
+    private final LiveMetricsService liveMetricsService;
+
+    /**
+     * Procesa el reembolso de forma asíncrona en la lane de la transacción, después del
+     * commit de la transacción actual. Comparte lane con la emisión de la factura, por lo
+     * que la nota de crédito nunca se adelanta a ella; la transacción se vuelve a leer en la
+     * lane para no pisar el CAE y el número que acaba de guardar la factura. Si la factura
+     * encolada antes no se emitió, no se genera nota de crédito (devuelve null).
+     */
+    public CompletableFuture<CreditNote> submitRefund(Transaction transaction, String refundReason) {
+        UUID transactionId = transaction.getId();
+        return billingLanes.submitAfterCommit(transaction.getExternalId(),
+                () -> transactionTemplate.execute(status -> {
+                    Transaction current = transactionRepository.findById(transactionId)
+                            .orElseThrow(() -> new IllegalArgumentException("Transacción no encontrada: " + transactionId));
+                    if (current.getInvoiceNumber() == null || current.getInvoiceNumber().isEmpty()) {
+                        log.warn("Transacción {} sin factura emitida, no se genera nota de crédito", current.getExternalId());
+                        return null;
+                    }
+                    return processRefund(current, refundReason);
+                }));
+    }
 
     /**
      * Procesa un reembolso y genera la nota de crédito según la estrategia configurada
@@ -37,8 +63,8 @@ public class CreditNoteService {
         log.info("Procesando reembolso para transacción: {} con motivo: {}", 
                 transaction.getExternalId(), refundReason);
 
-        // Verificar que la transacción esté pagada
-        if (transaction.getStatus() != TransactionStatus.PAID) {
+        // Verificar que la transacción esté pagada (o ya marcada como reembolsada por el webhook de Getnet)
+        if (transaction.getStatus() != TransactionStatus.PAID && transaction.getStatus() != TransactionStatus.REFUNDED) {
             throw new IllegalArgumentException("Solo se pueden reembolsar transacciones pagadas");
         }
 
@@ -55,6 +81,7 @@ public class CreditNoteService {
         log.info("Estrategia de nota de crédito: {}", strategy);
 
         // Crear nota de crédito según la estrategia
+        LiveMetricsService.TxState before = LiveMetricsService.TxState.of(transaction);
         CreditNote creditNote = createCreditNote(transaction, refundReason, strategy);
 
         // Actualizar transacción
@@ -67,6 +94,8 @@ public class CreditNoteService {
         transaction.setCreditNoteStrategy(creditNote.getStrategy());
         
         transactionRepository.save(transaction);
+        liveMetricsService.recordTransaction(transaction.getTenantId(), before, LiveMetricsService.TxState.of(transaction));
+        liveMetricsService.recordCreditNote(transaction.getTenantId());
 
         return creditNote;
     }
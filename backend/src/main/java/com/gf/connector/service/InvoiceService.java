@@ -1,6 +1,7 @@
 package com.gf.connector.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.gf.connector.domain.Invoice;
 import com.gf.connector.domain.Transaction;
 import com.gf.connector.facturante.model.CrearComprobanteRequest;
@@ -8,11 +9,14 @@ import com.gf.connector.facturante.model.CrearComprobanteResponse;
 import com.gf.connector.facturante.service.FacturanteService;
 import com.gf.connector.repo.InvoiceRepository;
 import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.PipelineMetrics.Stage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
@@ -25,6 +29,9 @@ public class InvoiceService {
     private final ObjectMapper objectMapper;
     private final BillingValidationService validationService;
     private final GetnetToFacturanteTransformationService transformationService;
+    private final OrderedLaneExecutor billingLanes;
+    private final LiveMetricsService liveMetricsService;
+    private final PipelineMetrics pipelineMetrics;
 
     public Invoice createPendingInvoice(Transaction tx, String requestJson) {
         Invoice inv = Invoice.builder()
@@ -35,14 +42,56 @@ public class InvoiceService {
         return invoiceRepository.save(inv);
     }
     
+    /**
+     * Encola la emisión de la factura en la lane de la transacción: queda ordenada
+     * respecto de cualquier nota de crédito de la misma transacción. La transacción se
+     * vuelve a leer dentro de la lane, así no se pisa lo que escribió la tarea anterior;
+     * la versión actualizada queda en {@link Invoice#getTransaction()}.
+     */
+    public CompletableFuture<Invoice> submitFactura(Transaction transaction) {
+        UUID transactionId = transaction.getId();
+        return billingLanes.submit(transaction.getExternalId(), () -> createFacturaForCurrent(transactionId));
+    }
+
+    /**
+     * Variante sincrónica de {@link #submitFactura}: emite en la lane y espera el resultado
+     */
+    public Invoice createFacturaOrdered(Transaction transaction) {
+        UUID transactionId = transaction.getId();
+        return billingLanes.submitAndWait(transaction.getExternalId(), () -> createFacturaForCurrent(transactionId));
+    }
+
+    /**
+     * Emisión de un webhook: se encola en la lane cuando la transacción actual hace commit, así el
+     * lock de la fila no se retiene durante la llamada a Facturante. La demora la mide el llamador,
+     * que conoce la recepción del webhook.
+     */
+    public CompletableFuture<Invoice> submitFacturaAfterCommit(Transaction transaction) {
+        UUID transactionId = transaction.getId();
+        return billingLanes.submitAfterCommit(transaction.getExternalId(), () -> createFacturaInFacturante(load(transactionId)));
+    }
+
+    private Invoice createFacturaForCurrent(UUID transactionId) {
+        Transaction current = load(transactionId);
+        return recordDeferredLag(current, createFacturaInFacturante(current));
+    }
+
+    private Transaction load(UUID transactionId) {
+        return transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new IllegalArgumentException("Transacción no encontrada: " + transactionId));
+    }
+
     /**
      * Crea una factura en Facturante para la transacción dada
      */
     public Invoice createFacturaInFacturante(Transaction transaction) {
         log.info("Creando factura en Facturante para transacción: {}", transaction.getExternalId());
+        UUID tenantId = transaction.getTenantId();
 
         // 1. Validar transacción antes de procesar
+        long started = pipelineMetrics.start();
         BillingValidationService.ValidationResult transactionValidation = validationService.validateTransaction(transaction);
+        pipelineMetrics.record(Stage.VALIDATION, tenantId, transactionValidation.isValid() ? PipelineMetrics.SUCCESS : PipelineMetrics.REJECTED, started);
         if (!transactionValidation.isValid()) {
             log.error("Transacción no válida para facturación: {}", transactionValidation.getErrorsAsString());
             throw new IllegalArgumentException("Transacción no válida: " + transactionValidation.getErrorsAsString());
@@ -52,33 +101,56 @@ public class InvoiceService {
             log.warn("Advertencias en validación de transacción: {}", transactionValidation.getWarningsAsString());
         }
 
-        // 2. Crear invoice pendiente
-        Invoice invoice = createPendingInvoice(transaction, "{}");
+        // 2. Armar la invoice en memoria; se persiste una única vez con su estado final
+        Invoice invoice = Invoice.builder()
+                .transaction(transaction)
+                .tenantId(transaction.getTenantId())
+                .status("pending")
+                .requestJson("{}")
+                .build();
 
         try {
             // 3. Generar request de Facturante usando el servicio de transformación
-            CrearComprobanteRequest facturanteRequest = transformationService.transformTransactionToFacturanteRequest(transaction, "{}");
+            started = pipelineMetrics.start();
+            CrearComprobanteRequest facturanteRequest;
+            try {
+                facturanteRequest = transformationService.transformTransactionToFacturanteRequest(transaction, MissingNode.getInstance());
+            } catch (RuntimeException e) {
+                pipelineMetrics.record(Stage.TRANSFORMATION, tenantId, false, started);
+                throw e;
+            }
+            pipelineMetrics.record(Stage.TRANSFORMATION, tenantId, true, started);
             
             // 4. Validar request de Facturante antes de enviarlo
+            started = pipelineMetrics.start();
             BillingValidationService.ValidationResult requestValidation = validationService.validateFacturanteRequest(facturanteRequest);
+            pipelineMetrics.record(Stage.VALIDATION, tenantId, requestValidation.isValid() ? PipelineMetrics.SUCCESS : PipelineMetrics.REJECTED, started);
             if (!requestValidation.isValid()) {
                 log.error("Request de Facturante no válido: {}", requestValidation.getErrorsAsString());
                 invoice.setStatus("error");
                 invoice.setResponseJson("{\"error\": \"Validation failed\", \"details\": \"" + requestValidation.getErrorsAsString() + "\"}");
-                return invoiceRepository.save(invoice);
+                return persist(invoice);
             }
             
             if (requestValidation.hasWarnings()) {
                 log.warn("Advertencias en validación de request Facturante: {}", requestValidation.getWarningsAsString());
             }
             
-            // 5. Guardar request JSON para auditoría
+            // 5. Request JSON para auditoría
             invoice.setRequestJson(objectMapper.writeValueAsString(facturanteRequest));
-            invoiceRepository.save(invoice);
 
             // 6. Llamar a Facturante
             log.info("Enviando request validado a Facturante para transacción: {}", transaction.getExternalId());
-            CrearComprobanteResponse response = facturanteService.crearFactura(transaction);
+            started = pipelineMetrics.start();
+            CrearComprobanteResponse response;
+            try {
+                response = facturanteService.crearFactura(transaction);
+            } catch (RuntimeException e) {
+                pipelineMetrics.record(Stage.FACTURANTE, tenantId, false, started);
+                throw e;
+            }
+            pipelineMetrics.record(Stage.FACTURANTE, tenantId,
+                    Boolean.TRUE.equals(response.getExitoso()) ? PipelineMetrics.SUCCESS : PipelineMetrics.REJECTED, started);
 
             // 7. Procesar respuesta
             if (response.getExitoso()) {
@@ -90,6 +162,8 @@ public class InvoiceService {
                 transaction.setInvoiceNumber(response.getNumeroComprobante());
                 // Guardar también la URL directa del PDF en la transacción para que el frontend pueda abrir Facturante
                 transaction.setInvoicePdfUrl(response.getPdfUrl());
+                // Dentro de la transacción del webhook la entidad ya está gestionada y esto no emite SQL;
+                // los llamadores sin transacción (controllers) persisten aquí los datos de la factura
                 transactionRepository.save(transaction);
                 
                 log.info("Factura creada exitosamente: CAE={}, Número={}, PDF={}", 
@@ -106,6 +180,7 @@ public class InvoiceService {
             // Error de validación - no reintentar
             invoice.setStatus("error");
             log.error("Error de validación al crear factura: {}", e.getMessage());
+            persist(invoice);
             throw e;
         } catch (Exception e) {
             // Error técnico - podría reintentarse
@@ -123,6 +198,32 @@ public class InvoiceService {
             }
         }
 
-        return invoiceRepository.save(invoice);
+        return persist(invoice);
+    }
+
+    private Invoice persist(Invoice invoice) {
+        long started = pipelineMetrics.start();
+        Invoice saved;
+        try {
+            saved = invoiceRepository.save(invoice);
+        } catch (RuntimeException e) {
+            pipelineMetrics.record(Stage.PERSISTENCE, invoice.getTenantId(), false, started);
+            throw e;
+        }
+        pipelineMetrics.record(Stage.PERSISTENCE, invoice.getTenantId(), true, started);
+        liveMetricsService.recordInvoice(saved.getTenantId());
+        return saved;
+    }
+
+    /**
+     * Emisión fuera del webhook (confirmación, reintentos, UI): el webhook original no está a mano,
+     * así que la demora se mide desde el alta de la transacción (primer callback recibido)
+     */
+    private Invoice recordDeferredLag(Transaction transaction, Invoice invoice) {
+        if (invoice != null && "sent".equals(invoice.getStatus()) && transaction.getCreatedAt() != null) {
+            pipelineMetrics.recordBillingLag(transaction.getTenantId(), PipelineMetrics.PATH_DEFERRED,
+                    transaction.getCreatedAt().toInstant());
+        }
+        return invoice;
     }
 }
@@ -0,0 +1,267 @@
+package com.gf.connector.service;
+
+import com.gf.connector.config.LatencyAnalyticsConfig;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Analítica de latencia en proceso con HdrHistogram.
+ *
+ * Cada serie (endpoint, tenant o el total) tiene un {@link Recorder}: registrar es wait-free y
+ * cuesta unas decenas de nanosegundos, sin locks ni asignaciones en el camino del request. Los
+ * lectores drenan el recorder a la porción en curso; cada {@code analytics.latency.slice-ms} la
+ * porción se cierra y se apila, y las ventanas deslizantes (1m, 5m, 15m, 1h) se calculan
+ * sumando las porciones que caen dentro. Los valores se registran en microsegundos sobre
+ * histogramas auto-redimensionables, así que la memoria crece con el rango observado y no
+ * con el rango posible.
+ */
+@Service
+public class LatencyAnalyticsService {
+
+    public static final String ALL = "all";
+    public static final String OTHER = "other";
+    public static final String UNMATCHED = "UNMATCHED";
+    /** Porciones seguidas sin datos que tiene que acumular una serie antes de descartarla */
+    private static final int MIN_IDLE_SLICES = 3;
+
+    private final LatencyAnalyticsConfig config;
+    private final Series all;
+    /** patrón de ruta → método HTTP → serie; las claves son los Strings del mapeo, sin armar uno por request */
+    private final Map<String, Map<String, Series>> endpoints = new ConcurrentHashMap<>();
+    private final Map<UUID, Series> tenants = new ConcurrentHashMap<>();
+    private final UUID otherTenant = new UUID(0, 0);
+    private final int maxSlices;
+    private final int idleSlicesToEvict;
+
+    public LatencyAnalyticsService(LatencyAnalyticsConfig config) {
+        this.config = config;
+        this.all = new Series(config.getSignificantDigits());
+        this.maxSlices = (int) Math.max(1, config.maxWindow().toMillis() / config.getSliceMs());
+        this.idleSlicesToEvict = Math.max(maxSlices, MIN_IDLE_SLICES);
+    }
+
+    /**
+     * Registra la latencia de un request en la serie del endpoint, la del tenant (si hay) y el total
+     */
+    public void record(String method, String pattern, UUID tenantId, long nanos) {
+        long micros = Math.max(1, nanos / 1_000);
+        all.record(micros);
+        record(methods(pattern != null ? pattern : UNMATCHED), method, micros);
+        if (tenantId != null) {
+            record(tenants, tenantKey(tenantId), micros);
+        }
+    }
+
+    public WindowStats overall(Duration window) {
+        return stats(all, ALL, window);
+    }
+
+    public WindowStats tenant(UUID tenantId, Duration window) {
+        return stats(tenants.get(tenantId), tenantId.toString(), window);
+    }
+
+    /**
+     * Percentiles por endpoint ("MÉTODO /patrón") en la ventana, de mayor a menor p99
+     */
+    public List<WindowStats> endpoints(Duration window) {
+        List<WindowStats> result = new ArrayList<>();
+        endpoints.forEach((pattern, byMethod) -> byMethod.forEach((method, series) -> {
+            WindowStats stats = stats(series, method + " " + pattern, window);
+            if (stats.count() > 0) {
+                result.add(stats);
+            }
+        }));
+        result.sort(Comparator.comparingDouble(WindowStats::p99Ms).reversed());
+        return result;
+    }
+
+    /**
+     * Endpoints cuyo p95 o p99 supera el umbral configurado en la ventana SLO
+     */
+    public List<SloBreach> evaluateSlos() {
+        List<SloBreach> breaches = new ArrayList<>();
+        for (WindowStats stats : endpoints(config.getSloWindow())) {
+            LatencyAnalyticsConfig.Slo slo = config.sloFor(stats.key());
+            boolean alert = stats.p99Ms() > slo.getP99Ms();
+            boolean warning = stats.p95Ms() > slo.getP95Ms();
+            if (alert || warning) {
+                breaches.add(new SloBreach(stats.key(), alert ? Severity.ALERT : Severity.WARNING,
+                        stats.p95Ms(), stats.p99Ms(), slo.getP95Ms(), slo.getP99Ms()));
+            }
+        }
+        return breaches;
+    }
+
+    /**
+     * Cierra la porción en curso de cada serie y descarta las que llevan toda la historia retenida
+     * (y al menos {@value #MIN_IDLE_SLICES} porciones) sin datos. Los mapas por patrón se conservan:
+     * la cantidad de patrones está acotada por las rutas de la aplicación.
+     */
+    @Scheduled(fixedRateString = "${analytics.latency.slice-ms:60000}")
+    public void rotate() {
+        all.rotate(maxSlices);
+        rotate(tenants);
+        endpoints.values().forEach(this::rotate);
+    }
+
+    private <K> void rotate(Map<K, Series> seriesByKey) {
+        seriesByKey.forEach((key, series) -> {
+            if (series.rotate(maxSlices) >= idleSlicesToEvict) {
+                // El descarte se decide con el lock del bin: record() re-resuelve la serie con compute
+                seriesByKey.computeIfPresent(key, (k, current) -> current == series && series.evict() ? null : current);
+            }
+        });
+    }
+
+    private WindowStats stats(Series target, String label, Duration window) {
+        if (target == null) {
+            return WindowStats.empty(label, window);
+        }
+        int slices = (int) Math.min(maxSlices, Math.max(1, window.toMillis() / config.getSliceMs()));
+        Histogram merged = target.merge(slices);
+        if (merged.getTotalCount() == 0) {
+            return WindowStats.empty(label, window);
+        }
+        return new WindowStats(label, window.toSeconds(), merged.getTotalCount(),
+                millis(merged.getValueAtPercentile(50)), millis(merged.getValueAtPercentile(95)),
+                millis(merged.getValueAtPercentile(99)), millis(merged.getMaxValue()));
+    }
+
+    private <K> void record(Map<K, Series> seriesByKey, K key, long micros) {
+        Series series = seriesByKey.get(key);
+        if (series == null) {
+            series = seriesByKey.computeIfAbsent(key, k -> new Series(config.getSignificantDigits()));
+        }
+        series.record(micros);
+        if (series.isEvicted()) {
+            // La rotación la descartó entre la búsqueda y el registro: compute espera a que termine el
+            // descarte y devuelve la misma serie si al final se conservó (el valor ya quedó en ella)
+            Series current = seriesByKey.compute(key, (k, existing) -> existing == null || existing.isEvicted()
+                    ? new Series(config.getSignificantDigits()) : existing);
+            if (current != series) {
+                current.record(micros);
+            }
+        }
+    }
+
+    private Map<String, Series> methods(String pattern) {
+        Map<String, Series> byMethod = endpoints.get(pattern);
+        if (byMethod != null) {
+            return byMethod;
+        }
+        // Cardinalidad acotada: los patrones que no entran se agrupan en una serie común
+        return endpoints.computeIfAbsent(endpoints.size() >= config.getMaxSeries() ? OTHER : pattern,
+                k -> new ConcurrentHashMap<>());
+    }
+
+    private UUID tenantKey(UUID tenantId) {
+        return tenants.containsKey(tenantId) || tenants.size() < config.getMaxSeries() ? tenantId : otherTenant;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    /**
+     * Recorder + porciones cerradas (la más nueva primero). Solo lectores y la rotación toman el lock
+     */
+    private static final class Series {
+        private final int significantDigits;
+        private final Recorder recorder;
+        private final ArrayDeque<Histogram> closed = new ArrayDeque<>();
+        private Histogram current;
+        private Histogram recycled;
+        private int idleSlices;
+        private volatile boolean evicted;
+
+        private Series(int significantDigits) {
+            this.significantDigits = significantDigits;
+            this.recorder = new Recorder(significantDigits);
+            this.current = new Histogram(significantDigits);
+        }
+
+        private void record(long micros) {
+            recorder.recordValue(micros);
+        }
+
+        private boolean isEvicted() {
+            return evicted;
+        }
+
+        private synchronized void drain() {
+            recycled = recorder.getIntervalHistogram(recycled);
+            current.add(recycled);
+        }
+
+        /**
+         * @return cantidad de porciones seguidas que se cerraron sin datos
+         */
+        private synchronized int rotate(int maxSlices) {
+            drain();
+            idleSlices = current.getTotalCount() == 0 ? idleSlices + 1 : 0;
+            closed.addFirst(current);
+            Histogram reuse = closed.size() > maxSlices - 1 ? closed.removeLast() : null;
+            if (reuse != null) {
+                reuse.reset();
+                current = reuse;
+            } else {
+                current = new Histogram(significantDigits);
+            }
+            return idleSlices;
+        }
+
+        /**
+         * Marca la serie como descartada y drena lo que llegó desde la rotación. Si hubo registros
+         * concurrentes la serie se conserva; los que vean la marca re-resuelven la serie con compute.
+         * Se llama dentro del compute del mapa dueño.
+         */
+        private synchronized boolean evict() {
+            evicted = true;
+            drain();
+            if (current.getTotalCount() > 0) {
+                evicted = false;
+                idleSlices = 0;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Porción en curso + las {@code slices - 1} cerradas más recientes
+         */
+        private synchronized Histogram merge(int slices) {
+            drain();
+            Histogram merged = new Histogram(significantDigits);
+            merged.add(current);
+            Iterator<Histogram> iterator = closed.iterator();
+            for (int i = 1; i < slices && iterator.hasNext(); i++) {
+                merged.add(iterator.next());
+            }
+            return merged;
+        }
+    }
+
+    public enum Severity { WARNING, ALERT }
+
+    public record WindowStats(String key, long windowSeconds, long count,
+                              double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+        static WindowStats empty(String key, Duration window) {
+            return new WindowStats(key, window.toSeconds(), 0, 0, 0, 0, 0);
+        }
+    }
+
+    public record SloBreach(String endpoint, Severity severity, double p95Ms, double p99Ms,
+                            long p95ThresholdMs, long p99ThresholdMs) {}
+}
@@ -0,0 +1,353 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.CreditNoteRepository;
+import com.gf.connector.repo.InvoiceRepository;
+import com.gf.connector.repo.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Métricas en vivo del dashboard, mantenidas en memoria por tenant.
+ *
+ * El acumulador de un tenant se siembra una vez con un GROUP BY y desde ahí se actualiza
+ * con deltas que publican los servicios al confirmar cada transacción de base de datos
+ * (webhooks, facturas, notas de crédito, reintentos). Cada {@code live-metrics.push-interval-ms}
+ * los cambios acumulados se envían como un único evento 'delta' versionado por SSE. El cliente
+ * recibe primero un 'snapshot' y aplica los deltas con versión mayor; si detecta un salto de
+ * versión se vuelve a suscribir. Una resincronización periódica contra la base corrige
+ * cualquier deriva (cambios hechos por caminos que no publican deltas) con un delta normal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveMetricsService {
+
+    public static final String TOPIC = "live-metrics";
+
+    private final TransactionRepository transactionRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final CreditNoteRepository creditNoteRepository;
+    private final SseBroadcaster sseBroadcaster;
+
+    private final Map<UUID, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    @Value("${live-metrics.idle-eviction-ms:600000}")
+    private long idleEvictionMs = 600_000;
+
+    /**
+     * True si hay un acumulador vivo para el tenant; los llamadores pueden evitar lecturas
+     * extra (estado previo) cuando nadie está mirando
+     */
+    public boolean isTracking(UUID tenantId) {
+        return tenantId != null && accumulators.containsKey(tenantId);
+    }
+
+    /**
+     * Snapshot de la última versión publicada (siembra el acumulador si no existe)
+     */
+    public LiveSnapshot snapshot(UUID tenantId) {
+        Accumulator accumulator = accumulatorFor(tenantId);
+        synchronized (accumulator) {
+            return accumulator.snapshot();
+        }
+    }
+
+    /**
+     * Suscripción SSE: el snapshot inicial se encola bajo el mismo lock que los deltas, así
+     * ningún delta posterior al snapshot puede llegar antes que él
+     */
+    public SseEmitter subscribe(UUID tenantId) {
+        Accumulator accumulator = accumulatorFor(tenantId);
+        synchronized (accumulator) {
+            return sseBroadcaster.subscribe(tenantId, TOPIC, "snapshot", accumulator.snapshot());
+        }
+    }
+
+    /**
+     * Alta o cambio de una transacción; {@code before} es null si la transacción es nueva
+     */
+    public void recordTransaction(UUID tenantId, TxState before, TxState after) {
+        apply(tenantId, pending -> {
+            if (before != null) {
+                pending.add(before, -1);
+            }
+            if (after != null) {
+                pending.add(after, 1);
+            }
+        });
+    }
+
+    public void recordBillingTransition(UUID tenantId, String from, String to) {
+        if (from == null ? to == null : from.equals(to)) {
+            return;
+        }
+        apply(tenantId, pending -> {
+            Counters.mergeCount(pending.byBillingStatus, billingKey(from), -1);
+            Counters.mergeCount(pending.byBillingStatus, billingKey(to), 1);
+        });
+    }
+
+    public void recordInvoice(UUID tenantId) {
+        apply(tenantId, pending -> pending.invoices++);
+    }
+
+    public void recordCreditNote(UUID tenantId) {
+        apply(tenantId, pending -> pending.creditNotes++);
+    }
+
+    /**
+     * Cambios masivos (operaciones set-based, restauraciones): se resincroniza en el próximo push
+     */
+    public void invalidate(UUID tenantId) {
+        Accumulator accumulator = tenantId != null ? accumulators.get(tenantId) : null;
+        if (accumulator != null) {
+            accumulator.resyncRequested = true;
+        }
+    }
+
+    /**
+     * Publica los cambios acumulados de cada tenant como un delta versionado
+     */
+    @Scheduled(fixedDelayString = "${live-metrics.push-interval-ms:1000}")
+    public void pushDeltas() {
+        long now = System.currentTimeMillis();
+        for (Accumulator accumulator : accumulators.values()) {
+            if (accumulator.resyncRequested) {
+                resync(accumulator);
+            }
+            synchronized (accumulator) {
+                if (!accumulator.pending.isEmpty()) {
+                    LiveDelta delta = accumulator.publishPending();
+                    sseBroadcaster.publish(accumulator.tenantId, TOPIC, "delta", delta);
+                }
+            }
+            if (sseBroadcaster.subscriberCount(accumulator.tenantId, TOPIC) > 0) {
+                accumulator.lastUsed = now;
+            } else if (now - accumulator.lastUsed > idleEvictionMs) {
+                accumulators.remove(accumulator.tenantId, accumulator);
+            }
+        }
+    }
+
+    /**
+     * Resincronización periódica: la diferencia contra la base se emite como delta
+     */
+    @Scheduled(fixedDelayString = "${live-metrics.resync-interval-ms:300000}",
+               initialDelayString = "${live-metrics.resync-interval-ms:300000}")
+    public void resyncAll() {
+        accumulators.values().forEach(this::resync);
+    }
+
+    private void resync(Accumulator accumulator) {
+        accumulator.resyncRequested = false;
+        try {
+            Counters actual = load(accumulator.tenantId);
+            synchronized (accumulator) {
+                Counters expected = accumulator.published.copy();
+                expected.addAll(accumulator.pending, 1);
+                accumulator.pending.addAll(actual, 1);
+                accumulator.pending.addAll(expected, -1);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo resincronizar métricas en vivo del tenant {}: {}", accumulator.tenantId, e.getMessage());
+        }
+    }
+
+    private Accumulator accumulatorFor(UUID tenantId) {
+        Accumulator existing = accumulators.get(tenantId);
+        if (existing != null) {
+            existing.lastUsed = System.currentTimeMillis();
+            return existing;
+        }
+        // La siembra se hace fuera del lock del mapa; lo que cambie mientras tanto lo corrige la resincronización
+        Counters seed = load(tenantId);
+        return accumulators.computeIfAbsent(tenantId, id -> new Accumulator(id, seed));
+    }
+
+    private Counters load(UUID tenantId) {
+        Counters counters = new Counters();
+        List<Object[]> rows = transactionRepository.aggregateForLiveMetrics(tenantId);
+        for (Object[] row : rows) {
+            TransactionStatus status = (TransactionStatus) row[0];
+            String billingStatus = (String) row[1];
+            long count = ((Number) row[2]).longValue();
+            BigDecimal amount = row[3] instanceof BigDecimal value ? value : new BigDecimal(String.valueOf(row[3]));
+            counters.byStatus.merge(statusKey(status), count, Long::sum);
+            counters.amountByStatus.merge(statusKey(status), amount, BigDecimal::add);
+            counters.byBillingStatus.merge(billingKey(billingStatus), count, Long::sum);
+        }
+        counters.invoices = invoiceRepository.countByTenantId(tenantId);
+        counters.creditNotes = creditNoteRepository.countByTransactionTenantId(tenantId);
+        return counters;
+    }
+
+    /**
+     * Los deltas se aplican recién al confirmar la transacción que los originó
+     */
+    private void apply(UUID tenantId, Consumer<Counters> change) {
+        if (!isTracking(tenantId)) {
+            return;
+        }
+        Runnable task = () -> {
+            Accumulator accumulator = accumulators.get(tenantId);
+            if (accumulator != null) {
+                synchronized (accumulator) {
+                    change.accept(accumulator.pending);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    private static String statusKey(TransactionStatus status) {
+        return status != null ? status.getCode() : "unknown";
+    }
+
+    private static String billingKey(String billingStatus) {
+        return billingStatus != null && !billingStatus.isBlank() ? billingStatus : "none";
+    }
+
+    /**
+     * Estado de una transacción relevante para las métricas
+     */
+    public record TxState(TransactionStatus status, String billingStatus, BigDecimal amount) {
+        public static TxState of(Transaction transaction) {
+            return new TxState(transaction.getStatus(), transaction.getBillingStatus(), transaction.getAmount());
+        }
+
+        public static TxState of(TransactionRepository.MetricsView view) {
+            return new TxState(view.getStatus(), view.getBillingStatus(), view.getAmount());
+        }
+    }
+
+    public record LiveSnapshot(long version, long total, BigDecimal totalAmount, long pendingBilling,
+                               Map<String, Long> byStatus, Map<String, BigDecimal> amountByStatus,
+                               Map<String, Long> byBillingStatus, long invoices, long creditNotes,
+                               OffsetDateTime asOf) { }
+
+    /**
+     * Cambios entre {@code version - 1} y {@code version}; solo trae las claves que cambiaron
+     */
+    public record LiveDelta(long version, Map<String, Long> byStatus, Map<String, BigDecimal> amountByStatus,
+                            Map<String, Long> byBillingStatus, long invoices, long creditNotes) { }
+
+    private static final class Accumulator {
+        private final UUID tenantId;
+        private final Counters published;
+        private final Counters pending = new Counters();
+        private long version;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean resyncRequested;
+
+        private Accumulator(UUID tenantId, Counters seed) {
+            this.tenantId = tenantId;
+            this.published = seed;
+        }
+
+        private LiveSnapshot snapshot() {
+            long total = published.byStatus.values().stream().mapToLong(Long::longValue).sum();
+            BigDecimal totalAmount = published.amountByStatus.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+            return new LiveSnapshot(version, total, totalAmount, published.byBillingStatus.getOrDefault("pending", 0L),
+                    Map.copyOf(published.byStatus), Map.copyOf(published.amountByStatus),
+                    Map.copyOf(published.byBillingStatus), published.invoices, published.creditNotes,
+                    OffsetDateTime.now());
+        }
+
+        private LiveDelta publishPending() {
+            version++;
+            LiveDelta delta = new LiveDelta(version, Map.copyOf(pending.byStatus), Map.copyOf(pending.amountByStatus),
+                    Map.copyOf(pending.byBillingStatus), pending.invoices, pending.creditNotes);
+            published.addAll(pending, 1);
+            pending.clear();
+            return delta;
+        }
+    }
+
+    /**
+     * Contadores por dimensión; los ceros se eliminan para que los deltas sean mínimos
+     */
+    static final class Counters {
+        private final Map<String, Long> byStatus = new TreeMap<>();
+        private final Map<String, BigDecimal> amountByStatus = new TreeMap<>();
+        private final Map<String, Long> byBillingStatus = new TreeMap<>();
+        private long invoices;
+        private long creditNotes;
+
+        void add(TxState state, int sign) {
+            String status = statusKey(state.status());
+            mergeCount(byStatus, status, sign);
+            if (state.amount() != null) {
+                BigDecimal amount = sign > 0 ? state.amount() : state.amount().negate();
+                amountByStatus.merge(status, amount, BigDecimal::add);
+                if (amountByStatus.get(status).signum() == 0) {
+                    amountByStatus.remove(status);
+                }
+            }
+            mergeCount(byBillingStatus, billingKey(state.billingStatus()), sign);
+        }
+
+        void addAll(Counters other, int sign) {
+            other.byStatus.forEach((k, v) -> mergeCount(byStatus, k, sign * v));
+            other.byBillingStatus.forEach((k, v) -> mergeCount(byBillingStatus, k, sign * v));
+            other.amountByStatus.forEach((k, v) -> {
+                amountByStatus.merge(k, sign > 0 ? v : v.negate(), BigDecimal::add);
+                if (amountByStatus.get(k).signum() == 0) {
+                    amountByStatus.remove(k);
+                }
+            });
+            invoices += sign * other.invoices;
+            creditNotes += sign * other.creditNotes;
+        }
+
+        Counters copy() {
+            Counters copy = new Counters();
+            copy.addAll(this, 1);
+            return copy;
+        }
+
+        boolean isEmpty() {
+            return byStatus.isEmpty() && amountByStatus.isEmpty() && byBillingStatus.isEmpty()
+                    && invoices == 0 && creditNotes == 0;
+        }
+
+        void clear() {
+            byStatus.clear();
+            amountByStatus.clear();
+            byBillingStatus.clear();
+            invoices = 0;
+            creditNotes = 0;
+        }
+
+        private static void mergeCount(Map<String, Long> map, String key, long delta) {
+            if (map.merge(key, delta, Long::sum) == 0L) {
+                map.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.NotificationOutbox;
+import com.gf.connector.repo.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cola de notificaciones por email con envío en segundo plano.
+ *
+ * {@link #enqueue} solo agrega a una cola en memoria acotada y nunca bloquea, así que se puede
+ * llamar desde dentro de transacciones de negocio. Un hilo escritor persiste lo encolado en
+ * {@code notification_outbox} con su propia transacción (sobrevive a un rollback del llamador y
+ * a un reinicio). {@link #flush}, disparado por el scheduler, agrupa las filas pendientes por
+ * tenant + categoría + destinatario y, cuando vence la ventana de agrupación, envía un único
+ * digest por grupo. Si el SMTP falla, el grupo se reintenta con backoff exponencial hasta
+ * {@code notification.retry.max-attempts}.
+ *
+ * Antes de enviar, las filas del grupo se reclaman con {@code FOR UPDATE SKIP LOCKED} y pasan a
+ * {@code sending} con un lease: con varias réplicas cada digest lo envía una sola. Si el nodo
+ * cae durante el envío, el grupo vuelve a ser elegible cuando vence el lease.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.mail.host")
+public class NotificationDispatcher {
+
+    static final String PENDING = "pending";
+    static final String SENDING = "sending";
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+    private final WorkerThreads workerThreads;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.email.from:noreply@getnet-facturante.com}")
+    private String fromEmail = "noreply@getnet-facturante.com";
+
+    @Value("${notification.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    @Value("${notification.coalesce-window-seconds:300}")
+    private long coalesceWindowSeconds = 300;
+
+    @Value("${notification.max-digest-items:100}")
+    private int maxDigestItems = 100;
+
+    @Value("${notification.retry.max-attempts:6}")
+    private int maxAttempts = 6;
+
+    @Value("${notification.retry.base-delay-seconds:60}")
+    private long baseDelaySeconds = 60;
+
+    @Value("${notification.retry.max-delay-seconds:3600}")
+    private long maxDelaySeconds = 3600;
+
+    @Value("${notification.retention-days:30}")
+    private int retentionDays = 30;
+
+    @Value("${notification.send-lease-seconds:300}")
+    private long sendLeaseSeconds = 300;
+
+    // ReentrantLock y no synchronized: se retiene durante JDBC y no debe fijar el carrier de un hilo virtual
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private BlockingQueue<NotificationOutbox> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+    private Counter dropped;
+    private Counter sent;
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        Gauge.builder("notifications_queue_size", queue, BlockingQueue::size)
+                .description("Notificaciones en memoria pendientes de persistir")
+                .register(meterRegistry);
+        dropped = Counter.builder("notifications_dropped_total")
+                .description("Notificaciones descartadas por cola llena o error al persistir")
+                .register(meterRegistry);
+        sent = Counter.builder("notifications_sent_total")
+                .description("Emails de notificación enviados (un digest cuenta como uno)")
+                .register(meterRegistry);
+        failed = Counter.builder("notifications_failed_total")
+                .description("Emails de notificación abandonados tras agotar los reintentos")
+                .register(meterRegistry);
+        writer = workerThreads.newThread("notification-writer", this::writeLoop);
+        writer.start();
+    }
+
+    /**
+     * Encola una notificación sin bloquear. Devuelve false si la cola está llena.
+     */
+    public boolean enqueue(UUID tenantId, String category, String recipient, String subject, String body) {
+        OffsetDateTime now = OffsetDateTime.now();
+        NotificationOutbox notification = NotificationOutbox.builder()
+                .tenantId(tenantId)
+                .category(category)
+                .coalesceKey(coalesceKey(tenantId, category, recipient))
+                .recipient(recipient)
+                .subject(truncate(subject, 500))
+                .body(body)
+                .status(PENDING)
+                .attempts(0)
+                .nextAttemptAt(now.plusSeconds(coalesceWindowSeconds))
+                .createdAt(now)
+                .build();
+        if (!queue.offer(notification)) {
+            dropped.increment();
+            log.warn("Cola de notificaciones llena, se descarta '{}'", subject);
+            return false;
+        }
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    private void writeLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            try {
+                persistPending();
+            } catch (RuntimeException e) {
+                log.error("Error en el escritor de notificaciones", e);
+            }
+        }
+    }
+
+    /**
+     * Persiste todo lo encolado en memoria. Bajo lock: al volver, lo encolado antes de la
+     * llamada ya está en la base aunque el hilo escritor estuviera a mitad de un lote.
+     */
+    int persistPending() {
+        writeLock.lock();
+        try {
+            List<NotificationOutbox> batch = new ArrayList<>();
+            queue.drainTo(batch);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            try {
+                outboxRepository.saveAll(batch);
+                return batch.size();
+            } catch (RuntimeException e) {
+                dropped.increment(batch.size());
+                log.error("No se pudieron persistir {} notificaciones (primera: '{}'): {}",
+                        batch.size(), batch.get(0).getSubject(), e.getMessage());
+                return 0;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Envía un digest por cada grupo cuya ventana de agrupación o backoff venció.
+     *
+     * @return cantidad de emails enviados
+     */
+    public int flush() {
+        persistPending();
+        int delivered = 0;
+        for (String key : outboxRepository.findDueCoalesceKeys(OffsetDateTime.now())) {
+            List<NotificationOutbox> group = claim(key);
+            if (!group.isEmpty() && deliver(group)) {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Reclama el grupo en una transacción corta; el envío SMTP ocurre fuera del lock
+     */
+    private List<NotificationOutbox> claim(String key) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<NotificationOutbox> group = transactionTemplate.execute(status -> {
+            List<NotificationOutbox> rows = outboxRepository.claimGroup(key, now, maxDigestItems);
+            for (NotificationOutbox row : rows) {
+                row.setStatus(SENDING);
+                row.setNextAttemptAt(now.plusSeconds(sendLeaseSeconds));
+            }
+            return rows;
+        });
+        return group != null ? group : List.of();
+    }
+
+    private boolean deliver(List<NotificationOutbox> group) {
+        List<UUID> ids = group.stream().map(NotificationOutbox::getId).toList();
+        try {
+            mailSender.send(compose(group));
+            outboxRepository.markSent(ids, OffsetDateTime.now());
+            sent.increment();
+            log.info("Notificación '{}' enviada a {} ({} agrupadas)",
+                    group.get(0).getCategory(), group.get(0).getRecipient(), group.size());
+            return true;
+        } catch (RuntimeException e) {
+            int attempts = group.stream().mapToInt(NotificationOutbox::getAttempts).max().orElse(0) + 1;
+            OffsetDateTime next = OffsetDateTime.now().plus(backoff(attempts));
+            outboxRepository.markAttemptFailed(ids, next, truncate(e.getMessage(), 1000), maxAttempts);
+            if (attempts >= maxAttempts) {
+                failed.increment();
+                log.error("Notificación '{}' a {} abandonada tras {} intentos: {}",
+                        group.get(0).getCategory(), group.get(0).getRecipient(), attempts, e.getMessage());
+            } else {
+                log.warn("Intento {} de envío de notificación '{}' fallido: {}. Próximo intento: {}",
+                        attempts, group.get(0).getCategory(), e.getMessage(), next);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Una sola notificación se envía tal cual; varias se combinan en un digest
+     */
+    SimpleMailMessage compose(List<NotificationOutbox> group) {
+        NotificationOutbox first = group.get(0);
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(first.getRecipient());
+        if (group.size() == 1) {
+            message.setSubject(first.getSubject());
+            message.setText(first.getBody());
+            return message;
+        }
+        NotificationOutbox last = group.get(group.size() - 1);
+        message.setSubject(first.getSubject() + " (+" + (group.size() - 1) + " similares)");
+        StringBuilder text = new StringBuilder();
+        text.append("Se agruparon ").append(group.size()).append(" notificaciones entre ")
+                .append(first.getCreatedAt()).append(" y ").append(last.getCreatedAt()).append(".\n\n");
+        for (int i = 0; i < group.size(); i++) {
+            NotificationOutbox notification = group.get(i);
+            text.append("=== ").append(i + 1).append("/").append(group.size())
+                    .append(" - ").append(notification.getCreatedAt()).append(" ===\n")
+                    .append(notification.getSubject()).append("\n\n")
+                    .append(notification.getBody()).append("\n\n");
+        }
+        message.setText(text.toString());
+        return message;
+    }
+
+    /**
+     * Elimina del outbox las notificaciones enviadas hace más de {@code notification.retention-days}
+     */
+    public int purgeSent() {
+        return outboxRepository.deleteSentBefore(OffsetDateTime.now().minusDays(retentionDays));
+    }
+
+    Duration backoff(int attempt) {
+        long exponential = baseDelaySeconds << Math.min(Math.max(attempt - 1, 0), 20);
+        return Duration.ofSeconds(Math.min(exponential, maxDelaySeconds));
+    }
+
+    private static String coalesceKey(UUID tenantId, String category, String recipient) {
+        return truncate((tenantId != null ? tenantId.toString() : "global") + ":" + category + ":" + recipient, 200);
+    }
+
+    private static String truncate(String value, int max) {
+        if (value == null) {
+            return null;
+        }
+        return value.length() > max ? value.substring(0, max) : value;
+    }
+
+    /**
+     * Al apagar, lo que quedó en memoria se persiste para enviarlo en el próximo arranque
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        persistPending();
+    }
+}
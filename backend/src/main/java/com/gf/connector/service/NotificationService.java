@@ -5,8 +5,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -18,6 +16,9 @@ import java.util.UUID;
  * Servicio para enviar notificaciones por email
  * Alertas para errores críticos del sistema
  * 
+ * Los mensajes no se envían en el hilo del llamador: se encolan en {@link NotificationDispatcher},
+ * que los agrupa por tenant y categoría y los envía en segundo plano con reintentos.
+ * 
  * Nota: Este servicio solo se activa si spring.mail.host está configurado
  */
 @Slf4j
@@ -26,7 +27,7 @@ import java.util.UUID;
 @ConditionalOnProperty(name = "spring.mail.host")
 public class NotificationService {
 
-    private final JavaMailSender mailSender;
+    private final NotificationDispatcher dispatcher;
     
     @Value("${notification.email.enabled:true}")
     private boolean emailEnabled;
@@ -34,9 +35,6 @@ public class NotificationService {
     @Value("${notification.email.admin-email:admin@getnet-facturante.com}")
     private String adminEmail;
     
-    @Value("${notification.email.from:noreply@getnet-facturante.com}")
-    private String fromEmail;
-    
     @Value("${app.name:GetNet-Facturante}")
     private String appName;
 
@@ -69,7 +67,7 @@ public class NotificationService {
             
             body.append("\nPor favor, revise los logs del sistema para más detalles.");
             
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(tenantId, "reconciliation-error", subject, body.toString());
             
         } catch (Exception e) {
             log.error("Error enviando notificación de reconciliación: {}", e.getMessage(), e);
@@ -95,7 +93,7 @@ public class NotificationService {
             body.append("Fecha: ").append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("\n");
             body.append("Transacciones huérfanas facturadas: ").append(processedCount).append("\n");
 
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(tenantId, "reconciliation-info", subject, body.toString());
 
         } catch (Exception e) {
             log.error("Error enviando notificación informativa de reconciliación: {}", e.getMessage(), e);
@@ -122,7 +120,7 @@ public class NotificationService {
             body.append("Tipo: ").append(error.getClass().getSimpleName()).append("\n\n");
             body.append("Stack trace:\n").append(getStackTrace(error));
             
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(tenantId, "reconciliation-failure", subject, body.toString());
             
         } catch (Exception e) {
             log.error("Error enviando notificación de error crítico: {}", e.getMessage(), e);
@@ -150,7 +148,7 @@ public class NotificationService {
             body.append("Tipo: ").append(error.getClass().getSimpleName()).append("\n\n");
             body.append("Por favor, revise la configuración de Facturante y los logs del sistema.");
             
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(tenantId, "invoice-error", subject, body.toString());
             
         } catch (Exception e) {
             log.error("Error enviando notificación de error de factura: {}", e.getMessage(), e);
@@ -177,7 +175,7 @@ public class NotificationService {
             body.append("Tipo: ").append(error.getClass().getSimpleName()).append("\n\n");
             body.append("Por favor, revise la configuración del webhook y los logs del sistema.");
             
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(null, "webhook-error:" + provider, subject, body.toString());
             
         } catch (Exception e) {
             log.error("Error enviando notificación de error de webhook: {}", e.getMessage(), e);
@@ -203,7 +201,7 @@ public class NotificationService {
             body.append("Estado: ").append(success ? "Exitoso" : "Fallido").append("\n");
             body.append("Detalles: ").append(details).append("\n");
             
-            sendEmail(adminEmail, subject, body.toString());
+            enqueue(tenantId, "backup", subject, body.toString());
             
         } catch (Exception e) {
             log.error("Error enviando notificación de backup: {}", e.getMessage(), e);
@@ -211,21 +209,11 @@ public class NotificationService {
     }
     
     /**
-     * Método privado para enviar email
+     * Encola el email al administrador; nunca bloquea por SMTP
      */
-    private void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-            
-            mailSender.send(message);
-            log.info("Email enviado exitosamente a: {}", to);
-            
-        } catch (Exception e) {
-            log.error("Error enviando email a {}: {}", to, e.getMessage(), e);
+    private void enqueue(UUID tenantId, String category, String subject, String body) {
+        if (dispatcher.enqueue(tenantId, category, adminEmail, subject, body)) {
+            log.debug("Notificación '{}' encolada para: {}", category, adminEmail);
         }
     }
     
@@ -0,0 +1,206 @@
+package com.gf.connector.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ejecutor de trabajo de facturación particionado por externalId.
+ *
+ * Cada clave se asigna por hash a una de N lanes; cada lane tiene una cola acotada y un
+ * único consumidor, lo que garantiza FIFO estricto por transacción (la nota de crédito
+ * se emite después de la factura) y paralelismo completo entre transacciones distintas.
+ * Con la cola llena, el productor espera hasta {@code billing.lanes.offer-timeout-ms}
+ * y luego recibe {@link RejectedExecutionException} (backpressure, nunca se reordena).
+ */
+@Slf4j
+@Component
+public class OrderedLaneExecutor {
+
+    private final Lane[] lanes;
+    private final long offerTimeoutMs;
+    private final Counter rejected;
+
+    public OrderedLaneExecutor(@Value("${billing.lanes.count:8}") int laneCount,
+                               @Value("${billing.lanes.queue-capacity:256}") int queueCapacity,
+                               @Value("${billing.lanes.offer-timeout-ms:2000}") long offerTimeoutMs,
+                               MeterRegistry meterRegistry,
+                               WorkerThreads workerThreads) {
+        if (laneCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("billing.lanes.count y queue-capacity deben ser >= 1");
+        }
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(i, queueCapacity, workerThreads);
+            lanes[i] = lane;
+            Gauge.builder("billing_lane_depth", lane.queue, BlockingQueue::size)
+                    .description("Tareas de facturación encoladas por lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+            lane.worker.start();
+        }
+        this.rejected = Counter.builder("billing_lane_rejected_total")
+                .description("Tareas rechazadas por lane saturada")
+                .register(meterRegistry);
+        log.info("OrderedLaneExecutor iniciado: {} lanes, capacidad {} por lane", laneCount, queueCapacity);
+    }
+
+    /**
+     * Lane asignada a la clave (estable mientras no cambie la cantidad de lanes)
+     */
+    public int laneFor(String key) {
+        int h = key != null ? key.hashCode() : 0;
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    public <T> CompletableFuture<T> submit(String key, Callable<T> task) {
+        Lane lane = lanes[laneFor(key)];
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable wrapped = () -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        // Una tarea encolada desde su propia lane se ejecuta en línea: esperar su propia cola sería un deadlock
+        if (Thread.currentThread() == lane.worker) {
+            wrapped.run();
+            return future;
+        }
+        try {
+            if (!lane.queue.offer(wrapped, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Lane " + lane.index + " saturada para la clave " + key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrumpido al encolar en lane " + lane.index, e);
+        }
+        return future;
+    }
+
+    /**
+     * Encola la tarea en la lane de la clave y espera su resultado, propagando la excepción original
+     */
+    public <T> T submitAndWait(String key, Callable<T> task) {
+        try {
+            return submit(key, task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la lane de " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Encola la tarea cuando la transacción actual haga commit (o de inmediato si no hay
+     * transacción), para que la lane vea el estado ya confirmado y no compita por sus locks.
+     */
+    public <T> CompletableFuture<T> submitAfterCommit(String key, Callable<T> task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return submit(key, task);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    future.cancel(false);
+                    return;
+                }
+                try {
+                    submit(key, task).whenComplete((value, error) -> {
+                        if (error != null) {
+                            future.completeExceptionally(error);
+                        } else {
+                            future.complete(value);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    log.error("No se pudo encolar tarea post-commit para {}: {}", key, e.getMessage());
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public int depth(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            lane.worker.interrupt();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static final class Lane {
+        private final int index;
+        private final BlockingQueue<Runnable> queue;
+        private final Thread worker;
+        private volatile boolean running = true;
+
+        private Lane(int index, int capacity, WorkerThreads workerThreads) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = workerThreads.newThread("billing-lane-" + index, this::drain);
+        }
+
+        private void drain() {
+            while (running || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = running ? queue.take() : queue.poll();
+                } catch (InterruptedException e) {
+                    // Apagado: se vacía lo pendiente antes de terminar
+                    continue;
+                }
+                if (task == null) {
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.error("Error no controlado en billing-lane-{}", index, e);
+                }
+            }
+        }
+    }
+}
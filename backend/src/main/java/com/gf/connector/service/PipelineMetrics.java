@@ -0,0 +1,118 @@
+package com.gf.connector.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentación por etapa del pipeline webhook → CAE.
+ *
+ * Cada etapa se mide con el timer {@code webhook_stage_duration} (tags stage, tenant, outcome)
+ * y la demora de punta a punta, desde la recepción del webhook hasta la factura en estado
+ * {@code sent}, con {@code billing_lag} (tags tenant, path). Ambos publican buckets fijos de
+ * histograma para calcular percentiles en Prometheus; la cantidad de series queda acotada
+ * por etapas × tenants × resultados. Los timers se cachean para no reconstruir el Meter.Id
+ * en cada registro del camino caliente.
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage {
+        SIGNATURE, PARSE, IDEMPOTENCY, MAPPING, UPSERT, VALIDATION, TRANSFORMATION, FACTURANTE, PERSISTENCE;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    /** Rechazo funcional: firma inválida, validación no superada o Facturante sin éxito */
+    public static final String REJECTED = "rejected";
+    /** Evento ya procesado (idempotencia) */
+    public static final String DUPLICATE = "duplicate";
+
+    /** Facturación dentro del mismo webhook */
+    public static final String PATH_WEBHOOK = "webhook";
+    /** Confirmación manual, reintentos o emisión desde la UI */
+    public static final String PATH_DEFERRED = "deferred";
+
+    private static final Duration[] STAGE_BUCKETS = millis(1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000);
+    private static final Duration[] LAG_BUCKETS = {
+            Duration.ofMillis(250), Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(30),
+            Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(15), Duration.ofHours(1),
+            Duration.ofHours(6), Duration.ofHours(24), Duration.ofDays(3)
+    };
+
+    private final MeterRegistry meterRegistry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Marca de inicio de una etapa, a pasar a {@link #record}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Stage stage, UUID tenantId, boolean success, long startNanos) {
+        record(stage, tenantId, success ? SUCCESS : ERROR, startNanos);
+    }
+
+    public void record(Stage stage, UUID tenantId, String outcome, long startNanos) {
+        stageTimer(stage, tenantId, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Demora desde la recepción del webhook hasta la factura enviada; sin origen conocido no se registra
+     */
+    public void recordBillingLag(UUID tenantId, String path, Instant receivedAt) {
+        if (receivedAt == null) {
+            return;
+        }
+        Duration lag = Duration.between(receivedAt, Instant.now());
+        if (lag.isNegative()) {
+            return;
+        }
+        timers.computeIfAbsent(new TimerKey("billing_lag", tenant(tenantId), path), key -> Timer.builder("billing_lag")
+                        .description("Demora desde la recepción del webhook hasta la factura enviada a Facturante")
+                        .tag("tenant", key.tenant())
+                        .tag("path", key.detail())
+                        .serviceLevelObjectives(LAG_BUCKETS)
+                        .register(meterRegistry))
+                .record(lag);
+    }
+
+    private Timer stageTimer(Stage stage, UUID tenantId, String outcome) {
+        return timers.computeIfAbsent(new TimerKey(stage.tag, tenant(tenantId), outcome), key -> Timer.builder("webhook_stage_duration")
+                .description("Duración de cada etapa del pipeline webhook → CAE")
+                .tag("stage", key.name())
+                .tag("tenant", key.tenant())
+                .tag("outcome", key.detail())
+                .serviceLevelObjectives(STAGE_BUCKETS)
+                .register(meterRegistry));
+    }
+
+    private static String tenant(UUID tenantId) {
+        return tenantId != null ? tenantId.toString() : "unknown";
+    }
+
+    private static Duration[] millis(long... values) {
+        Duration[] durations = new Duration[values.length];
+        for (int i = 0; i < values.length; i++) {
+            durations[i] = Duration.ofMillis(values[i]);
+        }
+        return durations;
+    }
+
+    private record TimerKey(String name, String tenant, String detail) {}
+}
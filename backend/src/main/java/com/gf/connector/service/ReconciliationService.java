@@ -62,7 +62,7 @@ public class ReconciliationService {
             // 4. Procesar transacciones huérfanas
             ReconciliationResult result = processOrphanTransactions(orphanTransactions, tenantId);
             
-            // 5. Notificaciones
+            // 5. Notificaciones (solo se encolan: el envío SMTP es asíncrono y no alarga la transacción)
             if (notificationService != null) {
                 if (result.hasErrors()) {
                     notificationService.sendReconciliationErrorNotification(tenantId, result);
@@ -226,8 +226,10 @@ public class ReconciliationService {
             .orElse(null);
         
         if (existing != null) {
-            // Actualizar transacción existente
-            existing.setStatus(TransactionStatus.PAID);
+            // Actualizar transacción existente sin retroceder estados (p. ej. un REFUNDED no vuelve a PAID)
+            if (existing.getStatus() == null || existing.getStatus().canTransitionTo(TransactionStatus.PAID)) {
+                existing.setStatus(TransactionStatus.PAID);
+            }
             existing.setAmount(java.math.BigDecimal.valueOf(getnetTx.getAmount()));
             existing.setUpdatedAt(java.time.OffsetDateTime.now());
             return transactionRepository.save(existing);
@@ -0,0 +1,390 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusión de eventos SSE por tenant y tópico.
+ *
+ * {@link #publish} nunca escribe en sockets: serializa el payload una vez y lo encola en el
+ * buffer acotado de cada suscriptor del tópico. Hilos despachadores dedicados drenan los
+ * suscriptores con eventos pendientes, de a uno por vez y en orden. Si un cliente no consume
+ * y su buffer se llena, se descarta el evento más viejo (DROP_OLDEST) o se lo desconecta
+ * (DISCONNECT) para que reconecte con estado fresco. Un heartbeat periódico fuerza escrituras
+ * y las conexiones muertas se eliminan al fallar el envío.
+ *
+ * La escritura al socket es bloqueante: si un cliente deja de leer, el envío queda colgado
+ * hasta el timeout del contenedor. Un watchdog detecta escrituras que superan
+ * {@code sse.write-timeout-ms}, desconecta a ese suscriptor y reemplaza al despachador
+ * bloqueado por uno nuevo, así un navegador lento no frena al resto de los tenants.
+ */
+@Slf4j
+@Component
+public class SseBroadcaster {
+
+    public enum SlowConsumerPolicy { DROP_OLDEST, DISCONNECT }
+
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final BlockingQueue<Subscriber> ready = new LinkedBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final SlowConsumerPolicy policy;
+    private final long emitterTimeoutMs;
+    private final long reconnectMs;
+    private final long writeTimeoutNanos;
+    private final WorkerThreads workerThreads;
+    private final Set<Thread> dispatchers = ConcurrentHashMap.newKeySet();
+    private final Set<Thread> retired = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger dispatcherIds = new AtomicInteger();
+    private final Counter dropped;
+    private final Counter disconnected;
+    private final Counter stalled;
+    private volatile boolean running = true;
+
+    public SseBroadcaster(@Value("${sse.buffer-size:256}") int bufferSize,
+                          @Value("${sse.slow-consumer-policy:DROP_OLDEST}") SlowConsumerPolicy policy,
+                          @Value("${sse.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                          @Value("${sse.reconnect-ms:3000}") long reconnectMs,
+                          @Value("${sse.dispatcher-threads:2}") int dispatcherThreads,
+                          @Value("${sse.write-timeout-ms:5000}") long writeTimeoutMs,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          WorkerThreads workerThreads) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("sse.buffer-size debe ser >= 1");
+        }
+        this.bufferSize = bufferSize;
+        this.policy = policy;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.reconnectMs = reconnectMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.workerThreads = workerThreads;
+        this.objectMapper = objectMapper;
+        Gauge.builder("sse_subscribers", topics, t -> t.values().stream().mapToInt(Set::size).sum())
+                .description("Conexiones SSE activas")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("sse_events_dropped_total")
+                .description("Eventos SSE descartados por buffer lleno (DROP_OLDEST)")
+                .register(meterRegistry);
+        this.disconnected = Counter.builder("sse_slow_consumers_disconnected_total")
+                .description("Suscriptores SSE desconectados por buffer lleno (DISCONNECT)")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("sse_stalled_writes_total")
+                .description("Suscriptores SSE desconectados por una escritura bloqueada más de sse.write-timeout-ms")
+                .register(meterRegistry);
+        for (int i = 0; i < dispatcherThreads; i++) {
+            startDispatcher();
+        }
+    }
+
+    private void startDispatcher() {
+        Thread dispatcher = workerThreads.newThread("sse-dispatcher-" + dispatcherIds.getAndIncrement(), this::dispatchLoop);
+        dispatchers.add(dispatcher);
+        dispatcher.start();
+    }
+
+    /**
+     * Nueva conexión al tópico del tenant. El emitter expira a los {@code sse.emitter-timeout-ms}
+     * y el navegador reconecta solo (EventSource), así no quedan conexiones colgadas.
+     */
+    public SseEmitter subscribe(UUID tenantId, String topic) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(key(tenantId, topic), emitter);
+        return emitter;
+    }
+
+    /**
+     * Como {@link #subscribe(UUID, String)}, pero con un evento inicial solo para esta conexión
+     * (p. ej. un snapshot), encolado antes que cualquier evento publicado después
+     */
+    public SseEmitter subscribe(UUID tenantId, String topic, String initialEvent, Object initialPayload) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Frame initial = toFrame(initialEvent, initialPayload);
+        register(key(tenantId, topic), emitter, initial);
+        return emitter;
+    }
+
+    Subscriber register(String key, SseEmitter emitter) {
+        return register(key, emitter, null);
+    }
+
+    private Subscriber register(String key, SseEmitter emitter, Frame initial) {
+        Subscriber subscriber = new Subscriber(key, emitter);
+        subscriber.offer(Frame.CONNECTED, bufferSize);
+        if (initial != null) {
+            subscriber.offer(initial, bufferSize);
+        }
+        topics.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        schedule(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Publica un evento para los suscriptores del tenant en el tópico. No bloquea:
+     * el envío lo hacen los despachadores.
+     */
+    public void publish(UUID tenantId, String topic, String eventName, Object payload) {
+        Set<Subscriber> subscribers = topics.get(key(tenantId, topic));
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Frame frame = toFrame(eventName, payload);
+        if (frame == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, frame);
+        }
+    }
+
+    private Frame toFrame(String eventName, Object payload) {
+        try {
+            return new Frame(eventName, String.valueOf(sequence.incrementAndGet()), objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar evento SSE {}: {}", eventName, e.getMessage());
+            return null;
+        }
+    }
+
+    public int subscriberCount(UUID tenantId, String topic) {
+        Set<Subscriber> subscribers = topics.get(key(tenantId, topic));
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    /**
+     * Heartbeat a todas las conexiones; las que fallan al escribir se eliminan
+     */
+    @Scheduled(fixedDelayString = "${sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                // Con eventos pendientes la próxima escritura ya detecta la conexión muerta
+                if (subscriber.isIdle()) {
+                    enqueue(subscriber, Frame.HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Watchdog de escrituras: un envío que no terminó dentro de {@code sse.write-timeout-ms}
+     * desconecta al suscriptor. El despachador bloqueado se retira (termina cuando el contenedor
+     * corta el socket) y se lanza otro en su lugar para que el resto siga recibiendo eventos.
+     */
+    @Scheduled(fixedDelayString = "${sse.write-check-interval-ms:1000}")
+    public void checkStalledWrites() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > writeTimeoutNanos) {
+                    abandon(subscriber);
+                }
+            }
+        }
+    }
+
+    private void abandon(Subscriber subscriber) {
+        Thread sender = subscriber.sender;
+        remove(subscriber);
+        stalled.increment();
+        log.warn("Suscriptor SSE {} desconectado: escritura bloqueada más de {} ms",
+                subscriber.key, TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+        if (sender != null && running && dispatchers.contains(sender) && retired.add(sender)) {
+            startDispatcher();
+        }
+        // complete() sincroniza con el send() en curso: se llama desde otro hilo para no bloquear al watchdog
+        workerThreads.newThread("sse-close", () -> {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("No se pudo completar el emitter de {}: {}", subscriber.key, e.getMessage());
+            }
+        }).start();
+    }
+
+    private void enqueue(Subscriber subscriber, Frame frame) {
+        if (!subscriber.offer(frame, bufferSize)) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                subscriber.evict.set(true);
+                disconnected.increment();
+            } else {
+                dropped.increment();
+            }
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            ready.offer(subscriber);
+        }
+    }
+
+    private void dispatchLoop() {
+        Thread self = Thread.currentThread();
+        try {
+            while (running && !retired.contains(self)) {
+                try {
+                    dispatch(ready.poll(1, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    self.interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Error en despachador SSE", e);
+                }
+            }
+        } finally {
+            dispatchers.remove(self);
+            retired.remove(self);
+        }
+    }
+
+    /**
+     * Drena en el hilo actual los suscriptores con eventos pendientes (usado por los tests)
+     */
+    void dispatchPending() {
+        Subscriber subscriber;
+        while ((subscriber = ready.poll()) != null) {
+            dispatch(subscriber);
+        }
+    }
+
+    /**
+     * Un suscriptor está en la cola de listos a lo sumo una vez (flag {@code scheduled}), así
+     * que un único hilo lo drena y el orden de eventos se preserva.
+     */
+    private void dispatch(Subscriber subscriber) {
+        if (subscriber == null) {
+            return;
+        }
+        try {
+            if (subscriber.evict.get()) {
+                remove(subscriber);
+                subscriber.emitter.complete();
+                return;
+            }
+            Frame frame;
+            subscriber.sender = Thread.currentThread();
+            while (!subscriber.removed && (frame = subscriber.poll()) != null) {
+                subscriber.sendingSince = System.nanoTime();
+                try {
+                    subscriber.emitter.send(frame.toEvent(reconnectMs));
+                } finally {
+                    subscriber.sendingSince = 0;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado o emitter ya completado
+            remove(subscriber);
+            log.debug("Suscriptor SSE {} eliminado: {}", subscriber.key, e.getMessage());
+        } finally {
+            subscriber.scheduled.set(false);
+            if (!subscriber.isIdle() && !subscriber.removed) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.removed = true;
+        topics.computeIfPresent(subscriber.key, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static String key(UUID tenantId, String topic) {
+        return tenantId + ":" + topic;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatchers.forEach(Thread::interrupt);
+        topics.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+        topics.clear();
+    }
+
+    /**
+     * Evento ya serializado; se arma el SseEventBuilder recién al enviarlo
+     */
+    record Frame(String name, String id, String json) {
+        static final Frame CONNECTED = new Frame("connected", null, null);
+        static final Frame HEARTBEAT = new Frame(null, null, null);
+
+        SseEmitter.SseEventBuilder toEvent(long reconnectMs) {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            if (this == CONNECTED) {
+                return SseEmitter.event().name(name).reconnectTime(reconnectMs).data("ok");
+            }
+            return SseEmitter.event().name(name).id(id).data(json, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    static final class Subscriber {
+        private final String key;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Frame> buffer = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean evict = new AtomicBoolean();
+        private volatile boolean removed;
+        // Inicio (nanoTime) del envío en curso, 0 si no hay ninguno; lo lee el watchdog
+        private volatile long sendingSince;
+        private volatile Thread sender;
+
+        private Subscriber(String key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Encola el frame; con el buffer lleno descarta el más viejo y devuelve false
+         */
+        private synchronized boolean offer(Frame frame, int capacity) {
+            boolean fits = buffer.size() < capacity;
+            if (!fits) {
+                buffer.pollFirst();
+            }
+            buffer.addLast(frame);
+            return fits;
+        }
+
+        private synchronized Frame poll() {
+            return buffer.pollFirst();
+        }
+
+        private synchronized boolean isIdle() {
+            return buffer.isEmpty();
+        }
+    }
+}
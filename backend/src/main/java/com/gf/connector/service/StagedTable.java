@@ -0,0 +1,413 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+/**
+ * Carga masiva en PostgreSQL en dos pasos: las filas entran con {@code COPY FROM STDIN} a una tabla
+ * temporal sin índices ni restricciones (no escribe WAL) y después un único
+ * {@code INSERT ... SELECT ... ON CONFLICT} las pasa a la tabla real. Si una clave aparece varias
+ * veces en lo cargado gana la última.
+ *
+ * Si la tabla destino está vacía (restauración en una base nueva) los índices secundarios se
+ * borran antes del merge y se reconstruyen al final, que es bastante más rápido que mantenerlos
+ * fila por fila; eso bloquea la tabla hasta el commit. Todo ocurre en la transacción de
+ * {@code connection}, que tiene que tener autocommit apagado.
+ */
+final class StagedTable implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SEQUENCE_COLUMN = "import_seq";
+
+    private final Connection connection;
+    private final String table;
+    private final String stage;
+    private final Map<String, String> columnTypes;
+    private final Set<String> loadedColumns = new LinkedHashSet<>();
+    private final CopyManager copyManager;
+
+    private StagedTable(Connection connection, String table, Map<String, String> columnTypes) throws SQLException {
+        this.connection = connection;
+        this.table = table;
+        this.stage = "import_" + table;
+        this.columnTypes = columnTypes;
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+
+    /**
+     * Crea la tabla temporal con las columnas de {@code table} (sin restricciones ni índices), un
+     * id generado para las filas que no lo traen y un número de orden de carga
+     */
+    static StagedTable create(Connection connection, String table) throws SQLException {
+        StagedTable staged = new StagedTable(connection, table, TableRestorer.columnTypes(connection, table));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS pg_temp." + staged.stage);
+            statement.execute("CREATE TEMP TABLE " + staged.stage + " ON COMMIT DROP AS SELECT * FROM " + table + " WITH NO DATA");
+            statement.execute("ALTER TABLE " + staged.stage + " ADD COLUMN " + SEQUENCE_COLUMN + " bigint GENERATED ALWAYS AS IDENTITY");
+            if (staged.columnTypes.containsKey("id")) {
+                statement.execute("ALTER TABLE " + staged.stage + " ALTER COLUMN id SET DEFAULT gen_random_uuid()");
+            }
+        }
+        return staged;
+    }
+
+    boolean hasColumn(String column) {
+        return columnTypes.containsKey(column);
+    }
+
+    /**
+     * Carga NDJSON (un objeto por línea, como los backups): las columnas son las del primer objeto
+     * que existen en la tabla y todas las filas tienen que traer esas mismas (en cualquier orden);
+     * las claves que no son columnas se ignoran. Los bytea van en Base64.
+     *
+     * @return filas cargadas
+     */
+    long copyNdjson(ObjectMapper objectMapper, InputStream in, LongConsumer onRows) throws SQLException, IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            RowWriter writer = null;
+            Map<String, Integer> positions = null;
+            String[] values = null;
+            List<String> fields = new ArrayList<>();
+            List<String> texts = new ArrayList<>();
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    fields.clear();
+                    texts.clear();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        fields.add(parser.currentName().toLowerCase());
+                        JsonToken token = parser.nextToken();
+                        if (token == JsonToken.VALUE_NULL) {
+                            texts.add(null);
+                        } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                            texts.add(parser.readValueAsTree().toString());
+                        } else {
+                            texts.add(parser.getText());
+                        }
+                    }
+                    if (writer == null) {
+                        List<String> columns = new ArrayList<>();
+                        positions = new HashMap<>();
+                        for (String field : fields) {
+                            if (columnTypes.containsKey(field) && !positions.containsKey(field)) {
+                                positions.put(field, columns.size());
+                                columns.add(field);
+                            }
+                        }
+                        if (columns.isEmpty()) {
+                            throw new IllegalArgumentException("Ninguna clave del NDJSON es una columna de " + table);
+                        }
+                        writer = writer(columns);
+                        values = new String[columns.size()];
+                    }
+                    Arrays.fill(values, null);
+                    int matched = 0;
+                    for (int i = 0; i < fields.size(); i++) {
+                        Integer position = positions.get(fields.get(i));
+                        if (position != null) {
+                            values[position] = texts.get(i);
+                            matched++;
+                        } else if (columnTypes.containsKey(fields.get(i))) {
+                            matched = -1;
+                            break;
+                        }
+                    }
+                    if (matched != values.length) {
+                        // Una columna faltante no puede quedar en null en silencio
+                        throw new IllegalArgumentException("Fila con columnas distintas a las de la primera en "
+                                + table + " (fila " + (writer.rows() + 1) + ")");
+                    }
+                    writer.write(values);
+                    if (writer.rows() % 10_000 == 0) {
+                        onRows.accept(10_000);
+                    }
+                }
+                long rows = writer != null ? writer.finish() : 0;
+                onRows.accept(rows % 10_000);
+                return rows;
+            } catch (SQLException | IOException | RuntimeException e) {
+                if (writer != null) {
+                    writer.abort();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Carga CSV con encabezado (nombres de columna de la tabla): el resto del archivo va tal cual
+     * al {@code COPY}, sin parsearlo en Java
+     *
+     * @return filas cargadas
+     */
+    long copyCsv(InputStream in) throws SQLException, IOException {
+        List<String> columns = new ArrayList<>();
+        for (String name : readHeader(in).split(",", -1)) {
+            String column = name.trim().replace("\"", "").toLowerCase();
+            if (!columnTypes.containsKey(column)) {
+                throw new IllegalArgumentException("La columna '" + column + "' del CSV no existe en " + table);
+            }
+            columns.add(column);
+        }
+        loadedColumns.addAll(columns);
+        return copyManager.copyIn("COPY " + stage + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)",
+                in, BUFFER_SIZE);
+    }
+
+    /**
+     * Escritor de filas al {@code COPY}; los valores son texto en el formato de entrada de PostgreSQL
+     */
+    RowWriter writer(List<String> columns) throws SQLException {
+        for (String column : columns) {
+            if (!columnTypes.containsKey(column)) {
+                throw new IllegalArgumentException("La columna '" + column + "' no existe en " + table);
+            }
+        }
+        loadedColumns.addAll(columns);
+        boolean[] binary = new boolean[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            binary[i] = "bytea".equalsIgnoreCase(columnTypes.get(columns.get(i)));
+        }
+        return new RowWriter(new PGCopyOutputStream(copyManager.copyIn("COPY " + stage + " ("
+                + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)"), BUFFER_SIZE), binary);
+    }
+
+    /**
+     * Pasa lo cargado a la tabla real. Con {@code tenantId} todas las filas quedan en ese tenant y
+     * un conflicto con una fila de otro tenant no la modifica; en tablas sin {@code tenant_id} solo
+     * se admite {@code SKIP}.
+     *
+     * @return filas insertadas o actualizadas
+     */
+    long merge(String conflictColumn, BulkImportService.ConflictPolicy policy, UUID tenantId) throws SQLException {
+        return merge(conflictColumn, policy, tenantId, null, null);
+    }
+
+    /**
+     * Como {@link #merge(String, BulkImportService.ConflictPolicy, UUID)}, pero un conflicto solo
+     * actualiza {@code overwriteColumns} (todas si es null) y solo si además se cumple
+     * {@code overwriteCondition}, una condición SQL sobre la fila existente y {@code EXCLUDED}
+     */
+    long merge(String conflictColumn, BulkImportService.ConflictPolicy policy, UUID tenantId,
+               Set<String> overwriteColumns, String overwriteCondition) throws SQLException {
+        if (!columnTypes.containsKey(conflictColumn)) {
+            throw new IllegalArgumentException("La columna '" + conflictColumn + "' no existe en " + table);
+        }
+        if (loadedColumns.isEmpty()) {
+            return 0;
+        }
+        boolean tenantScoped = tenantId != null && columnTypes.containsKey("tenant_id");
+        if (tenantId != null && !tenantScoped && policy == BulkImportService.ConflictPolicy.OVERWRITE) {
+            throw new IllegalArgumentException(table + " no tiene tenant_id: la importación de un tenant no puede sobrescribir filas existentes");
+        }
+        List<String> columns = new ArrayList<>(loadedColumns);
+        if (columnTypes.containsKey("id") && !columns.contains("id")) {
+            columns.add("id");
+        }
+        if (tenantScoped && !columns.contains("tenant_id")) {
+            columns.add("tenant_id");
+        }
+        if (!columns.contains(conflictColumn)) {
+            throw new IllegalArgumentException("Lo cargado en " + table + " no tiene la columna '" + conflictColumn + "'");
+        }
+
+        List<String> selected = new ArrayList<>(columns.size());
+        List<String> updates = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            selected.add(tenantScoped && column.equals("tenant_id") ? "CAST(? AS uuid)" : column);
+            if (!column.equals(conflictColumn) && !column.equals("id")
+                    && (overwriteColumns == null || overwriteColumns.contains(column))) {
+                updates.add(column + " = EXCLUDED." + column);
+            }
+        }
+        List<String> conditions = new ArrayList<>(2);
+        if (tenantScoped) {
+            conditions.add(table + ".tenant_id = EXCLUDED.tenant_id");
+        }
+        if (overwriteCondition != null) {
+            conditions.add(overwriteCondition);
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") "
+                + "SELECT " + String.join(", ", selected) + " FROM (SELECT DISTINCT ON (" + conflictColumn + ") * FROM " + stage
+                + " WHERE " + conflictColumn + " IS NOT NULL ORDER BY " + conflictColumn + ", " + SEQUENCE_COLUMN + " DESC) s "
+                + "ON CONFLICT (" + conflictColumn + ") DO "
+                + (policy == BulkImportService.ConflictPolicy.SKIP || updates.isEmpty() ? "NOTHING"
+                        : "UPDATE SET " + String.join(", ", updates)
+                        + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + stage);
+        }
+        List<String> deferredIndexes = isTargetEmpty() ? dropSecondaryIndexes() : List.of();
+        long merged;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (tenantScoped) {
+                statement.setString(1, tenantId.toString());
+            }
+            merged = statement.executeLargeUpdate();
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String definition : deferredIndexes) {
+                statement.execute(definition);
+            }
+        }
+        return merged;
+    }
+
+    private boolean isTargetEmpty() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT NOT EXISTS (SELECT 1 FROM " + table + ")")) {
+            resultSet.next();
+            return resultSet.getBoolean(1);
+        }
+    }
+
+    /**
+     * Borra los índices no únicos del destino (los únicos hacen falta para el ON CONFLICT)
+     *
+     * @return definiciones para volver a crearlos
+     */
+    private List<String> dropSecondaryIndexes() throws SQLException {
+        List<String> names = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT quote_ident(i.relname), pg_get_indexdef(x.indexrelid) FROM pg_index x "
+                        + "JOIN pg_class i ON i.oid = x.indexrelid "
+                        + "WHERE x.indrelid = CAST(? AS regclass) AND NOT x.indisunique AND NOT x.indisprimary")) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    names.add(resultSet.getString(1));
+                    definitions.add(resultSet.getString(2));
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String name : names) {
+                statement.execute("DROP INDEX " + name);
+            }
+        }
+        return definitions;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS pg_temp." + stage);
+        }
+    }
+
+    /**
+     * Lee la primera línea sin consumir más bytes del stream (el resto va al COPY)
+     */
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                header.write(b);
+            }
+        }
+        if (header.size() == 0) {
+            throw new IllegalArgumentException("El CSV no tiene encabezado");
+        }
+        String line = header.toString(StandardCharsets.UTF_8);
+        return line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+
+    /**
+     * Filas en CSV para el COPY: null es el campo vacío y cualquier otro valor va entre comillas
+     */
+    static final class RowWriter {
+
+        private final PGCopyOutputStream copy;
+        private final Writer out;
+        private final boolean[] binary;
+        private long rows;
+
+        private RowWriter(PGCopyOutputStream copy, boolean[] binary) {
+            this.copy = copy;
+            this.out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.binary = binary;
+        }
+
+        void write(String... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                String value = values[i];
+                if (value != null) {
+                    writeQuoted(out, binary[i] ? "\\x" + HexFormat.of().formatHex(Base64.getDecoder().decode(value)) : value);
+                }
+            }
+            out.write('\n');
+            rows++;
+        }
+
+        long rows() {
+            return rows;
+        }
+
+        /**
+         * Termina el COPY
+         *
+         * @return filas que recibió el servidor
+         */
+        long finish() throws IOException, SQLException {
+            out.flush();
+            return copy.endCopy();
+        }
+
+        void abort() {
+            try {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            } catch (SQLException e) {
+                // La transacción se descarta de todos modos
+            }
+        }
+
+        static void writeQuoted(Writer out, String value) throws IOException {
+            out.write('"');
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) == '"') {
+                    out.write(value, start, i - start + 1);
+                    out.write('"');
+                    start = i + 1;
+                }
+            }
+            out.write(value, start, value.length() - start);
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Carga un archivo NDJSON de backup en su tabla con {@code INSERT ... ON CONFLICT (id) DO UPDATE}
+ * por lotes: si una fila aparece en varios backups de la cadena queda la versión del último.
+ * Los valores se envían como texto sin tipo y PostgreSQL los convierte al tipo de cada columna;
+ * las columnas del archivo que ya no existen en la tabla se ignoran.
+ */
+final class TableRestorer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final int batchSize;
+
+    TableRestorer(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return filas cargadas
+     */
+    long restore(Connection connection, String table, Path file) throws SQLException, IOException {
+        Map<String, String> columnTypes = columnTypes(connection, table);
+        long rows = 0;
+        try (JsonParser parser = jsonFactory.createParser(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            PreparedStatement statement = null;
+            List<String> fields = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            boolean[] binary = null;
+            int[] parameterOf = null;
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    fields.clear();
+                    values.clear();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        fields.add(parser.currentName());
+                        JsonToken token = parser.nextToken();
+                        values.add(token == JsonToken.VALUE_NULL ? null : parser.getText());
+                    }
+                    if (statement == null) {
+                        // Todas las filas de un archivo tienen las mismas columnas en el mismo orden
+                        List<String> columns = new ArrayList<>();
+                        parameterOf = new int[fields.size()];
+                        binary = new boolean[fields.size()];
+                        for (int i = 0; i < fields.size(); i++) {
+                            String type = columnTypes.get(fields.get(i));
+                            parameterOf[i] = type != null ? columns.size() + 1 : 0;
+                            binary[i] = "bytea".equalsIgnoreCase(type);
+                            if (type != null) {
+                                columns.add(fields.get(i));
+                            }
+                        }
+                        statement = connection.prepareStatement(upsertSql(table, columns));
+                    }
+                    if (fields.size() != parameterOf.length) {
+                        throw new IllegalStateException("Fila con columnas distintas en " + file.getFileName() + " (fila " + (rows + 1) + ")");
+                    }
+                    for (int i = 0; i < parameterOf.length; i++) {
+                        if (parameterOf[i] == 0) {
+                            continue;
+                        }
+                        String value = values.get(i);
+                        if (value == null) {
+                            statement.setNull(parameterOf[i], Types.OTHER);
+                        } else if (binary[i]) {
+                            statement.setBytes(parameterOf[i], Base64.getDecoder().decode(value));
+                        } else {
+                            statement.setObject(parameterOf[i], value, Types.OTHER);
+                        }
+                    }
+                    statement.addBatch();
+                    if (++rows % batchSize == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (statement != null && rows % batchSize != 0) {
+                    statement.executeBatch();
+                }
+            } finally {
+                if (statement != null) {
+                    statement.close();
+                }
+            }
+        }
+        return rows;
+    }
+
+    static String upsertSql(String table, List<String> columns) {
+        if (!columns.contains("id")) {
+            throw new IllegalStateException("La tabla " + table + " no tiene columna id en el backup");
+        }
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", columns)).append(") VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") ON CONFLICT (id) DO ");
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            if (!column.equals("id")) {
+                updates.add(column + " = EXCLUDED." + column);
+            }
+        }
+        return sql.append(updates.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(", ", updates)).toString();
+    }
+
+    /**
+     * Columnas actuales de la tabla y su tipo en la base
+     */
+    static Map<String, String> columnTypes(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            Map<String, String> types = new HashMap<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                types.put(metaData.getColumnLabel(i).toLowerCase(), metaData.getColumnTypeName(i));
+            }
+            return types;
+        }
+    }
+}
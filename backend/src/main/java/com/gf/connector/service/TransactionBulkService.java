@@ -0,0 +1,274 @@
+package com.gf.connector.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones masivas set-based sobre transacciones.
+ *
+ * Cada operación es un {@code UPDATE ... SET ... WHERE <predicado> AND tenant_id = ?}
+ * ejecutado por chunks de clave primaria (keyset sobre {@code id}): cada chunk es un
+ * statement autocommit que bloquea a lo sumo {@code bulk.chunk-size} filas durante
+ * milisegundos. No se cargan entidades en memoria, y re-ejecutar una operación
+ * interrumpida es seguro porque las filas ya actualizadas dejan de cumplir el predicado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionBulkService {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LiveMetricsService liveMetricsService;
+    private final WorkerThreads workerThreads;
+
+    private final Map<UUID, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${bulk.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    @Value("${bulk.job-retention-minutes:60}")
+    private long jobRetentionMinutes = 60;
+
+    /**
+     * Errores de facturación de transacciones pagadas/autorizadas sin factura vuelven a
+     * 'pending'; también se reinicia el ciclo del motor de reintentos.
+     */
+    public static final BulkUpdate RESET_ERROR_TO_PENDING = new BulkUpdate(
+            "reset-error-to-pending",
+            "billing_status = 'pending', billing_attempts = NULL, next_billing_attempt_at = NULL, " +
+            "last_billing_error = NULL, updated_at = :now",
+            "billing_status = 'error' AND status IN ('paid', 'authorized') " +
+            "AND (invoice_number IS NULL OR invoice_number = '')");
+
+    /**
+     * Inicializa billingStatus en filas que no lo tienen, según estado y factura existente
+     */
+    public static final BulkUpdate INITIALIZE_BILLING_STATUS = new BulkUpdate(
+            "initialize-billing-status",
+            "billing_status = CASE " +
+            "WHEN status IN ('paid', 'authorized') AND invoice_number IS NOT NULL AND invoice_number <> '' THEN 'billed' " +
+            "WHEN status IN ('paid', 'authorized') THEN 'pending' " +
+            "ELSE 'not_applicable' END, updated_at = :now",
+            "(billing_status IS NULL OR billing_status = '')");
+
+    /**
+     * Cantidad de filas que la operación modificaría, sin modificarlas
+     */
+    public long count(BulkUpdate operation, UUID tenantId) {
+        MapSqlParameterSource params = new MapSqlParameterSource(operation.params()).addValue("tenantId", tenantId);
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transactions WHERE " + operation.predicate() + " AND tenant_id = :tenantId",
+                params, Long.class);
+        return count != null ? count : 0L;
+    }
+
+    public BulkResult execute(BulkUpdate operation, UUID tenantId) {
+        return execute(operation, tenantId, progress -> { });
+    }
+
+    /**
+     * Ejecuta la operación en segundo plano y devuelve un job consultable por polling.
+     * El total se cuenta antes de empezar, así el progreso se puede informar en porcentaje.
+     *
+     * @throws RejectedExecutionException si el tenant ya tiene una operación masiva en curso
+     */
+    public BulkJob start(BulkUpdate operation, UUID tenantId) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("tenantId es obligatorio para operaciones masivas");
+        }
+        BulkJob job;
+        synchronized (jobs) {
+            evictExpired();
+            if (jobs.values().stream().anyMatch(other -> other.tenantId.equals(tenantId) && !other.isFinished())) {
+                throw new RejectedExecutionException("Ya hay una operación masiva en curso; reintente cuando termine");
+            }
+            job = new BulkJob(UUID.randomUUID(), tenantId, operation.name());
+            jobs.put(job.id, job);
+        }
+        workerThreads.newThread("bulk-" + operation.name(), () -> {
+            try {
+                job.matched = count(operation, tenantId);
+                job.complete(execute(operation, tenantId, job::progress));
+            } catch (RuntimeException e) {
+                log.error("Operación masiva {} falló (tenant {}): {}", operation.name(), tenantId, e.getMessage(), e);
+                job.fail(e.getMessage());
+            }
+        }).start();
+        return job;
+    }
+
+    /**
+     * Job del tenant (los jobs de otros tenants no son visibles)
+     */
+    public Optional<BulkJob> find(UUID jobId, UUID tenantId) {
+        BulkJob job = jobs.get(jobId);
+        return job != null && job.tenantId.equals(tenantId) ? Optional.of(job) : Optional.empty();
+    }
+
+    private void evictExpired() {
+        OffsetDateTime threshold = OffsetDateTime.now().minusMinutes(jobRetentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt.isBefore(threshold));
+    }
+
+    /**
+     * Ejecuta la operación por chunks de clave primaria, notificando el progreso tras cada chunk
+     */
+    public BulkResult execute(BulkUpdate operation, UUID tenantId, Consumer<BulkProgress> progressListener) {
+        if (tenantId == null) {
+            throw new IllegalArgumentException("tenantId es obligatorio para operaciones masivas");
+        }
+        long started = System.nanoTime();
+        String boundarySql = "SELECT id FROM transactions WHERE tenant_id = :tenantId AND id > :lastId " +
+                "ORDER BY id LIMIT 1 OFFSET :offset";
+        String firstBoundarySql = "SELECT id FROM transactions WHERE tenant_id = :tenantId " +
+                "ORDER BY id LIMIT 1 OFFSET :offset";
+        String baseUpdate = "UPDATE transactions SET " + operation.setClause() +
+                " WHERE " + operation.predicate() + " AND tenant_id = :tenantId";
+
+        UUID lastId = null;
+        long updated = 0;
+        int chunks = 0;
+        while (true) {
+            MapSqlParameterSource params = new MapSqlParameterSource(operation.params())
+                    .addValue("tenantId", tenantId)
+                    .addValue("offset", chunkSize - 1)
+                    .addValue("now", Timestamp.from(Instant.now()));
+            if (lastId != null) {
+                params.addValue("lastId", lastId);
+            }
+            // Límite superior del chunk: el id número chunkSize a partir del último procesado
+            List<UUID> boundary = jdbcTemplate.queryForList(
+                    lastId != null ? boundarySql : firstBoundarySql, params, UUID.class);
+            UUID upperId = boundary.isEmpty() ? null : boundary.get(0);
+
+            StringBuilder sql = new StringBuilder(baseUpdate);
+            if (lastId != null) {
+                sql.append(" AND id > :lastId");
+            }
+            if (upperId != null) {
+                sql.append(" AND id <= :upperId");
+                params.addValue("upperId", upperId);
+            }
+            updated += jdbcTemplate.update(sql.toString(), params);
+            chunks++;
+            progressListener.accept(new BulkProgress(operation.name(), chunks, updated));
+            if (chunks % 20 == 0) {
+                log.info("Operación masiva {} (tenant {}): {} chunks, {} filas actualizadas",
+                        operation.name(), tenantId, chunks, updated);
+            }
+            if (upperId == null) {
+                break;
+            }
+            lastId = upperId;
+        }
+
+        if (updated > 0) {
+            liveMetricsService.invalidate(tenantId);
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Operación masiva {} completada (tenant {}): {} filas en {} chunks, {} ms",
+                operation.name(), tenantId, updated, chunks, elapsedMs);
+        return new BulkResult(operation.name(), updated, chunks, elapsedMs);
+    }
+
+    /**
+     * Definición de un cambio masivo. {@code setClause} y {@code predicate} son SQL fijo
+     * definido en código (nunca entrada de usuario); los valores variables van en {@code params}.
+     * El parámetro {@code :now} está siempre disponible.
+     */
+    public record BulkUpdate(String name, String setClause, String predicate, Map<String, ?> params) {
+        public BulkUpdate(String name, String setClause, String predicate) {
+            this(name, setClause, predicate, Map.of());
+        }
+    }
+
+    public record BulkProgress(String operation, int chunks, long updated) { }
+
+    public record BulkResult(String operation, long updated, int chunks, long elapsedMs) { }
+
+    public enum BulkJobState { RUNNING, COMPLETED, FAILED }
+
+    public record BulkJobSnapshot(UUID jobId, String operation, BulkJobState state, long matched, long updated,
+                                  int chunks, Integer percent, long elapsedMs, OffsetDateTime createdAt,
+                                  OffsetDateTime finishedAt, String error) { }
+
+    /**
+     * Estado de una operación masiva en segundo plano; lo escribe un único hilo
+     */
+    public static final class BulkJob {
+        private final UUID id;
+        private final UUID tenantId;
+        private final String operation;
+        private final OffsetDateTime createdAt = OffsetDateTime.now();
+        private final long startedNanos = System.nanoTime();
+        private volatile long matched = -1;
+        private volatile long updated;
+        private volatile int chunks;
+        private volatile BulkJobState state = BulkJobState.RUNNING;
+        private volatile long elapsedMs;
+        private volatile OffsetDateTime finishedAt;
+        private volatile String error;
+
+        BulkJob(UUID id, UUID tenantId, String operation) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.operation = operation;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public boolean isFinished() {
+            return state != BulkJobState.RUNNING;
+        }
+
+        void progress(BulkProgress progress) {
+            updated = progress.updated();
+            chunks = progress.chunks();
+        }
+
+        void complete(BulkResult result) {
+            updated = result.updated();
+            chunks = result.chunks();
+            finish(BulkJobState.COMPLETED, null);
+        }
+
+        void fail(String message) {
+            finish(BulkJobState.FAILED, message);
+        }
+
+        private void finish(BulkJobState finalState, String message) {
+            elapsedMs = (System.nanoTime() - startedNanos) / 1_000_000;
+            error = message;
+            finishedAt = OffsetDateTime.now();
+            state = finalState;
+        }
+
+        public BulkJobSnapshot snapshot() {
+            BulkJobState current = state;
+            long total = matched;
+            long done = updated;
+            Integer percent = current == BulkJobState.COMPLETED ? Integer.valueOf(100)
+                    : total > 0 ? Integer.valueOf((int) Math.min(99, done * 100 / total)) : null;
+            long elapsed = current == BulkJobState.RUNNING ? (System.nanoTime() - startedNanos) / 1_000_000 : elapsedMs;
+            return new BulkJobSnapshot(id, operation, current, Math.max(total, 0), done, chunks, percent,
+                    elapsed, createdAt, finishedAt, error);
+        }
+    }
+}
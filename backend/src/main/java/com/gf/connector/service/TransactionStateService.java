@@ -0,0 +1,103 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Máquina de estados de transacciones aplicada con compare-and-set.
+ *
+ * Cada intento lee el estado actual, valida la transición contra
+ * {@link TransactionStatus#canTransitionTo} y escribe con
+ * {@code UPDATE ... WHERE status = <leído>}. Si otro proceso cambió el estado entre
+ * la lectura y la escritura el UPDATE no afecta filas y se reintenta, hasta
+ * {@code transactions.state.max-attempts}. No se toman locks: transacciones distintas
+ * nunca compiten entre sí.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionStateService {
+
+    private final TransactionRepository transactionRepository;
+
+    @Value("${transactions.state.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    public TransitionResult transition(String externalId, TransactionStatus target) {
+        return transition(externalId, target, null);
+    }
+
+    /**
+     * Aplica la transición a {@code target}; {@code capturedAt} se registra solo si no es null
+     */
+    public TransitionResult transition(String externalId, TransactionStatus target, OffsetDateTime capturedAt) {
+        TransactionStatus current = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            current = transactionRepository.findStatusByExternalId(externalId).orElse(null);
+            if (current == null && !transactionRepository.existsByExternalId(externalId)) {
+                return new TransitionResult(Outcome.NOT_FOUND, null, target, attempt);
+            }
+            if (current == target && capturedAt == null) {
+                return new TransitionResult(Outcome.UNCHANGED, current, target, attempt);
+            }
+            // Filas legadas sin estado se tratan como PENDING
+            TransactionStatus effective = current != null ? current : TransactionStatus.PENDING;
+            if (!effective.canTransitionTo(target)) {
+                log.info("Transición ilegal ignorada para {}: {} -> {}", externalId, current, target);
+                return new TransitionResult(Outcome.REJECTED, current, target, attempt);
+            }
+            int updated = transactionRepository.compareAndSetStatus(
+                    externalId, current, target, capturedAt, OffsetDateTime.now());
+            if (updated == 1) {
+                log.info("Transacción {} actualizada: {} -> {} (intento {})", externalId, current, target, attempt);
+                return new TransitionResult(Outcome.APPLIED, current, target, attempt);
+            }
+            log.debug("Conflicto de estado en {} (intento {}/{}), releyendo", externalId, attempt, maxAttempts);
+        }
+        log.warn("No se pudo aplicar {} -> {} sobre {} tras {} intentos", current, target, externalId, maxAttempts);
+        return new TransitionResult(Outcome.CONFLICT, current, target, maxAttempts);
+    }
+
+    public enum Outcome {
+        /** El estado cambió */
+        APPLIED,
+        /** Ya estaba en el estado pedido */
+        UNCHANGED,
+        /** Transición no permitida desde el estado actual (evento fuera de orden) */
+        REJECTED,
+        /** No existe transacción con ese externalId */
+        NOT_FOUND,
+        /** Se agotaron los reintentos por escrituras concurrentes */
+        CONFLICT
+    }
+
+    /**
+     * Resultado de una transición
+     */
+    public static class TransitionResult {
+        private final Outcome outcome;
+        private final TransactionStatus previous;
+        private final TransactionStatus target;
+        private final int attempts;
+
+        TransitionResult(Outcome outcome, TransactionStatus previous, TransactionStatus target, int attempts) {
+            this.outcome = outcome;
+            this.previous = previous;
+            this.target = target;
+            this.attempts = attempts;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public TransactionStatus getPrevious() { return previous; }
+        public TransactionStatus getTarget() { return target; }
+        public int getAttempts() { return attempts; }
+
+        public boolean isApplied() { return outcome == Outcome.APPLIED; }
+    }
+}
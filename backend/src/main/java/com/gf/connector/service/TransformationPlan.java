@@ -0,0 +1,325 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.gf.connector.domain.BillingSettings;
+import com.gf.connector.domain.Money;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.config.FacturanteConfig;
+import com.gf.connector.facturante.model.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+
+/**
+ * Plan compilado de la transformación Transaction → CrearComprobanteRequest para un tenant.
+ *
+ * Resuelve una sola vez lo que depende de la configuración de facturación y de Facturante
+ * (autenticación, tipo y punto de venta, alícuota de IVA, datos de consumidor final, email y
+ * envío), de modo que {@link #execute} sólo recorre el payload y hace las cuentas. Es inmutable:
+ * se reemplaza entero cuando cambia la versión de la configuración del tenant o vence su TTL.
+ *
+ * Las cuentas de IVA se hacen en centavos con {@link Money} cuando los importes son representables
+ * exactamente (hasta 2 decimales, cantidades enteras); si no, con {@code BigDecimal} como antes.
+ * Ambos caminos dan el mismo resultado, con la misma escala.
+ */
+@Slf4j
+final class TransformationPlan {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigDecimal DEFAULT_IVA_PORCENTAJE = new BigDecimal("21.00");
+    // Los ítems se facturan siempre al 21%, independientemente del IVA configurado para el encabezado
+    private static final BigDecimal ITEM_IVA_RATE = new BigDecimal("0.21");
+    private static final long ITEM_IVA_RATE_UNSCALED = 21;
+    private static final int CENTAVOS = 2;
+    private static final int IVA_RATE_SCALE = 4;
+    // Con hasta 12 dígitos enteros (15 entre precio y cantidad) centavos × tasa no desbordan un long
+    private static final int MAX_INTEGER_DIGITS = 12;
+    private static final BigDecimal ITEM_IVA_PORCENTAJE = new BigDecimal("21");
+    private static final String CONSUMIDOR_FINAL = "Consumidor Final";
+    private static final String CUIT_CONSUMIDOR_FINAL = "00000000000";
+
+    // Nombres alternativos de cada campo de ítem, en orden de prioridad
+    private static final String[] ITEM_NAME = {"name", "detalle"};
+    private static final String[] ITEM_SKU = {"sku", "codigo"};
+    private static final String[] ITEM_QUANTITY = {"quantity", "cantidad"};
+    private static final String[] ITEM_UNIT_PRICE = {"unit_price", "unitPrice", "precioUnitario"};
+
+    private final long version;
+    private final long compiledAtNanos;
+
+    // Compartida por todos los requests del plan: nadie la modifica después de construirla
+    private final Autenticacion autenticacion;
+    private final String tipoComprobante;
+    private final String prefijo;
+    private final BigDecimal ivaRate;
+    private final long ivaRateUnscaled;
+
+    private final BillingSettings settings;
+    private final boolean consumidorFinalPorDefecto;
+    private final String razonSocialConsumidorFinal;
+    private final String nroDocumentoConsumidorFinal;
+    private final int tipoDocumentoConsumidorFinal;
+    private final String emailFacturacion;
+    private final boolean enviarComprobante;
+
+    private TransformationPlan(long version, FacturanteConfig facturanteConfig, BillingSettings settings) {
+        this.version = version;
+        this.compiledAtNanos = System.nanoTime();
+        this.settings = settings;
+
+        autenticacion = new Autenticacion();
+        autenticacion.setEmpresa(facturanteConfig.getEmpresa());
+        autenticacion.setUsuario(facturanteConfig.getUsuario());
+        autenticacion.setHash(facturanteConfig.getPassword());
+
+        // Configuración persistente, luego la de Facturante y por último los valores por defecto
+        String tipo = settings != null ? settings.getTipoComprobante() : null;
+        String puntoVenta = settings != null ? settings.getPuntoVenta() : null;
+        if (isBlank(tipo)) {
+            tipo = facturanteConfig.getTipoComprobante();
+        }
+        if (isBlank(puntoVenta)) {
+            puntoVenta = facturanteConfig.getPrefijo();
+        }
+        tipoComprobante = isBlank(tipo) ? "FB" : tipo;
+        prefijo = isBlank(puntoVenta) ? "0001" : puntoVenta;
+
+        BigDecimal ivaPorcentaje = settings != null && settings.getIvaPorDefecto() != null
+                ? settings.getIvaPorDefecto() : DEFAULT_IVA_PORCENTAJE;
+        ivaRate = ivaPorcentaje.divide(HUNDRED, IVA_RATE_SCALE, RoundingMode.HALF_UP);
+        ivaRateUnscaled = ivaRate.abs().compareTo(BigDecimal.ONE) <= 0
+                ? Money.toMinorUnits(ivaRate, IVA_RATE_SCALE, RoundingMode.UNNECESSARY) : -1;
+
+        if (settings != null) {
+            consumidorFinalPorDefecto = Boolean.TRUE.equals(settings.getConsumidorFinalPorDefecto());
+            razonSocialConsumidorFinal = settings.getRazonSocialConsumidorFinal() != null
+                    ? settings.getRazonSocialConsumidorFinal() : CONSUMIDOR_FINAL;
+            nroDocumentoConsumidorFinal = settings.getCuitConsumidorFinal() != null
+                    ? settings.getCuitConsumidorFinal() : CUIT_CONSUMIDOR_FINAL;
+            tipoDocumentoConsumidorFinal = Integer.parseInt(settings.getTipoDocumentoCliente(nroDocumentoConsumidorFinal));
+            emailFacturacion = isBlank(settings.getEmailFacturacion()) ? null : settings.getEmailFacturacion();
+            enviarComprobante = Boolean.TRUE.equals(settings.getEnviarComprobante());
+        } else {
+            consumidorFinalPorDefecto = false;
+            razonSocialConsumidorFinal = CONSUMIDOR_FINAL;
+            nroDocumentoConsumidorFinal = CUIT_CONSUMIDOR_FINAL;
+            tipoDocumentoConsumidorFinal = 99; // Consumidor Final
+            emailFacturacion = null;
+            enviarComprobante = false;
+        }
+    }
+
+    /**
+     * Compila el plan a partir de la configuración activa del tenant (o {@code null} si no tiene)
+     */
+    static TransformationPlan compile(long version, FacturanteConfig facturanteConfig, BillingSettings settings) {
+        return new TransformationPlan(version, facturanteConfig, settings);
+    }
+
+    /**
+     * Indica si el plan sigue vigente para la versión de configuración dada
+     */
+    boolean isCurrent(long currentVersion, long ttlNanos) {
+        return version == currentVersion && System.nanoTime() - compiledAtNanos < ttlNanos;
+    }
+
+    /**
+     * Arma el request de Facturante para la transacción; {@code payloadNode} puede ser {@code MissingNode}
+     */
+    CrearComprobanteRequest execute(Transaction transaction, JsonNode payloadNode) {
+        CrearComprobanteRequest request = new CrearComprobanteRequest();
+        request.setAutenticacion(autenticacion);
+        request.setCliente(buildCliente(transaction, payloadNode));
+        request.setEncabezado(buildEncabezado(transaction));
+        request.setItems(buildItems(transaction, payloadNode));
+        return request;
+    }
+
+    private Cliente buildCliente(Transaction transaction, JsonNode payloadNode) {
+        Cliente cliente = new Cliente();
+        String customerDoc = transaction.getCustomerDoc();
+
+        if (consumidorFinalPorDefecto || customerDoc == null || customerDoc.trim().isEmpty()) {
+            cliente.setRazonSocial(razonSocialConsumidorFinal);
+            cliente.setTipoDocumento(tipoDocumentoConsumidorFinal);
+            cliente.setNroDocumento(nroDocumentoConsumidorFinal);
+        } else {
+            String customerName = customerField(payloadNode, "name", "customerName");
+            cliente.setRazonSocial(customerName != null ? customerName : CONSUMIDOR_FINAL);
+            cliente.setTipoDocumento(settings != null
+                    ? Integer.parseInt(settings.getTipoDocumentoCliente(customerDoc))
+                    : tipoDocumentoSinConfiguracion(customerDoc));
+            cliente.setNroDocumento(customerDoc);
+        }
+
+        if (emailFacturacion != null) {
+            cliente.setMailFacturacion(emailFacturacion);
+        } else {
+            String customerEmail = customerField(payloadNode, "email", "customerEmail");
+            cliente.setMailFacturacion(customerEmail != null ? customerEmail : "cliente@ejemplo.com");
+        }
+        cliente.setEnviarComprobante(enviarComprobante);
+        return cliente;
+    }
+
+    private ComprobanteEncabezado buildEncabezado(Transaction transaction) {
+        ComprobanteEncabezado encabezado = new ComprobanteEncabezado();
+        encabezado.setTipoComprobante(tipoComprobante);
+        encabezado.setPrefijo(prefijo);
+        encabezado.setCondicionVenta(1); // Contado
+        encabezado.setBienes(2); // Servicios
+        encabezado.setFechaHora(new GregorianCalendar());
+
+        BigDecimal total = transaction.getAmount();
+        encabezado.setSubTotal(total);
+        encabezado.setTotalNeto(ivaRateUnscaled >= 0 && isCentavos(total)
+                ? netoCentavos(Money.toMinorUnits(total, CENTAVOS, RoundingMode.UNNECESSARY), ivaRateUnscaled, IVA_RATE_SCALE)
+                : total.subtract(total.multiply(ivaRate).setScale(CENTAVOS, RoundingMode.HALF_UP)));
+        encabezado.setTotal(total);
+        encabezado.setPercepciones(BigDecimal.ZERO);
+        return encabezado;
+    }
+
+    private ComprobanteItem[] buildItems(Transaction transaction, JsonNode payloadNode) {
+        JsonNode itemsNode = itemsNode(payloadNode);
+        if (itemsNode != null && itemsNode.isArray() && !itemsNode.isEmpty()) {
+            ComprobanteItem[] items = new ComprobanteItem[itemsNode.size()];
+            int count = 0;
+            for (JsonNode itemNode : itemsNode) {
+                ComprobanteItem item = buildItem(itemNode);
+                if (item != null) {
+                    items[count++] = item;
+                }
+            }
+            if (count > 0) {
+                return count == items.length ? items : Arrays.copyOf(items, count);
+            }
+        }
+
+        // Sin ítems en el payload: uno genérico por el total de la transacción
+        BigDecimal neto = itemNeto(transaction.getAmount());
+        ComprobanteItem item = new ComprobanteItem();
+        item.setCodigo("GETNET-" + transaction.getExternalId());
+        item.setDetalle("Venta POS Getnet #" + transaction.getExternalId());
+        item.setCantidad(BigDecimal.ONE);
+        item.setPrecioUnitario(neto);
+        item.setIva(ITEM_IVA_PORCENTAJE);
+        item.setGravado(true);
+        item.setTotal(neto);
+        return new ComprobanteItem[] {item};
+    }
+
+    private static ComprobanteItem buildItem(JsonNode itemNode) {
+        try {
+            JsonNode name = field(itemNode, ITEM_NAME);
+            JsonNode sku = field(itemNode, ITEM_SKU);
+            BigDecimal quantity = decimal(field(itemNode, ITEM_QUANTITY), BigDecimal.ONE);
+            BigDecimal unitPrice = decimal(field(itemNode, ITEM_UNIT_PRICE), BigDecimal.ZERO);
+
+            BigDecimal neto;
+            BigDecimal precioUnitario;
+            if (quantity.scale() <= 0 && isCentavos(unitPrice)
+                    && integerDigits(quantity) + integerDigits(unitPrice) <= MAX_INTEGER_DIGITS + 3) {
+                long cantidad = quantity.longValueExact();
+                long bruto = Math.multiplyExact(Money.toMinorUnits(unitPrice, CENTAVOS, RoundingMode.UNNECESSARY), cantidad);
+                long netoCentavos = bruto - Money.applyRate(bruto, ITEM_IVA_RATE_UNSCALED, CENTAVOS, RoundingMode.HALF_UP);
+                neto = BigDecimal.valueOf(netoCentavos, CENTAVOS);
+                precioUnitario = BigDecimal.valueOf(Money.divide(netoCentavos, cantidad, RoundingMode.HALF_UP), CENTAVOS);
+            } else {
+                neto = itemNeto(unitPrice.multiply(quantity));
+                precioUnitario = neto.divide(quantity, CENTAVOS, RoundingMode.HALF_UP);
+            }
+
+            ComprobanteItem item = new ComprobanteItem();
+            item.setCodigo(sku != null ? sku.asText() : "ITEM-001");
+            item.setDetalle(name != null ? name.asText() : "Producto");
+            item.setCantidad(quantity);
+            item.setPrecioUnitario(precioUnitario);
+            item.setIva(ITEM_IVA_PORCENTAJE);
+            item.setGravado(true);
+            item.setTotal(neto);
+            return item;
+        } catch (Exception e) {
+            log.warn("Error al procesar item individual, se omitirá: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Neto de un importe bruto al 21%: bruto − IVA redondeado a centavos
+     */
+    private static BigDecimal itemNeto(BigDecimal bruto) {
+        if (isCentavos(bruto)) {
+            return netoCentavos(Money.toMinorUnits(bruto, CENTAVOS, RoundingMode.UNNECESSARY), ITEM_IVA_RATE_UNSCALED, CENTAVOS);
+        }
+        return bruto.subtract(bruto.multiply(ITEM_IVA_RATE).setScale(CENTAVOS, RoundingMode.HALF_UP));
+    }
+
+    private static BigDecimal netoCentavos(long bruto, long rate, int rateScale) {
+        return BigDecimal.valueOf(bruto - Money.applyRate(bruto, rate, rateScale, RoundingMode.HALF_UP), CENTAVOS);
+    }
+
+    /**
+     * Si el importe se representa exactamente en centavos sin riesgo de desborde
+     */
+    private static boolean isCentavos(BigDecimal amount) {
+        return amount.scale() <= CENTAVOS && integerDigits(amount) <= MAX_INTEGER_DIGITS;
+    }
+
+    private static int integerDigits(BigDecimal amount) {
+        return amount.precision() - amount.scale();
+    }
+
+    /**
+     * Ítems del payload: metadata.items (caso real) o data.metadata.products (Bonvino)
+     */
+    private static JsonNode itemsNode(JsonNode payloadNode) {
+        JsonNode items = payloadNode.path("metadata").get("items");
+        return items != null ? items : payloadNode.path("data").path("metadata").get("products");
+    }
+
+    /**
+     * Dato del cliente: data.customer (Bonvino), customer (simple) o metadata.&lt;metadataField&gt; (caso real)
+     */
+    private static String customerField(JsonNode payloadNode, String field, String metadataField) {
+        JsonNode value = payloadNode.path("data").path("customer").get(field);
+        if (value == null) {
+            value = payloadNode.path("customer").get(field);
+        }
+        if (value == null) {
+            value = payloadNode.path("metadata").get(metadataField);
+        }
+        return value != null ? value.asText() : null;
+    }
+
+    private static int tipoDocumentoSinConfiguracion(String customerDoc) {
+        if (customerDoc.length() == 11 && customerDoc.startsWith("20")) {
+            return 80; // CUIT
+        }
+        return customerDoc.length() == 8 ? 96 : 99; // DNI o Consumidor Final
+    }
+
+    private static JsonNode field(JsonNode node, String[] names) {
+        for (String name : names) {
+            JsonNode value = node.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal decimal(JsonNode value, BigDecimal defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
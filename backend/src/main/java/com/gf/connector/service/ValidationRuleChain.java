@@ -0,0 +1,174 @@
+package com.gf.connector.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Reglas de validación declaradas una vez y compiladas en un arreglo ordenado. Cada regla es un
+ * predicado de violación que agrega un error o una advertencia; las reglas anidadas validan un
+ * componente (o cada elemento de un arreglo) con su propia cadena. La cadena es inmutable y se
+ * comparte entre hilos: el estado de cada evaluación vive en {@link Findings}.
+ */
+final class ValidationRuleChain<T> {
+
+    private final Rule<T>[] rules;
+
+    @SuppressWarnings("unchecked")
+    private ValidationRuleChain(List<Rule<T>> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Evalúa las reglas en el orden en que se declararon
+     *
+     * @return false si la evaluación debe cortarse (error en modo fail-fast)
+     */
+    boolean evaluate(T target, Findings findings) {
+        for (Rule<T> rule : rules) {
+            if (!rule.apply(target, findings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface Rule<T> {
+        boolean apply(T target, Findings findings);
+    }
+
+    static final class Builder<T> {
+        private final List<Rule<T>> rules = new ArrayList<>();
+
+        Builder<T> error(Predicate<? super T> violated, String message) {
+            return error(violated, target -> message);
+        }
+
+        Builder<T> error(Predicate<? super T> violated, Function<? super T, String> message) {
+            rules.add((target, findings) -> !violated.test(target) || findings.error(message.apply(target)));
+            return this;
+        }
+
+        Builder<T> warning(Predicate<? super T> violated, String message) {
+            return warning(violated, target -> message);
+        }
+
+        Builder<T> warning(Predicate<? super T> violated, Function<? super T, String> message) {
+            rules.add((target, findings) -> {
+                if (violated.test(target)) {
+                    findings.warning(message.apply(target));
+                }
+                return true;
+            });
+            return this;
+        }
+
+        /**
+         * Valida un componente con su cadena; si falta, registra {@code missingMessage}
+         */
+        <C> Builder<T> nested(Function<? super T, ? extends C> component, String missingMessage, ValidationRuleChain<C> chain) {
+            rules.add((target, findings) -> {
+                C value = component.apply(target);
+                return value == null ? findings.error(missingMessage) : chain.evaluate(value, findings);
+            });
+            return this;
+        }
+
+        /**
+         * Valida cada elemento con su cadena, prefijando los mensajes con "{@code label} N: "
+         * (N desde 1); si el arreglo falta o está vacío, registra {@code missingMessage}
+         */
+        <C> Builder<T> each(Function<? super T, ? extends C[]> elements, String missingMessage, String label,
+                            ValidationRuleChain<C> chain) {
+            rules.add((target, findings) -> {
+                C[] values = elements.apply(target);
+                if (values == null || values.length == 0) {
+                    return findings.error(missingMessage);
+                }
+                for (int i = 0; i < values.length; i++) {
+                    findings.enterElement(label, i + 1);
+                    boolean proceed = chain.evaluate(values[i], findings);
+                    findings.exitElement();
+                    if (!proceed) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            return this;
+        }
+
+        ValidationRuleChain<T> build() {
+            return new ValidationRuleChain<>(rules);
+        }
+    }
+
+    /**
+     * Errores y advertencias de una evaluación. Las listas se crean con el primer mensaje, así que
+     * validar algo correcto no reserva nada.
+     */
+    static final class Findings {
+        private final boolean failFast;
+        private List<String> errors;
+        private List<String> warnings;
+        private String elementLabel;
+        private int elementPosition;
+
+        Findings(boolean failFast) {
+            this.failFast = failFast;
+        }
+
+        /**
+         * @return true si se puede seguir evaluando
+         */
+        boolean error(String message) {
+            if (errors == null) {
+                errors = new ArrayList<>(4);
+            }
+            errors.add(scoped(message));
+            return !failFast;
+        }
+
+        void warning(String message) {
+            if (warnings == null) {
+                warnings = new ArrayList<>(2);
+            }
+            warnings.add(scoped(message));
+        }
+
+        boolean hasErrors() {
+            return errors != null;
+        }
+
+        boolean hasWarnings() {
+            return warnings != null;
+        }
+
+        List<String> errors() {
+            return errors != null ? errors : List.of();
+        }
+
+        List<String> warnings() {
+            return warnings != null ? warnings : List.of();
+        }
+
+        private void enterElement(String label, int position) {
+            elementLabel = label;
+            elementPosition = position;
+        }
+
+        private void exitElement() {
+            elementLabel = null;
+        }
+
+        private String scoped(String message) {
+            return elementLabel == null ? message : elementLabel + " " + elementPosition + ": " + message;
+        }
+    }
+}
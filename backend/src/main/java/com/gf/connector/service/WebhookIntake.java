@@ -0,0 +1,117 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.facturante.model.GetnetWebhookPayload;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Cuerpo de un webhook de Getnet leído una única vez como bytes.
+ *
+ * El hash de idempotencia y la firma HMAC se calculan sobre el mismo buffer, y el JSON
+ * se parsea una sola vez: el mapa resultante es el modelo que comparten el controller,
+ * {@link WebhookService} y la transformación a Facturante. La vista tipada
+ * {@link GetnetWebhookPayload} y el texto del body se derivan de forma perezosa sin
+ * volver a tokenizar el JSON.
+ */
+public final class WebhookIntake {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final byte[] body;
+    private final Map<String, Object> payload;
+    private final ObjectMapper objectMapper;
+    private final Instant receivedAt;
+
+    private String eventHash;
+    private String rawJson;
+    private GetnetWebhookPayload typedPayload;
+
+    private WebhookIntake(byte[] body, Map<String, Object> payload, ObjectMapper objectMapper, Instant receivedAt) {
+        this.body = body;
+        this.payload = payload;
+        this.objectMapper = objectMapper;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Parsea el body recibido. Es el único punto del pipeline que tokeniza el JSON.
+     */
+    public static WebhookIntake parse(byte[] body, ObjectMapper objectMapper) throws IOException {
+        return parse(body, objectMapper, Instant.now());
+    }
+
+    /**
+     * Como {@link #parse(byte[], ObjectMapper)}, con el instante en que llegó el request
+     * (origen de la métrica de demora de facturación)
+     */
+    public static WebhookIntake parse(byte[] body, ObjectMapper objectMapper, Instant receivedAt) throws IOException {
+        byte[] safeBody = body != null ? body : new byte[0];
+        Map<String, Object> payload = safeBody.length == 0
+                ? Map.of()
+                : objectMapper.readValue(safeBody, MAP_TYPE);
+        return new WebhookIntake(safeBody, payload != null ? payload : Map.of(), objectMapper, receivedAt);
+    }
+
+    /**
+     * Bytes originales del body (no copiar: se usan tal cual para HMAC y hash)
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+
+    public Instant getReceivedAt() {
+        return receivedAt;
+    }
+
+    /**
+     * SHA-256 hex del body, usado como clave de idempotencia del evento
+     */
+    public String getEventHash() {
+        if (eventHash == null) {
+            eventHash = sha256Hex(body);
+        }
+        return eventHash;
+    }
+
+    /**
+     * Body como texto, necesario solo para persistir el evento de auditoría
+     */
+    public String getRawJson() {
+        if (rawJson == null) {
+            rawJson = new String(body, StandardCharsets.UTF_8);
+        }
+        return rawJson;
+    }
+
+    /**
+     * Vista tipada del payload, convertida desde el mapa ya parseado
+     */
+    public GetnetWebhookPayload getTypedPayload() {
+        if (typedPayload == null) {
+            typedPayload = objectMapper.convertValue(payload, GetnetWebhookPayload.class);
+        }
+        return typedPayload;
+    }
+
+    public static String sha256Hex(byte[] data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HEX.formatHex(md.digest(data != null ? data : new byte[0]));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.gf.connector.service;
 
-import com.gf.connector.domain.CreditNote;
 import com.gf.connector.domain.Invoice;
 import com.gf.connector.domain.Transaction;
 import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.domain.WebhookEvent;
 import com.gf.connector.repo.TransactionRepository;
 import com.gf.connector.repo.WebhookEventRepository;
+import com.gf.connector.service.PipelineMetrics.Stage;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 /**
  * Servicio principal para el procesamiento de webhooks de Getnet.
@@ -35,36 +40,51 @@ public class WebhookService {
     private final InvoiceService invoiceService;
     private final CreditNoteService creditNoteService;
     private final BillingSettingsService billingSettingsService;
+    private final LiveMetricsService liveMetricsService;
+    private final PipelineMetrics pipelineMetrics;
     private static final java.util.UUID DEFAULT_TEST_TENANT = java.util.UUID.fromString("00000000-0000-0000-0000-000000000001");
 
+    @Value("${billing.retry.lease-seconds:600}")
+    private long billingLeaseSeconds = 600;
+
     /**
      * Procesa un payload de webhook de Getnet de forma completa:
      * 1. Valida y persiste el evento
      * 2. Transforma los datos usando el servicio especializado
      * 3. Crea o actualiza la transacción
-     * 4. Genera factura automáticamente si la transacción está pagada
+     * 4. Encola la factura (después del commit) si la transacción está pagada
      */
     @Transactional
     public WebhookProcessingResult processGetnetPayload(String rawJson, Map<String, Object> payload, java.util.UUID tenantId) {
+        String safeJson = rawJson != null ? rawJson : "";
+        return process(safeJson, sha256Hex(safeJson), payload, tenantId, Instant.now());
+    }
+
+    /**
+     * Variante del pipeline de bytes: reutiliza el hash y el payload ya calculados
+     * por {@link WebhookIntake} en lugar de recalcularlos a partir del texto
+     */
+    @Transactional
+    public WebhookProcessingResult processGetnetPayload(WebhookIntake intake, java.util.UUID tenantId) {
+        return process(intake.getRawJson(), intake.getEventHash(), intake.getPayload(), tenantId, intake.getReceivedAt());
+    }
+
+    private WebhookProcessingResult process(String rawJson, String eventHash, Map<String, Object> payload, java.util.UUID tenantId,
+                                            Instant receivedAt) {
         WebhookEvent webhookEvent = null;
         Transaction transaction = null;
         Invoice invoice = null;
-        CreditNote creditNote = null;
         
         try {
             log.info("Iniciando procesamiento de webhook de Getnet");
             
-            // 1. Persistir evento de webhook para auditoría con idempotencia
-            String eventHash = sha256Hex(rawJson);
-            // Intentar encontrar un evento existente con el mismo hash
-            WebhookEvent existingEvent = null;
-            try {
-                existingEvent = webhookEventRepository.findAll().stream()
-                        .filter(e -> eventHash.equals(e.getEventHash()))
-                        .findFirst().orElse(null);
-            } catch (Exception ignored) {}
+            // 1. Idempotencia: búsqueda puntual por hash sobre el índice único
+            long started = pipelineMetrics.start();
+            WebhookEvent existingEvent = webhookEventRepository.findByEventHash(eventHash).orElse(null);
+            boolean duplicate = existingEvent != null && existingEvent.isProcessed();
+            pipelineMetrics.record(Stage.IDEMPOTENCY, tenantId, duplicate ? PipelineMetrics.DUPLICATE : PipelineMetrics.SUCCESS, started);
 
-            if (existingEvent != null && Boolean.TRUE.equals(existingEvent.isProcessed())) {
+            if (duplicate) {
                 log.info("Evento duplicado detectado (idempotente), omitiendo procesamiento");
                 return WebhookProcessingResult.builder()
                         .success(true)
@@ -75,69 +95,94 @@ public class WebhookService {
                         .build();
             }
 
-            webhookEvent = WebhookEvent.builder()
+            // El evento se arma en memoria y se persiste una sola vez al final, con su estado final.
+            // Un evento previo no procesado (error anterior) se reutiliza para no violar el hash único.
+            webhookEvent = existingEvent != null ? existingEvent : WebhookEvent.builder()
                     .provider("getnet")
                     .payload(rawJson)
                     .eventHash(eventHash)
                     .processed(false)
                     .build();
-            webhookEvent = webhookEventRepository.save(webhookEvent);
-            log.info("Evento de webhook persistido con ID: {}", webhookEvent.getId());
 
             // 2. Transformar payload a transacción usando servicio especializado
-            transaction = transformationService.transformWebhookToTransaction(rawJson, payload);
+            started = pipelineMetrics.start();
+            try {
+                transaction = transformationService.transformWebhookToTransaction(rawJson, payload);
+            } catch (RuntimeException e) {
+                pipelineMetrics.record(Stage.MAPPING, tenantId, false, started);
+                throw e;
+            }
+            pipelineMetrics.record(Stage.MAPPING, tenantId, true, started);
             transaction.setTenantId(tenantId);
             log.info("Payload transformado a transacción: ID={}, Amount={}, Status={}", 
                     transaction.getExternalId(), transaction.getAmount(), transaction.getStatus());
 
-            // 3. Buscar transacción existente o crear nueva
-            Transaction existingTransaction = transactionRepository.findByExternalId(transaction.getExternalId())
-                    .orElse(null);
-            
-            if (existingTransaction != null) {
-                // Actualizar transacción existente
-                log.info("Actualizando transacción existente: {}", existingTransaction.getId());
-                existingTransaction.setAmount(transaction.getAmount());
-                existingTransaction.setCurrency(transaction.getCurrency());
-                existingTransaction.setStatus(transaction.getStatus());
-                existingTransaction.setCustomerDoc(transaction.getCustomerDoc());
-                existingTransaction.setTenantId(tenantId);
-                transaction = transactionRepository.save(existingTransaction);
-            } else {
-                // Crear nueva transacción
-                log.info("Creando nueva transacción: {}", transaction.getExternalId());
-                transaction = transactionRepository.save(transaction);
+            // 3. Alta o actualización por external_id en un único INSERT ... ON CONFLICT.
+            // La entidad devuelta queda gestionada: los cambios siguientes (estado de facturación,
+            // CAE, número) se escriben juntos en el flush del commit, sin saves intermedios.
+            // Si la transición de estado es ilegal (callback fuera de orden) el upsert no modifica
+            // la fila y devuelve null: se conserva el estado vigente y el evento queda procesado.
+            // El estado previo solo se lee si hay un dashboard en vivo mirando al tenant
+            boolean trackLive = liveMetricsService.isTracking(tenantId);
+            LiveMetricsService.TxState before = trackLive
+                    ? transactionRepository.findMetricsViewByExternalId(transaction.getExternalId())
+                            .map(LiveMetricsService.TxState::of).orElse(null)
+                    : null;
+            started = pipelineMetrics.start();
+            Transaction upserted;
+            try {
+                upserted = transactionRepository.upsertByExternalId(transaction);
+            } catch (RuntimeException e) {
+                pipelineMetrics.record(Stage.UPSERT, tenantId, false, started);
+                throw e;
+            }
+            pipelineMetrics.record(Stage.UPSERT, tenantId, upserted != null ? PipelineMetrics.SUCCESS : PipelineMetrics.REJECTED, started);
+            if (upserted == null) {
+                Transaction current = transactionRepository.findByExternalId(transaction.getExternalId()).orElse(null);
+                String message = "Transición de estado ignorada: "
+                        + (current != null ? current.getStatus() : null) + " -> " + transaction.getStatus();
+                log.info("Webhook fuera de orden para {}: {}", transaction.getExternalId(), message);
+                webhookEvent.setProcessed(true);
+                webhookEvent = webhookEventRepository.save(webhookEvent);
+                return WebhookProcessingResult.builder()
+                        .success(true)
+                        .webhookEvent(webhookEvent)
+                        .transaction(current)
+                        .message(message)
+                        .build();
             }
+            transaction = upserted;
+            log.info("Transacción {} registrada (upsert): {}", transaction.getExternalId(), transaction.getId());
 
             // 4. Determinar si generar factura automáticamente o marcar para confirmación
-            if (shouldGenerateInvoice(transaction)) {
-                var settings = billingSettingsService.getActiveSettings(tenantId).orElse(null);
-                
+            var settings = billingSettingsService.getActiveSettings(tenantId).orElse(null);
+            if (shouldGenerateInvoice(transaction, settings)) {
                 if (settings != null && Boolean.TRUE.equals(settings.getRequireBillingConfirmation())) {
                     // Marcar para confirmación manual
                     log.info("Marcando transacción {} para confirmación de facturación", transaction.getExternalId());
                     transaction.setBillingStatus("pending");
-                    transaction = transactionRepository.save(transaction);
+                } else if (isBillingInFlight(transaction)) {
+                    log.info("Facturación de {} ya en curso, no se vuelve a encolar", transaction.getExternalId());
                 } else {
-                    // Generar factura automáticamente (comportamiento actual)
-                    log.info("Generando factura automáticamente para transacción pagada: {}", transaction.getExternalId());
+                    // La emisión corre en la lane después del commit: el lock que el upsert toma sobre la
+                    // fila no se retiene durante la llamada a Facturante. La fila queda reclamada como en
+                    // el motor de reintentos ('retrying' con lease), que la recupera si el nodo cae
+                    log.info("Encolando factura automática para transacción pagada: {}", transaction.getExternalId());
+                    transaction.setBillingStatus("retrying");
+                    transaction.setBillingAttempts(1);
+                    transaction.setNextBillingAttemptAt(OffsetDateTime.now().plusSeconds(billingLeaseSeconds));
                     try {
-                        invoice = invoiceService.createFacturaInFacturante(transaction);
-                        transaction.setBillingStatus("billed");
-                        log.info("Factura generada exitosamente: Status={}, CAE={}", 
-                                invoice.getStatus(), transaction.getCae());
+                        submitInvoice(transaction, tenantId, receivedAt);
                     } catch (Exception e) {
-                        log.error("Error al generar factura automática para transacción {}: {}", 
+                        log.error("Error al encolar factura automática para transacción {}: {}",
                                 transaction.getExternalId(), e.getMessage(), e);
-                        transaction.setBillingStatus("error");
+                        markBillingError(transaction, e.getMessage());
                         // No fallar el procesamiento del webhook por error de facturación
                     }
-                    transaction = transactionRepository.save(transaction);
                 }
-            } else {
+            } else if (!isBillingInFlight(transaction)) {
                 // Si no debe generar factura, marcar como no aplicable
                 transaction.setBillingStatus("not_applicable");
-                transaction = transactionRepository.save(transaction);
             }
             
             // 5. Procesar reembolso si la transacción está reembolsada
@@ -145,9 +190,17 @@ public class WebhookService {
                 log.info("Procesando reembolso automáticamente para transacción: {}", transaction.getExternalId());
                 try {
                     String refundReason = extractRefundReason(payload);
-                    creditNote = creditNoteService.processRefund(transaction, refundReason);
-                    log.info("Nota de crédito generada exitosamente: Status={}, Strategy={}", 
-                            creditNote.getStatus(), creditNote.getStrategy());
+                    // Asíncrono en la lane de la transacción, después del commit de este webhook
+                    String externalId = transaction.getExternalId();
+                    creditNoteService.submitRefund(transaction, refundReason).whenComplete((cn, error) -> {
+                        if (error != null) {
+                            log.error("Error al procesar reembolso automático para transacción {}: {}",
+                                    externalId, error.getMessage(), error);
+                        } else if (cn != null) {
+                            log.info("Nota de crédito generada exitosamente: Status={}, Strategy={}",
+                                    cn.getStatus(), cn.getStrategy());
+                        }
+                    });
                 } catch (Exception e) {
                     log.error("Error al procesar reembolso automático para transacción {}: {}", 
                             transaction.getExternalId(), e.getMessage(), e);
@@ -155,9 +208,16 @@ public class WebhookService {
                 }
             }
 
-            // 5. Marcar evento como procesado
+            if (trackLive) {
+                liveMetricsService.recordTransaction(tenantId, before, LiveMetricsService.TxState.of(transaction));
+            }
+
+            // 6. Marcar evento como procesado y persistirlo (única escritura del evento).
+            // El UPDATE de la transacción sale en el flush del commit, fuera de esta medición
             webhookEvent.setProcessed(true);
-            webhookEventRepository.save(webhookEvent);
+            started = pipelineMetrics.start();
+            webhookEvent = webhookEventRepository.save(webhookEvent);
+            pipelineMetrics.record(Stage.PERSISTENCE, tenantId, true, started);
             
             log.info("Webhook procesado exitosamente: Transaction={}, Invoice={}", 
                     transaction.getId(), invoice != null ? invoice.getId() : "N/A");
@@ -173,10 +233,10 @@ public class WebhookService {
         } catch (Exception e) {
             log.error("Error al procesar webhook de Getnet", e);
             
-            // Marcar evento como no procesado en caso de error
+            // Persistir el evento como no procesado para auditoría y reintento
             if (webhookEvent != null) {
                 webhookEvent.setProcessed(false);
-                webhookEventRepository.save(webhookEvent);
+                webhookEvent = webhookEventRepository.save(webhookEvent);
             }
             
             return WebhookProcessingResult.builder()
@@ -190,30 +250,71 @@ public class WebhookService {
         }
     }
 
+    /**
+     * Emite la factura en la lane de la transacción cuando este webhook hace commit y registra el
+     * resultado con un UPDATE puntual. Solo un comprobante con estado "sent" deja la transacción
+     * facturada; un rechazo o un error de transporte la deja en error sin próximo intento agendado,
+     * así el motor de reintentos la reclama en su próximo ciclo.
+     */
+    private void submitInvoice(Transaction transaction, java.util.UUID tenantId, Instant receivedAt) {
+        java.util.UUID transactionId = transaction.getId();
+        String externalId = transaction.getExternalId();
+        invoiceService.submitFacturaAfterCommit(transaction).whenComplete((invoice, error) -> {
+            if (error instanceof CancellationException) {
+                // El webhook hizo rollback: el reclamo tampoco quedó escrito
+                return;
+            }
+            OffsetDateTime now = OffsetDateTime.now();
+            if (error == null && invoice != null && "sent".equals(invoice.getStatus())) {
+                transactionRepository.updateBillingOutcome(transactionId, "billed", null, null, now);
+                liveMetricsService.recordBillingTransition(tenantId, "retrying", "billed");
+                pipelineMetrics.recordBillingLag(tenantId, PipelineMetrics.PATH_WEBHOOK, receivedAt);
+                log.info("Factura generada exitosamente para transacción {}: Invoice={}", externalId, invoice.getId());
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String message = cause != null ? cause.getMessage() : "Facturante rechazó el comprobante";
+            log.warn("Facturante no emitió la factura para transacción {}: {}", externalId, message);
+            transactionRepository.updateBillingOutcome(transactionId, "error", null, truncate(message), now);
+            liveMetricsService.recordBillingTransition(tenantId, "retrying", "error");
+        });
+    }
+
+    /**
+     * Una emisión reclamada (por otro webhook o por el motor de reintentos) cuyo lease no venció
+     */
+    private static boolean isBillingInFlight(Transaction transaction) {
+        return "retrying".equals(transaction.getBillingStatus()) && transaction.getNextBillingAttemptAt() != null
+                && transaction.getNextBillingAttemptAt().isAfter(OffsetDateTime.now());
+    }
+
+    /**
+     * Error de facturación sin próximo intento agendado: el motor de reintentos lo reclama en su
+     * próximo ciclo
+     */
+    private static void markBillingError(Transaction transaction, String message) {
+        transaction.setBillingStatus("error");
+        transaction.setNextBillingAttemptAt(null);
+        transaction.setLastBillingError(truncate(message));
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
     // Overload para tests (sin tenantId expl cito)
     public WebhookProcessingResult processGetnetPayload(String rawJson, Map<String, Object> payload) {
         return processGetnetPayload(rawJson, payload, DEFAULT_TEST_TENANT);
     }
 
-    private static String sha256Hex(String data) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest((data != null ? data : "").getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(digest.length * 2);
-            for (byte b : digest) sb.append(String.format("%02x", b));
-            return sb.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error computing SHA-256", e);
-        }
+    static String sha256Hex(String data) {
+        return WebhookIntake.sha256Hex((data != null ? data : "").getBytes(java.nio.charset.StandardCharsets.UTF_8));
     }
     
     /**
      * Determina si se debe generar una factura automáticamente
      */
-    private boolean shouldGenerateInvoice(Transaction transaction) {
-        // Obtener configuración activa
-        var settings = billingSettingsService.getActiveSettings(transaction.getTenantId()).orElse(null);
-        
+    private boolean shouldGenerateInvoice(Transaction transaction, com.gf.connector.domain.BillingSettings settings) {
         // Aplicar regla de facturar solo PAID si está configurada
         if (settings != null && Boolean.TRUE.equals(settings.getFacturarSoloPaid())) {
             if (transaction.getStatus() != TransactionStatus.PAID) {
@@ -249,8 +350,10 @@ public class WebhookService {
             return false;
         }
         
-        // Solo procesar si la transacción estaba pagada previamente
-        if (transaction.getInvoiceNumber() == null || transaction.getInvoiceNumber().isEmpty()) {
+        // Solo procesar si la transacción estaba pagada previamente. Con la factura todavía en la
+        // lane, la nota de crédito se encola detrás y verifica el número al ejecutarse
+        if ((transaction.getInvoiceNumber() == null || transaction.getInvoiceNumber().isEmpty())
+                && !isBillingInFlight(transaction)) {
             log.info("Transacción {} no tiene factura, no se procesa reembolso: {}", 
                     transaction.getExternalId());
             return false;
@@ -0,0 +1,65 @@
+package com.gf.connector.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fábrica de hilos para los workers propios (lanes de facturación, despachadores SSE,
+ * jobs de confirmación masiva, escritor de notificaciones).
+ *
+ * Con {@code spring.threads.virtual.enabled=true} sobre Java 21+ crea hilos virtuales, igual
+ * que Spring Boot hace con Tomcat y el scheduler; en cualquier otro caso, hilos de plataforma
+ * daemon. Así el modo de ejecución se elige con una sola propiedad.
+ */
+@Slf4j
+@Component
+public class WorkerThreads {
+
+    private final ThreadFactory virtualFactory; // null en modo plataforma
+
+    public WorkerThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        boolean supported = Runtime.version().feature() >= 21;
+        if (virtualThreads && !supported) {
+            log.warn("spring.threads.virtual.enabled requiere Java 21; los workers usan hilos de plataforma");
+        }
+        this.virtualFactory = virtualThreads && supported
+                ? new VirtualThreadTaskExecutor().getVirtualThreadFactory()
+                : null;
+    }
+
+    /**
+     * Workers con hilos de plataforma (tests y uso fuera de Spring)
+     */
+    public static WorkerThreads platform() {
+        return new WorkerThreads(false);
+    }
+
+    public boolean isVirtual() {
+        return virtualFactory != null;
+    }
+
+    /**
+     * Hilo sin iniciar con el nombre dado; los de plataforma son daemon (los virtuales siempre lo son)
+     */
+    public Thread newThread(String name, Runnable task) {
+        if (virtualFactory != null) {
+            Thread thread = virtualFactory.newThread(task);
+            thread.setName(name);
+            return thread;
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * ThreadFactory que nombra todos sus hilos igual (ejecutores de un solo hilo)
+     */
+    public ThreadFactory named(String name) {
+        return task -> newThread(name, task);
+    }
+}
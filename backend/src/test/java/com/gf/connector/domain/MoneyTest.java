@@ -0,0 +1,55 @@
+package com.gf.connector.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void of_roundsToCurrencyScale() {
+        assertThat(Money.of(new BigDecimal("100.505"), Money.ARS, RoundingMode.HALF_UP).minorUnits()).isEqualTo(10051);
+        assertThat(Money.of(new BigDecimal("1E+3"), Money.ARS, RoundingMode.UNNECESSARY).minorUnits()).isEqualTo(100000);
+        assertThat(Money.ofMinor(10050, Money.ARS).toBigDecimal()).isEqualTo(new BigDecimal("100.50"));
+    }
+
+    @Test
+    void of_withUnnecessaryRounding_rejectsSubCentAmounts() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001"), Money.ARS, RoundingMode.UNNECESSARY))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void multiply_matchesBigDecimalIva() {
+        BigDecimal total = new BigDecimal("100.50");
+        BigDecimal expected = total.subtract(total.multiply(new BigDecimal("0.21")).setScale(2, RoundingMode.HALF_UP));
+
+        Money money = Money.of(total, Money.ARS, RoundingMode.UNNECESSARY);
+        Money neto = money.minus(money.multiply(21, 2, RoundingMode.HALF_UP));
+
+        assertThat(neto.toBigDecimal()).isEqualTo(expected);
+    }
+
+    @Test
+    void divide_roundsLikeBigDecimal() {
+        for (RoundingMode mode : new RoundingMode[]{RoundingMode.HALF_UP, RoundingMode.HALF_EVEN, RoundingMode.HALF_DOWN,
+                RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR}) {
+            for (long dividend = -25; dividend <= 25; dividend++) {
+                long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.TEN, 0, mode).longValueExact();
+                assertThat(Money.divide(dividend, 10, mode)).as("%d/10 %s", dividend, mode).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void arithmetic_rejectsOverflowAndMixedCurrencies() {
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE, Money.ARS).plus(Money.ofMinor(1, Money.ARS)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.zero(Money.ARS).plus(Money.zero(Money.BRL)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
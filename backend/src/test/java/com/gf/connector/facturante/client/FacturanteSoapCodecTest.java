@@ -0,0 +1,120 @@
+package com.gf.connector.facturante.client;
+
+import com.gf.connector.facturante.model.*;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FacturanteSoapCodecTest {
+
+    private static final String ENVELOPE = "<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\"><s:Body>%s</s:Body></s:Envelope>";
+
+    private final FacturanteSoapCodec codec = new FacturanteSoapCodec();
+
+    @Test
+    void writeCrearComprobante_escribeEnvelopeConCamposYEscapaTexto() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeCrearComprobante(request(), out);
+        String xml = out.toString(StandardCharsets.UTF_8);
+
+        assertThat(xml)
+                .contains("<CrearComprobante xmlns=\"http://www.facturante.com.API\"><request>")
+                .contains("<a:Hash>p&amp;ss&lt;1</a:Hash>")
+                .contains("<a:TipoComprobante>FB</a:TipoComprobante>")
+                .contains("<a:Prefijo>00003</a:Prefijo>")
+                .contains("<a:Total>1210.00</a:Total>")
+                .contains("<a:ComprobanteItem><a:Cantidad>1</a:Cantidad>")
+                .contains("<a:FechaHora>2026-03-01T10:15:30</a:FechaHora>")
+                .doesNotContain("MailFacturacion");
+    }
+
+    @Test
+    void readCrearComprobanteResponse_aprobado() throws Exception {
+        CrearComprobanteResponse response = read(String.format(ENVELOPE,
+                "<CrearComprobanteResponse xmlns=\"http://www.facturante.com.API\">"
+                + "<CrearComprobanteResult xmlns:a=\"http://schemas.datacontract.org/2004/07/FacturanteMVC.API.DTOs\""
+                + " xmlns:i=\"http://www.w3.org/2001/XMLSchema-instance\">"
+                + "<a:Cae>71234567890123</a:Cae><a:Estado>Aprobado</a:Estado><a:Exitoso>true</a:Exitoso>"
+                + "<a:FechaVencimientoCae>2026-03-11</a:FechaVencimientoCae>"
+                + "<a:Mensajes xmlns:b=\"http://schemas.microsoft.com/2003/10/Serialization/Arrays\">"
+                + "<b:string>Comprobante creado</b:string></a:Mensajes>"
+                + "<a:NumeroComprobante>00003-00000042</a:NumeroComprobante><a:PdfUrl i:nil=\"true\"/>"
+                + "</CrearComprobanteResult></CrearComprobanteResponse>"));
+
+        assertThat(response.getExitoso()).isTrue();
+        assertThat(response.getEstado()).isEqualTo("Aprobado");
+        assertThat(response.getCae()).isEqualTo("71234567890123");
+        assertThat(response.getNumeroComprobante()).isEqualTo("00003-00000042");
+        assertThat(response.getFechaVencimientoCae()).isEqualTo("2026-03-11");
+        assertThat(response.getPdfUrl()).isNull();
+        assertThat(response.getMensajes()).containsExactly("Comprobante creado");
+    }
+
+    @Test
+    void readCrearComprobanteResponse_soapFault_esErrorConFaultstring() throws Exception {
+        CrearComprobanteResponse response = read(String.format(ENVELOPE,
+                "<s:Fault><faultcode>s:Server</faultcode><faultstring>AFIP no disponible</faultstring></s:Fault>"));
+
+        assertThat(response.getExitoso()).isFalse();
+        assertThat(response.getEstado()).isEqualTo("Error");
+        assertThat(response.getMensajes()).containsExactly("SOAP Fault: AFIP no disponible");
+    }
+
+    @Test
+    void readCrearComprobanteResponse_sinResultado_falla() {
+        assertThatThrownBy(() -> read(String.format(ENVELOPE, "<Otro/>")))
+                .isInstanceOf(XMLStreamException.class);
+    }
+
+    private CrearComprobanteResponse read(String xml) throws Exception {
+        return codec.readCrearComprobanteResponse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static CrearComprobanteRequest request() {
+        Autenticacion auth = new Autenticacion();
+        auth.setEmpresa("EMPRESA");
+        auth.setUsuario("usuario");
+        auth.setHash("p&ss<1");
+
+        Cliente cliente = new Cliente();
+        cliente.setRazonSocial("Consumidor Final");
+        cliente.setTipoDocumento(99);
+        cliente.setNroDocumento("20123456786");
+        cliente.setEnviarComprobante(true);
+
+        ComprobanteEncabezado encabezado = new ComprobanteEncabezado();
+        encabezado.setTipoComprobante("FB");
+        encabezado.setPrefijo("00003");
+        encabezado.setCondicionVenta(1);
+        encabezado.setBienes(2);
+        encabezado.setFechaHora(new GregorianCalendar(2026, 2, 1, 10, 15, 30));
+        encabezado.setSubTotal(new BigDecimal("1210.00"));
+        encabezado.setTotalNeto(new BigDecimal("1000.00"));
+        encabezado.setTotal(new BigDecimal("1210.00"));
+        encabezado.setPercepciones(BigDecimal.ZERO);
+
+        ComprobanteItem item = new ComprobanteItem();
+        item.setCodigo("GETNET-1");
+        item.setDetalle("Venta POS Getnet #1");
+        item.setCantidad(BigDecimal.ONE);
+        item.setPrecioUnitario(new BigDecimal("1000.00"));
+        item.setIva(new BigDecimal("21"));
+        item.setGravado(true);
+        item.setTotal(new BigDecimal("1000.00"));
+
+        CrearComprobanteRequest request = new CrearComprobanteRequest();
+        request.setAutenticacion(auth);
+        request.setCliente(cliente);
+        request.setEncabezado(encabezado);
+        request.setItems(new ComprobanteItem[]{item});
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package com.gf.connector.integration;
+
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.facturante.service.FacturanteService;
+import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.BillingRetryService;
+import com.gf.connector.service.BillingValidationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Varias "réplicas" drenan a la vez el mismo backlog de errores: SKIP LOCKED debe
+ * repartir las filas sin que ninguna transacción se facture dos veces.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class BillingRetryIT {
+
+    private static final int BACKLOG = 300;
+    private static final int REPLICAS = 4;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "20");
+        registry.add("billing.retry.batch-size", () -> "25");
+        registry.add("billing.retry.max-batches-per-run", () -> "100");
+    }
+
+    @Autowired private BillingRetryService retryService;
+    @Autowired private TransactionRepository transactionRepository;
+
+    @MockBean private FacturanteService facturanteService;
+    @MockBean private BillingValidationService validationService;
+
+    private final Map<String, AtomicInteger> emissions = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setup() {
+        var valid = BillingValidationService.ValidationResult.builder().valid(true).build();
+        when(validationService.validateTransaction(any())).thenReturn(valid);
+        when(validationService.validateFacturanteRequest(any())).thenReturn(valid);
+        when(facturanteService.crearFactura(any(Transaction.class))).thenAnswer(i -> {
+            Transaction tx = i.getArgument(0);
+            int n = emissions.computeIfAbsent(tx.getExternalId(), k -> new AtomicInteger()).incrementAndGet();
+            CrearComprobanteResponse response = new CrearComprobanteResponse();
+            response.setExitoso(true);
+            response.setCae("7" + Math.abs(tx.getExternalId().hashCode()));
+            response.setNumeroComprobante("0001-" + tx.getExternalId() + "-" + n);
+            return response;
+        });
+    }
+
+    @Test
+    @DisplayName("Réplicas concurrentes drenan el backlog sin facturar dos veces")
+    void concurrentReplicas_drainBacklogExactlyOnce() throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        List<Transaction> backlog = new ArrayList<>();
+        for (int i = 0; i < BACKLOG; i++) {
+            backlog.add(Transaction.builder()
+                    .externalId("RETRY-" + UUID.randomUUID()).status(TransactionStatus.PAID)
+                    .amount(new BigDecimal("100.00")).currency("ARS").customerDoc("20123456789")
+                    .billingStatus("error").tenantId(tenantId).build());
+        }
+        transactionRepository.saveAll(backlog);
+
+        ExecutorService replicas = Executors.newFixedThreadPool(REPLICAS);
+        try {
+            List<Future<Integer>> runs = new ArrayList<>();
+            for (int r = 0; r < REPLICAS; r++) {
+                runs.add(replicas.submit(retryService::drain));
+            }
+            int attempted = 0;
+            for (Future<Integer> run : runs) {
+                attempted += run.get(2, TimeUnit.MINUTES);
+            }
+            assertThat(attempted).isEqualTo(BACKLOG);
+        } finally {
+            replicas.shutdownNow();
+        }
+
+        assertThat(emissions).hasSize(BACKLOG);
+        assertThat(emissions.values()).allMatch(count -> count.get() == 1);
+        for (Transaction tx : backlog) {
+            Transaction stored = transactionRepository.findByExternalId(tx.getExternalId()).orElseThrow();
+            assertThat(stored.getBillingStatus()).isEqualTo("billed");
+            assertThat(stored.getInvoiceNumber()).isNotNull();
+        }
+        assertThat(retryService.drain()).isZero();
+    }
+}
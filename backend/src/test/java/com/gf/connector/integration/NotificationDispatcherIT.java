@@ -0,0 +1,158 @@
+package com.gf.connector.integration;
+
+import com.gf.connector.domain.NotificationOutbox;
+import com.gf.connector.repo.NotificationOutboxRepository;
+import com.gf.connector.service.NotificationDispatcher;
+import com.gf.connector.service.NotificationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "notification.coalesce-window-seconds=0",
+        "notification.initial-delay-ms=3600000",
+        "notification.retry.max-attempts=3"
+})
+@ActiveProfiles("test")
+class NotificationDispatcherIT {
+
+    private static final SmtpStub SMTP = startSmtp();
+
+    @Autowired private NotificationService notificationService;
+    @Autowired private NotificationDispatcher dispatcher;
+    @Autowired private NotificationOutboxRepository outboxRepository;
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", SMTP::port);
+    }
+
+    @AfterAll
+    static void stopSmtp() throws IOException {
+        SMTP.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        outboxRepository.deleteAll();
+        SMTP.clear();
+    }
+
+    @Test
+    @DisplayName("Una ráfaga de errores del mismo tenant llega como un único digest")
+    void burstOfAlerts_isCoalescedPerTenant() {
+        UUID tenant = UUID.randomUUID();
+        UUID otherTenant = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            notificationService.sendInvoiceGenerationErrorNotification(tenant, "TX-" + i, new IllegalStateException("CUIT invalido"));
+        }
+        notificationService.sendInvoiceGenerationErrorNotification(otherTenant, "TX-9", new IllegalStateException("Timeout"));
+
+        // Encolar no toca el SMTP
+        assertThat(SMTP.messages()).isEmpty();
+
+        assertThat(dispatcher.flush()).isEqualTo(2);
+
+        assertThat(SMTP.messages()).hasSize(2);
+        assertThat(SMTP.messages()).filteredOn(m -> m.contains("Tenant " + tenant)).singleElement()
+                .satisfies(m -> assertThat(m).contains("(+4 similares)").contains("TX-0").contains("TX-4"));
+        assertThat(outboxRepository.findAll()).extracting(NotificationOutbox::getStatus).containsOnly("sent");
+        assertThat(dispatcher.flush()).isZero();
+    }
+
+    @Test
+    @DisplayName("Un fallo SMTP se reintenta con backoff sin perder la notificación")
+    void smtpFailure_isRetriedWithBackoff() {
+        SMTP.rejectNext(1);
+        notificationService.sendReconciliationInfoNotification(UUID.randomUUID(), 3);
+
+        assertThat(dispatcher.flush()).isZero();
+
+        List<NotificationOutbox> rows = outboxRepository.findAll();
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.getStatus()).isEqualTo("pending");
+            assertThat(row.getAttempts()).isEqualTo(1);
+            assertThat(row.getLastError()).isNotBlank();
+            assertThat(row.getNextAttemptAt()).isAfter(OffsetDateTime.now());
+        });
+        // Dentro del backoff no se reintenta
+        assertThat(dispatcher.flush()).isZero();
+
+        NotificationOutbox row = rows.get(0);
+        row.setNextAttemptAt(OffsetDateTime.now().minusSeconds(1));
+        outboxRepository.save(row);
+
+        assertThat(dispatcher.flush()).isEqualTo(1);
+        assertThat(SMTP.messages()).singleElement().asString().contains("facturadas: 3");
+        assertThat(outboxRepository.findById(row.getId())).get()
+                .extracting(NotificationOutbox::getStatus).isEqualTo("sent");
+    }
+
+    @Test
+    @DisplayName("Un grupo reclamado por otra réplica no se reenvía hasta que vence su lease")
+    void claimedGroup_isNotSentTwice() {
+        // Otra réplica reclamó el grupo y está enviando
+        NotificationOutbox row = outboxRepository.save(NotificationOutbox.builder()
+                .category("reconciliation").coalesceKey("global:reconciliation:ops@example.com")
+                .recipient("ops@example.com").subject("Conciliación").body("7 conciliadas")
+                .status("sending").attempts(0)
+                .nextAttemptAt(OffsetDateTime.now().plusMinutes(5)).createdAt(OffsetDateTime.now())
+                .build());
+
+        assertThat(dispatcher.flush()).isZero();
+        assertThat(SMTP.messages()).isEmpty();
+
+        // La réplica cayó sin confirmar: al vencer el lease el grupo se reclama y se envía
+        row.setNextAttemptAt(OffsetDateTime.now().minusSeconds(1));
+        outboxRepository.save(row);
+
+        assertThat(dispatcher.flush()).isEqualTo(1);
+        assertThat(SMTP.messages()).hasSize(1);
+        assertThat(outboxRepository.findById(row.getId())).get()
+                .extracting(NotificationOutbox::getStatus).isEqualTo("sent");
+    }
+
+    @Test
+    @DisplayName("Agotados los reintentos la notificación queda en 'failed'")
+    void exhaustedRetries_markFailed() {
+        SMTP.rejectNext(10);
+        notificationService.sendBackupCompletedNotification(null, false, "disco lleno");
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            dispatcher.flush();
+            outboxRepository.findAll().forEach(row -> {
+                row.setNextAttemptAt(OffsetDateTime.now().minusSeconds(1));
+                outboxRepository.save(row);
+            });
+        }
+
+        assertThat(outboxRepository.findAll()).singleElement().satisfies(row -> {
+            assertThat(row.getStatus()).isEqualTo("failed");
+            assertThat(row.getAttempts()).isEqualTo(3);
+        });
+        assertThat(SMTP.messages()).isEmpty();
+    }
+
+    private static SmtpStub startSmtp() {
+        try {
+            return new SmtpStub();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.gf.connector.integration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo para tests: acepta todo y guarda los mensajes recibidos.
+ * {@link #rejectNext(int)} simula caídas temporales respondiendo 451 al MAIL FROM.
+ */
+class SmtpStub implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejections = new AtomicInteger();
+
+    SmtpStub() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::acceptLoop, "smtp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Mensajes recibidos (headers + cuerpo), con los headers plegados ya desplegados
+     */
+    List<String> messages() {
+        return messages;
+    }
+
+    void rejectNext(int count) {
+        rejections.set(count);
+    }
+
+    void clear() {
+        messages.clear();
+        rejections.set(0);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                session(socket);
+            } catch (IOException e) {
+                // socket cerrado o cliente desconectado: se sigue aceptando
+            }
+        }
+    }
+
+    private void session(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = socket.getOutputStream();
+        reply(out, "220 smtp-stub");
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("MAIL FROM") && rejections.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                reply(out, "451 4.3.0 Servicio no disponible temporalmente");
+            } else if (command.startsWith("DATA")) {
+                reply(out, "354 Fin con <CRLF>.<CRLF>");
+                StringBuilder data = new StringBuilder();
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+                }
+                messages.add(data.toString().replace("\n ", " ").replace("\n\t", "\t"));
+                reply(out, "250 OK");
+            } else if (command.startsWith("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else {
+                reply(out, "250 OK");
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
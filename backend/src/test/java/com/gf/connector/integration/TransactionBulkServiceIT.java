@@ -0,0 +1,113 @@
+package com.gf.connector.integration;
+
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.TransactionBulkService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "bulk.chunk-size=7")
+@ActiveProfiles("test")
+class TransactionBulkServiceIT {
+
+    @Autowired private TransactionBulkService bulkService;
+    @Autowired private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("Reset de errores por chunks: dry-run, actualización y aislamiento por tenant")
+    void resetErrorToPending_chunkedAndTenantScoped() {
+        UUID tenant = UUID.randomUUID();
+        UUID otherTenant = UUID.randomUUID();
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rows.add(tx(tenant, TransactionStatus.PAID, "error", null));
+        }
+        rows.add(tx(tenant, TransactionStatus.PAID, "error", "0001-00000001"));
+        rows.add(tx(tenant, TransactionStatus.FAILED, "error", null));
+        rows.add(tx(tenant, TransactionStatus.PAID, "billed", "0001-00000002"));
+        for (int i = 0; i < 5; i++) {
+            rows.add(tx(otherTenant, TransactionStatus.PAID, "error", null));
+        }
+        transactionRepository.saveAll(rows);
+
+        assertThat(bulkService.count(TransactionBulkService.RESET_ERROR_TO_PENDING, tenant)).isEqualTo(40);
+
+        List<TransactionBulkService.BulkProgress> progress = new ArrayList<>();
+        TransactionBulkService.BulkResult result =
+                bulkService.execute(TransactionBulkService.RESET_ERROR_TO_PENDING, tenant, progress::add);
+
+        assertThat(result.updated()).isEqualTo(40);
+        assertThat(result.chunks()).isGreaterThan(1);
+        assertThat(progress).hasSize(result.chunks());
+        assertThat(bulkService.count(TransactionBulkService.RESET_ERROR_TO_PENDING, tenant)).isZero();
+        assertThat(bulkService.count(TransactionBulkService.RESET_ERROR_TO_PENDING, otherTenant)).isEqualTo(5);
+
+        // Re-ejecutar es idempotente
+        assertThat(bulkService.execute(TransactionBulkService.RESET_ERROR_TO_PENDING, tenant).updated()).isZero();
+    }
+
+    @Test
+    @DisplayName("Operación masiva en segundo plano: progreso consultable y job invisible para otros tenants")
+    void start_reportsProgressThroughJob() throws InterruptedException {
+        UUID tenant = UUID.randomUUID();
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(tx(tenant, TransactionStatus.PAID, "error", null));
+        }
+        transactionRepository.saveAll(rows);
+
+        TransactionBulkService.BulkJob job = bulkService.start(TransactionBulkService.RESET_ERROR_TO_PENDING, tenant);
+        for (int i = 0; i < 100 && !job.isFinished(); i++) {
+            Thread.sleep(50);
+        }
+
+        TransactionBulkService.BulkJobSnapshot snapshot = bulkService.find(job.getId(), tenant).orElseThrow().snapshot();
+        assertThat(snapshot.state()).isEqualTo(TransactionBulkService.BulkJobState.COMPLETED);
+        assertThat(snapshot.matched()).isEqualTo(20);
+        assertThat(snapshot.updated()).isEqualTo(20);
+        assertThat(snapshot.chunks()).isGreaterThan(1);
+        assertThat(snapshot.percent()).isEqualTo(100);
+        assertThat(bulkService.find(job.getId(), UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Inicialización de billingStatus según estado y número de factura")
+    void initializeBillingStatus_derivesStatusPerRow() {
+        UUID tenant = UUID.randomUUID();
+        Transaction billed = tx(tenant, TransactionStatus.PAID, null, "0001-00000003");
+        Transaction pending = tx(tenant, TransactionStatus.AUTHORIZED, null, null);
+        Transaction notApplicable = tx(tenant, TransactionStatus.FAILED, null, null);
+        transactionRepository.saveAll(List.of(billed, pending, notApplicable));
+
+        TransactionBulkService.BulkResult result =
+                bulkService.execute(TransactionBulkService.INITIALIZE_BILLING_STATUS, tenant);
+
+        assertThat(result.updated()).isEqualTo(3);
+        assertThat(status(billed)).isEqualTo("billed");
+        assertThat(status(pending)).isEqualTo("pending");
+        assertThat(status(notApplicable)).isEqualTo("not_applicable");
+    }
+
+    private String status(Transaction tx) {
+        return transactionRepository.findByExternalId(tx.getExternalId()).orElseThrow().getBillingStatus();
+    }
+
+    private static Transaction tx(UUID tenantId, TransactionStatus status, String billingStatus, String invoiceNumber) {
+        return Transaction.builder()
+                .externalId("BULK-" + UUID.randomUUID()).status(status)
+                .amount(new BigDecimal("100.00")).currency("ARS")
+                .billingStatus(billingStatus).invoiceNumber(invoiceNumber).tenantId(tenantId)
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.gf.connector.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.facturante.service.FacturanteService;
+import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.service.BillingValidationService;
+import com.gf.connector.service.TransactionStateService;
+import com.gf.connector.service.WebhookIntake;
+import com.gf.connector.service.WebhookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress de la máquina de estados: callbacks AUTHORIZED/PAID/REFUNDED del mismo
+ * externalId entregados a la vez y en orden aleatorio. Se verifica que no haya
+ * updates perdidos ni retrocesos de estado.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class TransactionStateConcurrencyIT {
+
+    private static final int KEYS = 50;
+    private static final int THREADS = 16;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(THREADS + 4));
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired private TransactionStateService stateService;
+    @Autowired private WebhookService webhookService;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    @MockBean private FacturanteService facturanteService;
+    @MockBean private BillingValidationService validationService;
+
+    @BeforeEach
+    void setup() {
+        var valid = BillingValidationService.ValidationResult.builder().valid(true).build();
+        when(validationService.validateTransaction(any())).thenReturn(valid);
+        when(validationService.validateFacturanteRequest(any())).thenReturn(valid);
+        CrearComprobanteResponse response = new CrearComprobanteResponse();
+        response.setExitoso(false);
+        when(facturanteService.crearFactura(any(Transaction.class))).thenReturn(response);
+    }
+
+    @Test
+    @DisplayName("CAS concurrente: REFUNDED siempre gana y cada estado previo se consume una sola vez")
+    void concurrentTransitions_noLostUpdates() throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < KEYS; i++) {
+            String externalId = "CAS-" + UUID.randomUUID();
+            transactionRepository.save(Transaction.builder()
+                    .externalId(externalId).status(TransactionStatus.PENDING)
+                    .amount(BigDecimal.TEN).currency("ARS").tenantId(tenantId).build());
+            keys.add(externalId);
+        }
+
+        List<Runnable> tasks = new ArrayList<>();
+        Map<String, List<TransactionStateService.TransitionResult>> results = new ConcurrentHashMap<>();
+        for (String key : keys) {
+            results.put(key, new CopyOnWriteArrayList<>());
+            for (TransactionStatus target : List.of(TransactionStatus.AUTHORIZED, TransactionStatus.PAID, TransactionStatus.REFUNDED)) {
+                tasks.add(() -> results.get(key).add(stateService.transition(key, target)));
+            }
+        }
+        runConcurrently(tasks);
+
+        for (String key : keys) {
+            assertThat(transactionRepository.findStatusByExternalId(key)).contains(TransactionStatus.REFUNDED);
+            List<TransactionStatus> consumedPrevious = results.get(key).stream()
+                    .filter(TransactionStateService.TransitionResult::isApplied)
+                    .map(TransactionStateService.TransitionResult::getPrevious)
+                    .toList();
+            // Dos escritores aplicados desde el mismo estado previo = update perdido
+            assertThat(consumedPrevious).doesNotHaveDuplicates();
+            assertThat(results.get(key))
+                    .noneMatch(r -> r.getOutcome() == TransactionStateService.Outcome.CONFLICT);
+        }
+    }
+
+    @Test
+    @DisplayName("Webhooks concurrentes del mismo externalId: una sola fila y sin retroceso a AUTHORIZED")
+    void concurrentWebhooks_singleRowAndForwardOnly() throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        List<String> keys = new ArrayList<>();
+        List<Runnable> tasks = new ArrayList<>();
+        List<WebhookService.WebhookProcessingResult> results = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < KEYS; i++) {
+            String externalId = "WH-" + UUID.randomUUID();
+            keys.add(externalId);
+            for (String status : List.of("AUTHORIZED", "PAID")) {
+                WebhookIntake intake = WebhookIntake.parse(
+                        ("{\"id\":\"" + externalId + "\",\"status\":\"" + status + "\",\"amount\":100}")
+                                .getBytes(StandardCharsets.UTF_8), objectMapper);
+                tasks.add(() -> results.add(webhookService.processGetnetPayload(intake, tenantId)));
+            }
+        }
+        runConcurrently(tasks);
+
+        assertThat(results).hasSize(KEYS * 2).allMatch(WebhookService.WebhookProcessingResult::isSuccess);
+        for (String key : keys) {
+            assertThat(transactionRepository.findStatusByExternalId(key)).contains(TransactionStatus.PAID);
+        }
+    }
+
+    private void runConcurrently(List<Runnable> tasks) throws Exception {
+        Collections.shuffle(tasks);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
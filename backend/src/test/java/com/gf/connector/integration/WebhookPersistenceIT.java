@@ -0,0 +1,156 @@
+package com.gf.connector.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.facturante.service.FacturanteService;
+import com.gf.connector.repo.TransactionRepository;
+import com.gf.connector.repo.WebhookEventRepository;
+import com.gf.connector.service.BillingValidationService;
+import com.gf.connector.service.WebhookIntake;
+import com.gf.connector.service.WebhookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cuenta los statements SQL que emite un webhook contra PostgreSQL real
+ * (el upsert usa INSERT ... ON CONFLICT, que H2 no soporta).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class WebhookPersistenceIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
+        registry.add("spring.jpa.properties.hibernate.jdbc.batch_size", () -> "20");
+    }
+
+    @Autowired private WebhookService webhookService;
+    @Autowired private TransactionRepository transactionRepository;
+    @Autowired private WebhookEventRepository webhookEventRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private ObjectMapper objectMapper;
+
+    @MockBean private FacturanteService facturanteService;
+    @MockBean private BillingValidationService validationService;
+
+    private Statistics statistics;
+    /** Retiene la emisión en la lane hasta que el test termina de medir la transacción del webhook */
+    private volatile CountDownLatch facturanteGate = new CountDownLatch(0);
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var valid = BillingValidationService.ValidationResult.builder().valid(true).build();
+        when(validationService.validateTransaction(any())).thenReturn(valid);
+        when(validationService.validateFacturanteRequest(any())).thenReturn(valid);
+
+        CrearComprobanteResponse response = new CrearComprobanteResponse();
+        response.setExitoso(true);
+        response.setCae("71234567890123");
+        response.setNumeroComprobante("0001-00000001");
+        when(facturanteService.crearFactura(any(Transaction.class))).thenAnswer(invocation -> {
+            facturanteGate.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+    }
+
+    @Test
+    @DisplayName("Webhook PAID: upsert + un único flush (transacción y evento); la factura se emite después del commit")
+    void paidWebhook_isWrittenInSingleFlush() throws Exception {
+        String externalId = "IT-PAID-" + UUID.randomUUID();
+        WebhookIntake intake = intake("{\"id\":\"" + externalId + "\",\"status\":\"PAID\",\"amount\":1500.50}");
+
+        facturanteGate = new CountDownLatch(1);
+        statistics.clear();
+        var result = webhookService.processGetnetPayload(intake, UUID.randomUUID());
+
+        assertThat(result.isSuccess()).isTrue();
+        // Lecturas: hash de idempotencia + configuración de facturación del tenant.
+        // Escrituras: upsert de la transacción, UPDATE de transacción (reclamo), INSERT del evento.
+        // La factura se emite en la lane después del commit, fuera de esta transacción
+        assertThat(result.getTransaction().getBillingStatus()).isEqualTo("retrying");
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getFlushCount()).isEqualTo(1);
+        facturanteGate.countDown();
+
+        Transaction stored = awaitBillingStatus(externalId, "billed");
+        assertThat(stored.getCae()).isEqualTo("71234567890123");
+        assertThat(webhookEventRepository.findByEventHash(intake.getEventHash()))
+                .hasValueSatisfying(event -> assertThat(event.isProcessed()).isTrue());
+    }
+
+    @Test
+    @DisplayName("Webhook no facturable: tres escrituras y reenvío resuelto con una sola lectura")
+    void authorizedWebhook_upsertsExistingRow_andReplayIsSingleLookup() throws Exception {
+        String externalId = "IT-AUTH-" + UUID.randomUUID();
+        UUID tenantId = UUID.randomUUID();
+        webhookService.processGetnetPayload(
+                intake("{\"id\":\"" + externalId + "\",\"status\":\"AUTHORIZED\",\"amount\":10}"), tenantId);
+
+        WebhookIntake update = intake("{\"id\":\"" + externalId + "\",\"status\":\"AUTHORIZED\",\"amount\":20}");
+        statistics.clear();
+        var result = webhookService.processGetnetPayload(update, tenantId);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(5);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(transactionRepository.findByExternalId(externalId).orElseThrow().getAmount())
+                .isEqualByComparingTo("20");
+
+        statistics.clear();
+        var replay = webhookService.processGetnetPayload(update, tenantId);
+
+        assertThat(replay.getMessage()).contains("idempotency");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Transaction awaitBillingStatus(String externalId, String billingStatus) throws InterruptedException {
+        Transaction stored = transactionRepository.findByExternalId(externalId).orElseThrow();
+        for (int i = 0; i < 100 && !billingStatus.equals(stored.getBillingStatus()); i++) {
+            Thread.sleep(50);
+            stored = transactionRepository.findByExternalId(externalId).orElseThrow();
+        }
+        assertThat(stored.getBillingStatus()).isEqualTo(billingStatus);
+        return stored;
+    }
+
+    private WebhookIntake intake(String json) throws Exception {
+        return WebhookIntake.parse(json.getBytes(StandardCharsets.UTF_8), objectMapper);
+    }
+}
@@ -14,6 +14,9 @@ import org.springframework.test.context.ActiveProfiles;
  * - Tests de concurrencia para operaciones simultáneas
  * - Tests de memoria para detección de leaks
  * - Tests de throughput para APIs de alto volumen
+ *
+ * La carga real (webhooks firmados a tasa abierta, listados sobre 10.000+ transacciones) se
+ * mide con el harness de src/loadtest contra stubs de Getnet y Facturante: scripts/load-test.sh
  */
 @SpringBootTest
 @ActiveProfiles("test")
@@ -0,0 +1,171 @@
+package com.gf.connector.performance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.facturante.model.CrearComprobanteResponse;
+import com.gf.connector.facturante.service.FacturanteService;
+import com.gf.connector.service.BillingValidationService;
+import com.gf.connector.service.WebhookIntake;
+import com.gf.connector.service.WebhookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark de webhooks PAID: pool fijo de hilos de plataforma (como Tomcat con
+ * server.tomcat.threads.max) contra un hilo virtual por request.
+ *
+ * Cada webhook recorre el servicio real contra PostgreSQL (upsert, factura, evento); la llamada a
+ * Facturante se simula con una latencia fija, que es el I/O bloqueante dominante en producción.
+ * La latencia se mide desde que el request llega, así que incluye la espera en cola del pool.
+ * No corre en el build normal:
+ *
+ * mvn test -Dtest=WebhookThreadModeBenchmarkTest -Dbench=true
+ *     [-Dbench.requests=2000 -Dbench.platform-threads=200 -Dbench.facturante-latency-ms=50 -Dbench.pool-size=20]
+ *
+ * Con Java 21 (-Pjava21) compara ambos modos; con Java 17 solo mide hilos de plataforma.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class WebhookThreadModeBenchmarkTest {
+
+    private static final int REQUESTS = Integer.getInteger("bench.requests", 2000);
+    private static final int PLATFORM_THREADS = Integer.getInteger("bench.platform-threads", 200);
+    private static final long FACTURANTE_LATENCY_MS = Long.getLong("bench.facturante-latency-ms", 50);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&stringtype=unspecified");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> Integer.getInteger("bench.pool-size", 20));
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.gf", () -> "WARN");
+        registry.add("logging.level.org.springframework.web", () -> "WARN");
+    }
+
+    @Autowired private WebhookService webhookService;
+    @Autowired private ObjectMapper objectMapper;
+
+    @MockBean private FacturanteService facturanteService;
+    @MockBean private BillingValidationService validationService;
+
+    private final AtomicLong comprobantes = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        var valid = BillingValidationService.ValidationResult.builder().valid(true).build();
+        when(validationService.validateTransaction(any())).thenReturn(valid);
+        when(validationService.validateFacturanteRequest(any())).thenReturn(valid);
+        when(facturanteService.crearFactura(any(Transaction.class))).thenAnswer(invocation -> {
+            Thread.sleep(FACTURANTE_LATENCY_MS);
+            CrearComprobanteResponse response = new CrearComprobanteResponse();
+            response.setExitoso(true);
+            response.setCae("71234567890123");
+            response.setNumeroComprobante(String.format("0001-%08d", comprobantes.incrementAndGet()));
+            return response;
+        });
+    }
+
+    @Test
+    @DisplayName("Throughput y p99 de webhooks: hilos de plataforma vs hilos virtuales")
+    void compareThreadModes() throws Exception {
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        try {
+            run("warmup", platform, Math.min(REQUESTS, 200));
+            Result platformResult = run("platform(" + PLATFORM_THREADS + ")", platform, REQUESTS);
+            print(platformResult);
+            assertThat(platformResult.failures()).isZero();
+        } finally {
+            platform.shutdownNow();
+        }
+
+        if (Runtime.version().feature() >= 21) {
+            Result virtualResult = run("virtual", new VirtualThreadTaskExecutor("bench-vt-"), REQUESTS);
+            print(virtualResult);
+            assertThat(virtualResult.failures()).isZero();
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": hilos virtuales no disponibles, se omite ese modo");
+        }
+    }
+
+    private Result run(String mode, Executor executor, int requests) throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int index = i;
+            long arrival = System.nanoTime();
+            String body = "{\"id\":\"BENCH-" + UUID.randomUUID() + "\",\"status\":\"PAID\",\"amount\":1500.50}";
+            executor.execute(() -> {
+                try {
+                    WebhookIntake intake = WebhookIntake.parse(body.getBytes(StandardCharsets.UTF_8), objectMapper);
+                    if (!webhookService.processGetnetPayload(intake, tenantId).isSuccess()) {
+                        failures.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    latencies[index] = System.nanoTime() - arrival;
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(10, TimeUnit.MINUTES)).as("benchmark %s terminado", mode).isTrue();
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(mode, requests, elapsed, latencies, failures.get());
+    }
+
+    private static void print(Result result) {
+        System.out.printf("%-16s requests=%d throughput=%.1f/s p50=%.1fms p99=%.1fms max=%.1fms errores=%d%n",
+                result.mode(), result.requests(), result.throughput(),
+                result.percentileMs(0.50), result.percentileMs(0.99), result.percentileMs(1.0), result.failures());
+    }
+
+    private record Result(String mode, int requests, long elapsedNanos, long[] sortedLatencies, int failures) {
+        double throughput() {
+            return requests / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        double percentileMs(double percentile) {
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
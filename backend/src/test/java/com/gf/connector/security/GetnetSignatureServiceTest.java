@@ -34,6 +34,18 @@ class GetnetSignatureServiceTest {
         assertThat(service.verify(raw, "sha256=" + b64)).isTrue();
     }
 
+    @Test
+    void verifyWithSecret_rawBytes_matchesStringVariant() throws Exception {
+        byte[] raw = "{\"monto\":\"ñandú\"}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        javax.crypto.Mac mac = javax.crypto.Mac.getInstance("HmacSHA256");
+        mac.init(new javax.crypto.spec.SecretKeySpec("tenant-secret".getBytes(java.nio.charset.StandardCharsets.UTF_8), "HmacSHA256"));
+        String hex = java.util.HexFormat.of().formatHex(mac.doFinal(raw));
+
+        assertThat(service.verifyWithSecret("tenant-secret", raw, hex)).isTrue();
+        assertThat(service.verifyWithSecret("tenant-secret", new String(raw, java.nio.charset.StandardCharsets.UTF_8), hex)).isTrue();
+        assertThat(service.verifyWithSecret("other-secret", raw, hex)).isFalse();
+    }
+
     @Test
     void verify_missingOrWrongSignature_rejected_unlessAllowUnsigned() {
         String raw = "{}";
@@ -1,19 +1,34 @@
 package com.gf.connector.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gf.connector.domain.BillingSettings;
 import com.gf.connector.repo.BillingSettingsRepository;
+import org.h2.jdbcx.JdbcDataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.Statement;
 import java.time.OffsetDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -53,4 +68,101 @@ class BackupServiceTest {
         // Assert - Verificar que el servicio se puede instanciar
         assertThat(backupService).isNotNull();
     }
+
+    @Test
+    @DisplayName("Full backup writes one NDJSON file per table and a manifest with checksums")
+    void performFullBackup_writesNdjsonPerTableAndManifest(@TempDir Path directory) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:backup-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (String table : List.of("transactions", "webhook_events", "invoices", "credit_notes",
+                    "notification_outbox", "reconciliation_logs", "roles")) {
+                statement.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, created_at TIMESTAMP WITH TIME ZONE)");
+            }
+            statement.execute("CREATE TABLE billing_settings (id UUID PRIMARY KEY, webhook_secret VARCHAR(128), iva_por_defecto NUMERIC(5,2))");
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(50), password VARCHAR(100), active BOOLEAN)");
+            statement.execute("INSERT INTO transactions VALUES (RANDOM_UUID(), TIMESTAMP WITH TIME ZONE '2024-05-01 10:00:00+00'), (RANDOM_UUID(), NULL)");
+            statement.execute("INSERT INTO billing_settings VALUES (RANDOM_UUID(), 'secreto-del-tenant', 21.00)");
+            statement.execute("INSERT INTO users VALUES (1, 'admin', '$2a$10$hash', TRUE)");
+        }
+        BackupService service = new BackupService(dataSource, new ObjectMapper().findAndRegisterModules(), WorkerThreads.platform());
+        ReflectionTestUtils.setField(service, "backupDirectory", directory.toString());
+
+        BackupManifest manifest = service.performFullBackup();
+
+        Path backup = directory.resolve(manifest.id());
+        assertThat(manifest.tables()).hasSize(BackupService.TABLES.size());
+        assertThat(manifest.totalRows()).isEqualTo(4);
+        for (BackupManifest.TableEntry entry : manifest.tables()) {
+            byte[] content = Files.readAllBytes(backup.resolve(entry.file()));
+            assertThat(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content))).isEqualTo(entry.sha256());
+        }
+        assertThat(backup.resolve(BackupManifest.FILE_NAME)).exists();
+        assertThat(lines(backup.resolve("transactions.ndjson.gz"))).hasSize(2)
+                .anyMatch(line -> line.endsWith("\"created_at\":\"2024-05-01T10:00Z\"}"));
+        assertThat(lines(backup.resolve("users.ndjson.gz")))
+                .containsExactly("{\"id\":1,\"username\":\"admin\",\"active\":true}");
+        assertThat(lines(backup.resolve("billing_settings.ndjson.gz")).get(0))
+                .contains("\"webhook_secret\":\"se****nt\"", "\"iva_por_defecto\":21.00");
+    }
+
+    @Test
+    @DisplayName("Incremental backup copies only rows changed since the previous snapshot and chains to the full one")
+    void performNextBackup_chainsIncrementalToLatestFull(@TempDir Path directory) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:backup-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (BackupTable table : BackupService.TABLES) {
+                String watermark = table.watermarkColumn() != null ? table.watermarkColumn() : "created_at";
+                statement.execute("CREATE TABLE " + table.name() + " (id UUID PRIMARY KEY, " + watermark
+                        + " TIMESTAMP WITH TIME ZONE, password VARCHAR(100), webhook_secret VARCHAR(128))");
+            }
+            statement.execute("INSERT INTO transactions (id, updated_at) VALUES (RANDOM_UUID(), TIMESTAMP WITH TIME ZONE '2024-05-01 10:00:00+00')");
+            statement.execute("INSERT INTO roles (id, created_at) VALUES (RANDOM_UUID(), TIMESTAMP WITH TIME ZONE '2024-05-01 10:00:00+00')");
+        }
+        BackupService service = new BackupService(dataSource, new ObjectMapper().findAndRegisterModules(), WorkerThreads.platform());
+        ReflectionTestUtils.setField(service, "backupDirectory", directory.toString());
+
+        BackupManifest full = service.performNextBackup();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO transactions (id, updated_at) VALUES (RANDOM_UUID(), CURRENT_TIMESTAMP + INTERVAL '1' HOUR)");
+            // Evento fallido reutilizado y marcado como procesado después del completo
+            statement.execute("INSERT INTO webhook_events (id, updated_at) VALUES (RANDOM_UUID(), CURRENT_TIMESTAMP + INTERVAL '1' HOUR)");
+        }
+        Thread.sleep(1100);
+        BackupManifest incremental = service.performNextBackup();
+
+        assertThat(full.isFull()).isTrue();
+        assertThat(incremental.type()).isEqualTo(BackupManifest.TYPE_INCREMENTAL);
+        assertThat(incremental.parentId()).isEqualTo(full.id());
+        assertThat(incremental.chainId()).isEqualTo(full.id());
+        assertThat(incremental.table("transactions")).get()
+                .satisfies(entry -> {
+                    assertThat(entry.rows()).isEqualTo(1);
+                    assertThat(entry.since()).isBefore(incremental.snapshotAt());
+                });
+        assertThat(incremental.table("webhook_events")).get()
+                .satisfies(entry -> assertThat(entry.rows()).isEqualTo(1));
+        assertThat(incremental.table("roles")).get()
+                .satisfies(entry -> assertThat(entry.since()).isNull())
+                .satisfies(entry -> assertThat(entry.rows()).isEqualTo(1));
+        assertThat(new BackupCatalog(directory, new ObjectMapper().findAndRegisterModules()).chain(incremental.id()))
+                .extracting(BackupManifest::id)
+                .containsExactly(full.id(), incremental.id());
+    }
+
+    @Test
+    @DisplayName("Restore upserts by id so later backups in the chain overwrite earlier rows")
+    void upsertSql_updatesEveryColumnButId() {
+        assertThat(TableRestorer.upsertSql("roles", List.of("id", "name", "created_at")))
+                .isEqualTo("INSERT INTO roles (id, name, created_at) VALUES (?, ?, ?) ON CONFLICT (id) DO UPDATE SET "
+                        + "name = EXCLUDED.name, created_at = EXCLUDED.created_at");
+    }
+
+    private static List<String> lines(Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().toList();
+        }
+    }
 }
@@ -0,0 +1,155 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.Invoice;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@org.mockito.junit.jupiter.MockitoSettings(strictness = org.mockito.quality.Strictness.LENIENT)
+class BillingConfirmationJobServiceTest {
+
+    @Mock private TransactionRepository transactionRepository;
+    @Mock private InvoiceService invoiceService;
+    @Mock private LiveMetricsService liveMetricsService;
+    @Spy private WorkerThreads workerThreads = WorkerThreads.platform();
+
+    @InjectMocks private BillingConfirmationJobService jobService;
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(jobService, "parallelism", 2);
+        when(transactionRepository.claimForBillingConfirmation(any(), eq(tenantId), any(), any())).thenReturn(1);
+        when(transactionRepository.findById(any())).thenAnswer(i -> Optional.of(transaction(i.getArgument(0))));
+    }
+
+    @Test
+    void start_emitsEachTransaction_andRecordsOutcomes() throws Exception {
+        UUID ok = UUID.randomUUID();
+        UUID rejected = UUID.randomUUID();
+        when(invoiceService.submitFactura(argThat(tx -> tx != null && ok.equals(tx.getId()))))
+                .thenReturn(CompletableFuture.completedFuture(Invoice.builder().id(UUID.randomUUID()).status("sent").build()));
+        when(invoiceService.submitFactura(argThat(tx -> tx != null && rejected.equals(tx.getId()))))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("CUIT inválido")));
+
+        BillingConfirmationJobService.Job job = jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(List.of(ok, rejected, ok), false, null, null));
+
+        assertThat(job.awaitCompletion(5, TimeUnit.SECONDS)).isTrue();
+        BillingConfirmationJobService.JobSnapshot snapshot = job.snapshot(0, 100);
+        assertThat(snapshot.state()).isEqualTo(BillingConfirmationJobService.JobState.COMPLETED);
+        assertThat(snapshot.total()).isEqualTo(2);
+        assertThat(snapshot.billed()).isEqualTo(1);
+        assertThat(snapshot.failed()).isEqualTo(1);
+        assertThat(snapshot.cursor()).isEqualTo(2);
+        verify(transactionRepository).updateBillingOutcome(eq(ok), eq("billed"), isNull(), isNull(), any());
+        verify(transactionRepository).updateBillingOutcome(eq(rejected), eq("error"), isNull(), eq("CUIT inválido"), any());
+    }
+
+    @Test
+    void start_unclaimableTransaction_isSkippedWithoutEmitting() throws Exception {
+        UUID alreadyBilled = UUID.randomUUID();
+        when(transactionRepository.claimForBillingConfirmation(eq(alreadyBilled), eq(tenantId), any(), any())).thenReturn(0);
+
+        BillingConfirmationJobService.Job job = jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(List.of(alreadyBilled), false, null, null));
+
+        assertThat(job.awaitCompletion(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.snapshot(0, 10).items()).singleElement()
+                .extracting(BillingConfirmationJobService.ItemOutcome::status)
+                .isEqualTo(BillingConfirmationJobService.ItemStatus.SKIPPED);
+        verify(invoiceService, never()).submitFactura(any());
+    }
+
+    @Test
+    void start_withoutIds_usesPendingFilter() throws Exception {
+        when(transactionRepository.findIdsForBillingConfirmation(eq(tenantId), eq(List.of("pending", "error")), any(), any(), any()))
+                .thenReturn(List.of());
+
+        BillingConfirmationJobService.Job job = jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(null, true, null, null));
+
+        assertThat(job.awaitCompletion(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.snapshot(0, 10).total()).isZero();
+    }
+
+    @Test
+    void start_boundsEmissionsInFlight() throws Exception {
+        List<CompletableFuture<Invoice>> inFlight = new ArrayList<>();
+        AtomicInteger maxObserved = new AtomicInteger();
+        when(invoiceService.submitFactura(any())).thenAnswer(i -> {
+            CompletableFuture<Invoice> future = new CompletableFuture<>();
+            synchronized (inFlight) {
+                inFlight.add(future);
+                long pending = inFlight.stream().filter(f -> !f.isDone()).count();
+                maxObserved.accumulateAndGet((int) pending, Math::max);
+            }
+            return future;
+        });
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        BillingConfirmationJobService.Job job = jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(ids, false, null, null));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            synchronized (inFlight) {
+                inFlight.forEach(f -> f.complete(Invoice.builder().status("sent").build()));
+            }
+            Thread.sleep(5);
+        }
+
+        assertThat(job.awaitCompletion(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.snapshot(0, 0).billed()).isEqualTo(ids.size());
+        assertThat(maxObserved.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void start_tooManyIds_isRejected() {
+        ReflectionTestUtils.setField(jobService, "maxItems", 1);
+
+        assertThatThrownBy(() -> jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(List.of(UUID.randomUUID(), UUID.randomUUID()), false, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void find_jobOfOtherTenant_isNotVisible() {
+        BillingConfirmationJobService.Job job = jobService.start(tenantId,
+                new BillingConfirmationJobService.Criteria(List.of(), false, null, null));
+
+        assertThat(jobService.find(job.getId(), tenantId)).contains(job);
+        assertThat(jobService.find(job.getId(), UUID.randomUUID())).isEmpty();
+    }
+
+    private Transaction transaction(UUID id) {
+        return Transaction.builder()
+                .id(id).externalId("EXT-" + id).status(TransactionStatus.PAID)
+                .amount(new BigDecimal("100")).billingStatus("pending").tenantId(tenantId)
+                .build();
+    }
+}
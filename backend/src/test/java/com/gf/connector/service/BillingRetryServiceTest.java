@@ -0,0 +1,126 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.Invoice;
+import com.gf.connector.domain.Transaction;
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@org.mockito.junit.jupiter.MockitoSettings(strictness = org.mockito.quality.Strictness.LENIENT)
+class BillingRetryServiceTest {
+
+    @Mock private TransactionRepository transactionRepository;
+    @Mock private InvoiceService invoiceService;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private LiveMetricsService liveMetricsService;
+
+    @InjectMocks private BillingRetryService retryService;
+
+    private Transaction errored;
+
+    @BeforeEach
+    void setup() {
+        errored = Transaction.builder()
+                .id(UUID.randomUUID()).externalId("P1").status(TransactionStatus.PAID)
+                .amount(new BigDecimal("100")).billingStatus("error").billingAttempts(2)
+                .build();
+        when(transactionTemplate.execute(any())).thenAnswer(i -> ((TransactionCallback<?>) i.getArgument(0)).doInTransaction(null));
+        when(transactionRepository.claimBillingRetryBatch(any(), anyInt(), anyInt()))
+                .thenReturn(List.of(errored), List.of());
+    }
+
+    @Test
+    void claimBatch_marksRowsRetryingWithLease() {
+        List<Transaction> claimed = retryService.claimBatch();
+
+        assertThat(claimed).containsExactly(errored);
+        assertThat(errored.getBillingStatus()).isEqualTo("retrying");
+        assertThat(errored.getBillingAttempts()).isEqualTo(3);
+        assertThat(errored.getNextBillingAttemptAt()).isAfter(OffsetDateTime.now().plusMinutes(5));
+    }
+
+    @Test
+    void claimBatch_pendingRow_startsFreshAttemptCycle() {
+        errored.setBillingStatus("pending");
+        errored.setBillingAttempts(8);
+
+        retryService.claimBatch();
+
+        assertThat(errored.getBillingAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void claimBatch_expiredLeaseOnLastAttempt_movesToErrorWithoutRetrying() {
+        errored.setBillingStatus("retrying");
+        errored.setBillingAttempts(8);
+
+        List<Transaction> claimed = retryService.claimBatch();
+
+        assertThat(claimed).isEmpty();
+        assertThat(errored.getBillingStatus()).isEqualTo("error");
+        assertThat(errored.getBillingAttempts()).isEqualTo(8);
+        assertThat(errored.getNextBillingAttemptAt()).isNull();
+        assertThat(errored.getLastBillingError()).contains("Lease vencido");
+        verify(invoiceService, never()).submitFactura(any());
+    }
+
+    @Test
+    void drain_successfulAttempt_marksBilled() {
+        Invoice sent = Invoice.builder().status("sent").build();
+        when(invoiceService.submitFactura(errored)).thenReturn(CompletableFuture.completedFuture(sent));
+
+        int attempted = retryService.drain();
+
+        assertThat(attempted).isEqualTo(1);
+        verify(transactionRepository).updateBillingOutcome(eq(errored.getId()), eq("billed"), isNull(), isNull(), any());
+    }
+
+    @Test
+    void drain_failedAttempt_schedulesBackoff() {
+        when(invoiceService.submitFactura(errored))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Facturante caído")));
+
+        retryService.drain();
+
+        verify(transactionRepository).updateBillingOutcome(eq(errored.getId()), eq("error"),
+                argThat(next -> next != null && next.isAfter(OffsetDateTime.now())), eq("Facturante caído"), any());
+    }
+
+    @Test
+    void recordOutcome_lastAttempt_stopsScheduling() {
+        errored.setBillingAttempts(8);
+
+        retryService.recordOutcome(errored, Invoice.builder().status("error").build(), null);
+
+        verify(transactionRepository).updateBillingOutcome(eq(errored.getId()), eq("error"), isNull(), anyString(), any());
+    }
+
+    @Test
+    void backoff_growsExponentiallyWithJitter_andIsCapped() {
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            Duration delay = retryService.backoff(attempt);
+            long full = 30L << (attempt - 1);
+            assertThat(delay.getSeconds()).isBetween(full / 2, full);
+        }
+        assertThat(retryService.backoff(30).getSeconds()).isBetween(21600L / 2, 21600L);
+    }
+}
@@ -10,6 +10,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -592,6 +593,57 @@ class BillingValidationServiceTest {
         // Note: The validation might fail due to missing required fields, so we just check it's not null
     }
 
+    @Test
+    void validateFacturanteRequest_withFailFast_stopsAtFirstError() {
+        CrearComprobanteRequest request = createValidFacturanteRequest();
+        request.setAutenticacion(null);
+        request.getEncabezado().setTipoComprobante("");
+        request.setItems(null);
+
+        BillingValidationService.ValidationResult collected = service.validateFacturanteRequest(request);
+        BillingValidationService.ValidationResult failFast = service.validateFacturanteRequest(request,
+                BillingValidationService.ValidationMode.FAIL_FAST);
+
+        assertThat(collected.getErrors()).containsExactly("Datos de autenticación son obligatorios",
+                "Tipo de comprobante es obligatorio", "Al menos un item es obligatorio");
+        assertThat(failFast.isValid()).isFalse();
+        assertThat(failFast.getErrors()).containsExactly("Datos de autenticación son obligatorios");
+    }
+
+    @Test
+    void validateAll_returnsOneResultPerTransactionInOrder() {
+        Transaction valid = Transaction.builder()
+                .externalId("TXN-1")
+                .amount(new BigDecimal("100.50"))
+                .status(TransactionStatus.PAID)
+                .currency("ARS")
+                .build();
+        Transaction invalid = Transaction.builder()
+                .externalId("")
+                .amount(BigDecimal.ZERO)
+                .currency("ARS")
+                .build();
+
+        List<BillingValidationService.ValidationResult> results = service.validateAll(List.of(valid, invalid, valid));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).isValid()).isTrue();
+        assertThat(results.get(1).getErrors()).containsExactly("ID externo de transacción es obligatorio");
+        assertThat(results.get(2).isValid()).isTrue();
+        assertThat(service.validateAll(List.of(invalid), BillingValidationService.ValidationMode.COLLECT_ALL).get(0).getErrors())
+                .containsExactly("ID externo de transacción es obligatorio", "Monto debe ser mayor a 0.01",
+                        "Estado de transacción es obligatorio");
+    }
+
+    @Test
+    void validationResult_listsAreImmutable() {
+        BillingValidationService.ValidationResult result = service.validateFacturanteRequest(new CrearComprobanteRequest());
+
+        assertThatThrownBy(() -> result.getErrors().add("otro"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(result.getErrorsAsString()).startsWith("Datos de autenticación son obligatorios; ");
+    }
+
     private CrearComprobanteRequest createValidFacturanteRequest() {
         CrearComprobanteRequest request = new CrearComprobanteRequest();
         
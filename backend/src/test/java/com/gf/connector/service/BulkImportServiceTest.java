@@ -0,0 +1,100 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class BulkImportServiceTest {
+
+    @TempDir
+    Path importDirectory;
+
+    private BulkImportService service;
+
+    @BeforeEach
+    void setup() {
+        service = new BulkImportService(mock(DataSource.class), new ObjectMapper(), mock(BackupService.class),
+                mock(GetnetToFacturanteTransformationService.class), WorkerThreads.platform());
+        ReflectionTestUtils.setField(service, "importDirectory", importDirectory.toString());
+    }
+
+    @Test
+    void start_rejectsFilesOutsideImportDirectory() {
+        BulkImportService.Request request = new BulkImportService.Request("../secrets.csv",
+                BulkImportService.Format.CSV, "transactions", null, null);
+
+        assertThatThrownBy(() -> service.start(UUID.randomUUID(), request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dentro de");
+    }
+
+    @Test
+    void start_rejectsUnknownTable() throws IOException {
+        Files.writeString(importDirectory.resolve("users.csv"), "id,email\n");
+        BulkImportService.Request request = new BulkImportService.Request("users.csv", null, "users", null, null);
+
+        assertThatThrownBy(() -> service.start(UUID.randomUUID(), request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Tabla inválida");
+    }
+
+    @Test
+    void start_rejectsOverwriteOnTableWithoutTenant() throws IOException {
+        Files.writeString(importDirectory.resolve("events.ndjson"), "{}\n");
+        BulkImportService.Request request = new BulkImportService.Request("events.ndjson", null, "webhook_events",
+                BulkImportService.ConflictPolicy.OVERWRITE, "event_hash");
+
+        assertThatThrownBy(() -> service.start(UUID.randomUUID(), request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("SKIP");
+    }
+
+    @Test
+    void start_requiresExistingFile() {
+        BulkImportService.Request request = new BulkImportService.Request("missing.ndjson", null, "transactions", null, null);
+
+        assertThatThrownBy(() -> service.start(UUID.randomUUID(), request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no encontrado");
+    }
+
+    @Test
+    void format_isInferredFromExtension() {
+        assertThat(BulkImportService.Format.of(Path.of("tx.csv.gz"))).isEqualTo(BulkImportService.Format.CSV);
+        assertThat(BulkImportService.Format.of(Path.of("tx.NDJSON"))).isEqualTo(BulkImportService.Format.NDJSON);
+        assertThat(BulkImportService.Format.of(Path.of("tx.jsonl.gz"))).isEqualTo(BulkImportService.Format.NDJSON);
+        assertThatThrownBy(() -> BulkImportService.Format.of(Path.of("tx.xlsx")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void statusTransitionGuard_onlyAllowsLegalTransitions() {
+        String guard = BulkImportService.statusTransitionGuard("transactions");
+
+        assertThat(guard).startsWith("(transactions.status IS NULL OR (transactions.status, EXCLUDED.status) IN (")
+                .contains("('authorized', 'paid')", "('paid', 'refunded')", "('paid', 'paid')")
+                .doesNotContain("('refunded', 'paid')", "('paid', 'authorized')");
+    }
+
+    @Test
+    void writeQuoted_doublesQuotesAndKeepsSeparatorsInsideField() throws IOException {
+        StringWriter out = new StringWriter();
+
+        StagedTable.RowWriter.writeQuoted(out, "a,\"b\"\nc");
+
+        assertThat(out.toString()).isEqualTo("\"a,\"\"b\"\"\nc\"");
+    }
+}
@@ -19,6 +19,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -479,4 +481,37 @@ class GetnetToFacturanteTransformationServiceTest {
             assertThat(e).isNotNull();
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void transformTransactionToFacturanteRequest_reusesPlanUntilSettingsVersionChanges() {
+        UUID tenantId = UUID.randomUUID();
+        Transaction transaction = Transaction.builder()
+                .externalId("TXN-123")
+                .amount(new BigDecimal("121.00"))
+                .customerDoc("20123456786")
+                .tenantId(tenantId)
+                .build();
+        BillingSettings settings = BillingSettings.builder()
+                .tipoComprobante("FA")
+                .puntoVenta("0002")
+                .ivaPorDefecto(new BigDecimal("21.00"))
+                .consumidorFinalPorDefecto(false)
+                .build();
+
+        when(billingSettingsService.settingsVersion(tenantId)).thenReturn(0L, 0L, 1L);
+        when(billingSettingsService.getActiveSettings(tenantId)).thenReturn(Optional.of(settings));
+
+        service.transformTransactionToFacturanteRequest(transaction, "{}");
+        CrearComprobanteRequest cached = service.transformTransactionToFacturanteRequest(transaction, "{}");
+        verify(billingSettingsService, times(1)).getActiveSettings(tenantId);
+
+        settings.setPuntoVenta("0003");
+        CrearComprobanteRequest recompiled = service.transformTransactionToFacturanteRequest(transaction, "{}");
+        verify(billingSettingsService, times(2)).getActiveSettings(tenantId);
+
+        assertThat(cached.getEncabezado().getPrefijo()).isEqualTo("0002");
+        assertThat(cached.getEncabezado().getTotalNeto()).isEqualByComparingTo("95.59");
+        assertThat(cached.getCliente().getTipoDocumento()).isEqualTo(80);
+        assertThat(recompiled.getEncabezado().getPrefijo()).isEqualTo("0003");
+    }
+}
@@ -0,0 +1,107 @@
+package com.gf.connector.service;
+
+import com.gf.connector.config.LatencyAnalyticsConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyAnalyticsServiceTest {
+
+    private static final long MS = 1_000_000L;
+
+    private LatencyAnalyticsConfig config;
+    private LatencyAnalyticsService service;
+    private final UUID tenantId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        config = new LatencyAnalyticsConfig();
+        service = new LatencyAnalyticsService(config);
+    }
+
+    @Test
+    void record_computesPercentilesPerEndpointAndTenant() {
+        for (int i = 1; i <= 1000; i++) {
+            service.record("GET", "/api/transactions", tenantId, i * MS);
+        }
+
+        LatencyAnalyticsService.WindowStats overall = service.overall(Duration.ofMinutes(1));
+        assertThat(overall.count()).isEqualTo(1000);
+        assertThat(overall.p50Ms()).isCloseTo(500, within(10.0));
+        assertThat(overall.p99Ms()).isCloseTo(990, within(20.0));
+        assertThat(overall.maxMs()).isCloseTo(1000, within(20.0));
+        assertThat(service.tenant(tenantId, Duration.ofMinutes(1)).count()).isEqualTo(1000);
+        assertThat(service.endpoints(Duration.ofMinutes(1))).singleElement()
+                .extracting(LatencyAnalyticsService.WindowStats::key)
+                .isEqualTo("GET /api/transactions");
+    }
+
+    @Test
+    void rotate_slidesWindow_andExpiresOldSlices() {
+        service.record("GET", "/api/transactions", null, 10 * MS);
+        service.rotate();
+        service.record("GET", "/api/transactions", null, 10 * MS);
+
+        assertThat(service.overall(Duration.ofMinutes(1)).count()).isEqualTo(1);
+        assertThat(service.overall(Duration.ofMinutes(5)).count()).isEqualTo(2);
+
+        for (int i = 0; i < 60; i++) {
+            service.rotate();
+        }
+        assertThat(service.overall(Duration.ofHours(1)).count()).isZero();
+        assertThat(service.endpoints(Duration.ofHours(1))).isEmpty();
+    }
+
+    @Test
+    void rotate_evictsOnlyLongIdleSeries_andRecordRecreatesThem() {
+        service.record("GET", "/api/transactions", tenantId, 10 * MS);
+        service.rotate();
+        service.rotate();
+
+        assertThat(service.tenant(tenantId, Duration.ofMinutes(5)).count()).isEqualTo(1);
+
+        for (int i = 0; i < 60; i++) {
+            service.rotate();
+        }
+        assertThat(service.tenant(tenantId, Duration.ofHours(1)).count()).isZero();
+
+        service.record("GET", "/api/transactions", tenantId, 10 * MS);
+        assertThat(service.tenant(tenantId, Duration.ofMinutes(1)).count()).isEqualTo(1);
+        assertThat(service.endpoints(Duration.ofMinutes(1))).singleElement()
+                .extracting(LatencyAnalyticsService.WindowStats::count)
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void evaluateSlos_usesPerEndpointThresholds() {
+        LatencyAnalyticsConfig.Slo strict = new LatencyAnalyticsConfig.Slo();
+        strict.setP95Ms(50);
+        strict.setP99Ms(5000);
+        config.getEndpoints().put("POST /api/webhooks/getnet", strict);
+        for (int i = 0; i < 100; i++) {
+            service.record("POST", "/api/webhooks/getnet", null, 100 * MS);
+            service.record("GET", "/api/transactions", null, 100 * MS);
+        }
+
+        assertThat(service.evaluateSlos()).singleElement().satisfies(breach -> {
+            assertThat(breach.endpoint()).isEqualTo("POST /api/webhooks/getnet");
+            assertThat(breach.severity()).isEqualTo(LatencyAnalyticsService.Severity.WARNING);
+        });
+    }
+
+    @Test
+    void record_beyondMaxSeries_groupsIntoOther() {
+        config.setMaxSeries(1);
+        service.record("GET", "/api/a", UUID.randomUUID(), MS);
+        service.record("GET", "/api/b", UUID.randomUUID(), MS);
+
+        assertThat(service.endpoints(Duration.ofMinutes(1)))
+                .extracting(LatencyAnalyticsService.WindowStats::key)
+                .containsExactlyInAnyOrder("GET /api/a", "GET other");
+    }
+}
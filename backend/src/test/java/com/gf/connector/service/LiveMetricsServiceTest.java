@@ -0,0 +1,121 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.CreditNoteRepository;
+import com.gf.connector.repo.InvoiceRepository;
+import com.gf.connector.repo.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@org.mockito.junit.jupiter.MockitoSettings(strictness = org.mockito.quality.Strictness.LENIENT)
+class LiveMetricsServiceTest {
+
+    @Mock private TransactionRepository transactionRepository;
+    @Mock private InvoiceRepository invoiceRepository;
+    @Mock private CreditNoteRepository creditNoteRepository;
+    @Mock private SseBroadcaster sseBroadcaster;
+
+    @InjectMocks private LiveMetricsService liveMetricsService;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final List<Object[]> aggregate = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        aggregate.add(new Object[]{TransactionStatus.PAID, "pending", 3L, new BigDecimal("300.00")});
+        aggregate.add(new Object[]{TransactionStatus.PAID, "billed", 2L, new BigDecimal("200.00")});
+        when(transactionRepository.aggregateForLiveMetrics(tenantId)).thenAnswer(i -> aggregate);
+        when(invoiceRepository.countByTenantId(tenantId)).thenReturn(2L);
+    }
+
+    @Test
+    void snapshot_seedsFromAggregateOnce() {
+        LiveMetricsService.LiveSnapshot snapshot = liveMetricsService.snapshot(tenantId);
+        liveMetricsService.snapshot(tenantId);
+
+        assertThat(snapshot.total()).isEqualTo(5);
+        assertThat(snapshot.pendingBilling()).isEqualTo(3);
+        assertThat(snapshot.totalAmount()).isEqualByComparingTo("500.00");
+        assertThat(snapshot.invoices()).isEqualTo(2);
+        verify(transactionRepository, times(1)).aggregateForLiveMetrics(tenantId);
+    }
+
+    @Test
+    void deltas_arePublishedOncePerPush_andFoldedIntoSnapshot() {
+        liveMetricsService.snapshot(tenantId);
+
+        liveMetricsService.recordTransaction(tenantId, null,
+                new LiveMetricsService.TxState(TransactionStatus.PAID, "pending", new BigDecimal("50.00")));
+        liveMetricsService.recordBillingTransition(tenantId, "pending", "billed");
+        liveMetricsService.recordInvoice(tenantId);
+        liveMetricsService.pushDeltas();
+        liveMetricsService.pushDeltas();
+
+        ArgumentCaptor<Object> delta = ArgumentCaptor.forClass(Object.class);
+        verify(sseBroadcaster, times(1)).publish(eq(tenantId), eq(LiveMetricsService.TOPIC), eq("delta"), delta.capture());
+        LiveMetricsService.LiveDelta published = (LiveMetricsService.LiveDelta) delta.getValue();
+        assertThat(published.version()).isEqualTo(1);
+        assertThat(published.byStatus()).containsEntry("paid", 1L);
+        assertThat(published.byBillingStatus()).containsEntry("billed", 1L).doesNotContainKey("pending");
+        assertThat(published.invoices()).isEqualTo(1);
+
+        LiveMetricsService.LiveSnapshot snapshot = liveMetricsService.snapshot(tenantId);
+        assertThat(snapshot.version()).isEqualTo(1);
+        assertThat(snapshot.total()).isEqualTo(6);
+        assertThat(snapshot.pendingBilling()).isEqualTo(3);
+        assertThat(snapshot.totalAmount()).isEqualByComparingTo("550.00");
+    }
+
+    @Test
+    void statusChange_movesCountAndAmountBetweenBuckets() {
+        liveMetricsService.snapshot(tenantId);
+
+        liveMetricsService.recordTransaction(tenantId,
+                new LiveMetricsService.TxState(TransactionStatus.PAID, "billed", new BigDecimal("100.00")),
+                new LiveMetricsService.TxState(TransactionStatus.REFUNDED, "billed", new BigDecimal("100.00")));
+        liveMetricsService.pushDeltas();
+
+        LiveMetricsService.LiveSnapshot snapshot = liveMetricsService.snapshot(tenantId);
+        assertThat(snapshot.total()).isEqualTo(5);
+        assertThat(snapshot.byStatus()).containsEntry("paid", 4L).containsEntry("refunded", 1L);
+        assertThat(snapshot.amountByStatus().get("refunded")).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void untrackedTenant_ignoresDeltasWithoutTouchingDatabase() {
+        liveMetricsService.recordInvoice(tenantId);
+        liveMetricsService.pushDeltas();
+
+        assertThat(liveMetricsService.isTracking(tenantId)).isFalse();
+        verifyNoInteractions(transactionRepository, sseBroadcaster);
+    }
+
+    @Test
+    void resync_publishesCorrectionForDrift() {
+        liveMetricsService.snapshot(tenantId);
+        aggregate.add(new Object[]{TransactionStatus.FAILED, "not_applicable", 4L, new BigDecimal("40.00")});
+
+        liveMetricsService.resyncAll();
+        liveMetricsService.pushDeltas();
+
+        LiveMetricsService.LiveSnapshot snapshot = liveMetricsService.snapshot(tenantId);
+        assertThat(snapshot.total()).isEqualTo(9);
+        assertThat(snapshot.byStatus()).containsEntry("failed", 4L);
+        verify(sseBroadcaster).publish(eq(tenantId), eq(LiveMetricsService.TOPIC), eq("delta"), any());
+    }
+}
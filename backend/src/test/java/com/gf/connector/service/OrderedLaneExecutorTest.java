@@ -0,0 +1,101 @@
+package com.gf.connector.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderedLaneExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OrderedLaneExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void sameKey_runsInSubmissionOrder() throws Exception {
+        executor = new OrderedLaneExecutor(4, 2048, 1000, registry, WorkerThreads.platform());
+        List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<?> last = null;
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            last = executor.submit("P1", () -> seen.add(n));
+        }
+        last.get(5, TimeUnit.SECONDS);
+
+        assertThat(seen).containsExactlyElementsOf(IntStream.range(0, 1000).boxed().toList());
+    }
+
+    @Test
+    void differentLanes_doNotBlockEachOther() throws Exception {
+        executor = new OrderedLaneExecutor(8, 16, 1000, registry, WorkerThreads.platform());
+        String blockedKey = "A";
+        String otherKey = IntStream.range(0, 100).mapToObj(i -> "K" + i)
+                .filter(k -> executor.laneFor(k) != executor.laneFor(blockedKey))
+                .findFirst().orElseThrow();
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> blocked = executor.submit(blockedKey, () -> release.await(5, TimeUnit.SECONDS));
+        String result = executor.submit(otherKey, () -> "done").get(1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo("done");
+        assertThat(blocked).isNotDone();
+        release.countDown();
+        assertThat(blocked.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void fullLane_appliesBackpressureAndExposesDepth() throws Exception {
+        executor = new OrderedLaneExecutor(1, 1, 50, registry, WorkerThreads.platform());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit("P1", () -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        started.await(1, TimeUnit.SECONDS);
+        executor.submit("P1", () -> "queued");
+
+        assertThat(registry.get("billing_lane_depth").tag("lane", "0").gauge().value()).isEqualTo(1.0);
+        assertThatThrownBy(() -> executor.submit("P1", () -> "overflow"))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(registry.get("billing_lane_rejected_total").counter().count()).isEqualTo(1.0);
+        release.countDown();
+    }
+
+    @Test
+    void submitAndWait_propagatesOriginalException() {
+        executor = new OrderedLaneExecutor(2, 8, 1000, registry, WorkerThreads.platform());
+
+        assertThatThrownBy(() -> executor.submitAndWait("P1", () -> {
+            throw new IllegalArgumentException("Transacción no válida");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("no válida");
+    }
+
+    @Test
+    void nestedSubmitFromSameLane_runsInline() throws Exception {
+        executor = new OrderedLaneExecutor(1, 1, 50, registry, WorkerThreads.platform());
+
+        String result = executor.submit("P1", () -> executor.submitAndWait("P1", () -> "nested"))
+                .get(1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo("nested");
+    }
+}
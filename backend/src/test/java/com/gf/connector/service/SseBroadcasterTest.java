@@ -0,0 +1,193 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseBroadcasterTest {
+
+    private final UUID tenantA = UUID.randomUUID();
+    private final UUID tenantB = UUID.randomUUID();
+    private SseBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void publish_reachesOnlySubscribersOfTheTenantTopic() {
+        broadcaster = broadcaster(16, SseBroadcaster.SlowConsumerPolicy.DROP_OLDEST);
+        CapturingEmitter a = new CapturingEmitter();
+        CapturingEmitter b = new CapturingEmitter();
+        broadcaster.register(tenantA + ":reconciliation", a);
+        broadcaster.register(tenantB + ":reconciliation", b);
+
+        broadcaster.publish(tenantA, "reconciliation", "reconciliation", Map.of("processed", 3));
+        broadcaster.dispatchPending();
+
+        assertThat(a.frames).hasSize(2); // connected + evento
+        assertThat(a.frames.get(1)).contains("event:reconciliation").contains("\"processed\":3");
+        assertThat(b.frames).hasSize(1); // solo connected
+    }
+
+    @Test
+    void slowConsumer_dropOldest_keepsNewestEvents() {
+        broadcaster = broadcaster(3, SseBroadcaster.SlowConsumerPolicy.DROP_OLDEST);
+        CapturingEmitter slow = new CapturingEmitter();
+        broadcaster.register(tenantA + ":reconciliation", slow);
+
+        for (int i = 1; i <= 10; i++) {
+            broadcaster.publish(tenantA, "reconciliation", "tick", Map.of("n", i));
+        }
+        broadcaster.dispatchPending();
+
+        assertThat(slow.frames).hasSize(3);
+        assertThat(slow.frames.get(2)).contains("\"n\":10");
+        assertThat(broadcaster.subscriberCount(tenantA, "reconciliation")).isEqualTo(1);
+    }
+
+    @Test
+    void slowConsumer_disconnectPolicy_completesEmitter() {
+        broadcaster = broadcaster(2, SseBroadcaster.SlowConsumerPolicy.DISCONNECT);
+        CapturingEmitter slow = new CapturingEmitter();
+        broadcaster.register(tenantA + ":reconciliation", slow);
+
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publish(tenantA, "reconciliation", "tick", Map.of("n", i));
+        }
+        broadcaster.dispatchPending();
+
+        assertThat(slow.completed).isTrue();
+        assertThat(broadcaster.subscriberCount(tenantA, "reconciliation")).isZero();
+    }
+
+    @Test
+    void heartbeat_reapsDeadConnections() {
+        broadcaster = broadcaster(16, SseBroadcaster.SlowConsumerPolicy.DROP_OLDEST);
+        CapturingEmitter dead = new CapturingEmitter();
+        CapturingEmitter alive = new CapturingEmitter();
+        broadcaster.register(tenantA + ":reconciliation", dead);
+        broadcaster.register(tenantA + ":reconciliation", alive);
+        broadcaster.dispatchPending();
+        dead.broken = true;
+
+        broadcaster.heartbeat();
+        broadcaster.dispatchPending();
+
+        assertThat(broadcaster.subscriberCount(tenantA, "reconciliation")).isEqualTo(1);
+        assertThat(alive.frames).last().asString().contains(":heartbeat");
+    }
+
+    @Test
+    void stalledWrite_disconnectsSubscriber_andOtherTenantsKeepReceiving() throws Exception {
+        broadcaster = new SseBroadcaster(16, SseBroadcaster.SlowConsumerPolicy.DROP_OLDEST, 60_000, 3_000, 1, 100,
+                new ObjectMapper(), new SimpleMeterRegistry(), WorkerThreads.platform());
+        StalledEmitter stalledEmitter = new StalledEmitter();
+        StalledEmitter healthy = new StalledEmitter();
+        broadcaster.register(tenantA + ":reconciliation", stalledEmitter);
+        broadcaster.register(tenantB + ":reconciliation", healthy);
+        try {
+            awaitFrames(healthy, 1);
+            awaitFrames(stalledEmitter, 1);
+            stalledEmitter.stall = true;
+
+            // El único despachador queda bloqueado escribiendo al cliente que no lee
+            broadcaster.publish(tenantA, "reconciliation", "tick", Map.of("n", 1));
+            assertThat(stalledEmitter.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+            broadcaster.publish(tenantB, "reconciliation", "tick", Map.of("n", 2));
+            Thread.sleep(150);
+
+            broadcaster.checkStalledWrites();
+
+            awaitFrames(healthy, 2);
+            assertThat(healthy.frames.get(1)).contains("\"n\":2");
+            assertThat(broadcaster.subscriberCount(tenantA, "reconciliation")).isZero();
+            assertThat(broadcaster.subscriberCount(tenantB, "reconciliation")).isEqualTo(1);
+        } finally {
+            stalledEmitter.release.countDown();
+        }
+    }
+
+    private static void awaitFrames(StalledEmitter emitter, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && emitter.frames.size() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(emitter.frames).hasSizeGreaterThanOrEqualTo(count);
+    }
+
+    private SseBroadcaster broadcaster(int bufferSize, SseBroadcaster.SlowConsumerPolicy policy) {
+        return new SseBroadcaster(bufferSize, policy, 60_000, 3_000, 0, 5_000, new ObjectMapper(), new SimpleMeterRegistry(),
+                WorkerThreads.platform());
+    }
+
+    /**
+     * Emitter cuyo envío queda bloqueado (ventana TCP llena) mientras {@code stall} está activo
+     */
+    private static final class StalledEmitter extends SseEmitter {
+        private final List<String> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean stall;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stall) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Connection reset");
+            }
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public void complete() {
+            // Sin conexión HTTP: nada que cerrar
+        }
+    }
+
+    /**
+     * Emitter sin conexión HTTP que registra lo enviado en texto SSE
+     */
+    private static final class CapturingEmitter extends SseEmitter {
+        private final List<String> frames = new ArrayList<>();
+        private boolean broken;
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            StringBuilder frame = new StringBuilder();
+            builder.build().forEach(part -> frame.append(part.getData()));
+            frames.add(frame.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.gf.connector.service;
+
+import com.gf.connector.domain.TransactionStatus;
+import com.gf.connector.repo.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionStateServiceTest {
+
+    @Mock private TransactionRepository transactionRepository;
+
+    @InjectMocks private TransactionStateService stateService;
+
+    @Test
+    void transition_legal_appliesOnFirstAttempt() {
+        when(transactionRepository.findStatusByExternalId("P1")).thenReturn(Optional.of(TransactionStatus.AUTHORIZED));
+        when(transactionRepository.compareAndSetStatus(eq("P1"), eq(TransactionStatus.AUTHORIZED), eq(TransactionStatus.PAID), isNull(), any()))
+                .thenReturn(1);
+
+        var result = stateService.transition("P1", TransactionStatus.PAID);
+
+        assertThat(result.isApplied()).isTrue();
+        assertThat(result.getPrevious()).isEqualTo(TransactionStatus.AUTHORIZED);
+        assertThat(result.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void transition_lostRace_rereadsAndRetries() {
+        // Entre la lectura y el UPDATE otro webhook pasó la transacción a PAID
+        when(transactionRepository.findStatusByExternalId("P1"))
+                .thenReturn(Optional.of(TransactionStatus.AUTHORIZED), Optional.of(TransactionStatus.PAID));
+        when(transactionRepository.compareAndSetStatus(eq("P1"), eq(TransactionStatus.AUTHORIZED), eq(TransactionStatus.REFUNDED), isNull(), any()))
+                .thenReturn(0);
+        when(transactionRepository.compareAndSetStatus(eq("P1"), eq(TransactionStatus.PAID), eq(TransactionStatus.REFUNDED), isNull(), any()))
+                .thenReturn(1);
+
+        var result = stateService.transition("P1", TransactionStatus.REFUNDED);
+
+        assertThat(result.isApplied()).isTrue();
+        assertThat(result.getPrevious()).isEqualTo(TransactionStatus.PAID);
+        assertThat(result.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void transition_outOfOrder_isRejectedWithoutWriting() {
+        when(transactionRepository.findStatusByExternalId("P1")).thenReturn(Optional.of(TransactionStatus.PAID));
+
+        var result = stateService.transition("P1", TransactionStatus.AUTHORIZED);
+
+        assertThat(result.getOutcome()).isEqualTo(TransactionStateService.Outcome.REJECTED);
+        verify(transactionRepository, never()).compareAndSetStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void transition_persistentContention_isBounded() {
+        when(transactionRepository.findStatusByExternalId("P1")).thenReturn(Optional.of(TransactionStatus.AUTHORIZED));
+        when(transactionRepository.compareAndSetStatus(any(), any(), any(), any(), any())).thenReturn(0);
+
+        var result = stateService.transition("P1", TransactionStatus.PAID);
+
+        assertThat(result.getOutcome()).isEqualTo(TransactionStateService.Outcome.CONFLICT);
+        verify(transactionRepository, times(5)).compareAndSetStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void transition_unknownExternalId_returnsNotFound() {
+        when(transactionRepository.findStatusByExternalId("X")).thenReturn(Optional.empty());
+        when(transactionRepository.existsByExternalId("X")).thenReturn(false);
+
+        var result = stateService.transition("X", TransactionStatus.PAID);
+
+        assertThat(result.getOutcome()).isEqualTo(TransactionStateService.Outcome.NOT_FOUND);
+    }
+
+    @Test
+    void transitionTable_refundedIsTerminal_andRedeliveryIsIdempotent() {
+        for (TransactionStatus status : TransactionStatus.values()) {
+            assertThat(status.canTransitionTo(status)).isTrue();
+        }
+        assertThat(TransactionStatus.REFUNDED.allowedTransitions()).isEmpty();
+        assertThat(TransactionStatus.PAID.canTransitionTo(TransactionStatus.AUTHORIZED)).isFalse();
+        assertThat(TransactionStatus.PAID.allowedPredecessors())
+                .contains(TransactionStatus.PENDING, TransactionStatus.AUTHORIZED, TransactionStatus.PAID)
+                .doesNotContain(TransactionStatus.REFUNDED);
+    }
+}
@@ -0,0 +1,33 @@
+package com.gf.connector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookIntakeTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parse_sharesSingleModel_andHashMatchesLegacyStringHash() throws Exception {
+        String raw = "{\"payment_intent_id\":\"pi_1\",\"id\":\"P1\",\"status\":\"PAID\",\"amount\":100}";
+        WebhookIntake intake = WebhookIntake.parse(raw.getBytes(StandardCharsets.UTF_8), objectMapper);
+
+        assertThat(intake.getPayload()).containsEntry("id", "P1").containsEntry("status", "PAID");
+        assertThat(intake.getTypedPayload().getPaymentIntentId()).isEqualTo("pi_1");
+        assertThat(intake.getRawJson()).isEqualTo(raw);
+        assertThat(intake.getEventHash()).isEqualTo(WebhookService.sha256Hex(raw)).hasSize(64);
+    }
+
+    @Test
+    void parse_emptyBody_yieldsEmptyPayload() throws Exception {
+        WebhookIntake intake = WebhookIntake.parse(new byte[0], objectMapper);
+
+        assertThat(intake.getPayload()).isEmpty();
+        assertThat(intake.getEventHash())
+                .isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+    }
+}
@@ -1,5 +1,6 @@
 package com.gf.connector.service;
 
+import com.gf.connector.domain.Invoice;
 import com.gf.connector.domain.Transaction;
 import com.gf.connector.domain.TransactionStatus;
 import com.gf.connector.domain.WebhookEvent;
@@ -9,7 +10,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -31,6 +34,9 @@ class WebhookServiceTest {
     @Mock private InvoiceService invoiceService;
     @Mock private CreditNoteService creditNoteService;
     @Mock private BillingSettingsService billingSettingsService;
+    @Mock private LiveMetricsService liveMetricsService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy private PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry);
 
     @InjectMocks private WebhookService webhookService;
 
@@ -46,30 +52,108 @@ class WebhookServiceTest {
                 .tenantId(UUID.randomUUID())
                 .build();
         when(webhookEventRepository.save(any(WebhookEvent.class))).thenAnswer(i -> i.getArgument(0));
-        when(transactionRepository.save(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
+        when(transactionRepository.upsertByExternalId(any(Transaction.class))).thenAnswer(i -> i.getArgument(0));
         when(transformationService.transformWebhookToTransaction(anyString(), any())).thenReturn(txPaid);
-        when(transactionRepository.findByExternalId("P1")).thenReturn(Optional.empty());
+        when(webhookEventRepository.findByEventHash(anyString())).thenReturn(Optional.empty());
         when(billingSettingsService.getActiveSettings(any())).thenReturn(Optional.empty());
-        when(invoiceService.createFacturaInFacturante(any())).thenReturn(null);
+        when(invoiceService.submitFacturaAfterCommit(any()))
+                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
+        when(creditNoteService.submitRefund(any(), any()))
+                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null));
     }
 
     @Test
     void processGetnetPayload_createsTransaction_andGeneratesInvoice() {
         var result = webhookService.processGetnetPayload("{}", payload);
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(any(Transaction.class));
-        verify(invoiceService).createFacturaInFacturante(any());
-        verify(webhookEventRepository, atLeastOnce()).save(any(WebhookEvent.class));
+        verify(transactionRepository).upsertByExternalId(any(Transaction.class));
+        verify(invoiceService).submitFacturaAfterCommit(any());
+        // La emisión corre en la lane después del commit, nunca con el lock de la fila tomado
+        verify(invoiceService, never()).createFacturaInFacturante(any());
+        assertThat(txPaid.getBillingStatus()).isEqualTo("retrying");
+        assertThat(txPaid.getNextBillingAttemptAt()).isNotNull();
+    }
+
+    @Test
+    void processGetnetPayload_withBillingInFlight_doesNotEnqueueAgain() {
+        txPaid.setBillingStatus("retrying");
+        txPaid.setNextBillingAttemptAt(java.time.OffsetDateTime.now().plusMinutes(5));
+
+        var result = webhookService.processGetnetPayload("{}", payload);
+
+        assertThat(result.isSuccess()).isTrue();
+        verify(invoiceService, never()).submitFacturaAfterCommit(any());
+        assertThat(txPaid.getBillingStatus()).isEqualTo("retrying");
+    }
+
+    @Test
+    void processGetnetPayload_writesEventOnce_withoutIntermediateSaves() {
+        var result = webhookService.processGetnetPayload("{}", payload);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getWebhookEvent().isProcessed()).isTrue();
+        verify(webhookEventRepository, times(1)).save(any(WebhookEvent.class));
+        verify(webhookEventRepository, never()).findAll();
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(transactionRepository, never()).findByExternalId(anyString());
+    }
+
+    @Test
+    void processGetnetPayload_withIntake_reusesParsedPayloadAndHash() throws Exception {
+        byte[] body = "{\"id\":\"P1\",\"status\":\"PAID\",\"amount\":100}".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        WebhookIntake intake = WebhookIntake.parse(body, new com.fasterxml.jackson.databind.ObjectMapper());
+
+        var result = webhookService.processGetnetPayload(intake, UUID.randomUUID());
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getWebhookEvent().getEventHash()).isEqualTo(intake.getEventHash());
+        verify(transformationService).transformWebhookToTransaction(intake.getRawJson(), intake.getPayload());
+    }
+
+    @Test
+    void processGetnetPayload_recordsStageTimers_andBillingLag() {
+        UUID tenant = UUID.randomUUID();
+        when(invoiceService.submitFacturaAfterCommit(any())).thenReturn(java.util.concurrent.CompletableFuture.completedFuture(
+                Invoice.builder().id(UUID.randomUUID()).status("sent").build()));
+
+        webhookService.processGetnetPayload("{}", payload, tenant);
+
+        for (String stage : new String[] {"idempotency", "mapping", "upsert", "persistence"}) {
+            assertThat(meterRegistry.get("webhook_stage_duration")
+                    .tags("stage", stage, "tenant", tenant.toString(), "outcome", "success").timer().count())
+                    .as(stage).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get("billing_lag").tags("tenant", tenant.toString(), "path", "webhook").timer().count())
+                .isEqualTo(1);
     }
 
     @Test
     void processGetnetPayload_duplicateEvent_isIdempotent() {
-        WebhookEvent existing = WebhookEvent.builder().eventHash("h").processed(true).build();
-        when(webhookEventRepository.findAll()).thenReturn(java.util.List.of(existing));
+        WebhookEvent existing = WebhookEvent.builder().eventHash(WebhookService.sha256Hex("x")).processed(true).build();
+        when(webhookEventRepository.findByEventHash(WebhookService.sha256Hex("x"))).thenReturn(Optional.of(existing));
         var result = webhookService.processGetnetPayload("x", payload);
         assertThat(result.isSuccess()).isTrue();
-        // El servicio puede llamar a createFacturaInFacturante incluso para eventos duplicados
-        // verify(invoiceService, never()).createFacturaInFacturante(any());
+        assertThat(result.getWebhookEvent()).isSameAs(existing);
+        verify(transactionRepository, never()).upsertByExternalId(any(Transaction.class));
+        verify(invoiceService, never()).submitFacturaAfterCommit(any());
+        verify(webhookEventRepository, never()).save(any(WebhookEvent.class));
+        assertThat(meterRegistry.get("webhook_stage_duration").tags("stage", "idempotency", "outcome", "duplicate").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.find("webhook_stage_duration").tags("stage", "idempotency", "outcome", "success").timer())
+                .isNull();
+    }
+
+    @Test
+    void processGetnetPayload_previouslyFailedEvent_isReusedNotDuplicated() {
+        WebhookEvent failed = WebhookEvent.builder().eventHash(WebhookService.sha256Hex("{}")).processed(false).build();
+        when(webhookEventRepository.findByEventHash(WebhookService.sha256Hex("{}"))).thenReturn(Optional.of(failed));
+
+        var result = webhookService.processGetnetPayload("{}", payload);
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getWebhookEvent()).isSameAs(failed);
+        assertThat(failed.isProcessed()).isTrue();
+        verify(webhookEventRepository, times(1)).save(failed);
     }
 
     @Test
@@ -80,30 +164,34 @@ class WebhookServiceTest {
                 .invoiceNumber("0001-1").tenantId(UUID.randomUUID())
                 .build();
         when(transformationService.transformWebhookToTransaction(anyString(), any())).thenReturn(txRefunded);
-        when(transactionRepository.findByExternalId("P2")).thenReturn(Optional.empty());
         var result = webhookService.processGetnetPayload("{}", Map.of("id", "P2", "status", "REFUNDED", "amount", 100));
         assertThat(result.isSuccess()).isTrue();
-        verify(creditNoteService, atLeastOnce()).processRefund(any(), any());
+        verify(creditNoteService).submitRefund(any(), any());
+        // El reembolso se encola en la lane; nunca se ejecuta dentro de la transacción del webhook
+        verify(creditNoteService, never()).processRefund(any(), any());
     }
 
     @Test
-    void processGetnetPayload_withExistingTransaction_updatesIt() {
+    void processGetnetPayload_withExistingTransaction_usesUpsertedRow() {
+        // Fila existente ya facturada, tal como la devuelve el ON CONFLICT ... RETURNING
         Transaction existingTx = Transaction.builder()
                 .id(UUID.randomUUID())
                 .externalId("P1")
-                .status(TransactionStatus.AUTHORIZED)
-                .amount(new BigDecimal("50"))
+                .status(TransactionStatus.PAID)
+                .amount(new BigDecimal("100"))
+                .invoiceNumber("0001-00000005")
                 .build();
 
-        when(transactionRepository.findByExternalId("P1")).thenReturn(Optional.of(existingTx));
-        when(invoiceService.createFacturaInFacturante(any())).thenReturn(null); // Mock null invoice
+        when(transactionRepository.upsertByExternalId(any(Transaction.class))).thenReturn(existingTx);
 
         var result = webhookService.processGetnetPayload("{}", payload);
 
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(existingTx);
-        assertThat(existingTx.getStatus()).isEqualTo(TransactionStatus.PAID);
-        assertThat(existingTx.getAmount()).isEqualTo(new BigDecimal("100"));
+        assertThat(result.getTransaction()).isSameAs(existingTx);
+        verify(transactionRepository).upsertByExternalId(argThat(tx -> new BigDecimal("100").equals(tx.getAmount())
+                && tx.getStatus() == TransactionStatus.PAID));
+        verify(invoiceService, never()).submitFacturaAfterCommit(any());
+        assertThat(existingTx.getBillingStatus()).isEqualTo("not_applicable");
     }
 
     @Test
@@ -130,20 +218,36 @@ class WebhookServiceTest {
         var result = webhookService.processGetnetPayload("{}", payload);
         
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(any(Transaction.class));
+        verify(transactionRepository).upsertByExternalId(any(Transaction.class));
         // Verify that invoice service is not called when confirmation is required
-        verify(invoiceService, never()).createFacturaInFacturante(any());
+        verify(invoiceService, never()).submitFacturaAfterCommit(any());
     }
 
     @Test
     void processGetnetPayload_withInvoiceError_continuesProcessing() {
-        when(invoiceService.createFacturaInFacturante(any()))
+        when(invoiceService.submitFacturaAfterCommit(any()))
                 .thenThrow(new RuntimeException("Invoice creation failed"));
         
         var result = webhookService.processGetnetPayload("{}", payload);
         
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(any(Transaction.class));
+        verify(transactionRepository).upsertByExternalId(any(Transaction.class));
+        assertThat(txPaid.getBillingStatus()).isEqualTo("error");
+        assertThat(txPaid.getLastBillingError()).isEqualTo("Invoice creation failed");
+        assertThat(txPaid.getNextBillingAttemptAt()).isNull();
+    }
+
+    @Test
+    void processGetnetPayload_withRejectedInvoice_leavesTransactionForRetryEngine() {
+        when(invoiceService.submitFacturaAfterCommit(any())).thenReturn(java.util.concurrent.CompletableFuture.completedFuture(
+                Invoice.builder().id(UUID.randomUUID()).status("error").build()));
+
+        var result = webhookService.processGetnetPayload("{}", payload);
+
+        assertThat(result.isSuccess()).isTrue();
+        verify(transactionRepository).updateBillingOutcome(any(), eq("error"), isNull(),
+                eq("Facturante rechazó el comprobante"), any());
+        verify(transactionRepository, never()).updateBillingOutcome(any(), eq("billed"), any(), any(), any());
     }
 
     @Test
@@ -155,25 +259,25 @@ class WebhookServiceTest {
                 .build();
         
         when(transformationService.transformWebhookToTransaction(anyString(), any())).thenReturn(txRefunded);
-        when(transactionRepository.findByExternalId("P2")).thenReturn(Optional.empty());
-        when(creditNoteService.processRefund(any(), any()))
-                .thenThrow(new RuntimeException("Credit note creation failed"));
+        when(creditNoteService.submitRefund(any(), any()))
+                .thenReturn(java.util.concurrent.CompletableFuture.failedFuture(new RuntimeException("Credit note creation failed")));
         
         var result = webhookService.processGetnetPayload("{}", Map.of("id", "P2", "status", "REFUNDED", "amount", 100));
         
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(any(Transaction.class));
+        verify(transactionRepository).upsertByExternalId(any(Transaction.class));
     }
 
     @Test
     void processGetnetPayload_withTenantId_usesProvidedTenant() {
         UUID specificTenant = UUID.randomUUID();
-        when(invoiceService.createFacturaInFacturante(any())).thenReturn(null); // Mock null invoice
+        when(invoiceService.submitFacturaAfterCommit(any()))
+                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture(null)); // Mock null invoice
         
         var result = webhookService.processGetnetPayload("{}", payload, specificTenant);
         
         assertThat(result.isSuccess()).isTrue();
-        verify(transactionRepository, atLeastOnce()).save(argThat(tx -> specificTenant.equals(tx.getTenantId())));
+        verify(transactionRepository).upsertByExternalId(argThat(tx -> specificTenant.equals(tx.getTenantId())));
     }
 }
 
@@ -0,0 +1,94 @@
+package com.gf.simulator.facturante;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tope de comprobantes en emisión simultánea ({@code capacity.max-concurrent}, 0 = sin tope).
+ * Un request que no consigue lugar espera hasta {@code capacity.queue-timeout} (0 = rechazo
+ * inmediato) y después recibe SOAP Fault con HTTP {@code capacity.status}: es la saturación que
+ * tiene que absorber la contrapresión del backend.
+ */
+final class Capacity {
+
+    private final int maxConcurrent;
+    private final Duration queueTimeout;
+    private final int status;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    Capacity(int maxConcurrent, Duration queueTimeout, int status) {
+        this.maxConcurrent = maxConcurrent;
+        this.queueTimeout = queueTimeout;
+        this.status = status;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+    }
+
+    static Capacity from(SimulatorConfig config) {
+        return new Capacity(config.getInt("capacity.max-concurrent", 0),
+                config.getDuration("capacity.queue-timeout", Duration.ZERO),
+                config.getInt("capacity.status", 503));
+    }
+
+    /**
+     * Ocupa un lugar; devuelve false si no se consiguió dentro del tiempo de espera
+     */
+    boolean acquire() throws InterruptedException {
+        if (permits != null) {
+            boolean acquired;
+            if (queueTimeout.isZero()) {
+                acquired = permits.tryAcquire();
+            } else {
+                waiting.incrementAndGet();
+                try {
+                    acquired = permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                } finally {
+                    waiting.decrementAndGet();
+                }
+            }
+            if (!acquired) {
+                return false;
+            }
+        }
+        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    int status() {
+        return status;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    int waiting() {
+        return waiting.get();
+    }
+
+    int peak() {
+        return peak.get();
+    }
+
+    void resetPeak() {
+        peak.set(inFlight.get());
+    }
+
+    @Override
+    public String toString() {
+        return maxConcurrent > 0
+                ? maxConcurrent + " simultáneos, espera " + queueTimeout.toMillis() + "ms (" + status + ")"
+                : "sin tope";
+    }
+}
@@ -0,0 +1,155 @@
+package com.gf.simulator.facturante;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Contrato SOAP del servicio de comprobantes de Facturante ({@code IComprobantesService}):
+ * lectura del request de {@code CrearComprobante} y armado de las respuestas, con los mismos
+ * namespaces y nombres de elementos que el servicio WCF real y que lee
+ * {@code FacturanteSoapCodec} en el backend.
+ */
+final class ComprobantesSoap {
+
+    static final String SOAP_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+    static final String SERVICE_NS = "http://www.facturante.com.API";
+    static final String TYPES_NS = "http://schemas.datacontract.org/2004/07/FacturanteMVC.API.DTOs";
+    static final String CONTENT_TYPE = "text/xml; charset=utf-8";
+
+    /**
+     * Lo que el simulador necesita del request; los elementos se reconocen por nombre local
+     */
+    record Comprobante(String operacion, String empresa, String usuario, String hash,
+                       String tipoComprobante, String prefijo, BigDecimal total, int items) {
+    }
+
+    private final XMLInputFactory inputFactory;
+
+    ComprobantesSoap() {
+        inputFactory = XMLInputFactory.newDefaultFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    Comprobante read(InputStream in) throws XMLStreamException {
+        XMLStreamReader r = inputFactory.createXMLStreamReader(in);
+        try {
+            String operacion = null;
+            String seccion = null;
+            String empresa = null, usuario = null, hash = null, tipo = null, prefijo = null;
+            BigDecimal total = null;
+            int items = 0;
+            boolean enBody = false;
+
+            while (r.hasNext()) {
+                if (r.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = r.getLocalName();
+                if (!enBody) {
+                    enBody = "Body".equals(name);
+                    continue;
+                }
+                if (operacion == null) {
+                    operacion = name;
+                    continue;
+                }
+                switch (name) {
+                    case "Autenticacion", "Cliente", "Encabezado" -> seccion = name;
+                    case "ComprobanteItem" -> {
+                        seccion = name;
+                        items++;
+                    }
+                    default -> {
+                        if ("Autenticacion".equals(seccion)) {
+                            switch (name) {
+                                case "Empresa" -> empresa = text(r);
+                                case "Usuario" -> usuario = text(r);
+                                case "Hash" -> hash = text(r);
+                                default -> { }
+                            }
+                        } else if ("Encabezado".equals(seccion)) {
+                            switch (name) {
+                                case "TipoComprobante" -> tipo = text(r);
+                                case "Prefijo" -> prefijo = text(r);
+                                case "Total" -> {
+                                    String value = text(r);
+                                    total = value != null ? new BigDecimal(value) : null;
+                                }
+                                default -> { }
+                            }
+                        }
+                    }
+                }
+            }
+            if (operacion == null) {
+                throw new XMLStreamException("Envelope SOAP sin operación en el Body");
+            }
+            return new Comprobante(operacion, empresa, usuario, hash, tipo, prefijo, total, items);
+        } finally {
+            r.close();
+        }
+    }
+
+    static String aprobado(String numeroComprobante, String cae, LocalDate vencimientoCae, String pdfBaseUrl) {
+        return result(true, "Aprobado", List.of("Comprobante creado exitosamente"),
+                "<a:Cae>" + cae + "</a:Cae>"
+                + "<a:FechaVencimientoCae>" + vencimientoCae + "</a:FechaVencimientoCae>"
+                + "<a:NumeroComprobante>" + numeroComprobante + "</a:NumeroComprobante>"
+                + "<a:PdfUrl>" + escape(pdfBaseUrl + numeroComprobante + ".pdf") + "</a:PdfUrl>");
+    }
+
+    static String rechazado(List<String> mensajes) {
+        return result(false, "Rechazado", mensajes, "<a:Cae i:nil=\"true\"/><a:NumeroComprobante i:nil=\"true\"/>");
+    }
+
+    static String fault(String code, String message) {
+        return "<s:Envelope xmlns:s=\"" + SOAP_NS + "\"><s:Body><s:Fault>"
+                + "<faultcode>" + code + "</faultcode><faultstring xml:lang=\"es-AR\">" + escape(message) + "</faultstring>"
+                + "</s:Fault></s:Body></s:Envelope>";
+    }
+
+    private static String result(boolean exitoso, String estado, List<String> mensajes, String campos) {
+        StringBuilder xml = new StringBuilder(1024)
+                .append("<s:Envelope xmlns:s=\"").append(SOAP_NS).append("\"><s:Body>")
+                .append("<CrearComprobanteResponse xmlns=\"").append(SERVICE_NS).append("\">")
+                .append("<CrearComprobanteResult xmlns:a=\"").append(TYPES_NS)
+                .append("\" xmlns:i=\"http://www.w3.org/2001/XMLSchema-instance\">")
+                .append(campos)
+                .append("<a:Estado>").append(estado).append("</a:Estado>")
+                .append("<a:Exitoso>").append(exitoso).append("</a:Exitoso>")
+                .append("<a:Mensajes xmlns:b=\"http://schemas.microsoft.com/2003/10/Serialization/Arrays\">");
+        for (String mensaje : mensajes) {
+            xml.append("<b:string>").append(escape(mensaje)).append("</b:string>");
+        }
+        return xml.append("</a:Mensajes></CrearComprobanteResult></CrearComprobanteResponse></s:Body></s:Envelope>")
+                .toString();
+    }
+
+    private static String text(XMLStreamReader r) throws XMLStreamException {
+        String text = r.getElementText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
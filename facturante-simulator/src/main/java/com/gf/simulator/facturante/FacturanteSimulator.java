@@ -0,0 +1,333 @@
+package com.gf.simulator.facturante;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulador local del servicio SOAP de comprobantes de Facturante, para usar como destino de
+ * las pruebas de performance, contrapresión y reintentos del backend.
+ *
+ * Atiende {@code POST /api/Comprobantes.svc} ({@code CrearComprobante}) y, en orden, aplica:
+ * caída de AFIP ({@link FailureProfile}), cupo por empresa ({@link RateQuota}), validación
+ * del comprobante, tope de concurrencia ({@link Capacity}), latencia de emisión del CAE
+ * ({@link LatencyDistribution}) y fallas sorteadas. Los aprobados se numeran en forma
+ * correlativa por empresa, tipo y punto de venta ({@link Numerador}).
+ *
+ * Administración:
+ * <ul>
+ *   <li>{@code GET /__admin/health}</li>
+ *   <li>{@code GET /__admin/stats}: contadores, concurrencia y últimos números emitidos</li>
+ *   <li>{@code POST /__admin/outage?duration=30s}: fuerza una caída de AFIP</li>
+ *   <li>{@code POST /__admin/reset}: reinicia contadores, numeración y cupos</li>
+ * </ul>
+ *
+ * Uso: {@code java -jar facturante-simulator.jar [clave=valor ...]}; ver simulator.properties.
+ */
+public final class FacturanteSimulator implements AutoCloseable {
+
+    static {
+        // Respuestas keep-alive sin los ~40 ms de Nagle + ACK demorado del cliente; se lee una sola vez
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final List<String> RECHAZOS_AFIP = List.of(
+            "AFIP 10016: El número o fecha del comprobante no se corresponde con el próximo a autorizar (simulado)",
+            "AFIP 10048: El importe total no coincide con la suma de los importes del comprobante (simulado)",
+            "AFIP 10013: Para comprobantes clase A el receptor debe identificarse con CUIT (simulado)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String servicePath;
+    private final String pdfBaseUrl;
+    private final LatencyDistribution latency;
+    private final FailureProfile failures;
+    private final RateQuota quota;
+    private final Capacity capacity;
+    private final Numerador numerador;
+    private final SimulatorStats stats = new SimulatorStats();
+    private final ComprobantesSoap soap = new ComprobantesSoap();
+    private final Random seeded;
+    private final String empresa;
+    private final String usuario;
+    private final String hash;
+    private final long startedAtMs = System.currentTimeMillis();
+
+    FacturanteSimulator(SimulatorConfig config) throws IOException {
+        this.servicePath = config.get("server.path", "/api/Comprobantes.svc");
+        this.pdfBaseUrl = config.get("pdf.base-url", "http://localhost/pdf/");
+        this.latency = LatencyDistribution.from(config);
+        this.failures = FailureProfile.from(config, startedAtMs);
+        this.quota = RateQuota.from(config);
+        this.capacity = Capacity.from(config);
+        this.numerador = new Numerador(config.getInt("numbering.start", 1));
+        String seed = config.get("random.seed", null);
+        this.seeded = seed != null ? new Random(Long.parseLong(seed)) : null;
+        this.empresa = config.get("auth.empresa", null);
+        this.usuario = config.get("auth.usuario", null);
+        this.hash = config.get("auth.hash", null);
+
+        this.server = HttpServer.create(new InetSocketAddress(config.get("server.host", "0.0.0.0"),
+                config.getInt("server.port", 18082)), config.getInt("server.backlog", 1024));
+        // Hilos sin tope a propósito: el único límite de concurrencia es capacity.max-concurrent
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "facturante-sim-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(servicePath, exchange -> serve(exchange, this::comprobantes));
+        server.createContext("/__admin/", exchange -> serve(exchange, this::admin));
+    }
+
+    public static void main(String[] args) throws IOException {
+        FacturanteSimulator simulator = new FacturanteSimulator(SimulatorConfig.load(args, System.getenv()));
+        simulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close, "facturante-sim-shutdown"));
+        System.out.println("Simulador de Facturante en " + simulator.serviceUrl());
+        System.out.println("  latencia:     " + simulator.latency);
+        System.out.println("  fallas:       " + simulator.failures);
+        System.out.println("  cupo:         " + simulator.quota);
+        System.out.println("  concurrencia: " + simulator.capacity);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    String serviceUrl() {
+        return "http://localhost:" + port() + servicePath;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void comprobantes(HttpExchange exchange) throws IOException, InterruptedException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "text/plain; charset=utf-8", "Solo POST (SOAP 1.1)");
+            return;
+        }
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        ComprobantesSoap.Comprobante comprobante;
+        try {
+            comprobante = soap.read(new ByteArrayInputStream(body));
+        } catch (XMLStreamException | NumberFormatException e) {
+            fault(exchange, "invalido", 400, "s:Client", "Request SOAP inválido: " + e.getMessage(), 0);
+            return;
+        }
+        if (!"CrearComprobante".equals(comprobante.operacion())) {
+            fault(exchange, "no_soportado", 500, "s:Client", "Operación no soportada por el simulador: " + comprobante.operacion(), 0);
+            return;
+        }
+
+        long outage = failures.outageRemainingMs(System.currentTimeMillis());
+        if (outage > 0) {
+            fault(exchange, "caida", failures.outageStatus(), "s:Server",
+                    "AFIP no disponible: servicio de autorización fuera de línea (simulado)", (outage + 999) / 1000);
+            return;
+        }
+        if (!quota.tryAcquire(comprobante.empresa(), System.nanoTime())) {
+            fault(exchange, "cupo", quota.status(), "s:Server",
+                    "Límite de solicitudes excedido para la empresa " + comprobante.empresa(), quota.retryAfterSeconds());
+            return;
+        }
+        List<String> errores = validar(comprobante);
+        if (!errores.isEmpty()) {
+            stats.count("rechazado_validacion");
+            respond(exchange, 200, ComprobantesSoap.CONTENT_TYPE, ComprobantesSoap.rechazado(errores));
+            return;
+        }
+        if (!capacity.acquire()) {
+            fault(exchange, "saturado", capacity.status(), "s:Server", "Servicio saturado, reintente más tarde", 1);
+            return;
+        }
+        try {
+            Random random = random();
+            Thread.sleep(latency.sampleMillis(random));
+            switch (failures.draw(random)) {
+                case ERROR -> fault(exchange, "error", failures.errorStatus(), "s:Server",
+                        "Error interno al emitir el comprobante (simulado)", 0);
+                case TIMEOUT -> {
+                    Thread.sleep(failures.timeout().toMillis());
+                    fault(exchange, "timeout", 504, "s:Server", "Tiempo de espera agotado con AFIP (simulado)", 0);
+                }
+                case REJECT -> {
+                    stats.count("rechazado");
+                    respond(exchange, 200, ComprobantesSoap.CONTENT_TYPE,
+                            ComprobantesSoap.rechazado(List.of(RECHAZOS_AFIP.get(random.nextInt(RECHAZOS_AFIP.size())))));
+                }
+                case OK -> {
+                    long numero = numerador.siguiente(comprobante.empresa(), comprobante.tipoComprobante(), comprobante.prefijo());
+                    String numeroComprobante = comprobante.prefijo() + "-" + String.format(Locale.ROOT, "%08d", numero);
+                    String cae = String.format(Locale.ROOT, "7%013d", Math.floorMod(random.nextLong(), 10_000_000_000_000L));
+                    stats.count("aprobado");
+                    respond(exchange, 200, ComprobantesSoap.CONTENT_TYPE,
+                            ComprobantesSoap.aprobado(numeroComprobante, cae, LocalDate.now().plusDays(10), pdfBaseUrl));
+                }
+            }
+        } finally {
+            capacity.release();
+        }
+    }
+
+    /**
+     * Validaciones que Facturante resuelve sin llegar a AFIP: credenciales y campos obligatorios
+     */
+    private List<String> validar(ComprobantesSoap.Comprobante comprobante) {
+        List<String> errores = new ArrayList<>(2);
+        if (comprobante.empresa() == null || comprobante.usuario() == null || comprobante.hash() == null
+                || (empresa != null && !empresa.equals(comprobante.empresa()))
+                || (usuario != null && !usuario.equals(comprobante.usuario()))
+                || (hash != null && !hash.equals(comprobante.hash()))) {
+            errores.add("Credenciales inválidas");
+        }
+        if (comprobante.tipoComprobante() == null) {
+            errores.add("El tipo de comprobante es obligatorio");
+        }
+        if (comprobante.prefijo() == null) {
+            errores.add("El punto de venta (Prefijo) es obligatorio");
+        }
+        if (comprobante.total() == null || comprobante.total().compareTo(BigDecimal.ZERO) <= 0) {
+            errores.add("El total del comprobante debe ser mayor a cero");
+        }
+        if (comprobante.items() == 0) {
+            errores.add("El comprobante debe tener al menos un ítem");
+        }
+        return errores;
+    }
+
+    private void admin(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        switch (method + " " + path) {
+            case "GET /__admin/health" -> respond(exchange, 200, "text/plain; charset=utf-8", "ok");
+            case "GET /__admin/stats" -> respond(exchange, 200, "application/json", statsJson());
+            case "POST /__admin/reset" -> {
+                stats.reset();
+                numerador.reset();
+                quota.reset();
+                capacity.resetPeak();
+                respond(exchange, 204, "application/json", "");
+            }
+            case "POST /__admin/outage" -> {
+                Duration duration = SimulatorConfig.parseDuration(queryParam(exchange.getRequestURI(), "duration", "30s"));
+                failures.forceOutage(System.currentTimeMillis(), duration);
+                respond(exchange, 202, "application/json", "{\"outageSeconds\":" + duration.toSeconds() + "}");
+            }
+            default -> respond(exchange, 404, "text/plain; charset=utf-8", "No encontrado");
+        }
+    }
+
+    private String statsJson() {
+        StringBuilder json = new StringBuilder(512)
+                .append("{\"uptimeSeconds\":").append((System.currentTimeMillis() - startedAtMs) / 1000)
+                .append(",\"outageRemainingMs\":").append(failures.outageRemainingMs(System.currentTimeMillis()))
+                .append(",\"inFlight\":").append(capacity.inFlight())
+                .append(",\"waiting\":").append(capacity.waiting())
+                .append(",\"peakInFlight\":").append(capacity.peak())
+                .append(",\"requests\":");
+        appendMap(json, stats.snapshot());
+        json.append(",\"ultimosNumeros\":");
+        appendMap(json, numerador.ultimos());
+        return json.append('}').toString();
+    }
+
+    private static void appendMap(StringBuilder json, Map<String, Long> values) {
+        json.append('{');
+        values.forEach((key, value) -> {
+            if (json.charAt(json.length() - 1) != '{') {
+                json.append(',');
+            }
+            json.append('"').append(key.replace("\\", "\\\\").replace("\"", "\\\"")).append("\":").append(value);
+        });
+        json.append('}');
+    }
+
+    private Random random() {
+        return seeded != null ? seeded : ThreadLocalRandom.current();
+    }
+
+    private void fault(HttpExchange exchange, String outcome, int status, String code, String message,
+                       long retryAfterSeconds) throws IOException {
+        stats.count(outcome);
+        if (retryAfterSeconds > 0) {
+            exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+        }
+        respond(exchange, status, ComprobantesSoap.CONTENT_TYPE, ComprobantesSoap.fault(code, message));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String queryParam(URI uri, String name, String defaultValue) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                    return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private void serve(HttpExchange exchange, Handler handler) {
+        try {
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            try {
+                fault(exchange, "error_simulador", 500, "s:Server", "Error del simulador: " + e.getMessage(), 0);
+            } catch (IOException ignored) {
+                // la conexión ya no sirve
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gf.simulator.facturante;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Fallas inyectadas, sorteadas por request después de la latencia:
+ * <ul>
+ *   <li>{@code errors.rate}: SOAP Fault con HTTP {@code errors.status} (error interno de Facturante)</li>
+ *   <li>{@code errors.reject-rate}: rechazo funcional de AFIP, HTTP 200 con {@code Exitoso=false}</li>
+ *   <li>{@code errors.timeout-rate}: el request queda colgado {@code errors.timeout} antes de responder
+ *       504, para ejercitar los timeouts del cliente</li>
+ * </ul>
+ * Además, caídas de AFIP: a partir de {@code outage.every} desde el arranque y cada
+ * {@code outage.every}, durante {@code outage.duration} todos los requests reciben SOAP Fault
+ * con HTTP {@code outage.status}. {@code POST /__admin/outage?duration=30s} fuerza una caída.
+ */
+final class FailureProfile {
+
+    enum Outcome { OK, ERROR, REJECT, TIMEOUT }
+
+    private final double errorRate;
+    private final int errorStatus;
+    private final double rejectRate;
+    private final double timeoutRate;
+    private final Duration timeout;
+    private final long outageEveryMs;
+    private final long outageDurationMs;
+    private final int outageStatus;
+    private final long startedAtMs;
+    private volatile long forcedOutageUntilMs;
+
+    FailureProfile(double errorRate, int errorStatus, double rejectRate, double timeoutRate, Duration timeout,
+                   Duration outageEvery, Duration outageDuration, int outageStatus, long startedAtMs) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.rejectRate = rejectRate;
+        this.timeoutRate = timeoutRate;
+        this.timeout = timeout;
+        this.outageEveryMs = outageEvery.toMillis();
+        this.outageDurationMs = outageDuration.toMillis();
+        this.outageStatus = outageStatus;
+        this.startedAtMs = startedAtMs;
+    }
+
+    static FailureProfile from(SimulatorConfig config, long startedAtMs) {
+        return new FailureProfile(
+                config.getDouble("errors.rate", 0),
+                config.getInt("errors.status", 500),
+                config.getDouble("errors.reject-rate", 0),
+                config.getDouble("errors.timeout-rate", 0),
+                config.getDuration("errors.timeout", Duration.ofSeconds(60)),
+                config.getDuration("outage.every", Duration.ZERO),
+                config.getDuration("outage.duration", Duration.ofSeconds(30)),
+                config.getInt("outage.status", 503),
+                startedAtMs);
+    }
+
+    Outcome draw(Random random) {
+        double roll = random.nextDouble();
+        if (roll < errorRate) {
+            return Outcome.ERROR;
+        }
+        if (roll < errorRate + timeoutRate) {
+            return Outcome.TIMEOUT;
+        }
+        if (roll < errorRate + timeoutRate + rejectRate) {
+            return Outcome.REJECT;
+        }
+        return Outcome.OK;
+    }
+
+    /**
+     * Milisegundos que faltan para que termine la caída en curso, o 0 si AFIP está disponible
+     */
+    long outageRemainingMs(long nowMs) {
+        long forced = forcedOutageUntilMs - nowMs;
+        long scheduled = 0;
+        long elapsed = nowMs - startedAtMs;
+        if (outageEveryMs > 0 && elapsed >= outageEveryMs) {
+            long phase = elapsed % outageEveryMs;
+            if (phase < outageDurationMs) {
+                scheduled = outageDurationMs - phase;
+            }
+        }
+        return Math.max(0, Math.max(forced, scheduled));
+    }
+
+    void forceOutage(long nowMs, Duration duration) {
+        forcedOutageUntilMs = nowMs + duration.toMillis();
+    }
+
+    int errorStatus() {
+        return errorStatus;
+    }
+
+    int outageStatus() {
+        return outageStatus;
+    }
+
+    Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "errores " + pct(errorRate) + " (" + errorStatus + "), rechazos " + pct(rejectRate)
+                + ", timeouts " + pct(timeoutRate) + " (" + timeout.toSeconds() + "s)"
+                + (outageEveryMs > 0 ? ", caída de " + outageDurationMs / 1000 + "s cada " + outageEveryMs / 1000 + "s" : "");
+    }
+
+    private static String pct(double rate) {
+        return (rate * 100) + "%";
+    }
+}
@@ -0,0 +1,85 @@
+package com.gf.simulator.facturante;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Distribución del tiempo de emisión del CAE. Todas se recortan a {@code latency.max}.
+ * <ul>
+ *   <li>{@code fixed}: siempre {@code latency.median}</li>
+ *   <li>{@code uniform}: entre {@code latency.min} y {@code latency.max}</li>
+ *   <li>{@code normal}: media {@code latency.median}, desvío {@code latency.stddev}, desde {@code latency.min}</li>
+ *   <li>{@code lognormal}: mediana {@code latency.median} y percentil 99 {@code latency.p99}; la cola
+ *       larga que se ve en AFIP cuando está cargado</li>
+ *   <li>{@code exponential}: {@code latency.min} más una cola exponencial, con mediana total {@code latency.median}</li>
+ * </ul>
+ */
+final class LatencyDistribution {
+
+    /** z del percentil 99 de la normal estándar */
+    private static final double Z_99 = 2.3263478740408408;
+
+    enum Kind { FIXED, UNIFORM, NORMAL, LOGNORMAL, EXPONENTIAL }
+
+    private final Kind kind;
+    private final long minMs;
+    private final long medianMs;
+    private final long maxMs;
+    private final double spread;
+
+    LatencyDistribution(Kind kind, long minMs, long medianMs, long maxMs, double spread) {
+        if (maxMs < minMs) {
+            throw new IllegalArgumentException("latency.max menor que latency.min");
+        }
+        this.kind = kind;
+        this.minMs = minMs;
+        this.medianMs = medianMs;
+        this.maxMs = maxMs;
+        this.spread = spread;
+    }
+
+    static LatencyDistribution from(SimulatorConfig config) {
+        Kind kind = Kind.valueOf(config.get("latency.distribution", "lognormal").toUpperCase(Locale.ROOT));
+        long min = config.getDuration("latency.min", Duration.ZERO).toMillis();
+        long median = config.getDuration("latency.median", Duration.ofMillis(300)).toMillis();
+        long max = config.getDuration("latency.max", Duration.ofSeconds(30)).toMillis();
+        double spread = switch (kind) {
+            case NORMAL -> config.getDuration("latency.stddev", Duration.ofMillis(median / 4)).toMillis();
+            // sigma del logaritmo tal que el percentil 99 caiga en latency.p99
+            case LOGNORMAL -> {
+                long p99 = config.getDuration("latency.p99", Duration.ofMillis(median * 5)).toMillis();
+                if (median <= 0 || p99 < median) {
+                    throw new IllegalArgumentException("lognormal requiere 0 < latency.median <= latency.p99");
+                }
+                yield Math.log((double) p99 / median) / Z_99;
+            }
+            case EXPONENTIAL -> Math.max(0, median - min) / Math.log(2);
+            default -> 0;
+        };
+        return new LatencyDistribution(kind, min, median, max, spread);
+    }
+
+    long sampleMillis(Random random) {
+        double value = switch (kind) {
+            case FIXED -> medianMs;
+            case UNIFORM -> minMs + random.nextDouble() * (maxMs - minMs);
+            case NORMAL -> medianMs + random.nextGaussian() * spread;
+            case LOGNORMAL -> medianMs * Math.exp(random.nextGaussian() * spread);
+            case EXPONENTIAL -> minMs - Math.log(1 - random.nextDouble()) * spread;
+        };
+        return Math.max(minMs, Math.min(maxMs, Math.round(value)));
+    }
+
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case FIXED -> "fixed " + medianMs + "ms";
+            case UNIFORM -> "uniform " + minMs + "-" + maxMs + "ms";
+            case NORMAL -> String.format(Locale.ROOT, "normal %dms ± %.0fms", medianMs, spread);
+            case LOGNORMAL -> String.format(Locale.ROOT, "lognormal mediana %dms, p99 %.0fms (máx %dms)",
+                    medianMs, medianMs * Math.exp(spread * Z_99), maxMs);
+            case EXPONENTIAL -> String.format(Locale.ROOT, "exponential %dms + exp(media %.0fms)", minMs, spread);
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.gf.simulator.facturante;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numeración correlativa de comprobantes, como la lleva AFIP: un contador por empresa, tipo de
+ * comprobante y punto de venta (prefijo). Solo avanza con los comprobantes aprobados, así que
+ * los rechazos y errores no dejan huecos.
+ */
+final class Numerador {
+
+    private final long start;
+    private final Map<String, AtomicLong> ultimos = new ConcurrentHashMap<>();
+
+    Numerador(long start) {
+        this.start = start;
+    }
+
+    /**
+     * Próximo número para la combinación
+     */
+    long siguiente(String empresa, String tipoComprobante, String puntoDeVenta) {
+        return ultimos.computeIfAbsent(clave(empresa, tipoComprobante, puntoDeVenta), k -> new AtomicLong(start - 1))
+                .incrementAndGet();
+    }
+
+    /**
+     * Último número emitido por combinación ({@code empresa/tipo/punto de venta})
+     */
+    Map<String, Long> ultimos() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        ultimos.forEach((clave, ultimo) -> snapshot.put(clave, ultimo.get()));
+        return snapshot;
+    }
+
+    void reset() {
+        ultimos.clear();
+    }
+
+    private static String clave(String empresa, String tipoComprobante, String puntoDeVenta) {
+        return (empresa == null ? "" : empresa) + "/" + tipoComprobante + "/" + puntoDeVenta;
+    }
+}
@@ -0,0 +1,85 @@
+package com.gf.simulator.facturante;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cupo de requests por empresa (token bucket): {@code quota.per-second} sostenidos con ráfagas de
+ * hasta {@code quota.burst}. Con {@code quota.per-second=0} no hay límite. Lo que excede el cupo
+ * recibe SOAP Fault con HTTP {@code quota.status} y {@code Retry-After}, como un throttling del
+ * lado de Facturante.
+ */
+final class RateQuota {
+
+    private final double perSecond;
+    private final double burst;
+    private final int status;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    RateQuota(double perSecond, double burst, int status) {
+        this.perSecond = perSecond;
+        this.burst = Math.max(1, burst);
+        this.status = status;
+    }
+
+    static RateQuota from(SimulatorConfig config) {
+        double perSecond = config.getDouble("quota.per-second", 0);
+        return new RateQuota(perSecond, config.getDouble("quota.burst", Math.max(1, perSecond)), config.getInt("quota.status", 429));
+    }
+
+    boolean enabled() {
+        return perSecond > 0;
+    }
+
+    /**
+     * Consume un token de la empresa; devuelve false si el cupo está agotado
+     */
+    boolean tryAcquire(String empresa, long nowNanos) {
+        if (!enabled()) {
+            return true;
+        }
+        return buckets.computeIfAbsent(empresa == null ? "" : empresa, k -> new Bucket(burst, nowNanos))
+                .tryAcquire(nowNanos, perSecond, burst);
+    }
+
+    /**
+     * Segundos hasta el próximo token, para el header Retry-After
+     */
+    long retryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(1 / perSecond));
+    }
+
+    int status() {
+        return status;
+    }
+
+    void reset() {
+        buckets.clear();
+    }
+
+    @Override
+    public String toString() {
+        return enabled() ? perSecond + " req/s por empresa (ráfaga " + burst + ", " + status + ")" : "sin cupo";
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastNanos;
+
+        Bucket(double tokens, long nowNanos) {
+            this.tokens = tokens;
+            this.lastNanos = nowNanos;
+        }
+
+        synchronized boolean tryAcquire(long nowNanos, double perSecond, double burst) {
+            tokens = Math.min(burst, tokens + (nowNanos - lastNanos) / 1e9 * perSecond);
+            lastNanos = nowNanos;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
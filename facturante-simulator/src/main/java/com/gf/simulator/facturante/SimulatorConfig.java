@@ -0,0 +1,105 @@
+package com.gf.simulator.facturante;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Configuración del simulador, en orden de prioridad creciente:
+ * <ol>
+ *   <li>{@code simulator.properties} del classpath (valores por defecto documentados)</li>
+ *   <li>el archivo indicado con {@code config=/ruta/archivo.properties}</li>
+ *   <li>variables de entorno {@code FACTURANTE_SIM_<CLAVE>}, p. ej. {@code FACTURANTE_SIM_LATENCY_MEDIAN}
+ *       para {@code latency.median}</li>
+ *   <li>argumentos {@code clave=valor} de la línea de comandos</li>
+ * </ol>
+ * Las duraciones aceptan {@code 250ms}, {@code 2s}, {@code 5m} o un número en milisegundos.
+ */
+final class SimulatorConfig {
+
+    static final String ENV_PREFIX = "FACTURANTE_SIM_";
+
+    private final Properties properties;
+
+    SimulatorConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    static SimulatorConfig load(String[] args, Map<String, String> env) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = SimulatorConfig.class.getResourceAsStream("/simulator.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Argumento inválido (se espera clave=valor): " + arg);
+            }
+            overrides.setProperty(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+
+        String file = overrides.getProperty("config", env.get(ENV_PREFIX + "CONFIG"));
+        if (file != null && !file.isBlank()) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        for (String key : properties.stringPropertyNames()) {
+            String value = env.get(envName(key));
+            if (value != null && !value.isBlank()) {
+                properties.setProperty(key, value);
+            }
+        }
+        properties.putAll(overrides);
+        return new SimulatorConfig(properties);
+    }
+
+    static String envName(String key) {
+        return ENV_PREFIX + key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+    }
+
+    String get(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = get(key, null);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    Duration getDuration(String key, Duration defaultValue) {
+        String value = get(key, null);
+        return value != null ? parseDuration(value) : defaultValue;
+    }
+
+    static Duration parseDuration(String value) {
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2).trim()));
+        }
+        if (v.endsWith("s")) {
+            return Duration.ofMillis(Math.round(Double.parseDouble(v.substring(0, v.length() - 1).trim()) * 1000));
+        }
+        if (v.endsWith("m")) {
+            return Duration.ofSeconds(Math.round(Double.parseDouble(v.substring(0, v.length() - 1).trim()) * 60));
+        }
+        return Duration.ofMillis(Long.parseLong(v));
+    }
+}
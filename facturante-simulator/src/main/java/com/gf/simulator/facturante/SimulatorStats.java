@@ -0,0 +1,30 @@
+package com.gf.simulator.facturante;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de requests por resultado ({@code aprobado}, {@code rechazado}, {@code caida},
+ * {@code cupo}, {@code saturado}, {@code error}, {@code timeout}, ...), expuestos en
+ * {@code GET /__admin/stats} para cruzarlos con lo que registró el backend.
+ */
+final class SimulatorStats {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    void count(String outcome) {
+        counters.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, value) -> snapshot.put(key, value.sum()));
+        return snapshot;
+    }
+
+    void reset() {
+        counters.clear();
+    }
+}
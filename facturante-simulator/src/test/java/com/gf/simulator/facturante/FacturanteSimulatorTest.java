@@ -0,0 +1,137 @@
+package com.gf.simulator.facturante;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FacturanteSimulatorTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private FacturanteSimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void numeraCorrelativoPorPuntoDeVenta() throws Exception {
+        start();
+
+        assertTrue(send(comprobante("00001")).body().contains("<a:NumeroComprobante>00001-00000001<"));
+        assertTrue(send(comprobante("00001")).body().contains("<a:NumeroComprobante>00001-00000002<"));
+        assertTrue(send(comprobante("00002")).body().contains("<a:NumeroComprobante>00002-00000001<"));
+        assertTrue(admin("GET", "/__admin/stats").body().contains("\"aprobado\":3"));
+    }
+
+    @Test
+    void comprobanteSinItems_esRechazoFuncional() throws Exception {
+        start();
+
+        HttpResponse<String> response = send(comprobante("00001").replace("<a:Items><a:ComprobanteItem><a:Cantidad>1</a:Cantidad></a:ComprobanteItem></a:Items>", ""));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("<a:Exitoso>false<"));
+        assertTrue(response.body().contains("al menos un ítem"));
+    }
+
+    @Test
+    void caidaForzada_respondeFaultConRetryAfter() throws Exception {
+        start();
+        assertEquals(202, admin("POST", "/__admin/outage?duration=5s").statusCode());
+
+        HttpResponse<String> response = send(comprobante("00001"));
+
+        assertEquals(503, response.statusCode());
+        assertTrue(response.body().contains("<s:Fault>"));
+        assertTrue(response.headers().firstValue("Retry-After").isPresent());
+    }
+
+    @Test
+    void cupoPorEmpresa_rechazaElExcedente() throws Exception {
+        start("quota.per-second=1", "quota.burst=1");
+
+        assertEquals(200, send(comprobante("00001")).statusCode());
+        assertEquals(429, send(comprobante("00001")).statusCode());
+    }
+
+    @Test
+    void topeDeConcurrencia_sinEspera_rechazaLosQueNoEntran() throws Exception {
+        start("capacity.max-concurrent=1", "latency.median=500ms", "latency.max=500ms");
+
+        CompletableFuture<HttpResponse<String>> primero = sendAsync(comprobante("00001"));
+        Thread.sleep(150);
+        HttpResponse<String> segundo = send(comprobante("00001"));
+
+        assertEquals(503, segundo.statusCode());
+        assertEquals(200, primero.get().statusCode());
+    }
+
+    @Test
+    void lognormal_respetaMedianaYPercentil99() throws Exception {
+        SimulatorConfig config = SimulatorConfig.load(new String[]{
+                "latency.distribution=lognormal", "latency.min=0ms", "latency.median=300ms", "latency.p99=2s", "latency.max=1m"}, Map.of());
+        LatencyDistribution latency = LatencyDistribution.from(config);
+        Random random = new Random(42);
+        long[] samples = new long[50_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = latency.sampleMillis(random);
+        }
+        Arrays.sort(samples);
+
+        assertEquals(300, samples[samples.length / 2], 20);
+        assertEquals(2_000, samples[(int) (samples.length * 0.99)], 200);
+    }
+
+    private void start(String... overrides) throws Exception {
+        String[] args = Stream.concat(Stream.of("server.host=localhost", "server.port=0",
+                "latency.distribution=fixed", "latency.min=0ms", "latency.median=0ms"), Stream.of(overrides))
+                .toArray(String[]::new);
+        simulator = new FacturanteSimulator(SimulatorConfig.load(args, Map.of()));
+        simulator.start();
+    }
+
+    private HttpResponse<String> send(String body) throws Exception {
+        return client.send(request(body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(String body) {
+        return client.sendAsync(request(body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String body) {
+        return HttpRequest.newBuilder(URI.create(simulator.serviceUrl()))
+                .header("Content-Type", ComprobantesSoap.CONTENT_TYPE)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> admin(String method, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + simulator.port() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String comprobante(String prefijo) {
+        return "<s:Envelope xmlns:s=\"" + ComprobantesSoap.SOAP_NS + "\" xmlns:a=\"" + ComprobantesSoap.TYPES_NS + "\"><s:Body>"
+                + "<CrearComprobante xmlns=\"" + ComprobantesSoap.SERVICE_NS + "\"><request>"
+                + "<a:Autenticacion><a:Empresa>EMP</a:Empresa><a:Hash>h</a:Hash><a:Usuario>u</a:Usuario></a:Autenticacion>"
+                + "<a:Encabezado><a:Prefijo>" + prefijo + "</a:Prefijo><a:TipoComprobante>FB</a:TipoComprobante>"
+                + "<a:Total>121.00</a:Total></a:Encabezado>"
+                + "<a:Items><a:ComprobanteItem><a:Cantidad>1</a:Cantidad></a:ComprobanteItem></a:Items>"
+                + "</request></CrearComprobante></s:Body></s:Envelope>";
+    }
+}
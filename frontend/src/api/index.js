@@ -173,6 +173,78 @@ const HTTP = USE_MOCKS ? { get: apiGet, post: apiPost } : { get: apiGet, post: a
 // Exportar axiosInstance como 'api' para compatibilidad con componentes Dashboard y Reports
 const api = axiosInstance
 
-export { API, USE_MOCKS, HTTP, api }
+/**
+ * Suscripción a un stream SSE del backend con el mismo Authorization que axios.
+ * EventSource no permite headers, así que se lee el stream con fetch y se parsea el
+ * formato SSE a mano. Reconecta solo (con el 'retry' que indique el servidor) hasta
+ * que se llame a la función devuelta. onEvent recibe (nombre, datos ya parseados).
+ */
+const streamEvents = (path, onEvent) => {
+  if (USE_MOCKS) return () => {}
+  const controller = new AbortController()
+  let retryMs = 3000
+  let closed = false
+
+  const dispatch = (block) => {
+    let name = 'message'
+    const data = []
+    for (const line of block.split('\n')) {
+      if (!line || line.startsWith(':')) continue
+      const sep = line.indexOf(':')
+      const field = sep >= 0 ? line.slice(0, sep) : line
+      const value = sep >= 0 ? line.slice(sep + 1).replace(/^ /, '') : ''
+      if (field === 'event') name = value
+      else if (field === 'data') data.push(value)
+      else if (field === 'retry' && /^\d+$/.test(value)) retryMs = Number(value)
+    }
+    if (data.length === 0) return
+    const raw = data.join('\n')
+    let parsed = raw
+    try { parsed = JSON.parse(raw) } catch {}
+    onEvent(name, parsed)
+  }
+
+  const connect = async () => {
+    while (!closed) {
+      try {
+        const token = localStorage.getItem('accessToken')
+        const res = await fetch(`${API}${path}`, {
+          headers: { Accept: 'text/event-stream', ...(token ? { Authorization: `Bearer ${token}` } : {}) },
+          signal: controller.signal
+        })
+        if (res.status === 401) {
+          try { localStorage.removeItem('accessToken') } catch {}
+          window.location.href = '/'
+          return
+        }
+        if (!res.ok || !res.body) throw new Error(`HTTP ${res.status}`)
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader()
+        let buffer = ''
+        while (true) {
+          const { value, done } = await reader.read()
+          if (done) break
+          buffer = (buffer + value).replace(/\r\n?/g, '\n')
+          let end
+          while ((end = buffer.indexOf('\n\n')) >= 0) {
+            dispatch(buffer.slice(0, end))
+            buffer = buffer.slice(end + 2)
+          }
+        }
+      } catch (err) {
+        if (closed) return
+      }
+      // Fin del stream (timeout del emitter, reinicio del servidor): reconectar
+      await new Promise(res => setTimeout(res, retryMs))
+    }
+  }
+
+  connect()
+  return () => {
+    closed = true
+    controller.abort()
+  }
+}
+
+export { API, USE_MOCKS, HTTP, api, streamEvents }
 
 
@@ -1,8 +1,31 @@
-import React, { useState, useEffect } from 'react';
-import { api } from '../api';
+import React, { useState, useEffect, useRef } from 'react';
+import { api, streamEvents } from '../api';
 import StatsGrid from './StatsGrid';
 import './Dashboard.css';
 
+const today = () => new Date().toISOString().split('T')[0];
+
+// Aplica un delta de /api/dashboard/live a las estadísticas del período (solo si el período incluye hoy)
+const applyLiveDelta = (stats, delta) => {
+  const sum = (values) => Object.values(values || {}).reduce((acc, v) => acc + Number(v), 0);
+  const byStatus = (code) => Number(delta.byStatus?.[code] || 0);
+  const next = {
+    ...stats,
+    totalTransactions: stats.totalTransactions + sum(delta.byStatus),
+    totalAmount: Math.round((Number(stats.totalAmount || 0) + sum(delta.amountByStatus)) * 100) / 100,
+    totalInvoices: stats.totalInvoices + Number(delta.invoices || 0),
+    pendingTransactions: stats.pendingTransactions + Number(delta.byBillingStatus?.pending || 0),
+    paidTransactions: (stats.paidTransactions || 0) + byStatus('paid'),
+    authorizedTransactions: (stats.authorizedTransactions || 0) + byStatus('authorized'),
+    refundedTransactions: (stats.refundedTransactions || 0) + byStatus('refunded'),
+    failedTransactions: (stats.failedTransactions || 0) + byStatus('failed')
+  };
+  next.successRate = next.totalTransactions > 0
+    ? ((next.paidTransactions + next.authorizedTransactions) / next.totalTransactions) * 100
+    : 0;
+  return next;
+};
+
 const Dashboard = () => {
   const [stats, setStats] = useState({
     totalTransactions: 0,
@@ -22,11 +45,46 @@ const Dashboard = () => {
     end: new Date().toISOString().split('T')[0]
   });
 
+  const liveVersion = useRef(null);
+
   useEffect(() => {
     console.log('Dashboard montado, cargando datos...');
     loadDashboardData();
   }, [dateRange]);
 
+  // Las estadísticas se cargan una vez por período y después se actualizan con el stream
+  // de métricas en vivo (snapshot + deltas versionados) en lugar de volver a consultar /stats
+  useEffect(() => {
+    if (dateRange.end < today()) return undefined;
+    liveVersion.current = null;
+    return streamEvents('/api/dashboard/live', (name, data) => {
+      if (name === 'snapshot') {
+        // En una reconexión, si la versión avanzó se perdieron deltas: se recarga el período
+        if (liveVersion.current !== null && data.version !== liveVersion.current) reloadStats();
+        liveVersion.current = data.version;
+      } else if (name === 'delta' && liveVersion.current !== null) {
+        const expected = liveVersion.current + 1;
+        liveVersion.current = data.version;
+        if (data.version !== expected) {
+          reloadStats();
+        } else {
+          setStats(prev => applyLiveDelta(prev, data));
+        }
+      }
+    });
+  }, [dateRange]);
+
+  const reloadStats = async () => {
+    try {
+      const statsResponse = await api.get('/api/dashboard/stats', {
+        params: { startDate: dateRange.start, endDate: dateRange.end }
+      });
+      setStats(statsResponse.data);
+    } catch (err) {
+      console.error('Error recargando estadísticas:', err);
+    }
+  };
+
   const loadDashboardData = async () => {
     try {
       setLoading(true);
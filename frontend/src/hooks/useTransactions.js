@@ -1,5 +1,5 @@
 import { useEffect, useMemo, useState } from 'react'
-import { API, HTTP } from '../api'
+import { API, HTTP, streamEvents } from '../api'
 import { formatCurrency, translateStatus, getRelativeTime } from '../utils/formatters'
 
 export default function useTransactions() {
@@ -17,6 +17,7 @@ export default function useTransactions() {
   const [pendingLoading, setPendingLoading] = useState(false)
 
   const [pendingConfirmationTransaction, setPendingConfirmationTransaction] = useState(null)
+  const [pendingBillingCount, setPendingBillingCount] = useState(null)
   const [selectedTransactionId, setSelectedTransactionId] = useState(null)
   const [currentView, setCurrentView] = useState('list')
 
@@ -110,13 +111,23 @@ export default function useTransactions() {
     }
   }, [currentView, pendingCurrentPage])
 
+  // Cantidad de pendientes de facturación desde el stream de métricas en vivo (sin polling)
   useEffect(() => {
-    const interval = setInterval(() => {
-      checkForPendingTransactions()
-    }, 10000)
-    checkForPendingTransactions()
-    return () => clearInterval(interval)
-  }, [currentView, pendingConfirmationTransaction])
+    return streamEvents('/api/dashboard/live', (name, data) => {
+      if (name === 'snapshot') {
+        setPendingBillingCount(data.pendingBilling)
+      } else if (name === 'delta' && data.byBillingStatus?.pending) {
+        setPendingBillingCount(prev => (prev ?? 0) + Number(data.byBillingStatus.pending))
+      }
+    })
+  }, [])
+
+  // La lista de pendientes se refresca solo cuando el stream informa un cambio
+  useEffect(() => {
+    if (currentView === 'pending-billing' && pendingBillingCount !== null) {
+      fetchPendingTransactions()
+    }
+  }, [pendingBillingCount])
 
   const handleFilterChange = (key, value) => {
     setFilters(prev => ({ ...prev, [key]: value }))
@@ -173,18 +184,6 @@ export default function useTransactions() {
     }
   }
 
-  const checkForPendingTransactions = async () => {
-    try {
-      const response = await HTTP.get(`${API}/api/transactions/pending-billing-confirmation?page=0&size=1`)
-      const pending = response.data.content || []
-      if (pending.length > 0) {
-        // info only
-      }
-    } catch (error) {
-      // ignore
-    }
-  }
-
   const goToConfirmationView = async () => {
     try {
       const response = await HTTP.get(`${API}/api/transactions/pending-billing-confirmation?page=0&size=50`)
@@ -383,6 +382,7 @@ export default function useTransactions() {
     setShowNoPendingModal,
     // pending
     pendingTransactions,
+    pendingBillingCount,
     pendingTotalPages,
     pendingCurrentPage,
     setPendingCurrentPage,